@@ -15,6 +15,7 @@
  */
 package org.ogema.core.model;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.ogema.core.model.array.FloatArrayResource;
@@ -72,6 +73,17 @@ public interface ResourceList<T extends Resource> extends Resource {
 	 */
 	void add(T reference);
 
+	/**
+	 * Add references to all given resources to the list, like calling
+	 * {@link #add(Resource)} for each of them, but updating the list only once.
+	 *
+	 * @param references The elements to add to this array, in the order of the
+	 * collection.
+	 * @throws IllegalArgumentException if the type of any reference is
+	 * incompatible with this array's type. No element is added in this case.
+	 */
+	void addAll(Collection<? extends T> references);
+
 	/**
 	 * Add direct child resource as element of the list
 	 *
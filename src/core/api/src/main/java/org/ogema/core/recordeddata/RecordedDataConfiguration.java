@@ -52,6 +52,12 @@ public class RecordedDataConfiguration implements Serializable {
 	 */
 	private long fixedInterval;
 
+	/**
+	 * Store the values in a compressed format. Compressed data need considerably less space, at the cost of more
+	 * expensive single writes. Implementations which do not support a compressed format ignore this setting.
+	 */
+	private boolean compressed;
+
 	/**
 	 * Getter method for the storage type to be used
 	 * 
@@ -89,4 +95,23 @@ public class RecordedDataConfiguration implements Serializable {
 	public void setFixedInterval(long fixedInterval) {
 		this.fixedInterval = fixedInterval;
 	}
+
+	/**
+	 * Getter for the compressed storage option
+	 * 
+	 * @return true if the values are to be stored in a compressed format
+	 */
+	public boolean isCompressed() {
+		return compressed;
+	}
+
+	/**
+	 * Setter for the compressed storage option. Changing this option does not convert values already stored.
+	 * 
+	 * @param compressed
+	 *            true if the values are to be stored in a compressed format
+	 */
+	public void setCompressed(boolean compressed) {
+		this.compressed = compressed;
+	}
 }
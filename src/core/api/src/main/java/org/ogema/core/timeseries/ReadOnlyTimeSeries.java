@@ -15,6 +15,7 @@
  */
 package org.ogema.core.timeseries;
 
+import java.util.Iterator;
 import java.util.List;
 
 import org.ogema.core.channelmanager.measurements.SampledValue;
@@ -73,6 +74,21 @@ public interface ReadOnlyTimeSeries {
 	 */
 	List<SampledValue> getValues(long startTime, long endTime);
 
+	/**
+	 * Gets an iterator over all values (time series) from startTime until endTime in ascending order of their
+	 * timestamps. Other than {@link #getValues(long, long)} the values need not be collected in a list before the first
+	 * one is returned, so implementations can read them lazily with bounded memory. The iterator does not support
+	 * {@link Iterator#remove()}. Whether changes of the time series during the iteration are reflected by the iterator
+	 * is implementation dependent.
+	 * 
+	 * @param startTime
+	 *            Time of the first value in the time series in ms since epoche. inclusive
+	 * @param endTime
+	 *            Time of the last value in the time series in ms since epoche. exclusive
+	 * @return An iterator over the value objects, which has no elements if no matching object has been found.
+	 */
+	Iterator<SampledValue> iterator(long startTime, long endTime);
+
 	/**
 	 * Reads how the schedule entries are to be interpreted to yield a function over time.
 	 * 
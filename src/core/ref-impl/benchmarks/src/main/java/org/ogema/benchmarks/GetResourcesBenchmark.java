@@ -0,0 +1,84 @@
+/**
+ * This file is part of OGEMA.
+ *
+ * OGEMA is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3
+ * as published by the Free Software Foundation.
+ *
+ * OGEMA is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with OGEMA. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.ogema.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.ogema.core.model.simple.FloatResource;
+import org.ogema.model.sensors.TemperatureSensor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Queries for resources of a type in a database with the given number of resources. A tenth of the toplevel
+ * resources are temperature sensors, the others float resources.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GetResourcesBenchmark {
+
+	@Param({ "MEMORY", "PERSISTENT" })
+	public ResourceFixture.Db db;
+
+	@Param({ "1000", "10000", "100000" })
+	public int resources;
+
+	private ResourceFixture fixture;
+
+	@Setup
+	public void setup() throws Exception {
+		fixture = new ResourceFixture(db);
+		for (int i = 0; i < resources; i++) {
+			if (i % 10 == 0) {
+				fixture.resourceManager.createResource("sensor" + i, TemperatureSensor.class);
+			}
+			else {
+				fixture.resourceManager.createResource("value" + i, FloatResource.class);
+			}
+		}
+	}
+
+	@TearDown
+	public void tearDown() throws Exception {
+		fixture.close();
+	}
+
+	@Benchmark
+	public List<TemperatureSensor> getResources() {
+		return fixture.resourceManager.getResources(TemperatureSensor.class);
+	}
+
+	@Benchmark
+	public List<TemperatureSensor> getToplevelResources() {
+		return fixture.resourceManager.getToplevelResources(TemperatureSensor.class);
+	}
+
+}
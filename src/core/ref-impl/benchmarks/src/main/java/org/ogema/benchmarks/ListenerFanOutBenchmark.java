@@ -0,0 +1,83 @@
+/**
+ * This file is part of OGEMA.
+ *
+ * OGEMA is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3
+ * as published by the Free Software Foundation.
+ *
+ * OGEMA is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with OGEMA. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.ogema.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.ogema.core.model.simple.FloatResource;
+import org.ogema.core.resourcemanager.ResourceValueListener;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Value writes of a {@link FloatResource} with value listeners, including the dispatch of the callbacks. Callbacks are
+ * delivered synchronously, see {@link Stubs#applicationManager(String)}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ListenerFanOutBenchmark {
+
+	@Param({ "1", "10", "100" })
+	public int listeners;
+
+	private ResourceFixture fixture;
+	private FloatResource resource;
+	private float value;
+	private Blackhole blackhole;
+
+	@Setup
+	public void setup(Blackhole blackhole) throws Exception {
+		this.blackhole = blackhole;
+		fixture = new ResourceFixture(ResourceFixture.Db.MEMORY);
+		resource = fixture.resourceManager.createResource("benchmarkValue", FloatResource.class);
+		resource.activate(false);
+		for (int i = 0; i < listeners; i++) {
+			resource.addValueListener(new ResourceValueListener<FloatResource>() {
+
+				@Override
+				public void resourceChanged(FloatResource r) {
+					ListenerFanOutBenchmark.this.blackhole.consume(r);
+				}
+			});
+		}
+	}
+
+	@TearDown
+	public void tearDown() throws Exception {
+		fixture.close();
+	}
+
+	@Benchmark
+	public boolean setValue() {
+		return resource.setValue(value++);
+	}
+
+}
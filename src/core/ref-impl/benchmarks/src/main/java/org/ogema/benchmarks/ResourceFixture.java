@@ -0,0 +1,94 @@
+/**
+ * This file is part of OGEMA.
+ *
+ * OGEMA is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3
+ * as published by the Free Software Foundation.
+ *
+ * OGEMA is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with OGEMA. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.ogema.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.ogema.core.application.ApplicationManager;
+import org.ogema.impl.persistence.ResourceDBImpl;
+import org.ogema.persistence.DBConstants;
+import org.ogema.recordeddata.DataRecorder;
+import org.ogema.resourcemanager.impl.ApplicationResourceManager;
+import org.ogema.resourcemanager.impl.ResourceDBManager;
+import org.ogema.resourcemanager.impl.model.ResourceFactory;
+import org.ogema.timer.TimerScheduler;
+
+/**
+ * Resource management of a single application on top of a resource database, without OSGi framework. The application
+ * has all permissions and receives its callbacks synchronously.
+ */
+public final class ResourceFixture {
+
+	/**
+	 * The resource database implementations.
+	 */
+	public enum Db {
+		/** {@link ResourceDBImpl} without persistence */
+		MEMORY,
+		/** {@link ResourceDBImpl} with persistence to a temporary directory */
+		PERSISTENT
+	}
+
+	static {
+		// the resource manager requires generated resource classes, proxies are only used inside OSGi
+		System.setProperty(ResourceFactory.USEBYTECODEGENERATION, "true");
+	}
+
+	final File directory;
+	final ResourceDBImpl resourceDb;
+	final ResourceDBManager dbManager;
+	final ApplicationManager appManager;
+	final ApplicationResourceManager resourceManager;
+
+	ResourceFixture(Db db) throws IOException {
+		this(db, Stubs.stub(DataRecorder.class));
+	}
+
+	ResourceFixture(Db db, DataRecorder recorder) throws IOException {
+		directory = Files.createTempDirectory("ogema-benchmark").toFile();
+		if (db == Db.PERSISTENT) {
+			System.setProperty(DBConstants.PROP_NAME_PERSISTENCE_ACTIVE, DBConstants.PROP_VALUE_PERSISTENCE_ACTIVE);
+			System.setProperty(DBConstants.DB_PATH_PROP, directory.getPath());
+		}
+		else {
+			System.setProperty(DBConstants.PROP_NAME_PERSISTENCE_ACTIVE, DBConstants.PROP_VALUE_PERSISTENCE_INACTIVE);
+		}
+		resourceDb = new ResourceDBImpl();
+		dbManager = new ResourceDBManager(resourceDb, recorder, Stubs.stub(TimerScheduler.class), null);
+		appManager = Stubs.applicationManager("benchmark");
+		resourceManager = new ApplicationResourceManager(appManager, Stubs.application(), dbManager,
+				Stubs.permissionManager());
+	}
+
+	void close() throws Exception {
+		resourceManager.close();
+		resourceDb.stop(null);
+		delete(directory);
+	}
+
+	static void delete(File file) {
+		File[] children = file.listFiles();
+		if (children != null) {
+			for (File child : children) {
+				delete(child);
+			}
+		}
+		file.delete();
+	}
+
+}
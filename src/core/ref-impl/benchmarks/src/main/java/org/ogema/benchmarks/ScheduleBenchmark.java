@@ -0,0 +1,98 @@
+/**
+ * This file is part of OGEMA.
+ *
+ * OGEMA is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3
+ * as published by the Free Software Foundation.
+ *
+ * OGEMA is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with OGEMA. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.ogema.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.ogema.core.channelmanager.measurements.FloatValue;
+import org.ogema.core.channelmanager.measurements.Quality;
+import org.ogema.core.channelmanager.measurements.SampledValue;
+import org.ogema.core.model.schedule.AbsoluteSchedule;
+import org.ogema.core.model.simple.FloatResource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Appends to a schedule, value by value and in batches of {@value #BATCH_SIZE} values. The schedule is cleared before
+ * each iteration.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScheduleBenchmark {
+
+	static final int BATCH_SIZE = 100;
+
+	@Param({ "MEMORY", "PERSISTENT" })
+	public ResourceFixture.Db db;
+
+	private ResourceFixture fixture;
+	private AbsoluteSchedule schedule;
+	private long time;
+
+	@Setup
+	public void setup() throws Exception {
+		fixture = new ResourceFixture(db);
+		FloatResource resource = fixture.resourceManager.createResource("benchmarkValue", FloatResource.class);
+		schedule = resource.program().create();
+		resource.activate(true);
+	}
+
+	@Setup(Level.Iteration)
+	public void clear() {
+		schedule.deleteValues();
+		time = 0;
+	}
+
+	@TearDown
+	public void tearDown() throws Exception {
+		fixture.close();
+	}
+
+	@Benchmark
+	public boolean addValue() {
+		time += 1000;
+		return schedule.addValue(time, new FloatValue(time));
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public boolean addValues() {
+		List<SampledValue> values = new ArrayList<>(BATCH_SIZE);
+		for (int i = 0; i < BATCH_SIZE; i++) {
+			time += 1000;
+			values.add(new SampledValue(new FloatValue(time), time, Quality.GOOD));
+		}
+		return schedule.addValues(values);
+	}
+
+}
@@ -0,0 +1,84 @@
+/**
+ * This file is part of OGEMA.
+ *
+ * OGEMA is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3
+ * as published by the Free Software Foundation.
+ *
+ * OGEMA is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with OGEMA. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.ogema.benchmarks;
+
+import java.io.StringWriter;
+import java.util.concurrent.TimeUnit;
+
+import org.ogema.core.model.ResourceList;
+import org.ogema.core.tools.SerializationManager;
+import org.ogema.model.sensors.TemperatureSensor;
+import org.ogema.tools.impl.SerializationManagerImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JSON serialization of a resource list of temperature sensors with readings.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+	@Param({ "10", "100" })
+	public int sensors;
+
+	private ResourceFixture fixture;
+	private SerializationManager serializationManager;
+	private ResourceList<TemperatureSensor> list;
+
+	@Setup
+	@SuppressWarnings("unchecked")
+	public void setup() throws Exception {
+		fixture = new ResourceFixture(ResourceFixture.Db.MEMORY);
+		list = fixture.resourceManager.createResource("sensors", ResourceList.class);
+		list.setElementType(TemperatureSensor.class);
+		for (int i = 0; i < sensors; i++) {
+			TemperatureSensor sensor = list.add();
+			sensor.reading().create();
+			sensor.reading().setCelsius(20 + i % 5);
+			sensor.ratedValues().upperLimit().create();
+		}
+		list.activate(true);
+		serializationManager = new SerializationManagerImpl(fixture.resourceManager, fixture.resourceManager);
+	}
+
+	@TearDown
+	public void tearDown() throws Exception {
+		fixture.close();
+	}
+
+	@Benchmark
+	public int writeJson() throws Exception {
+		StringWriter writer = new StringWriter();
+		serializationManager.writeJson(writer, list);
+		return writer.getBuffer().length();
+	}
+
+}
@@ -0,0 +1,117 @@
+/**
+ * This file is part of OGEMA.
+ *
+ * OGEMA is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3
+ * as published by the Free Software Foundation.
+ *
+ * OGEMA is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with OGEMA. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.ogema.benchmarks;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.ogema.core.channelmanager.measurements.FloatValue;
+import org.ogema.core.channelmanager.measurements.Quality;
+import org.ogema.core.channelmanager.measurements.SampledValue;
+import org.ogema.core.recordeddata.RecordedDataConfiguration;
+import org.ogema.core.recordeddata.RecordedDataConfiguration.StorageType;
+import org.ogema.recordeddata.RecordedDataStorage;
+import org.ogema.recordeddata.slotsdb.SlotsDb;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Appends to and range reads from a SlotsDB storage in a temporary directory. The storage used for the reads contains
+ * {@value #DAYS} days of values in intervals of {@value #INTERVAL} ms.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SlotsDbBenchmark {
+
+	static final int DAYS = 3;
+	static final long INTERVAL = 10000;
+	static final long HOUR = 3600000L;
+	static final long START = 1446076800000L; // 2015-10-29 00:00 UTC
+
+	@Param({ "ON_VALUE_UPDATE", "FIXED_INTERVAL" })
+	public StorageType storageType;
+
+	@Param({ "false", "true" })
+	public boolean compressed;
+
+	private File directory;
+	private RecordedDataStorage appendStorage;
+	private RecordedDataStorage readStorage;
+	private long time;
+
+	@Setup
+	public void setup() throws Exception {
+		directory = Files.createTempDirectory("ogema-benchmark").toFile();
+		SlotsDb slotsDb = new SlotsDb(directory.getPath() + "/");
+		RecordedDataConfiguration config = new RecordedDataConfiguration();
+		config.setStorageType(storageType);
+		config.setFixedInterval(INTERVAL);
+		config.setCompressed(compressed);
+		appendStorage = slotsDb.createRecordedDataStorage("append", config);
+		readStorage = slotsDb.createRecordedDataStorage("read", config);
+		for (long t = START; t < START + DAYS * 24 * HOUR; t += INTERVAL) {
+			readStorage.insertValue(new SampledValue(new FloatValue(t % 1000), t, Quality.GOOD));
+		}
+		time = START + DAYS * 24 * HOUR;
+	}
+
+	@TearDown
+	public void tearDown() {
+		ResourceFixture.delete(directory);
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.NANOSECONDS)
+	public long append() throws Exception {
+		time += INTERVAL;
+		appendStorage.insertValue(new SampledValue(new FloatValue(time), time, Quality.GOOD));
+		return time;
+	}
+
+	@Benchmark
+	public List<SampledValue> readHour() {
+		long start = START + 30 * HOUR;
+		return readStorage.getValues(start, start + HOUR);
+	}
+
+	@Benchmark
+	public List<SampledValue> readDay() {
+		long start = START + 12 * HOUR;
+		return readStorage.getValues(start, start + 24 * HOUR);
+	}
+
+	@Benchmark
+	public List<SampledValue> readAll() {
+		return readStorage.getValues(START, START + DAYS * 24 * HOUR);
+	}
+
+}
@@ -0,0 +1,95 @@
+/**
+ * This file is part of OGEMA.
+ *
+ * OGEMA is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3
+ * as published by the Free Software Foundation.
+ *
+ * OGEMA is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with OGEMA. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.ogema.benchmarks;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.ogema.core.model.simple.FloatResource;
+import org.ogema.impl.persistence.ResourceDBImpl;
+import org.ogema.impl.persistence.TimedPersistence;
+import org.ogema.persistence.DBConstants;
+import org.ogema.resourcetree.TreeElement;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Storage cycles of the {@link TimedPersistence} of a database with {@value #RESOURCES} resources, after the given
+ * number of resources has been changed. The periodic storage is disabled, the cycles are run by the benchmark.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StoreCycleBenchmark {
+
+	static final int RESOURCES = 10000;
+
+	@Param({ "1", "100", "1000" })
+	public int changes;
+
+	private File directory;
+	private ResourceDBImpl db;
+	private TreeElement[] elements;
+	private int next;
+	private float value;
+
+	@Setup
+	public void setup() throws Exception {
+		directory = Files.createTempDirectory("ogema-benchmark").toFile();
+		System.setProperty(DBConstants.PROP_NAME_PERSISTENCE_ACTIVE, DBConstants.PROP_VALUE_PERSISTENCE_ACTIVE);
+		System.setProperty(DBConstants.DB_PATH_PROP, directory.getPath());
+		System.setProperty(DBConstants.PROP_NAME_TIMEDPERSISTENCE_PERIOD, String.valueOf(Integer.MAX_VALUE));
+		db = new ResourceDBImpl();
+		db.addOrUpdateResourceType(FloatResource.class);
+		elements = new TreeElement[RESOURCES];
+		for (int i = 0; i < RESOURCES; i++) {
+			elements[i] = db.addResource("value" + i, FloatResource.class, "benchmark");
+		}
+		storageCycle();
+	}
+
+	@TearDown
+	public void tearDown() throws Exception {
+		db.stop(null);
+		ResourceFixture.delete(directory);
+	}
+
+	@Benchmark
+	public long storageCycle() {
+		for (int i = 0; i < changes; i++) {
+			elements[next].getData().setFloat(value++);
+			next = (next + 1) % RESOURCES;
+		}
+		TimedPersistence persistence = (TimedPersistence) db.getPersistencePolicy();
+		persistence.storeNow();
+		return persistence.getStoredResourceCount();
+	}
+
+}
@@ -0,0 +1,173 @@
+/**
+ * This file is part of OGEMA.
+ *
+ * OGEMA is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3
+ * as published by the Free Software Foundation.
+ *
+ * OGEMA is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with OGEMA. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.ogema.benchmarks;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.FutureTask;
+
+import org.ogema.accesscontrol.PermissionManager;
+import org.ogema.accesscontrol.ResourceAccessRights;
+import org.ogema.core.application.AppID;
+import org.ogema.core.application.Application;
+import org.ogema.core.application.ApplicationManager;
+
+/**
+ * Minimal implementations of the framework services needed to run the resource management outside of an OSGi
+ * framework. Methods which are not implemented explicitly return null, false, 0 or an empty collection.
+ */
+final class Stubs {
+
+	private Stubs() {
+	}
+
+	/**
+	 * Answers a method call of a stub, returning {@link #DEFAULT} for methods it does not implement.
+	 */
+	static abstract class Answer {
+
+		static final Object DEFAULT = new Object();
+
+		abstract Object answer(String method, Object[] args) throws Exception;
+	}
+
+	private static final Answer NONE = new Answer() {
+
+		@Override
+		Object answer(String method, Object[] args) {
+			return DEFAULT;
+		}
+	};
+
+	private static final Map<Class<?>, Object> PRIMITIVE_DEFAULTS = new HashMap<>();
+	static {
+		PRIMITIVE_DEFAULTS.put(boolean.class, false);
+		PRIMITIVE_DEFAULTS.put(byte.class, (byte) 0);
+		PRIMITIVE_DEFAULTS.put(short.class, (short) 0);
+		PRIMITIVE_DEFAULTS.put(char.class, (char) 0);
+		PRIMITIVE_DEFAULTS.put(int.class, 0);
+		PRIMITIVE_DEFAULTS.put(long.class, 0L);
+		PRIMITIVE_DEFAULTS.put(float.class, 0f);
+		PRIMITIVE_DEFAULTS.put(double.class, 0d);
+	}
+
+	static <T> T stub(Class<T> type) {
+		return stub(type, NONE);
+	}
+
+	static <T> T stub(final Class<T> type, final Answer answer) {
+		return type.cast(Proxy.newProxyInstance(Stubs.class.getClassLoader(), new Class<?>[] { type },
+				new InvocationHandler() {
+
+					@Override
+					public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+						Object result = answer.answer(method.getName(), args);
+						if (result != Answer.DEFAULT) {
+							return result;
+						}
+						switch (method.getName()) {
+						case "toString":
+							return type.getSimpleName() + " stub";
+						case "hashCode":
+							return System.identityHashCode(proxy);
+						case "equals":
+							return proxy == args[0];
+						}
+						Class<?> returnType = method.getReturnType();
+						if (returnType.isPrimitive()) {
+							return PRIMITIVE_DEFAULTS.get(returnType);
+						}
+						if (returnType == List.class) {
+							return Collections.emptyList();
+						}
+						if (returnType == Set.class) {
+							return Collections.emptySet();
+						}
+						if (returnType == Map.class) {
+							return Collections.emptyMap();
+						}
+						return null;
+					}
+				}));
+	}
+
+	/**
+	 * @return application manager which executes application events synchronously in the calling thread.
+	 */
+	static ApplicationManager applicationManager(final String appId) {
+		final AppID id = stub(AppID.class, new Answer() {
+
+			@Override
+			Object answer(String method, Object[] args) {
+				return method.equals("getIDString") ? appId : DEFAULT;
+			}
+		});
+		return stub(ApplicationManager.class, new Answer() {
+
+			@Override
+			Object answer(String method, Object[] args) throws Exception {
+				switch (method) {
+				case "getFrameworkTime":
+					return System.currentTimeMillis();
+				case "getAppID":
+					return id;
+				case "submitEvent":
+					@SuppressWarnings("unchecked")
+					FutureTask<Object> event = new FutureTask<>((Callable<Object>) args[0]);
+					event.run();
+					return event;
+				case "reportException":
+					((Throwable) args[0]).printStackTrace();
+					return null;
+				default:
+					return DEFAULT;
+				}
+			}
+		});
+	}
+
+	static Application application() {
+		return stub(Application.class);
+	}
+
+	/**
+	 * @return permission manager granting all rights on all resources.
+	 */
+	static PermissionManager permissionManager() {
+		return stub(PermissionManager.class, new Answer() {
+
+			@Override
+			Object answer(String method, Object[] args) {
+				switch (method) {
+				case "getAccessRights":
+					return ResourceAccessRights.ALL_RIGHTS;
+				case "handleSecurity":
+					return true;
+				default:
+					return DEFAULT;
+				}
+			}
+		});
+	}
+
+}
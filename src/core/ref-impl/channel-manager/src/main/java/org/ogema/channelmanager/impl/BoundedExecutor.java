@@ -0,0 +1,97 @@
+/**
+ * This file is part of OGEMA.
+ *
+ * OGEMA is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3
+ * as published by the Free Software Foundation.
+ *
+ * OGEMA is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with OGEMA. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.ogema.channelmanager.impl;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.slf4j.Logger;
+
+/**
+ * Runs tasks on a shared executor, but at most {@code maxConcurrent} of them at the same time. Further tasks are queued
+ * and executed in submission order as soon as a running task has finished. Used to limit the number of concurrent
+ * sampling requests per driver.
+ */
+final class BoundedExecutor implements Executor {
+
+	private final Logger logger = org.slf4j.LoggerFactory.getLogger(getClass());
+
+	private final Executor executor;
+	private final int maxConcurrent;
+	// guarded by this
+	private final Queue<Runnable> pending = new ArrayDeque<Runnable>();
+	// guarded by this
+	private int running;
+
+	BoundedExecutor(Executor executor, int maxConcurrent) {
+		if (maxConcurrent < 1) {
+			throw new IllegalArgumentException("maxConcurrent must be at least 1: " + maxConcurrent);
+		}
+		this.executor = executor;
+		this.maxConcurrent = maxConcurrent;
+	}
+
+	@Override
+	public void execute(Runnable task) {
+		synchronized (this) {
+			if (running >= maxConcurrent) {
+				pending.add(task);
+				return;
+			}
+			running++;
+		}
+		try {
+			executor.execute(new Worker(task));
+		} catch (RejectedExecutionException e) {
+			synchronized (this) {
+				running--;
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Runs its initial task and then the pending tasks, until the queue is empty.
+	 */
+	private class Worker implements Runnable {
+
+		private Runnable task;
+
+		Worker(Runnable task) {
+			this.task = task;
+		}
+
+		@Override
+		public void run() {
+			while (task != null) {
+				try {
+					task.run();
+				} catch (RuntimeException e) {
+					logger.warn("sampling task failed", e);
+				}
+				synchronized (BoundedExecutor.this) {
+					task = pending.poll();
+					if (task == null) {
+						running--;
+					}
+				}
+			}
+		}
+	}
+
+}
@@ -18,13 +18,28 @@ package org.ogema.channelmanager.impl;
 import java.io.IOException;
 import java.lang.ref.WeakReference;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.felix.scr.annotations.Component;
+import org.apache.felix.scr.annotations.Deactivate;
 import org.apache.felix.scr.annotations.Reference;
 import org.apache.felix.scr.annotations.ReferenceCardinality;
 import org.apache.felix.scr.annotations.ReferencePolicy;
@@ -66,18 +81,36 @@ import org.slf4j.LoggerFactory;
 @Reference(policy = ReferencePolicy.DYNAMIC, name = "drivers", referenceInterface = ChannelDriver.class, cardinality = ReferenceCardinality.OPTIONAL_MULTIPLE, bind = "addDriver", unbind = "removeDriver")
 public class ChannelManagerImpl implements ChannelAccess {
 
+	/**
+	 * Number of threads executing the read requests for the periodically read channels of all devices; system property
+	 * {@code org.ogema.channelmanager.samplingthreads}.
+	 */
+	static final int SAMPLING_THREADS = Integer.getInteger("org.ogema.channelmanager.samplingthreads", 8);
+
+	/**
+	 * Maximum number of concurrent read requests per driver; system property
+	 * {@code org.ogema.channelmanager.maxdriverreads}.
+	 */
+	static final int MAX_DRIVER_READS = Integer.getInteger("org.ogema.channelmanager.maxdriverreads", 4);
+
 	private final Map<String, WeakReference<ChannelDriver>> driverList;
 
-	private final List<DeviceLocator> knownDeviceLocators;
-	private final List<ChannelLocator> knownChannelLocators;
+	private final ConcurrentMap<DeviceLocator, DeviceLocator> knownDeviceLocators;
+	private final ConcurrentMap<ChannelLocator, ChannelLocator> knownChannelLocators;
 
-	private final List<Channel> asynchronChannels;
-	private final HashMap<String, List<SampledValueContainer>> asynchronousSampledValueContainersByDriver = new HashMap<String, List<SampledValueContainer>>();
-	private final Map<ChannelLocator, List<ChannelEventListener>> asycUpdateListeners = new HashMap<ChannelLocator, List<ChannelEventListener>>();
+	private final ConcurrentMap<ChannelLocator, Channel> asynchronChannels;
+	private final ConcurrentMap<ChannelLocator, CopyOnWriteArrayList<ChannelEventListener>> asycUpdateListeners = new ConcurrentHashMap<ChannelLocator, CopyOnWriteArrayList<ChannelEventListener>>();
 
-	private final List<Channel> channelList;
+	private final ConcurrentMap<ChannelLocator, Channel> channels;
 
-	private final List<CommDevice> devices;
+	private final ConcurrentMap<DeviceLocator, CommDevice> devices;
+
+	/*
+	 * only fires the sampling timers, the (possibly blocking) driver reads are executed on the samplingWorkers
+	 */
+	private final ScheduledExecutorService samplingScheduler;
+	private final ExecutorService samplingWorkers;
+	private final Map<String, Executor> driverExecutors = new HashMap<String, Executor>();
 
 	@Reference
 	private PermissionManager permMan;
@@ -97,72 +130,96 @@ public class ChannelManagerImpl implements ChannelAccess {
 	 */
 	public ChannelManagerImpl() {
 		driverList = new HashMap<String, WeakReference<ChannelDriver>>();
-		channelList = new LinkedList<Channel>();
-		asynchronChannels = new LinkedList<Channel>();
-		devices = new LinkedList<CommDevice>();
+		channels = new ConcurrentHashMap<ChannelLocator, Channel>();
+		asynchronChannels = new ConcurrentHashMap<ChannelLocator, Channel>();
+		devices = new ConcurrentHashMap<DeviceLocator, CommDevice>();
+		samplingScheduler = createSamplingScheduler();
+		samplingWorkers = createSamplingWorkers();
 		createChannelUpdateListener();
-		knownDeviceLocators = new LinkedList<DeviceLocator>();
-		knownChannelLocators = new LinkedList<ChannelLocator>();
+		knownDeviceLocators = new ConcurrentHashMap<DeviceLocator, DeviceLocator>();
+		knownChannelLocators = new ConcurrentHashMap<ChannelLocator, ChannelLocator>();
 	}
 
-	private void createChannelUpdateListener() {
-		channelUpdateListener = new ChannelUpdateListener() {
+	private static ThreadFactory createThreadFactory(final String name) {
+		return new ThreadFactory() {
 
-			@Override
-			public void exceptionOccured(Exception e) {
-			}
+			private final AtomicInteger count = new AtomicInteger();
 
 			@Override
-			public void channelsUpdated(List<SampledValueContainer> channels) {
-				if (asycUpdateListeners.get(channels.get(0).getChannelLocator()) != null) {
-					// For Async
-
-					for (SampledValueContainer channelData : channels) {
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r);
+				t.setName(name + " " + count.incrementAndGet());
+				t.setDaemon(true);
+				return t;
+			}
+		};
+	}
 
-						for (Channel c : channelList) {
-							if (channelData.getChannelLocator()
-									.equals(c.getSampledValueContainer().getChannelLocator())) {
+	private static ScheduledExecutorService createSamplingScheduler() {
+		// the scheduled tasks only hand the read requests over to the workers, so a single thread is sufficient
+		ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1,
+				createThreadFactory("ChannelManager sampling scheduler"));
+		// sampling tasks are cancelled on every configuration change
+		executor.setRemoveOnCancelPolicy(true);
+		return executor;
+	}
 
-								c.setValue(channelData.getSampledValue());
+	private static ExecutorService createSamplingWorkers() {
+		int threads = Math.max(SAMPLING_THREADS, 1);
+		return new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(),
+				createThreadFactory("ChannelManager sampling thread"));
+	}
 
-							}
-						}
+	@Deactivate
+	protected void deactivate() {
+		samplingScheduler.shutdownNow();
+		samplingWorkers.shutdownNow();
+	}
 
-						List<SampledValueContainer> singleValueList = new LinkedList<SampledValueContainer>();
+	/**
+	 * @return executor on which the sampling of all devices is scheduled. Tasks scheduled on it must not block.
+	 */
+	ScheduledExecutorService getSamplingScheduler() {
+		return samplingScheduler;
+	}
 
-						singleValueList.add(channelData);
+	/**
+	 * @return executor for the read requests of the given driver, running at most {@link #MAX_DRIVER_READS} requests
+	 *         at the same time on the sampling worker threads.
+	 */
+	Executor getDriverExecutor(String driverName) {
+		synchronized (driverExecutors) {
+			Executor executor = driverExecutors.get(driverName);
+			if (executor == null) {
+				executor = new BoundedExecutor(samplingWorkers, Math.max(MAX_DRIVER_READS, 1));
+				driverExecutors.put(driverName, executor);
+			}
+			return executor;
+		}
+	}
 
-						ChannelLocator channelLocator = channelData.getChannelLocator();
+	private void createChannelUpdateListener() {
+		channelUpdateListener = new ChannelUpdateListener() {
 
-						/* call update listeners */
-						List<ChannelEventListener> updateEventListeners = asycUpdateListeners.get(channelLocator);
+			@Override
+			public void exceptionOccured(Exception e) {
+			}
 
-						if (updateEventListeners != null) {
-							callEventListeners(singleValueList, updateEventListeners);
-						}
+			@Override
+			public void channelsUpdated(List<SampledValueContainer> containers) {
+				for (SampledValueContainer channelData : containers) {
+					ChannelLocator channelLocator = channelData.getChannelLocator();
 
+					Channel channel = channels.get(channelLocator);
+					if (channel != null) {
+						channel.setValue(channelData.getSampledValue());
 					}
 
-				}
-				else {
-					// For Sync
-					for (SampledValueContainer svc : channels) {
-						if (asycUpdateListeners.get(svc.getChannelLocator()) != null) {
-							for (Channel c : asynchronChannels) {
-								if (svc.getChannelLocator().equals(c.getSampledValueContainer().getChannelLocator())) {
-
-									c.setValue(svc.getSampledValue());
-									callEventListeners(channels, asycUpdateListeners.get(c));
-								}
-							}
-						}
-						for (Channel c : channelList) {
-							if (svc.getChannelLocator().equals(c.getSampledValueContainer().getChannelLocator())) {
-
-								c.setValue(svc.getSampledValue());
+					/* call update listeners */
+					List<ChannelEventListener> updateEventListeners = asycUpdateListeners.get(channelLocator);
 
-							}
-						}
+					if (updateEventListeners != null) {
+						callEventListeners(Collections.singletonList(channelData), updateEventListeners);
 					}
 				}
 			}
@@ -175,35 +232,16 @@ public class ChannelManagerImpl implements ChannelAccess {
 	}
 
 	private Channel lookupChannel(ChannelLocator channelLocator) {
-		for (Channel channel : channelList) {
-			if (channel.getConfiguration().getChannelLocator().equals(channelLocator)) {
-				return channel;
-			}
-		}
-
-		return null;
+		return channels.get(channelLocator);
 	}
 
 	private Channel lookupAsynchonChannel(ChannelLocator channelLocator) {
-		for (Channel channel : asynchronChannels) {
-			if (channel.getConfiguration().getChannelLocator().equals(channelLocator)) {
-				return channel;
-			}
-		}
-
-		return null;
+		return asynchronChannels.get(channelLocator);
 	}
 
 	private void callEventListeners(List<SampledValueContainer> singleValueList, List<ChannelEventListener> listeners) {
-		for (ChannelEventListener listenerReference : listeners) {
-			ChannelEventListener listener = listenerReference;
-
-			if (listener == null) {
-				listeners.remove(listenerReference);
-			}
-			else {
-				listener.channelEvent(EventType.UPDATED, singleValueList);
-			}
+		for (ChannelEventListener listener : listeners) {
+			listener.channelEvent(EventType.UPDATED, singleValueList);
 		}
 	}
 
@@ -265,12 +303,12 @@ public class ChannelManagerImpl implements ChannelAccess {
 			CommDevice matchingDevice = lookupDevice(channel);
 			if (matchingDevice == null) {
 				matchingDevice = new CommDevice(deviceLocator, driver, this);
-				devices.add(matchingDevice);
+				devices.put(matchingDevice.getDeviceLocator(), matchingDevice);
 			}
 
 			matchingDevice.addChannel(channel);
 			driver.channelAdded(channel.getConfiguration().getChannelLocator());
-			channelList.add(channel);
+			channels.put(configuration.getChannelLocator(), channel);
 
 		}
 		// For asynchrony Communication
@@ -280,16 +318,11 @@ public class ChannelManagerImpl implements ChannelAccess {
 			}
 
 			driver.channelAdded(channel.getConfiguration().getChannelLocator());
-			channelList.add(channel);
-			asynchronChannels.add(channel);
-			List<SampledValueContainer> containers = asynchronousSampledValueContainersByDriver.get(configuration
-					.getDeviceLocator());
-
-			if (containers == null) {
-				containers = new ArrayList<SampledValueContainer>();
-				asynchronousSampledValueContainersByDriver.put(deviceLocator.getDriverName(), containers);
-			}
+			channels.put(configuration.getChannelLocator(), channel);
+			asynchronChannels.put(configuration.getChannelLocator(), channel);
 
+			// drivers add the channels to the ones they are already listening for
+			List<SampledValueContainer> containers = new ArrayList<SampledValueContainer>(1);
 			containers.add(channel.getSampledValueContainer());
 			try {
 				driver.listenChannels(containers, channelUpdateListener);
@@ -302,15 +335,7 @@ public class ChannelManagerImpl implements ChannelAccess {
 	}
 
 	private CommDevice lookupDevice(Channel channel) {
-		CommDevice matchingDevice = null;
-
-		for (CommDevice device : devices) {
-			if (device.doesChannelMatch(channel)) {
-				matchingDevice = device;
-				break;
-			}
-		}
-		return matchingDevice;
+		return devices.get(channel.getConfiguration().getChannelLocator().getDeviceLocator());
 	}
 
 	private ChannelDriver lookupDriverByName(String driverName) {
@@ -348,20 +373,9 @@ public class ChannelManagerImpl implements ChannelAccess {
 
 		DeviceLocator deviceLocator = new DefaultDeviceLocator(driverName, interfaceName, deviceAddress, parameters);
 
-		synchronized (knownDeviceLocators) {
-
-			for (DeviceLocator knownDeviceLocator : knownDeviceLocators) {
-				if (deviceLocator.equals(knownDeviceLocator)) {
-					return knownDeviceLocator;
-				}
-
-			}
-
-			knownDeviceLocators.add(deviceLocator);
-
-		}
+		DeviceLocator knownDeviceLocator = knownDeviceLocators.putIfAbsent(deviceLocator, deviceLocator);
 
-		return deviceLocator;
+		return knownDeviceLocator != null ? knownDeviceLocator : deviceLocator;
 	}
 
 	@Override
@@ -375,19 +389,9 @@ public class ChannelManagerImpl implements ChannelAccess {
 			throw new SecurityException("Action not permitted.");
 		}
 
-		synchronized (knownChannelLocators) {
-
-			for (ChannelLocator knownChannelLocator : knownChannelLocators) {
-				if (channelLocator.equals(knownChannelLocator)) {
-					return knownChannelLocator;
-				}
-			}
-
-			knownChannelLocators.add(channelLocator);
-
-		}
+		ChannelLocator knownChannelLocator = knownChannelLocators.putIfAbsent(channelLocator, channelLocator);
 
-		return channelLocator;
+		return knownChannelLocator != null ? knownChannelLocator : channelLocator;
 	}
 
 	@Override
@@ -406,10 +410,9 @@ public class ChannelManagerImpl implements ChannelAccess {
 				device.removeChannel(channel);
 		}
 
-		channelList.remove(channel);
+		channels.remove(channelLocator);
 		if (channel.getConfiguration().getSamplingPeriod() < 0) {
-			asynchronChannels.remove(channel);
-			asynchronousSampledValueContainersByDriver.remove(channel.getSampledValueContainer());
+			asynchronChannels.remove(channelLocator);
 			lookupDriver(channel).channelRemoved(channel.getSampledValueContainer().getChannelLocator());
 		}
 	}
@@ -429,20 +432,20 @@ public class ChannelManagerImpl implements ChannelAccess {
 
 	@Override
 	public List<ChannelLocator> getAllConfiguredChannels() {
-		List<ChannelLocator> channels = new LinkedList<ChannelLocator>();
+		List<ChannelLocator> result = new ArrayList<ChannelLocator>(channels.size());
 
-		for (Channel channel : channelList) {
+		for (Channel channel : channels.values()) {
 			/*
 			 * Check permission: In order to perform the action to get a configured channel the caller has to be
 			 * permitted to add the channel itself.
 			 */
 			// ChannelConfiguration conf = channel.getConfiguration();
 			// if (permMan.checkAddChannel(conf, conf.getDeviceLocator())) {
-			channels.add(channel.getConfiguration().getChannelLocator());
+			result.add(channel.getConfiguration().getChannelLocator());
 			// }
 		}
 
-		return channels;
+		return result;
 	}
 
 	@Override
@@ -569,8 +572,58 @@ public class ChannelManagerImpl implements ChannelAccess {
 			throw new IllegalArgumentException("Non-compatible list sizes");
 		}
 
+		/* check all channels first and group the values by driver, so that each driver is called only once */
+		Map<ChannelDriver, List<ValueContainer>> valuesByDriver = new LinkedHashMap<ChannelDriver, List<ValueContainer>>();
+
 		for (int i = 0; i < channelLocators.size(); i++) {
-			setChannelValue(channelLocators.get(i), values.get(i));
+			ChannelLocator channelLocator = channelLocators.get(i);
+			Channel channel = lookupChannel(channelLocator);
+
+			if (channel == null) {
+				throw new ChannelAccessException("Channel \"" + channelLocator + "\" does not exist");
+			}
+			if (!channel.isWritable()) {
+				throw new ChannelAccessException("Channel \"" + channelLocator + "\" is not writable.");
+			}
+
+			ChannelDriver driver = lookupDriver(channel);
+
+			if (driver == null) {
+				throw new ChannelAccessException("low-level driver not available.");
+			}
+
+			List<ValueContainer> driverValues = valuesByDriver.get(driver);
+			if (driverValues == null) {
+				driverValues = new ArrayList<ValueContainer>();
+				valuesByDriver.put(driver, driverValues);
+			}
+			driverValues.add(new ValueContainer(channelLocator, values.get(i)));
+		}
+
+		for (Map.Entry<ChannelDriver, List<ValueContainer>> entry : valuesByDriver.entrySet()) {
+			writeChannels(entry.getKey(), entry.getValue());
+		}
+	}
+
+	/**
+	 * Writes the values with a single driver call, falls back to writing them one by one if the driver does not
+	 * support writing multiple channels.
+	 */
+	private void writeChannels(ChannelDriver driver, List<ValueContainer> values) throws ChannelAccessException {
+		try {
+			if (values.size() > 1) {
+				try {
+					driver.writeChannels(values);
+					return;
+				} catch (UnsupportedOperationException e) {
+					// try single writes
+				}
+			}
+			for (ValueContainer container : values) {
+				driver.writeChannel(container.getChannelLocator(), container.getValue());
+			}
+		} catch (UnsupportedOperationException | NoSuchDeviceException | IOException | NoSuchChannelException e) {
+			throw new ChannelAccessException(e);
 		}
 	}
 
@@ -579,16 +632,12 @@ public class ChannelManagerImpl implements ChannelAccess {
 
 		if (channelLocators != null) {
 
-			List<SampledValue> values = new LinkedList<SampledValue>();
-			SampledValue value;
+			List<SampledValue> values = new ArrayList<SampledValue>(channelLocators.size());
 
 			for (ChannelLocator cl : channelLocators) {
-				try {
-					value = getChannelValue(cl);
-				} catch (ChannelAccessException e) {
-					value = new SampledValue(null, 0, Quality.BAD);
-				}
-				values.add(value);
+				Channel channel = lookupChannel(cl);
+				SampledValue value = channel != null ? channel.getValue() : null;
+				values.add(value != null ? value : new SampledValue(null, 0, Quality.BAD));
 			}
 
 			return values;
@@ -605,32 +654,20 @@ public class ChannelManagerImpl implements ChannelAccess {
 
 			Channel channel = lookupChannel(channelLocator);
 			CommDevice matchingDevice = lookupDevice(channel);
-			boolean listenerExist = false;
 			if (channel.getConfiguration().getSamplingPeriod() < 0) {
 				// FOR ASYNCHONY CHANNELS
-				List<ChannelEventListener> channelListeners = asycUpdateListeners.get(channelLocator);
+				CopyOnWriteArrayList<ChannelEventListener> channelListeners = asycUpdateListeners.get(channelLocator);
 
 				if (channelListeners == null) {
-
-					channelListeners = new LinkedList<ChannelEventListener>();
-
-					asycUpdateListeners.put(channelLocator, channelListeners);
-
-				}
-				else {
-					for (ChannelEventListener selectListener : channelListeners) {
-						if (selectListener == listener) {
-							listenerExist = true;
-							break;
-						}
+					channelListeners = new CopyOnWriteArrayList<ChannelEventListener>();
+					CopyOnWriteArrayList<ChannelEventListener> existing = asycUpdateListeners.putIfAbsent(
+							channelLocator, channelListeners);
+					if (existing != null) {
+						channelListeners = existing;
 					}
 				}
 
-				if (!listenerExist) {
-
-					channelListeners.add(listener);
-					asycUpdateListeners.put(channelLocator, channelListeners);
-				}
+				channelListeners.addIfAbsent(listener);
 
 			}
 			else {// FOR SYNCHONY CHANNELS
@@ -653,7 +690,7 @@ public class ChannelManagerImpl implements ChannelAccess {
 	}
 
 	void removeDevice(CommDevice commDevice) {
-		devices.remove(commDevice);
+		devices.remove(commDevice.getDeviceLocator(), commDevice);
 	}
 
 	@Override
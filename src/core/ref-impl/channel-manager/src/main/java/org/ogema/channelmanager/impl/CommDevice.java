@@ -15,7 +15,7 @@
  */
 package org.ogema.channelmanager.impl;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 
@@ -31,17 +31,16 @@ class CommDevice {
 	private final ChannelManagerImpl channelManager;
 
 	public CommDevice(DeviceLocator device, ChannelDriver driver, ChannelManagerImpl channelManager) {
-		this.channels = new LinkedList<Channel>();
+		this.channels = new ArrayList<Channel>();
 		this.deviceLocator = device;
 		this.channelManager = channelManager;
 
-		this.readerThread = new DeviceReaderThread(this, driver);
-		// this.readerThread.updateConfiguration();
-		this.readerThread.start();
-
+		// sampling is scheduled once the first periodic channel is added
+		this.reader = new DeviceReader(this, driver, channelManager.getSamplingScheduler(),
+				channelManager.getDriverExecutor(device.getDriverName()));
 	}
 
-	private final DeviceReaderThread readerThread;
+	private final DeviceReader reader;
 	private final DeviceLocator deviceLocator;
 	private final List<Channel> channels;
 
@@ -53,13 +52,7 @@ class CommDevice {
 
 	public List<Channel> getChannels() {
 
-		List<Channel> channellistcopy = new LinkedList<Channel>();
-
-		for (int i = 0; i < channels.size(); i++) {
-			channellistcopy.add(channels.get(i));
-		}
-
-		return channellistcopy;
+		return new ArrayList<Channel>(channels);
 	}
 
 	public void addChannel(Channel channel) {
@@ -72,7 +65,7 @@ class CommDevice {
 		channels.add(channel);
 
 		if (channel.getConfiguration().getSamplingPeriod() > 0) {
-			readerThread.updateConfiguration();
+			reader.updateConfiguration();
 		}
 
 		// ### Für was ist das gut?
@@ -85,10 +78,10 @@ class CommDevice {
 
 		if (channels.contains(channel)) {
 			channels.remove(channel);
-			readerThread.updateConfiguration();
-			readerThread.removeChannel(channel);
+			reader.updateConfiguration();
+			reader.removeChannel(channel);
 			if (channels.size() == 0) {
-				readerThread.close();
+				reader.close();
 				channelManager.removeDevice(this);
 			}
 		}
@@ -134,10 +127,10 @@ class CommDevice {
 	}
 
 	public void addChannelUpdateListener(Channel channel, ChannelEventListener listener) {
-		readerThread.addChannelUpdateListener(channel, listener);
+		reader.addChannelUpdateListener(channel, listener);
 	}
 
 	public void addChannelChangedListener(Channel channel, ChannelEventListener listener) {
-		readerThread.addChannelChangedListener(channel, listener);
+		reader.addChannelChangedListener(channel, listener);
 	}
 }
@@ -18,10 +18,16 @@ package org.ogema.channelmanager.impl;
 import java.io.IOException;
 import java.lang.ref.WeakReference;
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 import org.ogema.core.channelmanager.ChannelEventListener;
 import org.ogema.core.channelmanager.EventType;
@@ -34,106 +40,126 @@ import org.ogema.core.channelmanager.measurements.SampledValue;
 import org.ogema.core.channelmanager.measurements.Value;
 import org.slf4j.Logger;
 
-public class DeviceReaderThread extends Thread {
+/**
+ * Periodic sampling of the channels of a {@link CommDevice}. Instead of a thread per device, the reader schedules a
+ * task for the next due time of its {@link SamplingSchedule} on the scheduler shared by all devices. That task only
+ * hands the read over to the executor of the driver, which runs it on the sampling worker threads and limits the
+ * number of concurrent requests per driver, so blocking reads never delay the timers. Configuration changes cancel
+ * the pending task and reschedule immediately.
+ */
+public class DeviceReader {
 
 	private final Logger logger = org.slf4j.LoggerFactory.getLogger(getClass());
 
-	private static final int DEFAULT_SLEEP_TIME = 1000;
-
 	private final CommDevice device;
 	private final ChannelDriver driver;
-	volatile boolean running = true;
+	private final ScheduledExecutorService scheduler;
+	private final Executor driverExecutor;
 
-	// FIXME: change to volatile?
-	private boolean configurationUpdated = false;
+	// guarded by this
+	private SamplingSchedule samplingSchedule;
+	// guarded by this
+	private ScheduledFuture<?> nextSampling;
+	// guarded by this; true from the due time of a sampling until its read has finished
+	private boolean sampling = false;
+	// guarded by this
+	private boolean closed = false;
 
-	private final Map<ChannelLocator, List<WeakReference<ChannelEventListener>>> updateListeners = new HashMap<ChannelLocator, List<WeakReference<ChannelEventListener>>>();
+	private final ConcurrentMap<ChannelLocator, List<WeakReference<ChannelEventListener>>> updateListeners = new ConcurrentHashMap<ChannelLocator, List<WeakReference<ChannelEventListener>>>();
 
-	private final Map<ChannelLocator, List<WeakReference<ChannelEventListener>>> changedListeners = new HashMap<ChannelLocator, List<WeakReference<ChannelEventListener>>>();
+	private final ConcurrentMap<ChannelLocator, List<WeakReference<ChannelEventListener>>> changedListeners = new ConcurrentHashMap<ChannelLocator, List<WeakReference<ChannelEventListener>>>();
 
-	public DeviceReaderThread(CommDevice device, ChannelDriver driver) {
+	/**
+	 * @param scheduler
+	 *            executor on which the sampling tasks are scheduled, shared by all devices; only used for the due
+	 *            times, never for reads
+	 * @param driverExecutor
+	 *            executor running the read requests of the driver
+	 */
+	public DeviceReader(CommDevice device, ChannelDriver driver, ScheduledExecutorService scheduler,
+			Executor driverExecutor) {
 		this.device = device;
 		this.driver = driver;
-		this.setName("DeviceReader_" + device.getDeviceLocator().toString());
+		this.scheduler = scheduler;
+		this.driverExecutor = driverExecutor;
 	}
 
-	@Override
-	public void run() {
-
-		SamplingSchedule samplingSchedule = null;
-
-		while (running) {
-
-			if (doChannelsWithPeriodicSamplingExist()) {
-
-				// check if schedule is null. it can be null on the first run or when the configuration has changed
-				if (samplingSchedule == null) {
-					// create a new schedule
-					samplingSchedule = new SamplingSchedule(device.getChannels());
-				}
-
-				SamplingScheduleElement scheduleElement = samplingSchedule.getFirstElement();
-
-				try {
-					waitTillNextSamplingTime(scheduleElement.getSamplingTimestamp());
-				} catch (UpdateConfigurationException e) {
-					// config has changed
-					configurationUpdated = false;
-					samplingSchedule = null;
-					continue;
-				}
-
-				/* Create list of channels to sample and backup old data for event detection */
-				List<SampledValueContainer> nextChannels = new LinkedList<SampledValueContainer>();
-				List<SampledValue> oldValues = new LinkedList<SampledValue>();
+	/**
+	 * Schedules the next sampling of the current schedule, unless a sampling is in progress. In that case the next
+	 * sampling is scheduled once the read has finished.
+	 */
+	// guarded by this
+	private void scheduleNextSampling() {
+		if (closed || sampling || samplingSchedule == null) {
+			return;
+		}
+		final SamplingSchedule schedule = samplingSchedule;
+		long delay = schedule.getFirstElement().getSamplingTimestamp() - System.currentTimeMillis();
+		try {
+			nextSampling = scheduler.schedule(new Runnable() {
 
-				for (Channel channel : scheduleElement.getChannels()) {
-					nextChannels.add(channel.getSampledValueContainer());
-					oldValues.add(channel.getSampledValueContainer().getSampledValue());
+				@Override
+				public void run() {
+					samplingDue(schedule);
 				}
-
-				samplingSchedule.update();
-
-				triggerSampling(nextChannels, oldValues);
-			}
-			else {
-				// non periodic channels available. no need to create a sampling schedule.
-				threadSleep(DEFAULT_SLEEP_TIME);
-				continue;
-			}
-
+			}, Math.max(delay, 0), TimeUnit.MILLISECONDS);
+		} catch (RejectedExecutionException e) {
+			logger.debug("sampling executor shut down, device reader for {} stopped", device.getDeviceLocator());
+			nextSampling = null;
 		}
-
-		logger.debug("DeviceReaderThread stopped");
 	}
 
 	/**
-	 * Wait until the current time has reached the next sampling time
-	 * 
-	 * @throws UpdateConfigurationException
-	 *             Is thrown when configuration has been updated.
+	 * Called by the shared scheduler at the due time of the first element of the schedule. Takes the channels to be
+	 * sampled from the schedule and hands the read over to the driver executor.
 	 */
-	private void waitTillNextSamplingTime(long nextSamplingTimestamp) throws UpdateConfigurationException {
-
-		while (System.currentTimeMillis() < nextSamplingTimestamp) {
-
-			// abort if configuration has changed
-			if (configurationUpdated) {
-				throw new UpdateConfigurationException();
+	private void samplingDue(SamplingSchedule schedule) {
+		final List<SampledValueContainer> nextChannels;
+		final List<SampledValue> oldValues;
+		synchronized (this) {
+			// the configuration has changed since this task was scheduled
+			if (closed || schedule != samplingSchedule) {
+				return;
 			}
-
-			// check every second if the configuration has changed or nextSamplingTime is reached
-			long timeToNextSamplingMs = nextSamplingTimestamp - System.currentTimeMillis();
-			if (timeToNextSamplingMs < DEFAULT_SLEEP_TIME) {
-				threadSleep(timeToNextSamplingMs);
-			}
-			else {
-				threadSleep(DEFAULT_SLEEP_TIME);
+			nextSampling = null;
+
+			/* Create list of channels to sample and backup old data for event detection */
+			List<Channel> channels = schedule.getFirstElement().getChannels();
+			nextChannels = new ArrayList<SampledValueContainer>(channels.size());
+			oldValues = new ArrayList<SampledValue>(channels.size());
+			for (Channel channel : channels) {
+				SampledValueContainer container = channel.getSampledValueContainer();
+				nextChannels.add(container);
+				oldValues.add(container.getSampledValue());
 			}
 
+			schedule.update();
+			sampling = true;
+		}
+		Runnable read = new Runnable() {
+
+			@Override
+			public void run() {
+				try {
+					triggerSampling(nextChannels, oldValues);
+				} finally {
+					samplingFinished();
+				}
+			}
+		};
+		try {
+			driverExecutor.execute(read);
+		} catch (RejectedExecutionException e) {
+			logger.debug("sampling executor shut down, device reader for {} stopped", device.getDeviceLocator());
+			samplingFinished();
 		}
 	}
 
+	private synchronized void samplingFinished() {
+		sampling = false;
+		scheduleNextSampling();
+	}
+
 	private void triggerSampling(List<SampledValueContainer> nextChannels, List<SampledValue> oldValues) {
 
 		try {
@@ -164,25 +190,39 @@ public class DeviceReaderThread extends Thread {
 	 */
 	private void addChannelToListenerList(ChannelEventListener newListener,
 			List<WeakReference<ChannelEventListener>> channelListeners) {
-		boolean foundListener = false;
+		// the list is copy on write, locking only serializes concurrent registrations
+		synchronized (channelListeners) {
+			for (WeakReference<ChannelEventListener> listenerReference : channelListeners) {
+				ChannelEventListener listener = listenerReference.get();
 
-		for (WeakReference<ChannelEventListener> listenerReference : channelListeners) {
-			ChannelEventListener listener = listenerReference.get();
+				if (listener == null) {
+					channelListeners.remove(listenerReference);
+					continue;
+				}
 
-			if (listener == null) {
-				channelListeners.remove(listenerReference);
-				continue;
+				if (listener == newListener) {
+					return;
+				}
 			}
 
-			if (listener == newListener) {
-				foundListener = true;
-				break;
-			}
+			channelListeners.add(new WeakReference<ChannelEventListener>(newListener));
 		}
+	}
 
-		if (!foundListener) {
-			channelListeners.add(new WeakReference<ChannelEventListener>(newListener));
+	private static List<WeakReference<ChannelEventListener>> getListenerList(
+			ConcurrentMap<ChannelLocator, List<WeakReference<ChannelEventListener>>> listeners,
+			ChannelLocator channelLocator) {
+		List<WeakReference<ChannelEventListener>> channelListeners = listeners.get(channelLocator);
+
+		if (channelListeners == null) {
+			channelListeners = new CopyOnWriteArrayList<WeakReference<ChannelEventListener>>();
+			List<WeakReference<ChannelEventListener>> existing = listeners.putIfAbsent(channelLocator,
+					channelListeners);
+			if (existing != null) {
+				channelListeners = existing;
+			}
 		}
+		return channelListeners;
 	}
 
 	public void removeChannel(Channel channel) {
@@ -197,38 +237,39 @@ public class DeviceReaderThread extends Thread {
 	public void addChannelUpdateListener(Channel channel, ChannelEventListener newUpdateListener) {
 		ChannelLocator channelLocator = channel.getConfiguration().getChannelLocator();
 
-		List<WeakReference<ChannelEventListener>> channelListeners = updateListeners.get(channelLocator);
-
-		if (channelListeners == null) {
-			channelListeners = new LinkedList<WeakReference<ChannelEventListener>>();
-
-			updateListeners.put(channelLocator, channelListeners);
-		}
-
-		addChannelToListenerList(newUpdateListener, channelListeners);
+		addChannelToListenerList(newUpdateListener, getListenerList(updateListeners, channelLocator));
 	}
 
 	public void addChannelChangedListener(Channel channel, ChannelEventListener newChangedListener) {
 		ChannelLocator channelLocator = channel.getConfiguration().getChannelLocator();
 
-		List<WeakReference<ChannelEventListener>> channelListeners = changedListeners.get(channelLocator);
-
-		if (channelListeners == null) {
-			channelListeners = new LinkedList<WeakReference<ChannelEventListener>>();
-
-			changedListeners.put(channelLocator, channelListeners);
-		}
-
-		addChannelToListenerList(newChangedListener, channelListeners);
+		addChannelToListenerList(newChangedListener, getListenerList(changedListeners, channelLocator));
 	}
 
-	public void updateConfiguration() {
+	/**
+	 * Creates a new schedule from the current channels of the device and reschedules the next sampling accordingly.
+	 */
+	public synchronized void updateConfiguration() {
 		logger.debug("update configuration called!");
-		configurationUpdated = true;
+		if (closed) {
+			return;
+		}
+		if (nextSampling != null) {
+			nextSampling.cancel(false);
+			nextSampling = null;
+		}
+		List<Channel> sampledChannels = getAllPeriodicSampledChannels();
+		samplingSchedule = sampledChannels.isEmpty() ? null : new SamplingSchedule(sampledChannels);
+		scheduleNextSampling();
 	}
 
-	public void close() {
-		running = false;
+	public synchronized void close() {
+		closed = true;
+		samplingSchedule = null;
+		if (nextSampling != null) {
+			nextSampling.cancel(false);
+			nextSampling = null;
+		}
 	}
 
 	private class DeviceReaderChannelUpdateListener implements ChannelUpdateListener {
@@ -279,9 +320,7 @@ public class DeviceReaderThread extends Thread {
 
 			SampledValue oldValue = oldValues.get(i);
 
-			List<SampledValueContainer> singleValueList = new LinkedList<SampledValueContainer>();
-
-			singleValueList.add(channelData);
+			List<SampledValueContainer> singleValueList = Collections.singletonList(channelData);
 
 			ChannelLocator channelLocator = channelData.getChannelLocator();
 
@@ -331,23 +370,6 @@ public class DeviceReaderThread extends Thread {
 		return sampledChannels;
 	}
 
-	/**
-	 * Checks if at least on channel with an sampling period > 0 exists
-	 */
-	private boolean doChannelsWithPeriodicSamplingExist() {
-
-		boolean result = false;
-
-		for (Channel channel : device.getChannels()) {
-			if (isPeriodicallySampledChannel(channel)) {
-				result = true;
-				break;
-			}
-		}
-
-		return result;
-	}
-
 	/**
 	 * A channel is periodically sampled if sampling period is > 0
 	 */
@@ -360,16 +382,6 @@ public class DeviceReaderThread extends Thread {
 		}
 	}
 
-	/**
-	 * Helper method to avoid error handling (try catch blocks) business logic
-	 */
-	private void threadSleep(long sleepTimeMs) {
-		try {
-			Thread.sleep(sleepTimeMs);
-		} catch (InterruptedException e) {
-		}
-	}
-
 	// /**
 	// * Sampling Schedule contains informations about when which channel is sampled the next time.
 	// */
@@ -504,11 +516,4 @@ public class DeviceReaderThread extends Thread {
 	//
 	// }
 
-	private class UpdateConfigurationException extends Exception {
-
-		public UpdateConfigurationException() {
-			super();
-		}
-	}
-
 }
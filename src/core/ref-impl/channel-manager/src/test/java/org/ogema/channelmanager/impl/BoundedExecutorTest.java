@@ -0,0 +1,120 @@
+/**
+ * This file is part of OGEMA.
+ *
+ * OGEMA is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3
+ * as published by the Free Software Foundation.
+ *
+ * OGEMA is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with OGEMA. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.ogema.channelmanager.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BoundedExecutorTest {
+
+	private ExecutorService pool;
+
+	@Before
+	public void setup() {
+		pool = Executors.newFixedThreadPool(8);
+	}
+
+	@After
+	public void shutdown() {
+		pool.shutdownNow();
+	}
+
+	@Test
+	public void numberOfConcurrentTasksIsLimited() throws InterruptedException {
+		BoundedExecutor executor = new BoundedExecutor(pool, 2);
+		final AtomicInteger running = new AtomicInteger();
+		final AtomicInteger maxRunning = new AtomicInteger();
+		final CountDownLatch done = new CountDownLatch(20);
+		for (int i = 0; i < 20; i++) {
+			executor.execute(new Runnable() {
+
+				@Override
+				public void run() {
+					int r = running.incrementAndGet();
+					synchronized (maxRunning) {
+						maxRunning.set(Math.max(r, maxRunning.get()));
+					}
+					try {
+						Thread.sleep(5);
+					} catch (InterruptedException e) {
+					}
+					running.decrementAndGet();
+					done.countDown();
+				}
+			});
+		}
+		assertTrue(done.await(10, TimeUnit.SECONDS));
+		assertEquals(2, maxRunning.get());
+	}
+
+	@Test
+	public void pendingTasksAreRunInSubmissionOrder() throws InterruptedException {
+		BoundedExecutor executor = new BoundedExecutor(pool, 1);
+		final List<Integer> order = Collections.synchronizedList(new ArrayList<Integer>());
+		final CountDownLatch done = new CountDownLatch(10);
+		for (int i = 0; i < 10; i++) {
+			final int n = i;
+			executor.execute(new Runnable() {
+
+				@Override
+				public void run() {
+					order.add(n);
+					done.countDown();
+				}
+			});
+		}
+		assertTrue(done.await(10, TimeUnit.SECONDS));
+		assertEquals(10, order.size());
+		for (int i = 0; i < 10; i++) {
+			assertEquals(i, order.get(i).intValue());
+		}
+	}
+
+	@Test
+	public void failingTaskDoesNotBlockQueue() throws InterruptedException {
+		BoundedExecutor executor = new BoundedExecutor(pool, 1);
+		final CountDownLatch done = new CountDownLatch(1);
+		executor.execute(new Runnable() {
+
+			@Override
+			public void run() {
+				throw new RuntimeException("test");
+			}
+		});
+		executor.execute(new Runnable() {
+
+			@Override
+			public void run() {
+				done.countDown();
+			}
+		});
+		assertTrue(done.await(10, TimeUnit.SECONDS));
+	}
+
+}
@@ -0,0 +1,106 @@
+/**
+ * This file is part of OGEMA.
+ *
+ * OGEMA is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3
+ * as published by the Free Software Foundation.
+ *
+ * OGEMA is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with OGEMA. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.ogema.channelmanager.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.ogema.channelmanager.impl.config.ChannelConfigurationImpl;
+import org.ogema.channelmanager.impl.testdriver.TestDriver;
+import org.ogema.core.channelmanager.ChannelConfigurationException;
+import org.ogema.core.channelmanager.driverspi.ChannelLocator;
+import org.ogema.core.channelmanager.driverspi.DeviceLocator;
+import org.ogema.core.channelmanager.measurements.IntegerValue;
+import org.ogema.core.channelmanager.measurements.Quality;
+import org.ogema.core.channelmanager.measurements.SampledValue;
+import org.ogema.core.channelmanager.measurements.Value;
+
+/**
+ * Tests the channel manager directly, without OSGi framework and permission checks.
+ */
+public class ChannelManagerImplTest {
+
+	private ChannelManagerImpl channelManager;
+	private TestDriver driver;
+	private DeviceLocator device;
+
+	@Before
+	public void setup() {
+		channelManager = new ChannelManagerImpl(null);
+		driver = new TestDriver("test-driver", "test driver");
+		channelManager.addDriver(driver);
+		device = channelManager.getDeviceLocator("test-driver", "ifc1", "1", null);
+	}
+
+	@After
+	public void shutdown() {
+		channelManager.deactivate();
+	}
+
+	private ChannelLocator addChannel(String address, long samplingPeriod) throws ChannelConfigurationException {
+		ChannelLocator locator = new DefaultChannelLocator(device, address);
+		ChannelConfigurationImpl config = new ChannelConfigurationImpl(locator);
+		config.setSamplingPeriod(samplingPeriod);
+		channelManager.addChannel(config);
+		return locator;
+	}
+
+	@Test
+	public void locatorsAreCanonicalized() {
+		assertSame(device, channelManager.getDeviceLocator("test-driver", "ifc1", "1", "9600-8-N-1"));
+	}
+
+	@Test
+	public void periodicChannelsAreSampled() throws Exception {
+		ChannelLocator channel = addChannel("1.1", 50);
+		long timeout = System.currentTimeMillis() + 5000;
+		while (channelManager.getMultipleChannelValues(Arrays.asList(channel)).get(0).getQuality() != Quality.GOOD
+				&& System.currentTimeMillis() < timeout) {
+			Thread.sleep(10);
+		}
+		assertEquals(Quality.GOOD, channelManager.getChannelValue(channel).getQuality());
+	}
+
+	@Test
+	public void setMultipleChannelValuesCallsDriverOnce() throws Exception {
+		List<ChannelLocator> channels = new ArrayList<ChannelLocator>();
+		List<Value> values = new ArrayList<Value>();
+		for (int i = 0; i < 3; i++) {
+			channels.add(addChannel("2." + i, 60 * 60 * 1000));
+			values.add(new IntegerValue(i));
+		}
+		channelManager.setMultipleChannelValues(channels, values);
+		assertEquals(1, driver.writeChannelsCalled);
+	}
+
+	@Test
+	public void getMultipleChannelValuesReturnsBadValuesForUnknownChannels() throws Exception {
+		ChannelLocator unknown = new DefaultChannelLocator(device, "3.1");
+		List<SampledValue> values = channelManager.getMultipleChannelValues(Arrays.asList(unknown));
+		assertEquals(1, values.size());
+		assertNull(values.get(0).getValue());
+		assertEquals(Quality.BAD, values.get(0).getQuality());
+	}
+
+}
@@ -0,0 +1,182 @@
+/**
+ * This file is part of OGEMA.
+ *
+ * OGEMA is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3
+ * as published by the Free Software Foundation.
+ *
+ * OGEMA is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with OGEMA. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.ogema.channelmanager.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.ogema.channelmanager.impl.config.ChannelConfigurationImpl;
+import org.ogema.channelmanager.impl.testdriver.TestDriver;
+import org.ogema.core.channelmanager.driverspi.DeviceLocator;
+import org.ogema.core.channelmanager.driverspi.SampledValueContainer;
+
+/**
+ * Tests the scheduling of a single {@link DeviceReader}, with a driver whose reads block for a while.
+ */
+public class DeviceReaderTest {
+
+	private static final long READ_DURATION = 30;
+
+	private ChannelManagerImpl channelManager;
+	private ScheduledExecutorService scheduler;
+	private ExecutorService workers;
+	private SlowDriver driver;
+	private DeviceLocator deviceLocator;
+	private final List<Channel> channels = new CopyOnWriteArrayList<Channel>();
+	private DeviceReader reader;
+
+	private static class SlowDriver extends TestDriver {
+
+		final AtomicInteger reads = new AtomicInteger();
+		final AtomicInteger running = new AtomicInteger();
+		final AtomicInteger maxRunning = new AtomicInteger();
+
+		SlowDriver() {
+			super("slow-driver", "blocking test driver");
+		}
+
+		@Override
+		public void readChannels(List<SampledValueContainer> channels) throws UnsupportedOperationException,
+				IOException {
+			int r = running.incrementAndGet();
+			synchronized (maxRunning) {
+				maxRunning.set(Math.max(r, maxRunning.get()));
+			}
+			try {
+				Thread.sleep(READ_DURATION);
+				super.readChannels(channels);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} finally {
+				running.decrementAndGet();
+				reads.incrementAndGet();
+			}
+		}
+	}
+
+	@Before
+	public void setup() {
+		channelManager = new ChannelManagerImpl(null);
+		scheduler = Executors.newScheduledThreadPool(1);
+		workers = Executors.newFixedThreadPool(4);
+		driver = new SlowDriver();
+		deviceLocator = channelManager.getDeviceLocator("slow-driver", "ifc1", "1", null);
+		CommDevice device = new CommDevice(deviceLocator, driver, channelManager) {
+
+			@Override
+			public List<Channel> getChannels() {
+				return new ArrayList<Channel>(channels);
+			}
+		};
+		reader = new DeviceReader(device, driver, scheduler, workers);
+	}
+
+	@After
+	public void shutdown() {
+		reader.close();
+		scheduler.shutdownNow();
+		workers.shutdownNow();
+		channelManager.deactivate();
+	}
+
+	private void addChannel(String address, long samplingPeriod) {
+		ChannelConfigurationImpl config = new ChannelConfigurationImpl(new DefaultChannelLocator(deviceLocator,
+				address));
+		config.setSamplingPeriod(samplingPeriod);
+		channels.add(new Channel(config));
+	}
+
+	private void awaitReads(int count) throws InterruptedException {
+		long timeout = System.currentTimeMillis() + 5000;
+		while (driver.reads.get() < count && System.currentTimeMillis() < timeout) {
+			Thread.sleep(5);
+		}
+		assertTrue("expected at least " + count + " reads, got " + driver.reads.get(), driver.reads.get() >= count);
+	}
+
+	/*
+	 * waits until a read which has been handed over to the workers before the last reconfiguration has finished
+	 */
+	private void awaitIdle() throws InterruptedException {
+		long timeout = System.currentTimeMillis() + 5000;
+		int reads;
+		do {
+			reads = driver.reads.get();
+			Thread.sleep(2 * READ_DURATION);
+		} while ((driver.running.get() > 0 || driver.reads.get() != reads) && System.currentTimeMillis() < timeout);
+		assertEquals(0, driver.running.get());
+	}
+
+	@Test
+	public void readsOfOneDeviceDoNotOverlap() throws InterruptedException {
+		// the sampling period is shorter than a read, so the next sampling is always due before the read finishes
+		addChannel("1.1", 5);
+		reader.updateConfiguration();
+		awaitReads(5);
+		assertEquals(1, driver.maxRunning.get());
+	}
+
+	@Test
+	public void updateConfigurationReschedules() throws InterruptedException {
+		// first sampling at midnight
+		addChannel("2.1", 24 * 60 * 60 * 1000);
+		reader.updateConfiguration();
+		Thread.sleep(100);
+		assertEquals(0, driver.reads.get());
+
+		addChannel("2.2", 10);
+		reader.updateConfiguration();
+		awaitReads(3);
+
+		channels.clear();
+		reader.updateConfiguration();
+		awaitIdle();
+		int reads = driver.reads.get();
+		Thread.sleep(100);
+		assertEquals(reads, driver.reads.get());
+	}
+
+	@Test
+	public void noSamplingAfterClose() throws InterruptedException {
+		addChannel("3.1", 10);
+		reader.updateConfiguration();
+		awaitReads(2);
+
+		reader.close();
+		awaitIdle();
+		int reads = driver.reads.get();
+		Thread.sleep(100);
+		assertEquals(reads, driver.reads.get());
+
+		// a closed reader ignores configuration changes
+		reader.updateConfiguration();
+		Thread.sleep(100);
+		assertEquals(reads, driver.reads.get());
+	}
+
+}
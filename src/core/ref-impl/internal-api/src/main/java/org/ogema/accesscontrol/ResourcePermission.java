@@ -18,6 +18,8 @@ package org.ogema.accesscontrol;
 import java.security.AccessController;
 import java.security.Permission;
 import java.security.PrivilegedAction;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.StringTokenizer;
 
 import org.ogema.core.model.Resource;
@@ -64,6 +66,7 @@ public class ResourcePermission extends Permission {
 	int count;
 	private String owner;
 	private TreeElement node;
+	private transient volatile Class<?> typeClass;
 
 	enum PathType {
 		WILDCARD, WILDCARD_ONLY, NO_WILDCARD
@@ -320,6 +323,18 @@ public class ResourcePermission extends Permission {
 		}
 	}
 
+	/*
+	 * The class of the granted type. It's loaded once and reused for the following checks against this permission.
+	 */
+	private Class<?> getTypeClass() {
+		Class<?> cls = typeClass;
+		if (cls == null) {
+			cls = getClassPrivileged(type);
+			typeClass = cls;
+		}
+		return cls;
+	}
+
 	private Class<?> getClassPrivileged(final String typename) {
 		Class<?> result = null;
 		final String name = typename;
@@ -552,8 +567,8 @@ public class ResourcePermission extends Permission {
 			else {
 				TreeElement parent = qp.node;
 				boolean success = false;
+				Class<?> cls = getTypeClass();
 				while (parent != null) {
-					Class<?> cls = getClassPrivileged(this.type);
 					Class<?> parentCls = parent.getType();
 					if (cls != null && parentCls != null) {
 						if (cls.isAssignableFrom(parentCls)) {
@@ -561,7 +576,7 @@ public class ResourcePermission extends Permission {
 							break;
 						}
 					}
-					else if (parent.getType().getName().equals(this.type)) { // This case is the fall back solution, if
+					else if (parentCls != null && parentCls.getName().equals(this.type)) { // This case is the fall back solution, if
 						// the model class couldn't be loaded.
 						// In this case the check can not be
 						// consider the type hierarchy.
@@ -657,6 +672,28 @@ public class ResourcePermission extends Permission {
 		return true;
 	}
 
+	/**
+	 * Get a key for the outcome of a permission check with this queried permission. Two queried permissions with equal
+	 * keys are implied by the same granted ResourcePermissions, so a decision made for one of them can be reused for
+	 * the other as long as the granted permissions don't change. The key consists of the actions, the count, the owner,
+	 * the location path and the types of the resource and all of its parents.
+	 * 
+	 * @return the key or null if this permission wasn't created to check an action on a resource.
+	 */
+	public Object getQueryKey() {
+		if (node == null)
+			return null;
+		List<Object> key = new ArrayList<>(8);
+		key.add(actionsAsMask);
+		key.add(count);
+		key.add(owner);
+		key.add(path);
+		for (TreeElement e = node; e != null; e = e.getParent()) {
+			key.add(e.getType());
+		}
+		return key;
+	}
+
 	@Override
 	public boolean equals(Object obj) {
 		if (obj == this)
@@ -145,6 +145,17 @@ public interface ResourceDB {
 	 */
 	public Collection<TreeElement> getAllToplevelResources();
 
+	/**
+	 * Get all resources of the specified type or of any of its sub types. This includes top level resources and sub
+	 * resources, but no references, i.e. each resource is contained once. The implementation should answer this from
+	 * an index instead of traversing all resource trees.
+	 * 
+	 * @param type
+	 *            the resource type, null for resources of any type.
+	 * @return collection of the nodes of all matching resources.
+	 */
+	public Collection<TreeElement> getElementsByType(Class<? extends Resource> type);
+
 	/**
 	 * Signal the database that a transaction is started. The database implementation should synchronize the state of
 	 * the data with the transactions which are initiated by the resource management to achieve a consistent persistent
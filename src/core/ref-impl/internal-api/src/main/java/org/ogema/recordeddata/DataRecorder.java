@@ -16,6 +16,9 @@
 package org.ogema.recordeddata;
 
 import java.util.List;
+import java.util.Map;
+
+import org.ogema.core.channelmanager.measurements.SampledValue;
 
 import org.ogema.core.recordeddata.RecordedDataConfiguration;
 
@@ -51,4 +54,15 @@ public interface DataRecorder {
 	boolean deleteRecordedDataStorage(String id);
 
 	List<String> getAllRecordedDataStorageIDs();
+
+	/**
+	 * Insert one value into each of several time series storages as a single write. This is used for fixed interval
+	 * logging, where all storages with the same logging interval are sampled at the same time. Ids for which no
+	 * storage exists, or whose storage has no configuration, are ignored.
+	 * 
+	 * @param values
+	 *            map of storage id to the value that is to be added to that storage
+	 * @throws DataRecorderException
+	 */
+	void insertValues(Map<String, SampledValue> values) throws DataRecorderException;
 }
@@ -281,6 +281,14 @@ public interface TreeElement {
 	 */
 	public long getLastModified();
 
+	/**
+	 * Gets the number of modifications of the node since the framework was started. The count is incremented by
+	 * every call of {@link #setLastModified(long)}, so unlike the time stamp it changes with each update.
+	 *
+	 * @return the modification count
+	 */
+	public long getModificationCount();
+
 	/**
 	 * Get the real path of the node that is free of references
 	 * @return
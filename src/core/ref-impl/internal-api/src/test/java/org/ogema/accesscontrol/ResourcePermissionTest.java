@@ -15,11 +15,17 @@
  */
 package org.ogema.accesscontrol;
 
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
 import junit.framework.TestCase;
 
 import org.junit.Test;
 import org.ogema.core.model.Resource;
 import org.ogema.core.model.simple.FloatResource;
+import org.ogema.core.model.simple.StringResource;
+import org.ogema.resourcetree.TreeElement;
 
 public class ResourcePermissionTest {
 
@@ -61,4 +67,52 @@ public class ResourcePermissionTest {
 		TestCase.assertEquals(ResourcePermission.CREATE, rp.actions);
 		TestCase.assertEquals(ResourcePermission._CREATE, rp.actionsAsMask);
 	}
+
+	private static TreeElement element(final String name, final Class<?> type, final TreeElement parent) {
+		return (TreeElement) Proxy.newProxyInstance(ResourcePermissionTest.class.getClassLoader(),
+				new Class<?>[] { TreeElement.class }, new InvocationHandler() {
+
+					@Override
+					public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+						switch (method.getName()) {
+						case "getName":
+							return name;
+						case "getType":
+							return type;
+						case "getParent":
+							return parent;
+						case "getAppID":
+							return "app";
+						case "getLocation":
+							return parent == null ? name : parent.getLocation() + "/" + name;
+						default:
+							throw new UnsupportedOperationException(method.getName());
+						}
+					}
+				});
+	}
+
+	@Test
+	public void queryKeysMatchForEqualQueries() {
+		TreeElement a = element("reading", FloatResource.class, element("top", Resource.class, null));
+		TreeElement b = element("reading", FloatResource.class, element("top", Resource.class, null));
+		TreeElement c = element("reading", FloatResource.class, element("top", StringResource.class, null));
+		Object key = new ResourcePermission(ResourcePermission.READ, a, 0).getQueryKey();
+		TestCase.assertEquals(key, new ResourcePermission(ResourcePermission.READ, b, 0).getQueryKey());
+		TestCase.assertFalse(key.equals(new ResourcePermission(ResourcePermission.WRITE, b, 0).getQueryKey()));
+		TestCase.assertFalse(key.equals(new ResourcePermission(ResourcePermission.READ, c, 0).getQueryKey()));
+		TestCase.assertNull(new ResourcePermission("top/*", Resource.class, 1).getQueryKey());
+	}
+
+	@Test
+	public void typedPermissionImpliesSubresources() {
+		ResourcePermission granted = new ResourcePermission("type=" + StringResource.class.getName() + ",path=top/*",
+				ResourcePermission.READ);
+		TreeElement top = element("top", StringResource.class, null);
+		TreeElement sub = element("reading", FloatResource.class, top);
+		TreeElement other = element("reading", FloatResource.class, element("top", Resource.class, null));
+		TestCase.assertTrue(granted.implies(new ResourcePermission(ResourcePermission.READ, sub, 0)));
+		TestCase.assertFalse(granted.implies(new ResourcePermission(ResourcePermission.READ, other, 0)));
+		TestCase.assertFalse(granted.implies(new ResourcePermission(ResourcePermission.WRITE, sub, 0)));
+	}
 }
@@ -18,6 +18,8 @@ package org.ogema.exam;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
+import java.security.AccessController;
+import java.security.PrivilegedAction;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -27,8 +29,10 @@ import javax.inject.Inject;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.runner.RunWith;
+import org.ogema.accesscontrol.PermissionManager;
 import org.ogema.core.application.Application;
 import org.ogema.core.application.ApplicationManager;
+import org.ogema.core.security.AppPermission;
 import org.ops4j.pax.exam.Configuration;
 import org.ops4j.pax.exam.CoreOptions;
 import org.ops4j.pax.exam.MavenUtils;
@@ -210,6 +214,22 @@ public abstract class OsgiAppTestBase {
 		return appMan;
 	}
 
+	/**
+	 * Grants the permissions through the permission manager. Changing the permission table requires AllPermission,
+	 * which the test probe does not have when security is enabled.
+	 * 
+	 * @return the result of {@link PermissionManager#installPerms(AppPermission)}
+	 */
+	public boolean installPermissions(final PermissionManager permMan, final AppPermission perms) {
+		return AccessController.doPrivileged(new PrivilegedAction<Boolean>() {
+
+			@Override
+			public Boolean run() {
+				return permMan.installPerms(perms);
+			}
+		});
+	}
+
 	/**
 	 * called at the end of the test application's start method
 	 */
@@ -15,13 +15,19 @@
  */
 package org.ogema.impl.persistence;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.EOFException;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -49,6 +55,22 @@ public class DBResourceIO {
 
 	private static final int INITIAL_MAP_SIZE = 256;
 
+	/**
+	 * Prefix of the name of the directory log file. The log contains the changes of the directory since the last
+	 * complete directory file was written, see {@link #appendDirectory(Map)}.
+	 */
+	static final String DIR_LOG_PREFIX = "log_";
+
+	/**
+	 * Offset logged for resources which are deleted.
+	 */
+	static final int DIR_LOG_DELETED = -1;
+
+	/**
+	 * Minimum number of entries the directory log may contain before the complete directory is written again.
+	 */
+	private static final int DIR_LOG_MIN_ENTRIES = 1024;
+
 	private final Logger logger = org.slf4j.LoggerFactory.getLogger("persistence");
 
 	PersistentFileSet resDataFiles, dirFiles;
@@ -85,6 +107,10 @@ public class DBResourceIO {
 
 	private int garbage;
 
+	File dirLogFile;
+	private DataOutputStream dirLog;
+	private int dirLogEntries;
+
 	ConcurrentHashMap<Integer, Change> changes;
 
 	private int minimunCompationFileSize;
@@ -160,6 +186,7 @@ public class DBResourceIO {
 		 */
 		dirFiles = new PersistentFileSet();
 		dirFiles.initFiles(dir, dbDirFileName);
+		dirLogFile = new File(dir, DIR_LOG_PREFIX + dbDirFileName);
 		/*
 		 * Init resource archive file
 		 */
@@ -357,30 +384,30 @@ public class DBResourceIO {
 		if (!node.reference)
 			switch (typeKey) {
 			case DBConstants.TYPE_KEY_BOOLEAN:
-				setBValue(value.Z);
+				setBValue(value.getBoolean());
 				node.footprint += 1;
 				break;
 			case DBConstants.TYPE_KEY_FLOAT:
-				setFValue(value.F);
+				setFValue(value.getFloat());
 				node.footprint += 4;
 				break;
 			case DBConstants.TYPE_KEY_INT:
-				setIValue(value.I);
+				setIValue(value.getInt());
 				node.footprint += 4;
 				break;
 
 			case DBConstants.TYPE_KEY_LONG:
-				setJValue(value.J);
+				setJValue(value.getLong());
 				node.footprint += 8;
 				break;
 
 			case DBConstants.TYPE_KEY_STRING:
-				setUTF8(value.S);
+				setUTF8(value.getString());
 				node.footprint += value.footprint;
 				break;
 			// set Primitive array resource values
 			case DBConstants.TYPE_KEY_BOOLEAN_ARR:
-				boolean zArr[] = value.aZ;
+				boolean zArr[] = value.getBooleanArr();
 				length = value.getArrayLength();
 				setIValue(length);
 				if (zArr != null)
@@ -390,7 +417,7 @@ public class DBResourceIO {
 				node.footprint += value.footprint;
 				break;
 			case DBConstants.TYPE_KEY_FLOAT_ARR:
-				float fArr[] = value.aF;
+				float fArr[] = value.getFloatArr();
 				length = value.getArrayLength();
 				setIValue(length);
 				if (fArr != null)
@@ -400,7 +427,7 @@ public class DBResourceIO {
 				node.footprint += value.footprint;
 				break;
 			case DBConstants.TYPE_KEY_INT_ARR:
-				int iArr[] = value.aI;
+				int iArr[] = value.getIntArr();
 				length = value.getArrayLength();
 				setIValue(length);
 				if (iArr != null)
@@ -410,7 +437,7 @@ public class DBResourceIO {
 				node.footprint += value.footprint;
 				break;
 			case DBConstants.TYPE_KEY_LONG_ARR:
-				long jArr[] = value.aJ;
+				long jArr[] = value.getLongArr();
 				length = value.getArrayLength();
 				setIValue(length);
 				if (jArr != null)
@@ -420,17 +447,19 @@ public class DBResourceIO {
 				node.footprint += value.footprint;
 				break;
 			case DBConstants.TYPE_KEY_STRING_ARR:
-				String sArr[] = value.aS;
+				String sArr[] = value.getStringArr();
 				length = value.getArrayLength();
 				setIValue(length);
 				if (sArr != null)
 					for (String s : sArr) {
 						setUTF8(s);
+						if (s != null)
+							node.footprint += s.length();
 					}
 				node.footprint += value.footprint;
 				break;
 			case DBConstants.TYPE_KEY_OPAQUE:
-				byte bArr[] = value.aB;
+				byte bArr[] = value.getByteArr();
 				length = value.getArrayLength();
 				setIValue(length);
 				if (bArr != null)
@@ -501,9 +530,23 @@ public class DBResourceIO {
 		if (dirRaf != null) {
 			try {
 				dirRaf.seek(0);
+				Map<Integer, Integer> offsets = new HashMap<>();
 				while (dirEntryCount > 0) {
 					int key = dirRaf.readInt();
 					int value = dirRaf.readInt();
+					offsets.put(key, value);
+					dirEntryCount--;
+				}
+				// apply the changes stored after the directory file was written
+				readDirectoryLog(dirFiles.fileNew.getName(), offsets);
+				// read the entries in the order they are written in the archive
+				TreeMap<Integer, Integer> idsByOffset = new TreeMap<>();
+				for (Map.Entry<Integer, Integer> entry : offsets.entrySet()) {
+					idsByOffset.put(entry.getValue(), entry.getKey());
+				}
+				for (Map.Entry<Integer, Integer> entry : idsByOffset.entrySet()) {
+					int key = entry.getValue();
+					int value = entry.getKey();
 					dataRaf.seek(value);
 					endGarbage = (int) dataRaf.getFilePointer();
 					int tmpGarbage = endGarbage - beginGarbage;
@@ -512,7 +555,6 @@ public class DBResourceIO {
 					readEntry();
 					beginGarbage = (int) dataRaf.getFilePointer();
 					offsetByID.put(key, value);
-					dirEntryCount--;
 				}
 			} catch (IOException e) {
 				e.printStackTrace();
@@ -653,34 +695,34 @@ public class DBResourceIO {
 			case DBConstants.TYPE_KEY_BOOLEAN:
 				node.initDataContainer();
 				node.type = DBConstants.CLASS_BOOL_TYPE;
-				node.simpleValue.Z = raf.readBoolean();
+				node.simpleValue.load(raf.readBoolean());
 				isSimple = true;
 				break;
 			case DBConstants.TYPE_KEY_FLOAT:
 				node.initDataContainer();
 				node.type = DBConstants.CLASS_FLOAT_TYPE;
-				node.simpleValue.F = raf.readFloat();
+				node.simpleValue.load(raf.readFloat());
 				isSimple = true;
 				break;
 			case DBConstants.TYPE_KEY_INT:
 				node.initDataContainer();
 				node.type = DBConstants.CLASS_INT_TYPE;
-				node.simpleValue.I = raf.readInt();
+				node.simpleValue.load(raf.readInt());
 				isSimple = true;
 				break;
 			case DBConstants.TYPE_KEY_STRING:
 				node.initDataContainer();
 				node.type = DBConstants.CLASS_STRING_TYPE;
 				if (isNullString(raf))
-					node.simpleValue.S = null;
+					node.simpleValue.load(null);
 				else
-					node.simpleValue.S = raf.readUTF();
+					node.simpleValue.load(raf.readUTF());
 				isSimple = true;
 				break;
 			case DBConstants.TYPE_KEY_LONG:
 				node.initDataContainer();
 				node.type = DBConstants.CLASS_TIME_TYPE;
-				node.simpleValue.J = raf.readLong();
+				node.simpleValue.load(raf.readLong());
 				isSimple = true;
 				break;
 			// read array resource
@@ -816,7 +858,7 @@ public class DBResourceIO {
 			int length = raf.readInt();
 			String sArr[] = new String[length];
 			String val = null;
-			node.simpleValue.aS = sArr;
+			node.simpleValue.load(sArr);
 			/*
 			 * Reset the number of valid entries to 0
 			 */
@@ -839,9 +881,9 @@ public class DBResourceIO {
 		RandomAccessFile raf = resDataFiles.in;
 		try {
 			int length = raf.readInt();
-			boolean zArr[] = new boolean[length];// node.simpleValue.aZ;
+			boolean zArr[] = new boolean[length];
 			boolean val = false;
-			node.simpleValue.aZ = zArr;
+			node.simpleValue.load(zArr);
 			/*
 			 * Reset the number of valid entries to 0
 			 */
@@ -862,9 +904,9 @@ public class DBResourceIO {
 		RandomAccessFile raf = resDataFiles.in;
 		try {
 			int length = raf.readInt();
-			float fArr[] = new float[length];// node.simpleValue.aF;
+			float fArr[] = new float[length];
 			float val = 0;
-			node.simpleValue.aF = fArr;
+			node.simpleValue.load(fArr);
 			/*
 			 * Reset the number of valid entries to 0
 			 */
@@ -885,9 +927,9 @@ public class DBResourceIO {
 		RandomAccessFile raf = resDataFiles.in;
 		try {
 			int length = raf.readInt();
-			long jArr[] = new long[length];// node.simpleValue.aJ;
+			long jArr[] = new long[length];
 			long val = 0;
-			node.simpleValue.aJ = jArr;
+			node.simpleValue.load(jArr);
 			/*
 			 * Reset the number of valid entries to 0
 			 */
@@ -908,9 +950,9 @@ public class DBResourceIO {
 		RandomAccessFile raf = resDataFiles.in;
 		try {
 			int length = raf.readInt();
-			int iArr[] = new int[length];// node.simpleValue.aI;
+			int iArr[] = new int[length];
 			int val = 0;
-			node.simpleValue.aI = iArr;
+			node.simpleValue.load(iArr);
 			/*
 			 * Reset the number of valid entries to 0
 			 */
@@ -931,9 +973,9 @@ public class DBResourceIO {
 		RandomAccessFile raf = resDataFiles.in;
 		try {
 			int length = raf.readInt();
-			byte bArr[] = new byte[length]; // node.simpleValue.aB;
+			byte bArr[] = new byte[length];
 			int val = 0;
-			node.simpleValue.aB = bArr;
+			node.simpleValue.load(bArr);
 			/*
 			 * Reset the number of valid entries to 0
 			 */
@@ -1006,7 +1048,7 @@ public class DBResourceIO {
 			database.root.put(e.name, e);
 		else {
 			e.parent.optionals.remove(e.name);
-			e.parent.requireds.put(e.name, e);
+			e.parent.addRequired(e.name, e);
 		}
 		database.registerRes(e);
 		return true;
@@ -1089,6 +1131,103 @@ public class DBResourceIO {
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
+		startDirectoryLog();
+	}
+
+	/*
+	 * Start a new directory log which contains the changes relative to the directory file just written. The log starts
+	 * with the name of this directory file, so that a log which belongs to an older directory file is ignored on start
+	 * up.
+	 */
+	private void startDirectoryLog() {
+		closeDirectoryLog();
+		dirLogEntries = 0;
+		try {
+			dirLog = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(dirLogFile, false),
+					PersistentFileSet.WRITE_BUFFER_SIZE));
+			dirLog.writeUTF(dirFiles.fileNew.getName());
+			dirLog.flush();
+		} catch (IOException e) {
+			e.printStackTrace();
+			closeDirectoryLog();
+		}
+	}
+
+	private void closeDirectoryLog() {
+		try {
+			if (dirLog != null)
+				dirLog.close();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+		dirLog = null;
+	}
+
+	/**
+	 * Update the directory with the offsets of the resources stored since the last update. Instead of rewriting the
+	 * whole directory the changed entries are appended to the directory log as one block consisting of the number of
+	 * entries, the id/offset pairs and MAGIC1. Deleted resources are logged with the offset {@link #DIR_LOG_DELETED}.
+	 * The complete directory is written if no log is open yet or the log has grown larger than the directory itself.
+	 * 
+	 * @param entries
+	 *            offsets of the changed resources by their id.
+	 */
+	void appendDirectory(Map<Integer, Integer> entries) {
+		if (dirLog == null
+				|| dirLogEntries + entries.size() > Math.max(offsetByID.size(), DIR_LOG_MIN_ENTRIES)) {
+			updateDirectory();
+			return;
+		}
+		try {
+			dirLog.writeInt(entries.size());
+			for (Map.Entry<Integer, Integer> entry : entries.entrySet()) {
+				dirLog.writeInt(entry.getKey());
+				dirLog.writeInt(entry.getValue());
+			}
+			dirLog.writeInt(MAGIC1);
+			dirLog.flush();
+			dirLogEntries += entries.size();
+		} catch (IOException e) {
+			e.printStackTrace();
+			// the log may be corrupted now, replace it by a complete directory
+			updateDirectory();
+		}
+	}
+
+	/*
+	 * Apply the blocks of the directory log to the offsets read from the directory file. Only complete blocks of a log
+	 * which belongs to the directory file are considered.
+	 */
+	private void readDirectoryLog(String dirFileName, Map<Integer, Integer> offsets) {
+		if (!dirLogFile.exists())
+			return;
+		try (DataInputStream dis = new DataInputStream(new BufferedInputStream(new FileInputStream(dirLogFile),
+				PersistentFileSet.WRITE_BUFFER_SIZE))) {
+			if (!dirFileName.equals(dis.readUTF()))
+				return;
+			while (true) {
+				int count = dis.readInt();
+				if (count < 0)
+					return;
+				Map<Integer, Integer> block = new HashMap<>(count);
+				for (int i = 0; i < count; i++) {
+					int key = dis.readInt();
+					block.put(key, dis.readInt());
+				}
+				if (dis.readInt() != MAGIC1)
+					return;
+				for (Map.Entry<Integer, Integer> entry : block.entrySet()) {
+					if (entry.getValue() == DIR_LOG_DELETED)
+						offsets.remove(entry.getKey());
+					else
+						offsets.put(entry.getKey(), entry.getValue());
+				}
+			}
+		} catch (EOFException e) {
+			// end of the log or incomplete last block
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
 	}
 
 	int getCurrentOffset() {
@@ -1105,17 +1244,18 @@ public class DBResourceIO {
 	 * Used by the tests only
 	 */
 	void reset() {
-		dirFiles.closeAll();
-		resDataFiles.closeAll();
+		closeAll();
 		System.gc();
 		dirFiles.reset();
 		resDataFiles.reset();
+		dirLogFile.delete();
 		initFiles();
 	}
 
 	void closeAll() {
 		dirFiles.closeAll();
 		resDataFiles.closeAll();
+		closeDirectoryLog();
 
 	}
 
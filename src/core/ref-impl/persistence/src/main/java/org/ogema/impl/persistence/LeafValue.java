@@ -22,23 +22,13 @@ import org.ogema.resourcetree.SimpleResourceData;
 public class LeafValue implements SimpleResourceData {
 
 	// Fields holding the value of the leaf.
-	// only one of them has an meaningful content.
-	// typeKey specify which variable holds the valid value.
-	public boolean Z;// BoolenaResource
-	public float F;// FloatResource
-	public int I;// IntegerResource
-	public long J;// TimeResource
-	public String S;// StringResource
-
-	public boolean aZ[];// BoolenaArrayResource
-	public float aF[];// FloatArrayResource
-	public int aI[];// IntegerArrayResource
-	public long aJ[];// TimeArrayResource
-	public String aS[];// StringArrayResource
-	public byte aB[];// OpaqueResource
-	// int arrLength;
-	private TreeElementImpl owner;
-	int typeKey;
+	// Boolean, float, int and long values are held in the bits of a long,
+	// strings and arrays by the reference.
+	// typeKey specify how the valid value is to be interpreted.
+	private long bits;
+	private Object ref;
+	private final TreeElementImpl owner;
+	final int typeKey;
 	int footprint;
 
 	public LeafValue(TreeElementImpl owner) {
@@ -47,18 +37,41 @@ public class LeafValue implements SimpleResourceData {
 		this.footprint = 0;
 	}
 
+	/*
+	 * The following load methods set the value read from the archive without informing the persistence policy.
+	 */
+	void load(boolean z) {
+		bits = z ? 1 : 0;
+	}
+
+	void load(float f) {
+		bits = Float.floatToRawIntBits(f);
+	}
+
+	void load(int i) {
+		bits = i;
+	}
+
+	void load(long j) {
+		bits = j;
+	}
+
+	void load(Object o) {
+		ref = o;
+	}
+
 	@Override
 	public boolean getBoolean() throws UnsupportedOperationException {
 		if (typeKey != DBConstants.TYPE_KEY_BOOLEAN)
 			throw new UnsupportedOperationException();
-		return Z;
+		return bits != 0;
 	}
 
 	@Override
 	public void setBoolean(boolean z) throws UnsupportedOperationException {
 		if (typeKey != DBConstants.TYPE_KEY_BOOLEAN)
 			throw new UnsupportedOperationException();
-		this.Z = z;
+		load(z);
 		// inform persistence policy about the change
 		if (owner.db.activatePersistence)
 			owner.store(ChangeInfo.VALUE_CHANGED);
@@ -68,14 +81,14 @@ public class LeafValue implements SimpleResourceData {
 	public float getFloat() throws UnsupportedOperationException {
 		if (typeKey != DBConstants.TYPE_KEY_FLOAT)
 			throw new UnsupportedOperationException();
-		return F;
+		return Float.intBitsToFloat((int) bits);
 	}
 
 	@Override
 	public void setFloat(float f) throws UnsupportedOperationException {
 		if (typeKey != DBConstants.TYPE_KEY_FLOAT)
 			throw new UnsupportedOperationException();
-		this.F = f;
+		load(f);
 		// inform persistence policy about the change if the persistence is
 		// active
 		if (owner.db.activatePersistence)
@@ -86,14 +99,14 @@ public class LeafValue implements SimpleResourceData {
 	public int getInt() throws UnsupportedOperationException {
 		if (typeKey != DBConstants.TYPE_KEY_INT)
 			throw new UnsupportedOperationException();
-		return I;
+		return (int) bits;
 	}
 
 	@Override
 	public void setInt(int i) throws UnsupportedOperationException {
 		if (typeKey != DBConstants.TYPE_KEY_INT)
 			throw new UnsupportedOperationException();
-		this.I = i;
+		load(i);
 		// inform persistence policy about the change
 		if (owner.db.activatePersistence)
 			owner.store(ChangeInfo.VALUE_CHANGED);
@@ -103,14 +116,14 @@ public class LeafValue implements SimpleResourceData {
 	public long getLong() throws UnsupportedOperationException {
 		if (typeKey != DBConstants.TYPE_KEY_LONG)
 			throw new UnsupportedOperationException();
-		return J;
+		return bits;
 	}
 
 	@Override
 	public void setLong(long j) throws UnsupportedOperationException {
 		if (typeKey != DBConstants.TYPE_KEY_LONG)
 			throw new UnsupportedOperationException();
-		this.J = j;
+		load(j);
 		// inform persistence policy about the change
 		if (owner.db.activatePersistence)
 			owner.store(ChangeInfo.VALUE_CHANGED);
@@ -120,14 +133,14 @@ public class LeafValue implements SimpleResourceData {
 	public String getString() throws UnsupportedOperationException {
 		if (typeKey != DBConstants.TYPE_KEY_STRING)
 			throw new UnsupportedOperationException();
-		return S;
+		return (String) ref;
 	}
 
 	@Override
 	public void setString(String s) throws UnsupportedOperationException {
 		if (typeKey != DBConstants.TYPE_KEY_STRING)
 			throw new UnsupportedOperationException();
-		this.S = s;
+		this.ref = s;
 		// inform persistence policy about the change
 		if (owner.db.activatePersistence)
 			owner.store(ChangeInfo.VALUE_CHANGED);
@@ -137,14 +150,14 @@ public class LeafValue implements SimpleResourceData {
 	public boolean[] getBooleanArr() throws UnsupportedOperationException {
 		if (typeKey != DBConstants.TYPE_KEY_BOOLEAN_ARR)
 			throw new UnsupportedOperationException();
-		return aZ;
+		return (boolean[]) ref;
 	}
 
 	@Override
 	public void setBooleanArr(boolean[] aZ) throws UnsupportedOperationException {
 		if (typeKey != DBConstants.TYPE_KEY_BOOLEAN_ARR)
 			throw new UnsupportedOperationException();
-		this.aZ = aZ;
+		this.ref = aZ;
 		this.footprint = aZ.length + 4;
 		// inform persistence policy about the change
 		if (owner.db.activatePersistence)
@@ -155,14 +168,14 @@ public class LeafValue implements SimpleResourceData {
 	public float[] getFloatArr() throws UnsupportedOperationException {
 		if (typeKey != DBConstants.TYPE_KEY_FLOAT_ARR)
 			throw new UnsupportedOperationException();
-		return aF;
+		return (float[]) ref;
 	}
 
 	@Override
 	public void setFloatArr(float[] aF) throws UnsupportedOperationException {
 		if (typeKey != DBConstants.TYPE_KEY_FLOAT_ARR)
 			throw new UnsupportedOperationException();
-		this.aF = aF;
+		this.ref = aF;
 		this.footprint = aF.length + 4;
 		// inform persistence policy about the change
 		if (owner.db.activatePersistence)
@@ -173,14 +186,14 @@ public class LeafValue implements SimpleResourceData {
 	public int[] getIntArr() throws UnsupportedOperationException {
 		if (typeKey != DBConstants.TYPE_KEY_INT_ARR)
 			throw new UnsupportedOperationException();
-		return aI;
+		return (int[]) ref;
 	}
 
 	@Override
 	public void setIntArr(int[] aI) throws UnsupportedOperationException {
 		if (typeKey != DBConstants.TYPE_KEY_INT_ARR)
 			throw new UnsupportedOperationException();
-		this.aI = aI;
+		this.ref = aI;
 		this.footprint = aI.length + 4;
 		// inform persistence policy about the change
 		if (owner.db.activatePersistence)
@@ -191,14 +204,14 @@ public class LeafValue implements SimpleResourceData {
 	public long[] getLongArr() throws UnsupportedOperationException {
 		if (typeKey != DBConstants.TYPE_KEY_LONG_ARR)
 			throw new UnsupportedOperationException();
-		return aJ;
+		return (long[]) ref;
 	}
 
 	@Override
 	public void setLongArr(long[] aJ) throws UnsupportedOperationException {
 		if (typeKey != DBConstants.TYPE_KEY_LONG_ARR)
 			throw new UnsupportedOperationException();
-		this.aJ = aJ;
+		this.ref = aJ;
 		this.footprint = aJ.length + 4;
 		// inform persistence policy about the change
 		if (owner.db.activatePersistence)
@@ -209,22 +222,16 @@ public class LeafValue implements SimpleResourceData {
 	public String[] getStringArr() throws UnsupportedOperationException {
 		if (typeKey != DBConstants.TYPE_KEY_STRING_ARR)
 			throw new UnsupportedOperationException();
-		return aS;
+		return (String[]) ref;
 	}
 
 	@Override
 	public void setStringArr(String[] aS) throws UnsupportedOperationException {
 		if (typeKey != DBConstants.TYPE_KEY_STRING_ARR)
 			throw new UnsupportedOperationException();
-		this.aS = aS;
-		int len = 0;
-		for (String str : aS) {
-			try {
-				len += str.length();
-			} catch (NullPointerException e) {
-			}
-		}
-		this.footprint = len + 4;
+		this.ref = aS;
+		// the string lengths are counted when the array is stored
+		this.footprint = 4;
 		// inform persistence policy about the change
 		if (owner.db.activatePersistence)
 			owner.store(ChangeInfo.VALUE_CHANGED);
@@ -234,14 +241,14 @@ public class LeafValue implements SimpleResourceData {
 	public byte[] getByteArr() throws UnsupportedOperationException {
 		if (typeKey != DBConstants.TYPE_KEY_OPAQUE)
 			throw new UnsupportedOperationException();
-		return aB;
+		return (byte[]) ref;
 	}
 
 	@Override
 	public void setByteArr(byte[] aB) throws UnsupportedOperationException {
 		if (typeKey != DBConstants.TYPE_KEY_OPAQUE)
 			throw new UnsupportedOperationException();
-		this.aB = aB;
+		this.ref = aB;
 		this.footprint = aB.length + 4;
 		// inform persistence policy about the change
 		if (owner.db.activatePersistence)
@@ -253,22 +260,22 @@ public class LeafValue implements SimpleResourceData {
 		int res = 0;
 		switch (typeKey) {
 		case DBConstants.TYPE_KEY_OPAQUE:
-			res = aB == null ? 0 : aB.length;
+			res = ref == null ? 0 : ((byte[]) ref).length;
 			break;
 		case DBConstants.TYPE_KEY_INT_ARR:
-			res = aI == null ? 0 : aI.length;
+			res = ref == null ? 0 : ((int[]) ref).length;
 			break;
 		case DBConstants.TYPE_KEY_FLOAT_ARR:
-			res = aF == null ? 0 : aF.length;
+			res = ref == null ? 0 : ((float[]) ref).length;
 			break;
 		case DBConstants.TYPE_KEY_BOOLEAN_ARR:
-			res = aZ == null ? 0 : aZ.length;
+			res = ref == null ? 0 : ((boolean[]) ref).length;
 			break;
 		case DBConstants.TYPE_KEY_STRING_ARR:
-			res = aS == null ? 0 : aS.length;
+			res = ref == null ? 0 : ((String[]) ref).length;
 			break;
 		case DBConstants.TYPE_KEY_LONG_ARR:
-			res = aJ == null ? 0 : aJ.length;
+			res = ref == null ? 0 : ((long[]) ref).length;
 			break;
 		//		case DBConstants.TYPE_KEY_COMPLEX_ARR:
 		//			break;
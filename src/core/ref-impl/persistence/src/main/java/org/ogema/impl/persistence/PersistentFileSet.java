@@ -28,6 +28,12 @@ import org.slf4j.Logger;
 class PersistentFileSet {
 	private final Logger logger = org.slf4j.LoggerFactory.getLogger("persistence");
 
+	/**
+	 * Size of the output buffers. Resources stored within one storage cycle are collected herein and written to the
+	 * file in large sequential blocks.
+	 */
+	static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
 	File fileOld, fileNew;
 
 	DataOutputStream out;
@@ -109,7 +115,7 @@ class PersistentFileSet {
 		nameSuffix++;
 		try {
 			FileOutputStream fos1 = new FileOutputStream(newFile);
-			result = new DataOutputStream(new BufferedOutputStream(fos1, DBResourceIO.ENTRY_MAX_SIZE));
+			result = new DataOutputStream(new BufferedOutputStream(fos1, WRITE_BUFFER_SIZE));
 		} catch (FileNotFoundException e) {
 			e.printStackTrace();
 		}
@@ -146,7 +152,7 @@ class PersistentFileSet {
 		if (f != null) {
 			try {
 				FileOutputStream fos1 = new FileOutputStream(f, true);
-				result = new DataOutputStream(new BufferedOutputStream(fos1, DBResourceIO.ENTRY_MAX_SIZE));
+				result = new DataOutputStream(new BufferedOutputStream(fos1, WRITE_BUFFER_SIZE));
 			} catch (FileNotFoundException e) {
 				e.printStackTrace();
 			}
@@ -23,6 +23,8 @@ import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
@@ -95,6 +97,23 @@ public class ResourceDBImpl implements ResourceDB, BundleActivator {
 	ConcurrentHashMap<Integer, TreeElementImpl> resNodeByID;
 	ConcurrentHashMap<String, Vector<Integer>> resIDsByType;
 
+	/**
+	 * Type index: all registered nodes with their type or any of its resource super types as key. This answers type
+	 * based queries without traversing the resource trees.
+	 */
+	ConcurrentHashMap<Class<?>, Set<TreeElementImpl>> resNodesByType;
+
+	/**
+	 * Cache of the keys a node of a given type is registered with in resNodesByType.
+	 */
+	private final ConcurrentHashMap<Class<?>, Set<Class<?>>> indexTypes = new ConcurrentHashMap<>();
+
+	/**
+	 * Children defined by a resource type, shared as {@link TreeElementImpl#typeChildren} by all nodes of the type.
+	 * Entries of replaced classes are removed, see typeUpdated.
+	 */
+	final ConcurrentHashMap<Class<?>, Map<String, Class<?>>> typeChildrenByType = new ConcurrentHashMap<>();
+
 	boolean activatePersistence;
 
 	private boolean dbReady;
@@ -123,6 +142,7 @@ public class ResourceDBImpl implements ResourceDB, BundleActivator {
 		resIDByName = new ConcurrentHashMap<>(INITIAL_MAP_SIZE);
 		resNodeByID = new ConcurrentHashMap<>(INITIAL_MAP_SIZE);
 		resIDsByType = new ConcurrentHashMap<>(INITIAL_MAP_SIZE);
+		resNodesByType = new ConcurrentHashMap<>(INITIAL_MAP_SIZE);
 
 		tablesLock = new Object();
 
@@ -176,9 +196,31 @@ public class ResourceDBImpl implements ResourceDB, BundleActivator {
 			typeClassByName.put(typeName, type);
 
 		}
+		else if (regType != type) {
+			typeClassByName.put(typeName, type);
+			typeUpdated(regType);
+		}
 		return type.asSubclass(Resource.class);
 	}
 
+	/*
+	 * Called if a type name is registered with a new class, e.g. after an update of the bundle defining it. The cached
+	 * type children of all classes of the old class loader are dropped, so that the map does not keep the old classes.
+	 */
+	private void typeUpdated(Class<?> oldType) {
+		ClassLoader loader = oldType.getClassLoader();
+		Iterator<Map.Entry<Class<?>, Map<String, Class<?>>>> it = typeChildrenByType.entrySet().iterator();
+		while (it.hasNext()) {
+			Map.Entry<Class<?>, Map<String, Class<?>>> entry = it.next();
+			boolean stale = entry.getKey().getClassLoader() == loader;
+			for (Class<?> child : entry.getValue().values()) {
+				stale |= child.getClassLoader() == loader;
+			}
+			if (stale)
+				it.remove();
+		}
+	}
+
 	/**
 	 * Initialize a (sub)tree for the given resource type. Some of the node information are set by the caller and some
 	 * of them are determined in the context of this method and set.
@@ -222,11 +264,15 @@ public class ResourceDBImpl implements ResourceDB, BundleActivator {
 				initSimpleNode(node);
 		}
 
+		// The type children are collected only for the first node of a type and shared by all further ones.
+		Map<String, Class<?>> typeChildren = typeChildrenByType.get(type);
+		Map<String, Class<?>> newTypeChildren = typeChildren == null ? new HashMap<String, Class<?>>() : null;
+
 		// Create entries for defined sub-resources (recursively)
 		Class<?> superModel = type;
 		while ((superModel != DBConstants.CLASS_BASIC_TYPE) && (superModel != DBConstants.CLASS_SIMPLE_TYPE)) {
 			// Create the nodes for the direct children of the type
-			parseComplex(superModel, node);
+			parseComplex(superModel, node, newTypeChildren);
 			// iterate over all of the non-optional direct children and
 			// create a
 			// sub tree each child and hook it on the parent tree.
@@ -239,6 +285,14 @@ public class ResourceDBImpl implements ResourceDB, BundleActivator {
 			ifaces = superModel.getInterfaces();
 			superModel = ifaces[0];
 		}
+		if (newTypeChildren != null) {
+			typeChildren = newTypeChildren.isEmpty() ? Collections.<String, Class<?>> emptyMap() : Collections
+					.unmodifiableMap(newTypeChildren);
+			Map<String, Class<?>> existing = typeChildrenByType.putIfAbsent(type, typeChildren);
+			if (existing != null)
+				typeChildren = existing;
+		}
+		node.typeChildren = typeChildren;
 	}
 
 	/*
@@ -310,9 +364,10 @@ public class ResourceDBImpl implements ResourceDB, BundleActivator {
 	}
 
 	/*
-	 * Parse all direct children of a type each in an instance of TreeElementImpl as optionals of this TreeElement.
+	 * Parse all direct children of a type each in an instance of TreeElementImpl as optionals of this TreeElement. If
+	 * typeChildren is not null, the children are also added to it unless a derived type already defines them.
 	 */
-	private void parseComplex(final Class<?> type, TreeElementImpl node) {
+	private void parseComplex(final Class<?> type, TreeElementImpl node, Map<String, Class<?>> typeChildren) {
 		Class<?> clazz;
 		String name;
 
@@ -379,8 +434,9 @@ public class ResourceDBImpl implements ResourceDB, BundleActivator {
 				// Get the methods return types and check their annotations for
 				// @Nonpersistent
 				// as default all childs are optional
-				node.optionals.put(name, e);
-				node.typeChildren.put(name, clazz);
+				node.addOptional(name, e);
+				if (typeChildren != null && !typeChildren.containsKey(name))
+					typeChildren.put(name, clazz);
 
 				an = m.getAnnotation(ModelModifiers.NonPersistent.class);
 				if (an != null)
@@ -388,7 +444,9 @@ public class ResourceDBImpl implements ResourceDB, BundleActivator {
 
 				// register type definition of the child in the table of known
 				// model definitions
-				typeClassByName.put(clazz.getName(), clazz);
+				Class<?> regType = typeClassByName.put(clazz.getName(), clazz);
+				if (regType != null && regType != clazz)
+					typeUpdated(regType);
 			}
 			else if (elem != null) {
 				/*
@@ -572,6 +630,16 @@ public class ResourceDBImpl implements ResourceDB, BundleActivator {
 			}
 
 			v.add(e.resID);
+
+			// register in the type index with all super types as key
+			for (Class<?> cls : getIndexTypes(type)) {
+				Set<TreeElementImpl> nodes = resNodesByType.get(cls);
+				if (nodes == null) {
+					nodes = Collections.newSetFromMap(new ConcurrentHashMap<TreeElementImpl, Boolean>());
+					resNodesByType.put(cls, nodes);
+				}
+				nodes.add(e);
+			}
 		}
 
 		// register in table of nodes by id as type
@@ -611,6 +679,12 @@ public class ResourceDBImpl implements ResourceDB, BundleActivator {
 				if (!exist)
 					logger.error("Registration table resIDByName is corrupted!");
 			}
+			// unregister in the type index
+			for (Class<?> cls : getIndexTypes(type)) {
+				Set<TreeElementImpl> nodes = resNodesByType.get(cls);
+				if (nodes == null || !nodes.remove(e))
+					logger.error("Registration table resNodesByType is corrupted!");
+			}
 		}
 		synchronized (storageLock) {
 			// register in table of nodes by id as type
@@ -620,6 +694,63 @@ public class ResourceDBImpl implements ResourceDB, BundleActivator {
 			logger.error("Registration table resNodeByID is corrupted!");
 	}
 
+	/*
+	 * Get the keys of the type index a node of the specified type is registered with: the type itself and all of its
+	 * super interfaces which are resource types.
+	 */
+	private Set<Class<?>> getIndexTypes(Class<?> type) {
+		Set<Class<?>> result = indexTypes.get(type);
+		if (result == null) {
+			result = new HashSet<>();
+			addResourceSuperTypes(type, result);
+			indexTypes.put(type, result);
+		}
+		return result;
+	}
+
+	private static void addResourceSuperTypes(Class<?> type, Set<Class<?>> result) {
+		if (!Resource.class.isAssignableFrom(type) || !result.add(type))
+			return;
+		for (Class<?> cls : type.getInterfaces()) {
+			addResourceSuperTypes(cls, result);
+		}
+	}
+
+	/*
+	 * Get all registered nodes of the specified type or of any of its sub types, including references.
+	 */
+	private Collection<TreeElementImpl> getIndexedNodes(Class<?> type) {
+		Set<TreeElementImpl> nodes = resNodesByType.get(type);
+		if (nodes == null)
+			return Collections.emptySet();
+		return nodes;
+	}
+
+	/*
+	 * Get the class of the type with the specified name from the registered types or the type index.
+	 */
+	private Class<?> getIndexedType(String name) {
+		Class<?> result = typeClassByName.get(name);
+		if (result != null)
+			return result;
+		for (Class<?> cls : resNodesByType.keySet()) {
+			if (cls.getName().equals(name))
+				return cls;
+		}
+		return null;
+	}
+
+	@Override
+	public Collection<TreeElement> getElementsByType(Class<? extends Resource> type) {
+		Collection<TreeElementImpl> nodes = getIndexedNodes(type == null ? Resource.class : type);
+		List<TreeElement> result = new ArrayList<TreeElement>(nodes.size());
+		for (TreeElementImpl e : nodes) {
+			if (!e.reference)
+				result.add(e);
+		}
+		return result;
+	}
+
 	@Override
 	public Collection<Class<?>> getTypeChildren(String name) {
 		Class<?> cls = typeClassByName.get(name);
@@ -699,7 +830,7 @@ public class ResourceDBImpl implements ResourceDB, BundleActivator {
 		}
 
 		if (!delete && !node.decorator && parent != null) {
-			parent.optionals.put(node.name, node);
+			parent.addOptional(node.name, node);
 			node.reset();
 		}
 	}
@@ -784,10 +915,9 @@ public class ResourceDBImpl implements ResourceDB, BundleActivator {
 
 			// Handle the case if the path is '*' or '/*' only
 			if (path.equals("/") || (path.equals("") && wc)) {
-				Collection<TreeElementImpl> tops = resNodeByID.values();// getAllToplevelResources();
 				// if a type specified additionally filter the results
 				if (type != null)
-					filterByType(tops, type, result);
+					filterByType(type, result);
 				if (owner != null)
 					filterByOwner(result, owner);
 				return result;
@@ -818,10 +948,9 @@ public class ResourceDBImpl implements ResourceDB, BundleActivator {
 
 		// 2. filter by type (path is null)
 		if (type != null) {
-			Vector<Integer> ids = resIDsByType.get(type);
-			if (ids != null)
-				for (int id : ids) {
-					TreeElementImpl e = resNodeByID.get(id);
+			Class<?> cls = getIndexedType(type);
+			if (cls != null)
+				for (TreeElementImpl e : getIndexedNodes(cls)) {
 					if (owner != null) {
 						if (e.appID.equals(owner))
 							if (!e.reference) {
@@ -863,20 +992,11 @@ public class ResourceDBImpl implements ResourceDB, BundleActivator {
 		}
 	}
 
-	private void filterByType(Collection<TreeElementImpl> tops, String type, Collection<TreeElement> result) {
-		Class<?> filtercls = null;
-		try {
-			filtercls = Class.forName(type);
-		} catch (ClassNotFoundException e) {
+	private void filterByType(String type, Collection<TreeElement> result) {
+		Class<?> filtercls = getIndexedType(type);
+		if (filtercls == null)
 			return;
-		}
-		Iterator<TreeElementImpl> it = tops.iterator();
-		while (it.hasNext()) {
-			TreeElementImpl te = it.next();
-			Class<?> cls = te.getType();
-			if (filtercls.isAssignableFrom(cls))
-				result.add(te);
-		}
+		result.addAll(getIndexedNodes(filtercls));
 	}
 
 	@Override
@@ -889,6 +1009,13 @@ public class ResourceDBImpl implements ResourceDB, BundleActivator {
 		persistence.startTransaction(0);
 	}
 
+	/**
+	 * @return the persistence policy of the data base, null if persistence is inactive.
+	 */
+	public PersistencePolicy getPersistencePolicy() {
+		return persistence;
+	}
+
 	@Override
 	public boolean isDBReady() {
 		if (!activatePersistence)
@@ -933,6 +1060,7 @@ public class ResourceDBImpl implements ResourceDB, BundleActivator {
 		resIDByName = new ConcurrentHashMap<>(INITIAL_MAP_SIZE);
 		resNodeByID = new ConcurrentHashMap<>(INITIAL_MAP_SIZE);
 		resIDsByType = new ConcurrentHashMap<>(INITIAL_MAP_SIZE);
+		resNodesByType = new ConcurrentHashMap<>(INITIAL_MAP_SIZE);
 		init();
 	}
 
@@ -15,9 +15,8 @@
  */
 package org.ogema.impl.persistence;
 
+import java.util.HashMap;
 import java.util.Map;
-import java.util.Map.Entry;
-import java.util.Set;
 import java.util.Timer;
 import java.util.TimerTask;
 
@@ -44,62 +43,160 @@ public class TimedPersistence implements PersistencePolicy {
 		this.timer = new Timer("Storage-TimedPersistence-" + db.name);
 	}
 
+	/*
+	 * The storage task holds its monitor, which is the storage lock of the data base, only while a single resource is
+	 * serialized or the archive is compacted. Changes are reported via store() without locking, so that writers of
+	 * resources aren't blocked by a running storage cycle.
+	 */
 	TimerTask storageTask = new TimerTask() {
 
 		@Override
-		synchronized public void run() {
+		public void run() {
 			/*
 			 * If the previous storage not yet finished or resource management has reported a transaction, no storage
 			 * must be triggered.
 			 */
-			if (running || inTX || resIO.changes.size() <= 0)
+			if (running || inTX || resIO.changes.isEmpty())
 				return;
 			running = true;
+			long start = System.nanoTime();
 			try {
 				/*
 				 * The policy for the compaction of the data archive file decides if a compaction is required.
 				 */
-				if (resIO.compactionRequired()) {
+				boolean compaction = resIO.compactionRequired();
+				if (compaction) {
 					resIO.resDataFiles.updateNextOut();
 					resIO.currentDataFileName = resIO.resDataFiles.fileNew.getName();
 					resIO.dbFileInitialOffset = 0;
-					resIO.compact();
 				}
-				boolean fileChanged = false;
-				Change ch = null;
-				Set<Entry<Integer, Change>> tlrs = resIO.changes.entrySet();
-				for (Map.Entry<Integer, Change> entry : tlrs) {
-
-					ch = entry.getValue();
-					TreeElementImpl e = db.resNodeByID.get(ch.id);
-					if (ch.status == ChangeInfo.DELETED) {
-						resIO.offsetByID.remove(ch.id);
-						continue;
+				int startOffset = resIO.getCurrentOffset();
+				int count = 0;
+				if (compaction) {
+					synchronized (this) {
+						count += db.resNodeByID.size();
+						resIO.compact();
 					}
-					// Update persistent data in the archive file...
+				}
+				// offsets of the stored and deleted resources, which are to be appended to the directory
+				Map<Integer, Integer> dirChanges = new HashMap<>();
+				for (Change ch : resIO.changes.values()) {
 					if (stop) {
 						timer.cancel();
-						fileChanged = false;
-						break;
+						return;
+					}
+					if (ch.status == ChangeInfo.DELETED) {
+						resIO.changes.remove(ch.id, ch);
+						if (resIO.offsetByID.remove(ch.id) != null)
+							dirChanges.put(ch.id, DBResourceIO.DIR_LOG_DELETED);
+						continue;
 					}
-					resIO.storeResource(e);
-					// ...and remove the changed info.
-					resIO.changes.remove(ch.id);
-					fileChanged = true;
+					synchronized (this) {
+						/*
+						 * Remove the changed info before the resource is stored, a change reported in the meantime
+						 * replaces it and is stored with the next cycle.
+						 */
+						resIO.changes.remove(ch.id, ch);
+						TreeElementImpl e = db.resNodeByID.get(ch.id);
+						if (e == null)
+							continue;
+						// Update persistent data in the archive file...
+						resIO.storeResource(e);
+						dirChanges.put(ch.id, resIO.offsetByID.get(ch.id));
+					}
+					count++;
 				}
-				if (fileChanged) {
+				if (!dirChanges.isEmpty()) {
 					resIO.writeEntry();
-					resIO.updateDirectory();
+					resIO.appendDirectory(dirChanges);
 				}
-				running = false;
+				updateStatistics(count, resIO.getCurrentOffset() - startOffset, System.nanoTime() - start);
 			} catch (Throwable e) {
 				e.printStackTrace();
+			} finally {
 				running = false;
 			}
 		}
 	};
-	private boolean running;
-	private boolean stop;
+	private volatile boolean running;
+	private volatile boolean stop;
+
+	private volatile long storeCycles;
+	private volatile long storedResources;
+	private volatile long storedBytes;
+	private volatile long lastStoreDuration;
+	private volatile long maxStoreDuration;
+	private volatile long totalStoreDuration;
+
+	private void updateStatistics(int resources, long bytes, long duration) {
+		if (resources == 0)
+			return;
+		storeCycles++;
+		storedResources += resources;
+		storedBytes += bytes;
+		lastStoreDuration = duration;
+		maxStoreDuration = Math.max(maxStoreDuration, duration);
+		totalStoreDuration += duration;
+	}
+
+	/**
+	 * @return number of storage cycles that stored at least one resource.
+	 */
+	public long getStoreCycleCount() {
+		return storeCycles;
+	}
+
+	/**
+	 * @return number of resources stored since the start of the data base.
+	 */
+	public long getStoredResourceCount() {
+		return storedResources;
+	}
+
+	/**
+	 * @return number of bytes appended to the data archive since the start of the data base.
+	 */
+	public long getStoredBytes() {
+		return storedBytes;
+	}
+
+	/**
+	 * @return number of changes not yet stored.
+	 */
+	public int getPendingChangeCount() {
+		return resIO.changes.size();
+	}
+
+	/**
+	 * @return duration of the last storage cycle in nanoseconds.
+	 */
+	public long getLastStoreDuration() {
+		return lastStoreDuration;
+	}
+
+	/**
+	 * @return maximum duration of a storage cycle in nanoseconds.
+	 */
+	public long getMaxStoreDuration() {
+		return maxStoreDuration;
+	}
+
+	/**
+	 * @return average throughput of the storage cycles in bytes per second.
+	 */
+	public long getStoreThroughput() {
+		long duration = totalStoreDuration;
+		if (duration == 0)
+			return 0;
+		return (long) (storedBytes * 1e9 / duration);
+	}
+
+	/**
+	 * Runs a storage cycle immediately in the calling thread, e.g. for benchmarks with disabled periodic storage.
+	 */
+	public void storeNow() {
+		storageTask.run();
+	}
 
 	public int getStorePeriod() {
 		return storePeriod;
@@ -111,9 +208,7 @@ public class TimedPersistence implements PersistencePolicy {
 
 	@Override
 	public void store(int resID, org.ogema.persistence.PersistencePolicy.ChangeInfo changeInfo) {
-		synchronized (storageTask) {
-			resIO.changes.put(resID, new Change(resID, changeInfo));
-		}
+		resIO.changes.put(resID, new Change(resID, changeInfo));
 	}
 
 	@Override
@@ -145,6 +240,7 @@ public class TimedPersistence implements PersistencePolicy {
 	@Override
 	public void stopStorage() {
 		stop = true;
+		timer.cancel();
 	}
 
 	@Override
@@ -15,9 +15,12 @@
  */
 package org.ogema.impl.persistence;
 
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Vector;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 
 import org.ogema.core.model.Resource;
 import org.ogema.core.model.ResourceList;
@@ -34,16 +37,19 @@ public class TreeElementImpl implements TreeElement {
 
 	/*
 	 * List of children which are defined as non-optional in the type definition or added as optional or decorator.
+	 * Leaf nodes share an empty map, the own map is created with the first child, see addRequired.
 	 */
-	public ConcurrentHashMap<String, TreeElementImpl> requireds;
+	public volatile Map<String, TreeElementImpl> requireds;
 	/*
-	 * List of children which are defined as optional in the type definition and not yet added to the resource.
+	 * List of children which are defined as optional in the type definition and not yet added to the resource. Created
+	 * lazily like requireds, see addOptional.
 	 */
-	public ConcurrentHashMap<String, TreeElementImpl> optionals;
+	public volatile Map<String, TreeElementImpl> optionals;
 	/*
-	 * List of all children which are part of the type definition.
+	 * List of all children which are part of the type definition. The map is shared by all nodes of the same type and
+	 * must not be modified.
 	 */
-	public ConcurrentHashMap<String, Class<?>> typeChildren;
+	public Map<String, Class<?>> typeChildren;
 
 	public Object resRef;
 	public TreeElementImpl parent;
@@ -89,11 +95,42 @@ public class TreeElementImpl implements TreeElement {
 	 */
 	long lastModified = -1;
 
+	/*
+	 * Number of calls of setLastModified since startup, not persisted.
+	 */
+	private volatile long modificationCount;
+	private static final AtomicLongFieldUpdater<TreeElementImpl> MODIFICATION_COUNT = AtomicLongFieldUpdater
+			.newUpdater(TreeElementImpl.class, "modificationCount");
+
 	public TreeElementImpl(ResourceDBImpl db) {
 		this.db = db;
-		requireds = new ConcurrentHashMap<String, TreeElementImpl>();
-		optionals = new ConcurrentHashMap<String, TreeElementImpl>();
-		typeChildren = new ConcurrentHashMap<String, Class<?>>();
+		requireds = Collections.emptyMap();
+		optionals = Collections.emptyMap();
+		typeChildren = Collections.emptyMap();
+	}
+
+	void addRequired(String name, TreeElementImpl e) {
+		Map<String, TreeElementImpl> m = requireds;
+		if (!(m instanceof ConcurrentHashMap)) {
+			synchronized (this) {
+				m = requireds;
+				if (!(m instanceof ConcurrentHashMap))
+					requireds = m = new ConcurrentHashMap<>(4);
+			}
+		}
+		m.put(name, e);
+	}
+
+	void addOptional(String name, TreeElementImpl e) {
+		Map<String, TreeElementImpl> m = optionals;
+		if (!(m instanceof ConcurrentHashMap)) {
+			synchronized (this) {
+				m = optionals;
+				if (!(m instanceof ConcurrentHashMap))
+					optionals = m = new ConcurrentHashMap<>(4);
+			}
+		}
+		m.put(name, e);
 	}
 
 	@Override
@@ -375,7 +412,7 @@ public class TreeElementImpl implements TreeElement {
 		if (!decorating) {
 			optionals.remove(result.name);
 		}
-		requireds.put(result.name, result);
+		addRequired(result.name, result);
 		if (db.activatePersistence)
 			db.persistence.store(id, PersistencePolicy.ChangeInfo.NEW_SUBRESOURCE);
 		return result;
@@ -496,7 +533,7 @@ public class TreeElementImpl implements TreeElement {
 		if (!isDecorating) {
 			node.optionals.remove(result.name);
 		}
-		node.requireds.put(result.name, result);
+		node.addRequired(result.name, result);
 		if (db.activatePersistence)
 			db.persistence.store(id, PersistencePolicy.ChangeInfo.NEW_SUBRESOURCE);
 		return result;
@@ -553,7 +590,7 @@ public class TreeElementImpl implements TreeElement {
 		db.createTree(result);
 		db.registerRes(result);
 
-		this.requireds.put(result.name, result);
+		addRequired(result.name, result);
 		if (db.activatePersistence)
 			db.persistence.store(id, PersistencePolicy.ChangeInfo.NEW_SUBRESOURCE);
 		return result;
@@ -594,7 +631,7 @@ public class TreeElementImpl implements TreeElement {
 		result.resID = id;
 		db.registerRes(result);
 
-		requireds.put(result.name, result);
+		addRequired(result.name, result);
 		if (db.activatePersistence)
 			db.persistence.store(id, PersistencePolicy.ChangeInfo.NEW_SUBRESOURCE);
 		return result;
@@ -677,7 +714,7 @@ public class TreeElementImpl implements TreeElement {
 			value.footprint = 8;
 			break; // nothing to do
 		case DBConstants.TYPE_KEY_STRING:
-			value.S = "";
+			value.load("");
 			break;
 		case DBConstants.TYPE_KEY_OPAQUE:
 		case DBConstants.TYPE_KEY_INT_ARR:
@@ -809,6 +846,7 @@ public class TreeElementImpl implements TreeElement {
 	@Override
 	public void setLastModified(long time) {
 		this.lastModified = time;
+		MODIFICATION_COUNT.incrementAndGet(this);
 		if (db.activatePersistence) {
 			store(ChangeInfo.STATUS_CHANGED);
 		}
@@ -819,6 +857,11 @@ public class TreeElementImpl implements TreeElement {
 		return lastModified;
 	}
 
+	@Override
+	public long getModificationCount() {
+		return modificationCount;
+	}
+
 	@Override
 	public String getLocation() {
 		String result = path;
@@ -0,0 +1,89 @@
+/**
+ * This file is part of OGEMA.
+ *
+ * OGEMA is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3
+ * as published by the Free Software Foundation.
+ *
+ * OGEMA is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with OGEMA. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.ogema.impl.persistence;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.ogema.core.model.simple.FloatResource;
+import org.ogema.persistence.DBConstants;
+import org.ogema.resourcetree.TreeElement;
+
+/**
+ * Tests that changes which are appended to the directory log instead of rewriting the directory file are restored
+ * after a restart of the data base.
+ */
+public class DirectoryLogTest {
+
+	static ResourceDBImpl db;
+
+	@BeforeClass
+	public static void init() {
+		System.setProperty("org.ogema.persistence", "active");
+		System.setProperty(DBConstants.DB_PATH_PROP, "directoryLogTest");
+		// the storage cycles are triggered by the test
+		System.setProperty(DBConstants.PROP_NAME_TIMEDPERSISTENCE_PERIOD, "3600000");
+		db = new ResourceDBImpl();
+		db.setName("DirectoryLogTest");
+		db.init();
+		db.resourceIO.reset();
+		db.restart();
+	}
+
+	@AfterClass
+	public static void cleanup() {
+		db.persistence.stopStorage();
+		db.resourceIO.reset();
+		System.clearProperty(DBConstants.PROP_NAME_TIMEDPERSISTENCE_PERIOD);
+	}
+
+	private static TimedPersistence storage() {
+		return (TimedPersistence) db.persistence;
+	}
+
+	@Test
+	public void changesAppendedToTheDirectoryLogAreRestored() {
+		db.addOrUpdateResourceType(FloatResource.class);
+		TreeElement f1 = db.addResource("dirLogFloat1", FloatResource.class, "app");
+		TreeElement f2 = db.addResource("dirLogFloat2", FloatResource.class, "app");
+		f1.getData().setFloat(1.f);
+		f2.getData().setFloat(2.f);
+		storage().storageTask.run();
+		assertEquals(0, storage().getPendingChangeCount());
+		assertEquals(2, storage().getStoredResourceCount());
+
+		File dirFile = db.resourceIO.dirFiles.fileNew;
+		long dirLength = dirFile.length();
+		long logLength = db.resourceIO.dirLogFile.length();
+		f1.getData().setFloat(3.f);
+		db.deleteResource(f2);
+		storage().storageTask.run();
+		assertEquals("directory file must not be rewritten", dirFile, db.resourceIO.dirFiles.fileNew);
+		assertEquals(dirLength, dirFile.length());
+		assertTrue(db.resourceIO.dirLogFile.length() > logLength);
+		assertEquals(2, storage().getStoreCycleCount());
+
+		db.restart();
+		assertTrue(db.hasResource("dirLogFloat1"));
+		assertEquals(3.f, db.getToplevelResource("dirLogFloat1").getData().getFloat(), 0.f);
+		assertFalse(db.hasResource("dirLogFloat2"));
+	}
+
+}
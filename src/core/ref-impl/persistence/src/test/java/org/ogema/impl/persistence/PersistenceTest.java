@@ -499,23 +499,23 @@ public class PersistenceTest {
 				switch (typeKey) {
 				// compare simple resource value
 				case DBConstants.TYPE_KEY_BOOLEAN:
-					if (node.simpleValue.Z != resNew.simpleValue.Z)
+					if (node.simpleValue.getBoolean() != resNew.simpleValue.getBoolean())
 						TestCase.assertTrue(false);
 					break;
 				case DBConstants.TYPE_KEY_FLOAT:
-					if (node.simpleValue.F != resNew.simpleValue.F)
+					if (node.simpleValue.getFloat() != resNew.simpleValue.getFloat())
 						TestCase.assertTrue(false);
 					break;
 				case DBConstants.TYPE_KEY_INT:
-					if (node.simpleValue.I != resNew.simpleValue.I)
+					if (node.simpleValue.getInt() != resNew.simpleValue.getInt())
 						TestCase.assertTrue(false);
 					break;
 				case DBConstants.TYPE_KEY_STRING:
-					if (!node.simpleValue.S.equals(resNew.simpleValue.S))
+					if (!node.simpleValue.getString().equals(resNew.simpleValue.getString()))
 						TestCase.assertTrue(false);
 					break;
 				case DBConstants.TYPE_KEY_LONG:
-					if (node.simpleValue.J != resNew.simpleValue.J)
+					if (node.simpleValue.getLong() != resNew.simpleValue.getLong())
 						TestCase.assertTrue(false);
 					break;
 				// read array resource
@@ -523,28 +523,28 @@ public class PersistenceTest {
 					length = node.simpleValue.getArrayLength();
 					if (length != resNew.simpleValue.getArrayLength())
 						TestCase.assertTrue(false);
-					if (!Arrays.equals(node.simpleValue.aB, resNew.simpleValue.aB))
+					if (!Arrays.equals(node.simpleValue.getByteArr(), resNew.simpleValue.getByteArr()))
 						TestCase.assertTrue(false);
 					break;
 				case DBConstants.TYPE_KEY_INT_ARR:
 					length = node.simpleValue.getArrayLength();
 					if (length != resNew.simpleValue.getArrayLength())
 						TestCase.assertTrue(false);
-					if (!Arrays.equals(node.simpleValue.aI, resNew.simpleValue.aI))
+					if (!Arrays.equals(node.simpleValue.getIntArr(), resNew.simpleValue.getIntArr()))
 						TestCase.assertTrue(false);
 					break;
 				case DBConstants.TYPE_KEY_LONG_ARR:
 					length = node.simpleValue.getArrayLength();
 					if (length != resNew.simpleValue.getArrayLength())
 						TestCase.assertTrue(false);
-					if (!Arrays.equals(node.simpleValue.aJ, resNew.simpleValue.aJ))
+					if (!Arrays.equals(node.simpleValue.getLongArr(), resNew.simpleValue.getLongArr()))
 						TestCase.assertTrue(false);
 					break;
 				case DBConstants.TYPE_KEY_FLOAT_ARR:
 					length = node.simpleValue.getArrayLength();
 					if (length != resNew.simpleValue.getArrayLength())
 						TestCase.assertTrue(false);
-					if (!Arrays.equals(node.simpleValue.aF, resNew.simpleValue.aF))
+					if (!Arrays.equals(node.simpleValue.getFloatArr(), resNew.simpleValue.getFloatArr()))
 						TestCase.assertTrue(false);
 					break;
 				case DBConstants.TYPE_KEY_COMPLEX_ARR:
@@ -553,14 +553,14 @@ public class PersistenceTest {
 					length = node.simpleValue.getArrayLength();
 					if (length != resNew.simpleValue.getArrayLength())
 						TestCase.assertTrue(false);
-					if (!Arrays.equals(node.simpleValue.aZ, resNew.simpleValue.aZ))
+					if (!Arrays.equals(node.simpleValue.getBooleanArr(), resNew.simpleValue.getBooleanArr()))
 						TestCase.assertTrue(false);
 					break;
 				case DBConstants.TYPE_KEY_STRING_ARR:
 					length = node.simpleValue.getArrayLength();
 					if (length != resNew.simpleValue.getArrayLength())
 						TestCase.assertTrue(false);
-					if (!Arrays.equals(node.simpleValue.aS, resNew.simpleValue.aS))
+					if (!Arrays.equals(node.simpleValue.getStringArr(), resNew.simpleValue.getStringArr()))
 						TestCase.assertTrue(false);
 					break;
 				case DBConstants.TYPE_KEY_COMPLEX:
@@ -17,6 +17,8 @@ package org.ogema.impl.persistence;
 
 import org.ogema.impl.persistence.testmodels.TempStorageSwitchCapacity;
 
+import java.net.URL;
+import java.net.URLClassLoader;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
@@ -33,6 +35,7 @@ import org.junit.runners.Parameterized;
 import org.ogema.core.model.Resource;
 import org.ogema.core.model.ResourceList;
 import org.ogema.core.model.array.BooleanArrayResource;
+import org.ogema.core.model.array.FloatArrayResource;
 import org.ogema.core.model.array.IntegerArrayResource;
 import org.ogema.core.model.array.StringArrayResource;
 import org.ogema.core.model.array.TimeArrayResource;
@@ -1931,6 +1934,54 @@ public class TreeElementTest extends DBBasicTest {
 		checkDynamicData();
 	}
 
+	@Test
+	public void typeIndexContainsSubTypesButNoReferences() {
+		checkDynamicData();
+		db.addOrUpdateResourceType(TemperatureSensor.class);
+		TreeElementImpl sensor = (TreeElementImpl) db.addResource("typeIndexSensor", TemperatureSensor.class,
+				testAppID);
+		TreeElement reading = sensor.addChild("typeIndexVolume", VolumeResource.class, true);
+		TreeElementImpl other = (TreeElementImpl) db.addResource("typeIndexOther", OnOffSwitch.class, testAppID);
+		TreeElement ref = other.addReference(sensor, "sensorRef", true);
+
+		TestCase.assertTrue(db.getElementsByType(TemperatureSensor.class).contains(sensor));
+		TestCase.assertTrue(db.getElementsByType(Sensor.class).contains(sensor));
+		TestCase.assertTrue(db.getElementsByType(PhysicalElement.class).contains(sensor));
+		TestCase.assertTrue(db.getElementsByType(FloatResource.class).contains(reading));
+		TestCase.assertTrue(db.getElementsByType(null).contains(reading));
+		TestCase.assertFalse(db.getElementsByType(Sensor.class).contains(other));
+		TestCase.assertFalse(db.getElementsByType(Sensor.class).contains(ref));
+
+		db.deleteResource(sensor);
+		TestCase.assertFalse(db.getElementsByType(Sensor.class).contains(sensor));
+		TestCase.assertFalse(db.getElementsByType(FloatResource.class).contains(reading));
+		db.deleteResource(other);
+		checkDynamicData();
+	}
+
+	@Test
+	public void typeChildrenAreSharedAndChildMapsCreatedLazily() {
+		checkDynamicData();
+		db.addOrUpdateResourceType(OnOffSwitch.class);
+		TreeElementImpl switch1 = (TreeElementImpl) db.addResource("sharedTypeChildren1", OnOffSwitch.class, testAppID);
+		TreeElementImpl switch2 = (TreeElementImpl) db.addResource("sharedTypeChildren2", OnOffSwitch.class, testAppID);
+		TestCase.assertFalse(switch1.typeChildren.isEmpty());
+		TestCase.assertSame(switch1.typeChildren, switch2.typeChildren);
+		TestCase.assertSame(switch1.optionals.get("stateControl").type, switch1.typeChildren.get("stateControl"));
+
+		TreeElementImpl state = (TreeElementImpl) switch1.addChild("stateControl", BooleanResource.class, false);
+		TestCase.assertSame(state, switch1.requireds.get("stateControl"));
+		TestCase.assertNull(switch1.optionals.get("stateControl"));
+		TestCase.assertTrue(state.requireds.isEmpty());
+		TestCase.assertSame(state.requireds, switch2.optionals.get("stateFeedback").requireds);
+		state.getData().setBoolean(true);
+		TestCase.assertTrue(state.getData().getBoolean());
+
+		db.deleteResource(switch1);
+		db.deleteResource(switch2);
+		checkDynamicData();
+	}
+
 	@Test
 	public void testModelImplNonResourceInterface() {
 		System.out.println("Inside testModelInplNonResourceInterface");
@@ -1955,4 +2006,47 @@ public class TreeElementTest extends DBBasicTest {
 		TestCase.assertTrue(db.hasResource("extendedResource"));
 		checkDynamicData();
 	}
+
+	/*
+	 * Loads the type again with a new class loader, as after an update of the bundle defining it.
+	 */
+	@SuppressWarnings("unchecked")
+	private static Class<? extends Resource> loadAgain(final Class<? extends Resource> type) throws Exception {
+		URL location = type.getProtectionDomain().getCodeSource().getLocation();
+		ClassLoader loader = new URLClassLoader(new URL[] { location }, type.getClassLoader()) {
+
+			@Override
+			protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+				if (!name.equals(type.getName()))
+					return super.loadClass(name, resolve);
+				synchronized (getClassLoadingLock(name)) {
+					Class<?> c = findLoadedClass(name);
+					return c != null ? c : findClass(name);
+				}
+			}
+		};
+		return (Class<? extends Resource>) loader.loadClass(type.getName());
+	}
+
+	@Test
+	public void updatedTypeDropsCachedTypeChildren() throws Exception {
+		System.out.println("Inside updatedTypeDropsCachedTypeChildren");
+		checkDynamicData();
+		TreeElement sensor = db.addResource("typeChildrenSensor", TestSensor.class, testAppID);
+		TestCase.assertTrue(db.typeChildrenByType.containsKey(TestSensor.class));
+
+		Class<? extends Resource> updated = loadAgain(TestSensor.class);
+		TestCase.assertNotSame(TestSensor.class, updated);
+		db.addOrUpdateResourceType(updated);
+		TestCase.assertFalse(db.typeChildrenByType.containsKey(TestSensor.class));
+
+		TreeElement updatedSensor = db.addResource("typeChildrenUpdatedSensor", updated, testAppID);
+		TestCase.assertTrue(db.typeChildrenByType.containsKey(updated));
+		TestCase.assertEquals(FloatArrayResource.class, db.typeChildrenByType.get(updated).get("float_array_res"));
+
+		db.deleteResource(sensor);
+		db.deleteResource(updatedSensor);
+		db.addOrUpdateResourceType(TestSensor.class);
+		checkDynamicData();
+	}
 }
@@ -0,0 +1,332 @@
+/**
+ * This file is part of OGEMA.
+ *
+ * OGEMA is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3
+ * as published by the Free Software Foundation.
+ *
+ * OGEMA is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with OGEMA. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.ogema.recordeddata.slotsdb;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Encoding of the data blocks of a {@link CompressedFileObject}. Timestamps, values and qualities of a block are
+ * stored as separate columns:
+ * <ul>
+ * <li>timestamps as delta of the delta to the previous timestamp, so a constant interval needs one bit per value,</li>
+ * <li>values XOR'ed with the previous value, only the bits which differ are stored (as in the Gorilla time series
+ * database),</li>
+ * <li>qualities run length encoded.</li>
+ * </ul>
+ * The first timestamp is not part of the encoded data, it is stored in the block header.
+ */
+final class BlockCodec {
+
+	private BlockCodec() {
+	}
+
+	/**
+	 * @return the encoded columns: varint length of the timestamp column, varint length of the value column, followed
+	 *         by the timestamp, value and quality columns.
+	 */
+	static byte[] encode(long[] timestamps, double[] values, byte[] qualities, int count) {
+		BitOutput ts = new BitOutput(count / 4 + 8);
+		long previousDelta = 0;
+		for (int i = 1; i < count; i++) {
+			long delta = timestamps[i] - timestamps[i - 1];
+			writeDeltaOfDelta(ts, delta - previousDelta);
+			previousDelta = delta;
+		}
+
+		BitOutput vs = new BitOutput(count * 2 + 8);
+		if (count > 0) {
+			long previous = Double.doubleToRawLongBits(values[0]);
+			vs.write(previous, 64);
+			int previousLeading = -1;
+			int previousTrailing = 0;
+			for (int i = 1; i < count; i++) {
+				long bits = Double.doubleToRawLongBits(values[i]);
+				long xor = bits ^ previous;
+				if (xor == 0) {
+					vs.write(0, 1);
+				}
+				else {
+					int leading = Math.min(Long.numberOfLeadingZeros(xor), 31);
+					int trailing = Long.numberOfTrailingZeros(xor);
+					if (previousLeading >= 0 && leading >= previousLeading && trailing >= previousTrailing) {
+						// differing bits fit into the window of the previous value
+						vs.write(0b10, 2);
+						vs.write(xor >>> previousTrailing, 64 - previousLeading - previousTrailing);
+					}
+					else {
+						int significant = 64 - leading - trailing;
+						vs.write(0b11, 2);
+						vs.write(leading, 5);
+						vs.write(significant - 1, 6);
+						vs.write(xor >>> trailing, significant);
+						previousLeading = leading;
+						previousTrailing = trailing;
+					}
+				}
+				previous = bits;
+			}
+		}
+
+		ByteOutput out = new ByteOutput(ts.length() + vs.length() + 16);
+		out.writeVarint(ts.length());
+		out.writeVarint(vs.length());
+		out.write(ts.buffer(), ts.length());
+		out.write(vs.buffer(), vs.length());
+		int i = 0;
+		while (i < count) {
+			byte q = qualities[i];
+			int run = 1;
+			while (i + run < count && qualities[i + run] == q) {
+				run++;
+			}
+			out.writeByte(q);
+			out.writeVarint(run);
+			i += run;
+		}
+		return out.toByteArray();
+	}
+
+	/**
+	 * Decodes count data sets of a block into the given arrays.
+	 */
+	static void decode(byte[] data, int count, long firstTimestamp, long[] timestamps, double[] values,
+			byte[] qualities) throws IOException {
+		if (count == 0) {
+			return;
+		}
+		int[] pos = { 0 };
+		int tsLength = readVarint(data, pos);
+		int vsLength = readVarint(data, pos);
+		int tsStart = pos[0];
+		int vsStart = tsStart + tsLength;
+		int qStart = vsStart + vsLength;
+		if (qStart > data.length) {
+			throw new IOException("corrupted data block");
+		}
+
+		BitInput ts = new BitInput(data, tsStart, vsStart);
+		timestamps[0] = firstTimestamp;
+		long delta = 0;
+		for (int i = 1; i < count; i++) {
+			delta += readDeltaOfDelta(ts);
+			timestamps[i] = timestamps[i - 1] + delta;
+		}
+
+		BitInput vs = new BitInput(data, vsStart, qStart);
+		long previous = vs.read(64);
+		values[0] = Double.longBitsToDouble(previous);
+		int leading = 0;
+		int trailing = 0;
+		for (int i = 1; i < count; i++) {
+			if (vs.read(1) != 0) {
+				if (vs.read(1) != 0) {
+					leading = (int) vs.read(5);
+					int significant = (int) vs.read(6) + 1;
+					trailing = 64 - leading - significant;
+				}
+				previous ^= vs.read(64 - leading - trailing) << trailing;
+			}
+			values[i] = Double.longBitsToDouble(previous);
+		}
+
+		pos[0] = qStart;
+		int i = 0;
+		while (i < count) {
+			if (pos[0] >= data.length) {
+				throw new IOException("corrupted data block");
+			}
+			byte q = data[pos[0]++];
+			int run = readVarint(data, pos);
+			if (run <= 0 || i + run > count) {
+				throw new IOException("corrupted data block");
+			}
+			Arrays.fill(qualities, i, i + run, q);
+			i += run;
+		}
+	}
+
+	private static void writeDeltaOfDelta(BitOutput out, long dod) {
+		if (dod == 0) {
+			out.write(0, 1);
+		}
+		else if (fits(dod, 7)) {
+			out.write(0b10, 2);
+			out.write(dod, 7);
+		}
+		else if (fits(dod, 9)) {
+			out.write(0b110, 3);
+			out.write(dod, 9);
+		}
+		else if (fits(dod, 12)) {
+			out.write(0b1110, 4);
+			out.write(dod, 12);
+		}
+		else if (fits(dod, 32)) {
+			out.write(0b11110, 5);
+			out.write(dod, 32);
+		}
+		else {
+			out.write(0b11111, 5);
+			out.write(dod, 64);
+		}
+	}
+
+	private static long readDeltaOfDelta(BitInput in) throws IOException {
+		int prefix = 0;
+		while (prefix < 5 && in.read(1) != 0) {
+			prefix++;
+		}
+		switch (prefix) {
+		case 0:
+			return 0;
+		case 1:
+			return signExtend(in.read(7), 7);
+		case 2:
+			return signExtend(in.read(9), 9);
+		case 3:
+			return signExtend(in.read(12), 12);
+		case 4:
+			return signExtend(in.read(32), 32);
+		default:
+			return in.read(64);
+		}
+	}
+
+	private static boolean fits(long value, int bits) {
+		long limit = 1L << (bits - 1);
+		return value >= -limit && value < limit;
+	}
+
+	private static long signExtend(long value, int bits) {
+		return (value << (64 - bits)) >> (64 - bits);
+	}
+
+	private static int readVarint(byte[] data, int[] pos) throws IOException {
+		int result = 0;
+		for (int shift = 0; shift < 32; shift += 7) {
+			if (pos[0] >= data.length) {
+				throw new IOException("corrupted data block");
+			}
+			byte b = data[pos[0]++];
+			result |= (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return result;
+			}
+		}
+		throw new IOException("corrupted data block");
+	}
+
+	private static class ByteOutput {
+
+		byte[] buf;
+		int length;
+
+		ByteOutput(int capacity) {
+			buf = new byte[Math.max(capacity, 16)];
+		}
+
+		void ensureCapacity(int additional) {
+			if (length + additional > buf.length) {
+				buf = Arrays.copyOf(buf, Math.max(buf.length * 2, length + additional));
+			}
+		}
+
+		void writeByte(int b) {
+			ensureCapacity(1);
+			buf[length++] = (byte) b;
+		}
+
+		void writeVarint(int value) {
+			while ((value & ~0x7F) != 0) {
+				writeByte((value & 0x7F) | 0x80);
+				value >>>= 7;
+			}
+			writeByte(value);
+		}
+
+		void write(byte[] b, int len) {
+			ensureCapacity(len);
+			System.arraycopy(b, 0, buf, length, len);
+			length += len;
+		}
+
+		byte[] toByteArray() {
+			return Arrays.copyOf(buf, length);
+		}
+	}
+
+	private static class BitOutput {
+
+		private byte[] buf;
+		private long bitCount;
+
+		BitOutput(int capacity) {
+			buf = new byte[Math.max(capacity, 8)];
+		}
+
+		/*
+		 * writes the lowest bits of value, most significant bit first.
+		 */
+		void write(long value, int bits) {
+			for (int i = bits - 1; i >= 0; i--) {
+				int index = (int) (bitCount >>> 3);
+				if (index == buf.length) {
+					buf = Arrays.copyOf(buf, buf.length * 2);
+				}
+				if (((value >>> i) & 1) != 0) {
+					buf[index] |= 0x80 >>> (bitCount & 7);
+				}
+				bitCount++;
+			}
+		}
+
+		int length() {
+			return (int) ((bitCount + 7) >>> 3);
+		}
+
+		byte[] buffer() {
+			return buf;
+		}
+	}
+
+	private static class BitInput {
+
+		private final byte[] data;
+		private final long end;
+		private long position;
+
+		BitInput(byte[] data, int start, int end) {
+			this.data = data;
+			this.position = (long) start << 3;
+			this.end = (long) end << 3;
+		}
+
+		long read(int bits) throws IOException {
+			if (position + bits > end) {
+				throw new IOException("corrupted data block");
+			}
+			long result = 0;
+			for (int i = 0; i < bits; i++) {
+				int b = (data[(int) (position >>> 3)] >>> (7 - (position & 7))) & 1;
+				result = (result << 1) | b;
+				position++;
+			}
+			return result;
+		}
+	}
+
+}
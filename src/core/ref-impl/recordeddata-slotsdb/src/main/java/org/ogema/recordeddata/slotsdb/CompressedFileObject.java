@@ -0,0 +1,399 @@
+/**
+ * This file is part of OGEMA.
+ *
+ * OGEMA is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3
+ * as published by the Free Software Foundation.
+ *
+ * OGEMA is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with OGEMA. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.ogema.recordeddata.slotsdb;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.ogema.core.channelmanager.measurements.DoubleValue;
+import org.ogema.core.channelmanager.measurements.Quality;
+import org.ogema.core.channelmanager.measurements.SampledValue;
+
+/**
+ * File object storing the values in compressed blocks of up to {@link #MAX_BLOCK_SIZE} data sets, see
+ * {@link BlockCodec}. It is used for both fixed and flexible intervals; the file header is the same as for the other
+ * file objects, with a storing period of -1 for flexible intervals. Each block starts with a header containing the
+ * size of the encoded data, the number of data sets, the first and last timestamp and the minimum and maximum value.
+ * The block headers are read when the file is opened and serve as time index, so reads only decode the blocks
+ * overlapping the requested interval.
+ * <p>
+ * The last block of the file stays open for appending. It is kept in memory and rewritten on each {@link #flush()}
+ * until it is full.
+ */
+public class CompressedFileObject extends FileObject {
+
+	/**
+	 * File names of compressed files start with this prefix, followed by the start timestamp.
+	 */
+	public static final String FILE_PREFIX = "b";
+
+	static final int MAX_BLOCK_SIZE = 256;
+	private static final int HEADER_SIZE = 16;
+	private static final int BLOCK_HEADER_SIZE = 2 * Integer.SIZE / Byte.SIZE + 4 * Long.SIZE / Byte.SIZE;
+
+	/*
+	 * sealed blocks, in ascending timestamp order
+	 */
+	private final List<Block> blocks = new ArrayList<>();
+	/*
+	 * the open block, not yet contained in blocks
+	 */
+	private final Data tail = new Data(MAX_BLOCK_SIZE);
+	private long tailOffset = HEADER_SIZE;
+	private boolean tailDirty;
+	private RandomAccessFile raf;
+
+	public CompressedFileObject(File file) throws IOException {
+		super(file);
+		loadBlocks();
+	}
+
+	public CompressedFileObject(String fileName) throws IOException {
+		super(fileName);
+		loadBlocks();
+	}
+
+	@Override
+	void readHeader(DataInputStream dis) throws IOException {
+		startTimeStamp = dis.readLong();
+		storagePeriod = dis.readLong();
+	}
+
+	/*
+	 * Reads the block headers. An incomplete last block (e.g. after a crash during a write) is ignored and will be
+	 * overwritten by the next write.
+	 */
+	private void loadBlocks() throws IOException {
+		if (!dataFile.exists() || length < HEADER_SIZE) {
+			return;
+		}
+		RandomAccessFile in = new RandomAccessFile(dataFile, "r");
+		try {
+			long fileLength = in.length();
+			long position = HEADER_SIZE;
+			byte[] header = new byte[BLOCK_HEADER_SIZE];
+			while (position + BLOCK_HEADER_SIZE <= fileLength) {
+				in.seek(position);
+				in.readFully(header);
+				Block b = new Block(position, ByteBuffer.wrap(header));
+				if (b.count <= 0 || b.count > MAX_BLOCK_SIZE || b.size < 0
+						|| position + BLOCK_HEADER_SIZE + b.size > fileLength) {
+					logger.warn("Ignoring incomplete data block at position {} of {}", position, dataFile);
+					break;
+				}
+				blocks.add(b);
+				position += BLOCK_HEADER_SIZE + b.size;
+			}
+			tailOffset = position;
+		} finally {
+			in.close();
+		}
+		if (!blocks.isEmpty() && blocks.get(blocks.size() - 1).count < MAX_BLOCK_SIZE) {
+			// continue appending to the last block
+			Block last = blocks.remove(blocks.size() - 1);
+			decode(last, tail);
+			tailOffset = last.offset;
+		}
+	}
+
+	@Override
+	public void createFileAndHeader(long startTimeStamp, long stepIntervall) throws IOException {
+		if (!dataFile.exists() || length < HEADER_SIZE) {
+			dataFile.getParentFile().mkdirs();
+			this.startTimeStamp = startTimeStamp;
+			this.storagePeriod = stepIntervall;
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			header.putLong(startTimeStamp).putLong(stepIntervall);
+			RandomAccessFile out = getOutput();
+			out.setLength(0);
+			out.write(header.array());
+			length = HEADER_SIZE;
+			tailOffset = HEADER_SIZE;
+		}
+	}
+
+	@Override
+	public boolean append(double value, long timestamp, byte flag) throws IOException {
+		if (!isEmpty() && timestamp <= getTimestampForLatestValue()) {
+			return false;
+		}
+		if (tail.count == MAX_BLOCK_SIZE) {
+			sealTail();
+		}
+		tail.timestamps[tail.count] = timestamp;
+		tail.values[tail.count] = value;
+		tail.qualities[tail.count] = flag;
+		tail.count++;
+		tailDirty = true;
+		return true;
+	}
+
+	private boolean isEmpty() {
+		return tail.count == 0 && blocks.isEmpty();
+	}
+
+	private void sealTail() throws IOException {
+		Block b = writeTail();
+		blocks.add(b);
+		tailOffset = b.offset + BLOCK_HEADER_SIZE + b.size;
+		tail.count = 0;
+	}
+
+	/*
+	 * Writes the open block to the end of the file, replacing its previous version.
+	 */
+	private Block writeTail() throws IOException {
+		byte[] data = BlockCodec.encode(tail.timestamps, tail.values, tail.qualities, tail.count);
+		double min = Double.NaN;
+		double max = Double.NaN;
+		for (int i = 0; i < tail.count; i++) {
+			double v = tail.values[i];
+			if (Double.isNaN(v)) {
+				continue;
+			}
+			if (Double.isNaN(min) || v < min) {
+				min = v;
+			}
+			if (Double.isNaN(max) || v > max) {
+				max = v;
+			}
+		}
+		Block b = new Block(tailOffset, data.length, tail.count, tail.timestamps[0], tail.timestamps[tail.count - 1],
+				min, max);
+		ByteBuffer bb = ByteBuffer.allocate(BLOCK_HEADER_SIZE + data.length);
+		b.writeHeader(bb);
+		bb.put(data);
+		RandomAccessFile out = getOutput();
+		out.seek(tailOffset);
+		out.write(bb.array());
+		length = tailOffset + bb.capacity();
+		if (out.length() > length) {
+			out.setLength(length);
+		}
+		tailDirty = false;
+		return b;
+	}
+
+	private RandomAccessFile getOutput() throws IOException {
+		if (raf == null) {
+			raf = new RandomAccessFile(dataFile, "rw");
+		}
+		return raf;
+	}
+
+	@Override
+	public void flush() throws IOException {
+		if (tailDirty && tail.count > 0) {
+			writeTail();
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			flush();
+		} finally {
+			if (raf != null) {
+				raf.close();
+				raf = null;
+			}
+			super.close();
+		}
+	}
+
+	@Override
+	public long getTimestampForLatestValue() {
+		if (tail.count > 0) {
+			return tail.timestamps[tail.count - 1];
+		}
+		if (!blocks.isEmpty()) {
+			return blocks.get(blocks.size() - 1).last;
+		}
+		return startTimeStamp;
+	}
+
+	@Override
+	public long getStoringPeriod() {
+		return storagePeriod;
+	}
+
+	@Override
+	public void read(long start, long end, ValueVisitor visitor) throws IOException {
+		if (start > end) {
+			return;
+		}
+		Data data = new Data(MAX_BLOCK_SIZE);
+		for (int i = indexOfBlock(start); i < blocks.size(); i++) {
+			Block b = blocks.get(i);
+			if (b.first > end) {
+				return;
+			}
+			decode(b, data);
+			data.visit(start, end, visitor);
+		}
+		tail.visit(start, end, visitor);
+	}
+
+	@Override
+	public List<SampledValue> readFully() throws IOException {
+		return read(Long.MIN_VALUE, Long.MAX_VALUE);
+	}
+
+	@Override
+	public SampledValue read(long timestamp) throws IOException {
+		List<SampledValue> values = read(timestamp, timestamp);
+		return values.isEmpty() ? null : values.get(0);
+	}
+
+	@Override
+	public SampledValue readNextValue(long timestamp) throws IOException {
+		Data data = new Data(MAX_BLOCK_SIZE);
+		for (int i = indexOfBlock(timestamp); i < blocks.size(); i++) {
+			decode(blocks.get(i), data);
+			SampledValue sv = data.next(timestamp);
+			if (sv != null) {
+				return sv;
+			}
+		}
+		return tail.next(timestamp);
+	}
+
+	/**
+	 * Binary search on the block index for the first sealed block with a last timestamp not smaller than the given
+	 * timestamp.
+	 */
+	private int indexOfBlock(long timestamp) {
+		int low = 0;
+		int high = blocks.size();
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (blocks.get(mid).last < timestamp) {
+				low = mid + 1;
+			}
+			else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	private void decode(Block b, Data target) throws IOException {
+		byte[] data = new byte[b.size];
+		RandomAccessFile in = raf != null ? raf : new RandomAccessFile(dataFile, "r");
+		try {
+			in.seek(b.offset + BLOCK_HEADER_SIZE);
+			in.readFully(data);
+		} finally {
+			if (in != raf) {
+				in.close();
+			}
+		}
+		BlockCodec.decode(data, b.count, b.first, target.timestamps, target.values, target.qualities);
+		target.count = b.count;
+	}
+
+	/**
+	 * Block header, containing the position of the block in the file.
+	 */
+	static final class Block {
+
+		final long offset;
+		final int size;
+		final int count;
+		final long first;
+		final long last;
+		final double min;
+		final double max;
+
+		Block(long offset, int size, int count, long first, long last, double min, double max) {
+			this.offset = offset;
+			this.size = size;
+			this.count = count;
+			this.first = first;
+			this.last = last;
+			this.min = min;
+			this.max = max;
+		}
+
+		Block(long offset, ByteBuffer header) {
+			this(offset, header.getInt(0), header.getInt(4), header.getLong(8), header.getLong(16), header
+					.getDouble(24), header.getDouble(32));
+		}
+
+		void writeHeader(ByteBuffer bb) {
+			bb.putInt(size).putInt(count).putLong(first).putLong(last).putDouble(min).putDouble(max);
+		}
+	}
+
+	/**
+	 * Decoded data sets of one block.
+	 */
+	private static final class Data {
+
+		final long[] timestamps;
+		final double[] values;
+		final byte[] qualities;
+		int count;
+
+		Data(int capacity) {
+			timestamps = new long[capacity];
+			values = new double[capacity];
+			qualities = new byte[capacity];
+		}
+
+		private int indexOf(long timestamp) {
+			int low = 0;
+			int high = count;
+			while (low < high) {
+				int mid = (low + high) >>> 1;
+				if (timestamps[mid] < timestamp) {
+					low = mid + 1;
+				}
+				else {
+					high = mid;
+				}
+			}
+			return low;
+		}
+
+		void visit(long start, long end, ValueVisitor visitor) {
+			for (int i = indexOf(start); i < count && timestamps[i] <= end; i++) {
+				if (!Double.isNaN(values[i])) {
+					visitor.visit(timestamps[i], values[i], Quality.getQuality(qualities[i]));
+				}
+			}
+		}
+
+		SampledValue next(long timestamp) {
+			for (int i = indexOf(timestamp); i < count; i++) {
+				if (!Double.isNaN(values[i])) {
+					return createValue(i);
+				}
+			}
+			return null;
+		}
+
+		private SampledValue createValue(int i) {
+			return new SampledValue(new DoubleValue(values[i]), timestamps[i], Quality.getQuality(qualities[i]));
+		}
+	}
+
+}
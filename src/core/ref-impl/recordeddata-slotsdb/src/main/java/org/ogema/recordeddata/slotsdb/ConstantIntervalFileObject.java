@@ -19,9 +19,7 @@ import java.io.DataInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.nio.ByteBuffer;
-import java.util.Collections;
 import java.util.List;
-import java.util.Vector;
 
 import org.ogema.core.channelmanager.measurements.DoubleValue;
 import org.ogema.core.channelmanager.measurements.Quality;
@@ -53,7 +51,7 @@ public class ConstantIntervalFileObject extends FileObject {
 	}
 
 	@Override
-	public void append(double value, long timestamp, byte flag) throws IOException {
+	public boolean append(double value, long timestamp, byte flag) throws IOException {
 		long writePosition = getBytePosition(timestamp);
 		if (writePosition == length) {
 			/*
@@ -72,6 +70,7 @@ public class ConstantIntervalFileObject extends FileObject {
 				/*
 				 * value has already been stored for this timeslot -> handle? AVERAGE, MIN, MAX, LAST speichern?!
 				 */
+				return false;
 			}
 			else {
 				/*
@@ -103,6 +102,7 @@ public class ConstantIntervalFileObject extends FileObject {
 		 * close(); OutputStreams will not be closed or flushed. Data will be written to disk after calling flush()
 		 * method.
 		 */
+		return true;
 	}
 
 	@Override
@@ -174,22 +174,20 @@ public class ConstantIntervalFileObject extends FileObject {
 	}
 
 	/**
-	 * Returns a List of Value Objects containing the measured Values between provided start and end timestamp
+	 * Passes the measured Values between provided start and end timestamp to the visitor
 	 * 
 	 * @param start
 	 * @param end
-	 * @return 
+	 * @param visitor
 	 * @throws IOException
 	 */
 	@Override
-	public List<SampledValue> read(long start, long end) throws IOException {
+	public void read(long start, long end, ValueVisitor visitor) throws IOException {
 		start = getClosestTimestamp(start); // round to: startTimestamp +
 		// n*stepIntervall
 		long endRounded = getClosestTimestamp(end); // round to: startTimestamp +
 		// n*stepIntervall
 
-		List<SampledValue> toReturn = new Vector<>();
-
 		if (start < end) {
 			if (start < startTimeStamp) {
 				// of this file.
@@ -218,7 +216,7 @@ public class ConstantIntervalFileObject extends FileObject {
 				Quality s = Quality.getQuality(bb.get());
 				if (!Double.isNaN(d)) {
 					if (timestampcounter <= end) {
-						toReturn.add(new SampledValue(new DoubleValue(d), timestampcounter, s));
+						visitor.visit(timestampcounter, d, s);
 					}
 				}
 				timestampcounter += storagePeriod;
@@ -226,11 +224,11 @@ public class ConstantIntervalFileObject extends FileObject {
 
 		}
 		else if (start == end) {
-			toReturn.add(read(start));
-			toReturn.removeAll(Collections.singleton(null));
+			SampledValue value = read(start);
+			if (value != null) {
+				visitor.visit(value.getTimestamp(), value.getValue().getDoubleValue(), value.getQuality());
+			}
 		}
-		return toReturn; // Always return a list -> might be empty -> never is
-		// null, to avoid NP's
 	}
 
 	@Override
@@ -0,0 +1,334 @@
+/**
+ * This file is part of OGEMA.
+ *
+ * OGEMA is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3
+ * as published by the Free Software Foundation.
+ *
+ * OGEMA is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with OGEMA. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.ogema.recordeddata.slotsdb;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Index of the stored data: for every (encoded) label the sorted days with data, and for every day the files of the
+ * label sorted by their start timestamp. Range reads use the index to find the files to read, instead of listing the
+ * day folders and label folders. The index is stored in the file {@value #FILE_NAME} of the database root, so it is
+ * available after a restart without scanning the database.
+ * <p>
+ * The index file is deleted when the index is changed and written again on {@link #write()}, so a missing file
+ * indicates that the database may have been changed after it was written; the index is then rebuilt from the folders.
+ * Day folders which are not contained in the index are scanned when the index is loaded, files which have been removed
+ * by other means (e.g. by the {@link FileFormatConverter}) are detected on read, see {@link #refresh(String, String)}.
+ * <p>
+ * The day map of a label is never modified after it has been published, changes replace the map, so reads need no
+ * lock. Changes of a label require the lock of the label or the write lock of the FileObjectProxy.
+ */
+final class DayIndex {
+
+	private final static Logger logger = LoggerFactory.getLogger(DayIndex.class);
+
+	static final String FILE_NAME = "days.idx";
+	private static final int VERSION = 1;
+
+	private final File rootNode;
+	private final File file;
+	/*
+	 * label -> day in yyyyMMdd format -> files of the label on that day
+	 */
+	private final Map<String, NavigableMap<String, Entry[]>> labels = new ConcurrentHashMap<>();
+	private final Object fileLock = new Object();
+	/*
+	 * true if the index file is not up to date, guarded by fileLock
+	 */
+	private boolean dirty;
+
+	/**
+	 * A file of a label, with the start timestamp taken from its name.
+	 */
+	static final class Entry {
+
+		final String name;
+		final long start;
+
+		Entry(String name, long start) {
+			this.name = name;
+			this.start = start;
+		}
+	}
+
+	private static final Comparator<Entry> BY_START = new Comparator<Entry>() {
+
+		@Override
+		public int compare(Entry e1, Entry e2) {
+			return Long.compare(e1.start, e2.start);
+		}
+	};
+
+	/**
+	 * Loads the index of the database, or creates it from the folders if there is no valid index file.
+	 *
+	 * @param days
+	 *            the day folders of the database
+	 */
+	DayIndex(File rootNode, Collection<File> days) {
+		this.rootNode = rootNode;
+		this.file = new File(rootNode, FILE_NAME);
+		Set<String> dayNames = new HashSet<>();
+		for (File day : days) {
+			dayNames.add(day.getName());
+		}
+		boolean loaded = load();
+		Set<String> indexedDays = new HashSet<>();
+		for (NavigableMap<String, Entry[]> labelDays : labels.values()) {
+			indexedDays.addAll(labelDays.keySet());
+		}
+		for (String day : indexedDays) {
+			if (!dayNames.contains(day)) {
+				removeDay(day);
+			}
+		}
+		for (String day : dayNames) {
+			if (!indexedDays.contains(day)) {
+				scanDay(day);
+				dirty = true;
+			}
+		}
+		if (!loaded) {
+			logger.debug("Created index of {} labels in {}", labels.size(), rootNode);
+		}
+		write();
+	}
+
+	private boolean load() {
+		if (!file.isFile()) {
+			dirty = true;
+			return false;
+		}
+		try (DataInputStream dis = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			if (dis.readInt() != VERSION) {
+				throw new IOException("unknown version");
+			}
+			int labelCount = dis.readInt();
+			for (int i = 0; i < labelCount; i++) {
+				String label = dis.readUTF();
+				NavigableMap<String, Entry[]> labelDays = new TreeMap<>();
+				int dayCount = dis.readInt();
+				for (int j = 0; j < dayCount; j++) {
+					String day = dis.readUTF();
+					Entry[] entries = new Entry[dis.readInt()];
+					for (int k = 0; k < entries.length; k++) {
+						entries[k] = new Entry(dis.readUTF(), dis.readLong());
+					}
+					labelDays.put(day, entries);
+				}
+				labels.put(label, labelDays);
+			}
+			return true;
+		} catch (IOException e) {
+			logger.warn("Could not read index {}, rebuilding it: {}", file, e.toString());
+			labels.clear();
+			dirty = true;
+			return false;
+		}
+	}
+
+	/*
+	 * Adds the files of all labels of the day folder to the index.
+	 */
+	private void scanDay(String day) {
+		File[] labelFolders = new File(rootNode, day).listFiles();
+		if (labelFolders == null) {
+			return;
+		}
+		for (File labelFolder : labelFolders) {
+			if (labelFolder.isDirectory()) {
+				putDay(labelFolder.getName(), day, scan(labelFolder));
+			}
+		}
+	}
+
+	private static Entry[] scan(File labelFolder) {
+		File[] files = labelFolder.listFiles();
+		if (files == null) {
+			return new Entry[0];
+		}
+		List<Entry> entries = new ArrayList<>(files.length);
+		for (File f : files) {
+			String name = f.getName();
+			if (name.endsWith(SlotsDb.FILE_EXTENSION) && f.length() >= 16) {
+				entries.add(new Entry(name, getStartTime(name)));
+			}
+		}
+		Entry[] result = entries.toArray(new Entry[entries.size()]);
+		Arrays.sort(result, BY_START);
+		return result;
+	}
+
+	/*
+	 * File names consist of a type prefix and the start timestamp of the file.
+	 */
+	private static long getStartTime(String fileName) {
+		try {
+			return Long.parseLong(fileName.substring(1, fileName.length() - SlotsDb.FILE_EXTENSION.length()));
+		} catch (NumberFormatException | IndexOutOfBoundsException e) {
+			return Long.MIN_VALUE;
+		}
+	}
+
+	private void putDay(String label, String day, Entry[] entries) {
+		NavigableMap<String, Entry[]> labelDays = labels.get(label);
+		NavigableMap<String, Entry[]> copy = labelDays != null ? new TreeMap<>(labelDays)
+				: new TreeMap<String, Entry[]>();
+		if (entries.length > 0) {
+			copy.put(day, entries);
+		}
+		else {
+			copy.remove(day);
+		}
+		if (copy.isEmpty()) {
+			labels.remove(label);
+		}
+		else {
+			labels.put(label, copy);
+		}
+	}
+
+	private void markDirty() {
+		synchronized (fileLock) {
+			if (!dirty) {
+				dirty = true;
+				if (file.exists() && !file.delete()) {
+					logger.warn("Could not delete outdated index {}", file);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Adds a new file of the label. Requires the lock of the label.
+	 */
+	void addFile(String label, String day, String fileName) {
+		NavigableMap<String, Entry[]> labelDays = labels.get(label);
+		Entry[] entries = labelDays != null ? labelDays.get(day) : null;
+		Entry added = new Entry(fileName, getStartTime(fileName));
+		if (entries == null) {
+			entries = new Entry[] { added };
+		}
+		else {
+			for (Entry e : entries) {
+				if (e.name.equals(fileName)) {
+					return;
+				}
+			}
+			entries = Arrays.copyOf(entries, entries.length + 1);
+			entries[entries.length - 1] = added;
+			Arrays.sort(entries, BY_START);
+		}
+		putDay(label, day, entries);
+		markDirty();
+	}
+
+	/**
+	 * Reloads the files of the label on the given day from its folder, e.g. if a file of the index does not exist
+	 * anymore. Requires the lock of the label.
+	 */
+	void refresh(String label, String day) {
+		putDay(label, day, scan(new File(new File(rootNode, day), label)));
+		markDirty();
+	}
+
+	/**
+	 * Removes a deleted day folder from the index. Requires the write lock of the FileObjectProxy.
+	 */
+	void removeDay(String day) {
+		for (String label : labels.keySet()) {
+			NavigableMap<String, Entry[]> labelDays = labels.get(label);
+			if (labelDays != null && labelDays.containsKey(day)) {
+				putDay(label, day, new Entry[0]);
+				markDirty();
+			}
+		}
+	}
+
+	/**
+	 * @return the days from startDay to endDay (inclusive) with files of the label, in ascending order, mapped to the
+	 *         files of the day sorted by their start timestamp. The arrays must not be modified.
+	 */
+	NavigableMap<String, Entry[]> getDays(String label, String startDay, String endDay) {
+		NavigableMap<String, Entry[]> labelDays = labels.get(label);
+		if (labelDays == null || startDay.compareTo(endDay) > 0) {
+			return new TreeMap<>();
+		}
+		return labelDays.subMap(startDay, true, endDay, true);
+	}
+
+	/**
+	 * Writes the index file, if the index has been changed since it was written last.
+	 */
+	void write() {
+		synchronized (fileLock) {
+			if (!dirty) {
+				return;
+			}
+			dirty = false;
+			File tmp = new File(rootNode, FILE_NAME + ".tmp");
+			try {
+				try (DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+					Map<String, NavigableMap<String, Entry[]>> snapshot = new TreeMap<>(labels);
+					dos.writeInt(VERSION);
+					dos.writeInt(snapshot.size());
+					for (Map.Entry<String, NavigableMap<String, Entry[]>> label : snapshot.entrySet()) {
+						dos.writeUTF(label.getKey());
+						dos.writeInt(label.getValue().size());
+						for (Map.Entry<String, Entry[]> day : label.getValue().entrySet()) {
+							dos.writeUTF(day.getKey());
+							dos.writeInt(day.getValue().length);
+							for (Entry e : day.getValue()) {
+								dos.writeUTF(e.name);
+								dos.writeLong(e.start);
+							}
+						}
+					}
+				}
+				file.delete();
+				if (!tmp.renameTo(file)) {
+					throw new IOException("could not rename " + tmp);
+				}
+			} catch (IOException e) {
+				logger.warn("Could not write index {}: {}", file, e.toString());
+				tmp.delete();
+				dirty = true;
+			}
+		}
+	}
+
+}
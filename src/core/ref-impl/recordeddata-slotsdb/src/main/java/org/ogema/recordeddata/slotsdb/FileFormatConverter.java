@@ -0,0 +1,129 @@
+/**
+ * This file is part of OGEMA.
+ *
+ * OGEMA is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3
+ * as published by the Free Software Foundation.
+ *
+ * OGEMA is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with OGEMA. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.ogema.recordeddata.slotsdb;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import org.ogema.core.channelmanager.measurements.SampledValue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Converts existing SlotsDB files into the compressed format of {@link CompressedFileObject}. Both formats can be read
+ * side by side, so a database can be converted partially, e.g. only the older days. The database must not be in use
+ * while it is converted.
+ * <p>
+ * Usage: <code>java -cp ... org.ogema.recordeddata.slotsdb.FileFormatConverter &lt;folder&gt;...</code>, where folder
+ * is the database root folder, a day folder or a label folder.
+ */
+public final class FileFormatConverter {
+
+	private final static Logger logger = LoggerFactory.getLogger(FileFormatConverter.class);
+
+	private FileFormatConverter() {
+	}
+
+	/**
+	 * Converts all uncompressed files in the given folder and its sub folders.
+	 *
+	 * @return number of converted files
+	 */
+	public static int compress(File folder) throws IOException {
+		int count = 0;
+		File[] files = folder.listFiles();
+		if (files == null) {
+			return 0;
+		}
+		for (File file : files) {
+			if (file.isDirectory()) {
+				count += compress(file);
+			}
+			else if (file.getName().endsWith(SlotsDb.FILE_EXTENSION) && compressFile(file)) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Replaces an uncompressed file by a compressed file with the same content.
+	 *
+	 * @return false if the file was not converted, because it is compressed already or empty.
+	 */
+	public static boolean compressFile(File file) throws IOException {
+		if (file.getName().startsWith(CompressedFileObject.FILE_PREFIX) || file.length() < 16) {
+			return false;
+		}
+		FileObject source = FileObject.getFileObject(file);
+		List<SampledValue> values;
+		try {
+			values = source.readFully();
+		} finally {
+			source.close();
+		}
+		File target = new File(file.getParentFile(), CompressedFileObject.FILE_PREFIX + file.getName().substring(1));
+		if (target.exists()) {
+			throw new IOException("Cannot convert " + file + ", " + target + " exists already");
+		}
+		CompressedFileObject compressed = new CompressedFileObject(target);
+		try {
+			compressed.createFileAndHeader(source.getStartTimeStamp(), source.getStoringPeriod());
+			for (SampledValue sv : values) {
+				compressed.append(sv.getValue().getDoubleValue(), sv.getTimestamp(), (byte) sv.getQuality()
+						.getQuality());
+			}
+		} finally {
+			compressed.close();
+		}
+		CompressedFileObject check = new CompressedFileObject(target);
+		int written;
+		try {
+			written = check.readFully().size();
+		} finally {
+			check.close();
+		}
+		if (written != values.size()) {
+			target.delete();
+			throw new IOException("Conversion of " + file + " failed, wrote " + written + " of " + values.size()
+					+ " values");
+		}
+		long size = file.length();
+		if (!file.delete()) {
+			target.delete();
+			throw new IOException("Could not delete " + file);
+		}
+		logger.debug("Converted {}: {} -> {} bytes", file, size, target.length());
+		return true;
+	}
+
+	public static void main(String[] args) throws IOException {
+		if (args.length == 0) {
+			System.err.println("usage: " + FileFormatConverter.class.getName() + " <slotsdb folder>...");
+			System.exit(1);
+		}
+		for (String arg : args) {
+			File folder = new File(arg);
+			if (!folder.isDirectory()) {
+				System.err.println(arg + " is not a directory");
+				continue;
+			}
+			System.out.println("Converted " + compress(folder) + " files in " + folder);
+		}
+	}
+
+}
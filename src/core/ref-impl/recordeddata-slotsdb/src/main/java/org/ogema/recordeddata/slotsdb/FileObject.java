@@ -23,13 +23,24 @@ import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.List;
+import java.util.Vector;
 
+import org.ogema.core.channelmanager.measurements.DoubleValue;
+import org.ogema.core.channelmanager.measurements.Quality;
 import org.ogema.core.channelmanager.measurements.SampledValue;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 public abstract class FileObject {
 
+	/**
+	 * Receives the values of a read, without SampledValue objects being created for them.
+	 */
+	public interface ValueVisitor {
+
+		void visit(long timestamp, double value, Quality quality);
+	}
+
 	protected Logger logger = LoggerFactory.getLogger(getClass());
 	protected long startTimeStamp; // byte 0-7 in file (cached)
 	protected long storagePeriod; // byte 8-15 in file (cached)
@@ -212,7 +223,12 @@ public abstract class FileObject {
 		}
 	}
 
-	public abstract void append(double value, long timestamp, byte flag) throws IOException;
+	/**
+	 * Appends a value to the file.
+	 * 
+	 * @return false if the value was not stored, because a value for the timestamp or a later one exists already.
+	 */
+	public abstract boolean append(double value, long timestamp, byte flag) throws IOException;
 
 	public abstract long getTimestampForLatestValue();
 
@@ -223,8 +239,23 @@ public abstract class FileObject {
 	 * @param end
 	 * @throws IOException
 	 */
+	public List<SampledValue> read(long start, long end) throws IOException {
+		final List<SampledValue> toReturn = new Vector<SampledValue>();
+		read(start, end, new ValueVisitor() {
 
-	public abstract List<SampledValue> read(long start, long end) throws IOException;
+			@Override
+			public void visit(long timestamp, double value, Quality quality) {
+				toReturn.add(new SampledValue(new DoubleValue(value), timestamp, quality));
+			}
+		});
+		return toReturn;
+	}
+
+	/**
+	 * Passes the measured values between provided start and end timestamp to the visitor, in the order of their
+	 * timestamps.
+	 */
+	public abstract void read(long start, long end, ValueVisitor visitor) throws IOException;
 
 	public abstract List<SampledValue> readFully() throws IOException;
 
@@ -286,6 +317,9 @@ public abstract class FileObject {
 		else if (fileName.startsWith("f")) {
 			return new FlexibleIntervalFileObject(fileName);
 		}
+		else if (fileName.startsWith(CompressedFileObject.FILE_PREFIX)) {
+			return new CompressedFileObject(fileName);
+		}
 		else {
 			throw new IOException("Invalid filename for SlotsDB-File");
 		}
@@ -298,6 +332,9 @@ public abstract class FileObject {
 		else if (file.getName().startsWith("f")) {
 			return new FlexibleIntervalFileObject(file);
 		}
+		else if (file.getName().startsWith(CompressedFileObject.FILE_PREFIX)) {
+			return new CompressedFileObject(file);
+		}
 		else {
 			throw new IOException("Invalid file for SlotsDB-File. Invalid filename.");
 		}
@@ -81,6 +81,10 @@ public final class FileObjectList {
 
 		File folder = new File(foldername);
 
+		if (files != null) {
+			// write pending data of the current objects, they are replaced by new ones
+			closeAllFiles();
+		}
 		files = new Vector<FileObject>(1);
 		if (folder.isDirectory()) {
 			for (File file : folder.listFiles()) {
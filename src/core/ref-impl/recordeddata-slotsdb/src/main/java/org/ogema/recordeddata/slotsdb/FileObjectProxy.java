@@ -20,18 +20,25 @@ import java.io.IOException;
 import java.net.URLEncoder;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Timer;
 import java.util.TimerTask;
+import java.util.TreeMap;
 import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
+import org.ogema.core.channelmanager.measurements.DoubleValue;
+import org.ogema.core.channelmanager.measurements.IllegalConversionException;
+import org.ogema.core.channelmanager.measurements.Quality;
 import org.ogema.core.channelmanager.measurements.SampledValue;
 import org.ogema.core.recordeddata.RecordedDataConfiguration;
 import org.ogema.core.recordeddata.RecordedDataConfiguration.StorageType;
@@ -44,15 +51,29 @@ public final class FileObjectProxy {
 
 	private final static Logger logger = LoggerFactory.getLogger(FileObjectProxy.class);
 
+	/*
+	 * Number of locks the labels are distributed to.
+	 */
+	private static final int LOCK_STRIPES = 64;
+
 	private final File rootNode;
-	private HashMap<String, FileObjectList> openFilesHM;
-	private final HashMap<String, String> encodedLabels;
+	private final Map<String, FileObjectList> openFilesHM;
+	private final Map<String, String> encodedLabels;
 	private final SimpleDateFormat sdf;
 	private final Date date;
 	private final Timer timer;
-	private List<File> days;
+	private volatile List<File> days;
 	private long size;
 
+	/*
+	 * Reading and writing the data of a label requires the read lock of folderLock and the lock of the label, see
+	 * getLabelLock. So operations for different labels proceed in parallel. Operations which close the files of other
+	 * labels or delete folders (change of the day, control of the number of open files, deletion of old data) require
+	 * the write lock of folderLock. The write lock must not be requested while holding the read lock.
+	 */
+	private final ReadWriteLock folderLock = new ReentrantReadWriteLock();
+	private final Object[] labelLocks = new Object[LOCK_STRIPES];
+
 	/*
 	 * Flush Period in Seconds. if flush_period == 0 -> write directly to disk.
 	 */
@@ -61,9 +82,33 @@ public final class FileObjectProxy {
 	private int limit_size;
 	private int max_open_files;
 
-	private String strCurrentDay;
-	private long currentDayFirstTS;
-	private long currentDayLastTS;
+	private volatile Day currentDay;
+
+	/*
+	 * null if rollups are disabled.
+	 */
+	private final RollupStore rollups;
+
+	/*
+	 * days and files per label, used to find the files for range reads.
+	 */
+	private final DayIndex index;
+
+	/*
+	 * A day in yyyyMMdd format with its first and last timestamp.
+	 */
+	private static final class Day {
+
+		final String strDay;
+		final long firstTS;
+		final long lastTS;
+
+		Day(String strDay, long firstTS) {
+			this.strDay = strDay;
+			this.firstTS = firstTS;
+			this.lastTS = firstTS + 86399999;
+		}
+	}
 
 	/**
 	 * Creates an instance of a FileObjectProxy<br>
@@ -80,10 +125,15 @@ public final class FileObjectProxy {
 		logger.info("Storing to: " + rootNodePath);
 		rootNode = new File(rootNodePath);
 		rootNode.mkdirs();
-		openFilesHM = new HashMap<String, FileObjectList>();
-		encodedLabels = new HashMap<String, String>();
+		openFilesHM = new ConcurrentHashMap<String, FileObjectList>();
+		encodedLabels = new ConcurrentHashMap<String, String>();
+		for (int i = 0; i < LOCK_STRIPES; i++) {
+			labelLocks[i] = new Object();
+		}
 
 		loadDays();
+		index = new DayIndex(rootNode, days);
+		rollups = RollupStore.create(rootNode, SlotsDb.ROLLUPS);
 
 		if (SlotsDb.FLUSH_PERIOD != null) {
 			flush_period = Integer.parseInt(SlotsDb.FLUSH_PERIOD);
@@ -129,13 +179,17 @@ public final class FileObjectProxy {
 	 * loads a sorted list of all days in SLOTSDB. Necessary for search- and delete jobs.
 	 */
 	private void loadDays() {
-		days = new Vector<File>();
+		List<File> days = new Vector<File>();
 		for (File f : rootNode.listFiles()) {
-			if (f.isDirectory()) {
+			if (isDayFolder(f)) {
 				days.add(f);
 			}
 		}
-		days = sortFolders(days);
+		this.days = sortFolders(days);
+	}
+
+	private static boolean isDayFolder(File f) {
+		return f.isDirectory() && !f.getName().equals(RollupStore.FOLDER);
 	}
 
 	private List<File> sortFolders(List<File> days) {
@@ -145,7 +199,7 @@ public final class FileObjectProxy {
 			public int compare(File f1, File f2) {
 				int i = 0;
 				try {
-					i = Long.valueOf(sdf.parse(f1.getName()).getTime()).compareTo(sdf.parse(f2.getName()).getTime());
+					i = Long.valueOf(parseDay(f1.getName())).compareTo(parseDay(f2.getName()));
 				} catch (ParseException e) {
 					logger.error("Error during sorting Files: Folder doesn't match yyyymmdd Format?");
 				}
@@ -155,6 +209,30 @@ public final class FileObjectProxy {
 		return days;
 	}
 
+	private long parseDay(String name) throws ParseException {
+		synchronized (sdf) {
+			return sdf.parse(name).getTime();
+		}
+	}
+
+	/*
+	 * Lock for reading and writing the data of the encoded label.
+	 */
+	private Object getLabelLock(String label) {
+		return labelLocks[(label.hashCode() & 0x7fffffff) % LOCK_STRIPES];
+	}
+
+	/*
+	 * The key of the FileObjectList of a label and day. Encoded labels don't contain '/'.
+	 */
+	private static String getKey(String label, String strDate) {
+		return label + "/" + strDate;
+	}
+
+	private static String getLabel(String key) {
+		return key.substring(0, key.indexOf('/'));
+	}
+
 	/**
 	 * Creates a Thread, that causes Data Streams to be flushed every x-seconds.<br>
 	 * Define flush-period in seconds with JVM flag: org.ogema.recordeddata.slotsdb.flushperiod
@@ -193,11 +271,12 @@ public final class FileObjectProxy {
 		private void deleteFoldersOlderThen(int limit_days) throws IOException {
 			Calendar limit = Calendar.getInstance();
 			limit.setTimeInMillis(System.currentTimeMillis() - (86400000L * limit_days));
-			Iterator<File> iterator = days.iterator();
+			folderLock.writeLock().lock();
 			try {
+				Iterator<File> iterator = days.iterator();
 				while (iterator.hasNext()) {
 					File curElement = iterator.next();
-					if (sdf.parse(curElement.getName()).getTime() + 86400000 < limit.getTimeInMillis()) { /*
+					if (parseDay(curElement.getName()) + 86400000 < limit.getTimeInMillis()) { /*
 																											 * compare
 																											 * folder 's
 																											 * oldest value
@@ -206,6 +285,7 @@ public final class FileObjectProxy {
 						logger.info("Folder: " + curElement.getName() + " is older then " + limit_days
 								+ " Days. Will be deleted.");
 						deleteRecursiveFolder(curElement);
+						index.removeDay(curElement.getName());
 					}
 					else {
 						/* oldest existing Folder is not to be deleted yet */
@@ -213,8 +293,11 @@ public final class FileObjectProxy {
 					}
 				}
 				loadDays();
+				index.write();
 			} catch (ParseException e) {
 				logger.error("Error during sorting Files: Any Folder doesn't match yyyymmdd Format?");
+			} finally {
+				folderLock.writeLock().unlock();
 			}
 		}
 	}
@@ -240,17 +323,27 @@ public final class FileObjectProxy {
 		}
 
 		private void deleteOldestFolder() throws IOException {
-			if (days.size() >= 2) {
-				logger.info("Exceeded Maximum Database Size: " + limit_size + " MB. Current size: " + (size / 1000000)
-						+ " MB. Deleting: " + days.get(0).getCanonicalPath());
-				deleteRecursiveFolder(days.get(0));
-				days.remove(0);
-				clearOpenFilesHashMap();
+			folderLock.writeLock().lock();
+			try {
+				if (days.size() >= 2) {
+					logger.info("Exceeded Maximum Database Size: " + limit_size + " MB. Current size: "
+							+ (size / 1000000) + " MB. Deleting: " + days.get(0).getCanonicalPath());
+					deleteRecursiveFolder(days.get(0));
+					index.removeDay(days.get(0).getName());
+					days.remove(0);
+					clearOpenFilesHashMap();
+					index.write();
+				}
+			} finally {
+				folderLock.writeLock().unlock();
 			}
 		}
 	}
 
-	private synchronized void deleteRecursiveFolder(File folder) {
+	/*
+	 * Requires the write lock of folderLock, or the read lock and the lock of the label for the rollups of a label.
+	 */
+	private void deleteRecursiveFolder(File folder) {
 		if (folder.exists()) {
 			for (File f : folder.listFiles()) {
 				if (f.isDirectory()) {
@@ -277,7 +370,11 @@ public final class FileObjectProxy {
 	}
 
 	private void recursive_size_walker(File folder) throws IOException {
-		for (File f : folder.listFiles()) {
+		File[] files = folder.listFiles();
+		if (files == null) {
+			return;
+		}
+		for (File f : files) {
 			size += f.length();
 			if (f.isDirectory()) {
 				recursive_size_walker(f);
@@ -295,7 +392,158 @@ public final class FileObjectProxy {
 	 * @param storingPeriod
 	 * @throws IOException
 	 */
-	public synchronized void appendValue(String id, double value, long timestamp, byte state,
+	public void appendValue(String id, double value, long timestamp, byte state,
+			RecordedDataConfiguration configuration) throws IOException {
+
+		id = encodeLabel(id);
+		String strDate = getStrDate(timestamp);
+
+		FileObjectList list = openFilesHM.get(getKey(id, strDate));
+		if (list == null || list.size() == 0) {
+			/*
+			 * This will be the first value stored for this day. Eventually existing FileObjectLists from the day before
+			 * will be flushed and closed. Also the Hashtable size will be monitored, to not have too many opened
+			 * Filestreams.
+			 */
+			folderLock.writeLock().lock();
+			try {
+				deleteEntryFromLastDay(timestamp, id);
+				controlHashtableSize();
+			} finally {
+				folderLock.writeLock().unlock();
+			}
+		}
+		folderLock.readLock().lock();
+		try {
+			appendLocked(id, strDate, value, timestamp, state, configuration);
+		} finally {
+			folderLock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Appends one value for each of several labels. The values are grouped by day folder, so that the folder lock is
+	 * acquired once per day folder instead of once per value.
+	 * 
+	 * @param values
+	 *            map of label to the value to append
+	 * @param configurations
+	 *            map of label to its configuration; labels without configuration are skipped
+	 * @throws IOException
+	 */
+	public void appendValues(Map<String, SampledValue> values, Map<String, RecordedDataConfiguration> configurations)
+			throws IOException {
+
+		Map<String, List<BatchEntry>> days = new TreeMap<>();
+		for (Map.Entry<String, SampledValue> e : values.entrySet()) {
+			RecordedDataConfiguration configuration = configurations.get(e.getKey());
+			if (configuration == null) {
+				continue;
+			}
+			double value;
+			try {
+				value = e.getValue().getValue().getDoubleValue();
+			} catch (IllegalConversionException ex) {
+				logger.error("", ex);
+				continue;
+			}
+			long timestamp = e.getValue().getTimestamp();
+			String strDate = getStrDate(timestamp);
+			List<BatchEntry> day = days.get(strDate);
+			if (day == null) {
+				day = new ArrayList<>();
+				days.put(strDate, day);
+			}
+			try {
+				day.add(new BatchEntry(encodeLabel(e.getKey()), value, timestamp, (byte) e.getValue().getQuality()
+						.getQuality(), configuration));
+			} catch (IOException ex) {
+				logger.error("Appending value of " + e.getKey() + " failed", ex);
+			}
+		}
+		for (Map.Entry<String, List<BatchEntry>> day : days.entrySet()) {
+			appendDay(day.getKey(), day.getValue());
+		}
+	}
+
+	private void appendDay(String strDate, List<BatchEntry> entries) {
+		List<BatchEntry> firstOfDay = null;
+		for (BatchEntry e : entries) {
+			FileObjectList list = openFilesHM.get(getKey(e.label, strDate));
+			if (list == null || list.size() == 0) {
+				if (firstOfDay == null) {
+					firstOfDay = new ArrayList<>();
+				}
+				firstOfDay.add(e);
+			}
+		}
+		if (firstOfDay != null) {
+			/* see appendValue(String, double, long, byte, RecordedDataConfiguration) */
+			folderLock.writeLock().lock();
+			try {
+				for (BatchEntry e : firstOfDay) {
+					try {
+						deleteEntryFromLastDay(e.timestamp, e.label);
+					} catch (IOException ex) {
+						logger.error("Closing the previous day of " + e.label + " failed", ex);
+					}
+				}
+				controlHashtableSize();
+			} catch (IOException ex) {
+				logger.error("Closing open files failed", ex);
+			} finally {
+				folderLock.writeLock().unlock();
+			}
+		}
+		folderLock.readLock().lock();
+		try {
+			// each value is appended on its own, a failure must not drop the values of the other labels
+			for (BatchEntry e : entries) {
+				try {
+					appendLocked(e.label, strDate, e.value, e.timestamp, e.state, e.configuration);
+				} catch (IOException ex) {
+					logger.error("Appending value of " + e.label + " failed", ex);
+				}
+			}
+		} finally {
+			folderLock.readLock().unlock();
+		}
+	}
+
+	/*
+	 * Requires the read lock of folderLock.
+	 */
+	private void appendLocked(String id, String strDate, double value, long timestamp, byte state,
+			RecordedDataConfiguration configuration) throws IOException {
+		synchronized (getLabelLock(id)) {
+			if (appendValue(id, strDate, value, timestamp, state, configuration) && rollups != null
+					&& state == Quality.GOOD.getQuality()) {
+				rollups.append(id, getRoundedTimestamp(timestamp, configuration), value);
+			}
+		}
+	}
+
+	private static final class BatchEntry {
+
+		final String label;
+		final double value;
+		final long timestamp;
+		final byte state;
+		final RecordedDataConfiguration configuration;
+
+		BatchEntry(String label, double value, long timestamp, byte state, RecordedDataConfiguration configuration) {
+			this.label = label;
+			this.value = value;
+			this.timestamp = timestamp;
+			this.state = state;
+			this.configuration = configuration;
+		}
+	}
+
+	/*
+	 * Requires the read lock of folderLock and the lock of the label. Returns false if the value was not stored.
+	 */
+	private boolean appendValue(String id, String strDate, double value, long timestamp, byte state,
 			RecordedDataConfiguration configuration) throws IOException {
 
 		long storingPeriod;
@@ -309,20 +557,15 @@ public final class FileObjectProxy {
 		}
 
 		FileObject toStoreIn = null;
-
-		id = encodeLabel(id);
-		String strDate = getStrDate(timestamp);
+		String key = getKey(id, strDate);
 
 		/*
 		 * If there is no FileObjectList for this folder, a new one will be created. (This will be the first value
-		 * stored for this day) Eventually existing FileObjectLists from the day before will be flushed and closed. Also
-		 * the Hashtable size will be monitored, to not have too many opened Filestreams.
+		 * stored for this day)
 		 */
-		if (!openFilesHM.containsKey(id + strDate) || openFilesHM.get(id + strDate).size() == 0) {
-			deleteEntryFromLastDay(timestamp, id);
-			controlHashtableSize();
+		if (!openFilesHM.containsKey(key) || openFilesHM.get(key).size() == 0) {
 			FileObjectList first = new FileObjectList(rootNode.getPath() + "/" + strDate + "/" + id);
-			openFilesHM.put(id + strDate, first);
+			openFilesHM.put(key, first);
 
 			/*
 			 * If FileObjectList for this label does not contain any FileObjects yet, a new one will be created. Data
@@ -330,32 +573,23 @@ public final class FileObjectProxy {
 			 */
 			if (first.size() == 0) {
 
-				if (configuration.getStorageType().equals(StorageType.FIXED_INTERVAL)) {
-					// fixed interval
-					toStoreIn = new ConstantIntervalFileObject(rootNode.getPath() + "/" + strDate + "/" + id + "/c"
-							+ timestamp + SlotsDb.FILE_EXTENSION);
-				}
-				else {
-					/* flexible interval */
-					toStoreIn = new FlexibleIntervalFileObject(rootNode.getPath() + "/" + strDate + "/" + id + "/f"
-							+ timestamp + SlotsDb.FILE_EXTENSION);
-				}
-
+				toStoreIn = createFileObject(id, strDate, timestamp, configuration);
 				long roundedTimestamp = getRoundedTimestamp(timestamp, configuration);
 				// System.out.println("   New file; rounded timestamp: " + roundedTimestamp + ", original : " +
 				// timestamp);
 				toStoreIn.createFileAndHeader(roundedTimestamp, storingPeriod);
-				toStoreIn.append(value, roundedTimestamp, state);
+				boolean stored = toStoreIn.append(value, roundedTimestamp, state);
 				toStoreIn.close(); /* close() also calls flush(). */
-				openFilesHM.get(id + strDate).reLoadFolder();
-				return;
+				index.addFile(id, strDate, toStoreIn.dataFile.getName());
+				openFilesHM.get(key).reLoadFolder();
+				return stored;
 			}
 		}
 
 		/*
 		 * There is a FileObjectList for this day.
 		 */
-		FileObjectList listToStoreIn = openFilesHM.get(id + strDate);
+		FileObjectList listToStoreIn = openFilesHM.get(key);
 		if (listToStoreIn.size() > 0) {
 			toStoreIn = listToStoreIn.getCurrentFileObject();
 
@@ -364,7 +598,7 @@ public final class FileObjectProxy {
 			 */
 			long roundedTimestamp = getRoundedTimestamp(timestamp, configuration);
 			if (toStoreIn.getStartTimeStamp() > roundedTimestamp) {
-				return;
+				return false;
 			}
 		}
 
@@ -373,39 +607,50 @@ public final class FileObjectProxy {
 		}
 
 		/*
-		 * The storing Period may have changed. In this case, a new FileObject must be created.
+		 * The storing Period or the file format may have changed. In this case, a new FileObject must be created.
 		 */
-		if (toStoreIn.getStoringPeriod() == storingPeriod || toStoreIn.getStoringPeriod() == 0) {
-			toStoreIn = openFilesHM.get(id + strDate).getCurrentFileObject();
+		if ((toStoreIn.getStoringPeriod() == storingPeriod || toStoreIn.getStoringPeriod() == 0)
+				&& (toStoreIn instanceof CompressedFileObject) == configuration.isCompressed()) {
+			toStoreIn = openFilesHM.get(key).getCurrentFileObject();
 			long roundedTimestamp = getRoundedTimestamp(timestamp, configuration);
-			toStoreIn.append(value, roundedTimestamp, state);
+			boolean stored = toStoreIn.append(value, roundedTimestamp, state);
 			if (flush_period == 0) {
 				toStoreIn.flush();
 			}
-			else {
-				return;
-			}
+			return stored;
 		}
 		else {
 			/*
 			 * Intervall changed -> create new File (if there are no newer values for this day, or file)
 			 */
 			if (toStoreIn.getTimestampForLatestValue() < timestamp) {
-				if (storingPeriod != FLEXIBLE_STORING_PERIOD) { /* constant intervall */
-					toStoreIn = new ConstantIntervalFileObject(rootNode.getPath() + "/" + strDate + "/" + id + "/c"
-							+ timestamp + SlotsDb.FILE_EXTENSION);
-				}
-				else { /* flexible intervall */
-					toStoreIn = new FlexibleIntervalFileObject(rootNode.getPath() + "/" + strDate + "/" + id + "/f"
-							+ timestamp + SlotsDb.FILE_EXTENSION);
-				}
+				toStoreIn = createFileObject(id, strDate, timestamp, configuration);
 				toStoreIn.createFileAndHeader(timestamp, storingPeriod);
-				toStoreIn.append(value, timestamp, state);
-				if (flush_period == 0) {
-					toStoreIn.flush();
-				}
-				openFilesHM.get(id + strDate).reLoadFolder();
+				boolean stored = toStoreIn.append(value, timestamp, state);
+				toStoreIn.close(); /* close() also calls flush(). */
+				index.addFile(id, strDate, toStoreIn.dataFile.getName());
+				openFilesHM.get(key).reLoadFolder();
+				return stored;
 			}
+			return false;
+		}
+	}
+
+	/*
+	 * Creates the file object for a new file of the label, in the format selected by the configuration.
+	 */
+	private FileObject createFileObject(String id, String strDate, long timestamp,
+			RecordedDataConfiguration configuration) throws IOException {
+		String folder = rootNode.getPath() + "/" + strDate + "/" + id + "/";
+		if (configuration.isCompressed()) {
+			return new CompressedFileObject(folder + CompressedFileObject.FILE_PREFIX + timestamp
+					+ SlotsDb.FILE_EXTENSION);
+		}
+		else if (configuration.getStorageType().equals(StorageType.FIXED_INTERVAL)) {
+			return new ConstantIntervalFileObject(folder + "c" + timestamp + SlotsDb.FILE_EXTENSION);
+		}
+		else {
+			return new FlexibleIntervalFileObject(folder + "f" + timestamp + SlotsDb.FILE_EXTENSION);
 		}
 	}
 
@@ -475,7 +720,7 @@ public final class FileObjectProxy {
 		return encodedLabel;
 	}
 
-	public synchronized SampledValue readNextValue(String label, long timestamp, RecordedDataConfiguration configuration)
+	public SampledValue readNextValue(String label, long timestamp, RecordedDataConfiguration configuration)
 			throws IOException {
 
 		timestamp = getRoundedTimestamp(timestamp, configuration);
@@ -483,23 +728,24 @@ public final class FileObjectProxy {
 
 		String strDate = getStrDate(timestamp);
 
-		if (!openFilesHM.containsKey(label + strDate)) {
-			controlHashtableSize();
-			FileObjectList fol = new FileObjectList(rootNode.getPath() + "/" + strDate + "/" + label);
-			openFilesHM.put(label + strDate, fol);
-
-		}
-		FileObject toReadFrom = openFilesHM.get(label + strDate).getFileObjectForTimestamp(timestamp);
-		if (toReadFrom != null) {
+		beforeOpenFileObjectList(label, strDate);
+		folderLock.readLock().lock();
+		try {
+			synchronized (getLabelLock(label)) {
+				FileObject toReadFrom = getOpenFileObjectList(label, strDate).getFileObjectForTimestamp(timestamp);
+				if (toReadFrom != null) {
 
-			return toReadFrom.readNextValue(timestamp); // null if no value for timestamp
-			// is available
+					return toReadFrom.readNextValue(timestamp); // null if no value for timestamp
+					// is available
+				}
+				return null;
+			}
+		} finally {
+			folderLock.readLock().unlock();
 		}
-		return null;
-
 	}
 
-	public synchronized SampledValue read(String label, long timestamp, RecordedDataConfiguration configuration)
+	public SampledValue read(String label, long timestamp, RecordedDataConfiguration configuration)
 			throws IOException {
 		// label = URLEncoder.encode(label,Charset.defaultCharset().toString());
 		// //encodes label to supported String for Filenames.
@@ -510,21 +756,69 @@ public final class FileObjectProxy {
 
 		String strDate = getStrDate(timestamp);
 
-		if (!openFilesHM.containsKey(label + strDate)) {
-			controlHashtableSize();
-			FileObjectList fol = new FileObjectList(rootNode.getPath() + "/" + strDate + "/" + label);
-			openFilesHM.put(label + strDate, fol);
+		beforeOpenFileObjectList(label, strDate);
+		folderLock.readLock().lock();
+		try {
+			synchronized (getLabelLock(label)) {
+				FileObject toReadFrom = getOpenFileObjectList(label, strDate).getFileObjectForTimestamp(timestamp);
+				if (toReadFrom != null) {
+					return toReadFrom.read(timestamp); // null if no value for timestamp
+					// is available
+				}
+				return null;
+			}
+		} finally {
+			folderLock.readLock().unlock();
 		}
-		FileObject toReadFrom = openFilesHM.get(label + strDate).getFileObjectForTimestamp(timestamp);
-		if (toReadFrom != null) {
-			return toReadFrom.read(timestamp); // null if no value for timestamp
-			// is available
+	}
+
+	/*
+	 * Must be called before getOpenFileObjectList without holding any lock: if a new FileObjectList is to be opened
+	 * the number of open files is controlled.
+	 */
+	private void beforeOpenFileObjectList(String label, String strDate) throws IOException {
+		if (!openFilesHM.containsKey(getKey(label, strDate))) {
+			folderLock.writeLock().lock();
+			try {
+				controlHashtableSize();
+			} finally {
+				folderLock.writeLock().unlock();
+			}
 		}
-		return null;
 	}
 
-	public synchronized List<SampledValue> read(String label, long start, long end,
-			RecordedDataConfiguration configuration) throws IOException {
+	/*
+	 * Requires the read lock of folderLock and the lock of the label.
+	 */
+	private FileObjectList getOpenFileObjectList(String label, String strDate) throws IOException {
+		String key = getKey(label, strDate);
+		FileObjectList fol = openFilesHM.get(key);
+		if (fol == null) {
+			fol = new FileObjectList(rootNode.getPath() + "/" + strDate + "/" + label);
+			openFilesHM.put(key, fol);
+		}
+		return fol;
+	}
+
+	public List<SampledValue> read(String label, long start, long end, RecordedDataConfiguration configuration)
+			throws IOException {
+		final List<SampledValue> toReturn = new Vector<SampledValue>();
+		read(label, start, end, configuration, new FileObject.ValueVisitor() {
+
+			@Override
+			public void visit(long timestamp, double value, Quality quality) {
+				toReturn.add(new SampledValue(new DoubleValue(value), timestamp, quality));
+			}
+		});
+		logger.trace("Selected " + SlotsDb.FILE_EXTENSION + " files contain " + toReturn.size() + " Values.");
+		return toReturn;
+	}
+
+	/**
+	 * Passes the values of the label between start and end to the visitor, in the order of their timestamps.
+	 */
+	public void read(String label, long start, long end, RecordedDataConfiguration configuration,
+			FileObject.ValueVisitor visitor) throws IOException {
 		if (logger.isTraceEnabled()) {
 			logger.trace("Called: read(" + label + ", " + start + ", " + end + ")");
 		}
@@ -532,17 +826,17 @@ public final class FileObjectProxy {
 		start = getRoundedTimestamp(start, configuration);
 		end = getRoundedTimestamp(end, configuration);
 
-		List<SampledValue> toReturn = new Vector<SampledValue>();
-
 		if (start > end) {
 			logger.trace("Invalid Read Request: startTS > endTS");
-			return toReturn;
+			return;
 		}
 
 		if (start == end) {
-			toReturn.add(read(label, start, configuration)); // let other read function handle.
-			toReturn.removeAll(Collections.singleton(null));
-			return toReturn;
+			SampledValue value = read(label, start, configuration); // let other read function handle.
+			if (value != null) {
+				visitor.visit(value.getTimestamp(), value.getValue().getDoubleValue(), value.getQuality());
+			}
+			return;
 		}
 		if (end > 50000000000000L) { /*
 										 * to prevent buffer overflows. in cases of multiplication
@@ -554,164 +848,178 @@ public final class FileObjectProxy {
 		// //encodes label to supported String for Filenames.
 		label = encodeLabel(label);
 
-		String strStartDate = getStrDate(start);
-		String strEndDate = getStrDate(end);
-
-		List<FileObject> toRead = new Vector<FileObject>();
-
-		if (!strStartDate.equals(strEndDate)) {
-			logger.trace("Reading Multiple Days. Scanning for Folders.");
-			List<FileObjectList> days = new Vector<FileObjectList>();
-
-			/*
-			 * Check for Folders matching criteria: Folder contains data between start & end timestamp. Folder contains
-			 * label.
-			 */
-			String strSubfolder;
-			for (File folder : rootNode.listFiles()) {
-				if (folder.isDirectory()) {
-					if (isFolderBetweenStartAndEnd(folder.getName(), start, end)) {
-						if (Arrays.asList(folder.list()).contains(label)) {
-							strSubfolder = rootNode.getPath() + "/" + folder.getName() + "/" + label;
-							days.add(new FileObjectList(strSubfolder));
-							logger.trace(strSubfolder + " contains " + SlotsDb.FILE_EXTENSION + " files to read from.");
-						}
-					}
-				}
+		folderLock.readLock().lock();
+		try {
+			synchronized (getLabelLock(label)) {
+				readFiles(label, start, end, visitor);
 			}
-			/*
-			 * Sort days, because rootNode.listFiles() is unsorted. FileObjectLists MUST be sorted, otherwise data
-			 * output wouldn't be sorted.
-			 */
-			Collections.sort(days, new Comparator<FileObjectList>() {
+		} finally {
+			folderLock.readLock().unlock();
+		}
+	}
 
-				@Override
-				public int compare(FileObjectList f1, FileObjectList f2) {
-					return Long.valueOf(f1.getFirstTS()).compareTo(f2.getFirstTS());
-				}
-			});
+	/**
+	 * @return the coarsest rollup tier that can be used for a reduction of [start; end) in intervals of the given
+	 *         size, or null if rollups are disabled or no tier matches.
+	 */
+	RollupStore.Tier getRollupTier(long start, long end, long interval) {
+		return rollups != null ? rollups.getTier(start, end, interval) : null;
+	}
 
-			/*
-			 * Create a list with all file-objects that must be read for this reading request.
-			 */
-			if (days.size() == 0) {
-				return toReturn;
-			}
-			else if (days.size() == 1) {
-				toRead.addAll(days.get(0).getFileObjectsFromTo(start, end));
-			}
-			else { // days.size()>1
-				toRead.addAll(days.get(0).getFileObjectsStartingAt(start));
-				for (int i = 1; i < days.size() - 1; i++) {
-					toRead.addAll(days.get(i).getAllFileObjects());
-				}
-				toRead.addAll(days.get(days.size() - 1).getFileObjectsUntil(end));
-			}
-			toRead.removeAll(Collections.singleton(null));
-		}
-		else { // Start == End Folder -> only 1 FileObjectList must be read.
-			File folder = new File(rootNode.getPath() + "/" + strStartDate + "/" + label);
-			FileObjectList fol;
-			if (folder.list() != null) {
-				if (folder.list().length > 0) { // Are there Files in the
-					// folder, that should be read?
-					fol = new FileObjectList(rootNode.getPath() + "/" + strStartDate + "/" + label);
-					toRead.addAll(fol.getFileObjectsFromTo(start, end));
-				}
+	/**
+	 * @return the time from which on all values of the label are contained in the rollups of the tier, or null.
+	 */
+	Long getRollupStartTime(String label, RollupStore.Tier tier) throws IOException {
+		if (rollups == null) {
+			return null;
+		}
+		label = encodeLabel(label);
+		folderLock.readLock().lock();
+		try {
+			synchronized (getLabelLock(label)) {
+				return rollups.getStartTime(label, tier);
 			}
+		} finally {
+			folderLock.readLock().unlock();
 		}
-		logger.trace("Found " + toRead.size() + " " + SlotsDb.FILE_EXTENSION + " files to read from.");
+	}
 
-		/*
-		 * Read all FileObjects: first (2nd,3rd,4th....n-1) last first and last will be read separately, to not exceed
-		 * timestamp range.
-		 */
-		if (toRead != null) {
-			if (toRead.size() > 1) {
-				toReturn.addAll(toRead.get(0).read(start, toRead.get(0).getTimestampForLatestValue()));
-				toRead.get(0).close();
-				for (int i = 1; i < toRead.size() - 1; i++) {
-					toReturn.addAll(toRead.get(i).readFully());
-					toRead.get(i).close();
+	/**
+	 * Deletes the rollups of the label, also if rollups are currently disabled, so that a storage which is recreated
+	 * with the same id does not read stale aggregates.
+	 */
+	void deleteRollups(String label) throws IOException {
+		label = encodeLabel(label);
+		folderLock.readLock().lock();
+		try {
+			synchronized (getLabelLock(label)) {
+				if (rollups != null) {
+					rollups.remove(label);
 				}
-				toReturn.addAll(toRead.get(toRead.size() - 1).read(toRead.get(toRead.size() - 1).getStartTimeStamp(),
-						end));
-				toRead.get(toRead.size() - 1).close();
-
-				/*
-				 * Some Values might be null -> remove
-				 */
-				toReturn.removeAll(Collections.singleton(null));
-
+				deleteRecursiveFolder(new File(new File(rootNode, RollupStore.FOLDER), label));
 			}
-			else if (toRead.size() == 1) { // single FileObject
-				toReturn.addAll(toRead.get(0).read(start, end));
-				toReturn.removeAll(Collections.singleton(null));
+		} finally {
+			folderLock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Adds the rollup records of the label whose bucket starts in [start; end) to the records.
+	 */
+	void readRollups(String label, RollupStore.Tier tier, long start, long end, RollupStore.Records records)
+			throws IOException {
+		label = encodeLabel(label);
+		folderLock.readLock().lock();
+		try {
+			synchronized (getLabelLock(label)) {
+				rollups.read(label, tier, start, end, records);
 			}
+		} finally {
+			folderLock.readLock().unlock();
 		}
-		logger.trace("Selected " + SlotsDb.FILE_EXTENSION + " files contain " + toReturn.size() + " Values.");
-		return toReturn;
 	}
 
 	/**
-	 * Parses a Timestamp in Milliseconds from a String in yyyyMMdd Format <br>
-	 * e.g.: 25.Sept.2011: 20110925 <br>
-	 * would return: 1316901600000 ms. equal to (25.09.2011 - 00:00:00) <br>
+	 * Gets the days for which data of the label between start and end is stored.
 	 * 
-	 * @param name
-	 *            in "yyyyMMdd" Format
-	 * @param start
-	 * @param end
-	 * @return
-	 * @throws IOException
+	 * @return sorted list of the first timestamps of the days.
 	 */
-	private boolean isFolderBetweenStartAndEnd(String name, long start, long end) throws IOException {
-		try {
-			sdf.parse(name);
-		} catch (ParseException e) {
-			logger.error("Unable to parse Timestamp from: " + name + " folder. " + e.getMessage());
+	public List<Long> getDays(String label, long start, long end) throws IOException {
+		label = encodeLabel(label);
+		List<Long> result = new ArrayList<>();
+		if (start > end) {
+			return result;
 		}
-		if (start <= sdf.getCalendar().getTimeInMillis() + 86399999 && sdf.getCalendar().getTimeInMillis() <= end) { // if
-			// start
-			// <=
-			// folder.lastTSofDay
-			// &&
-			// folder.firstTSofDay
-			// <=
-			// end
-			return true;
+		for (String day : index.getDays(label, getStrDate(start), getStrDate(end)).keySet()) {
+			try {
+				result.add(parseDay(day));
+			} catch (ParseException e) {
+				logger.error("Unable to parse Timestamp from: " + day + " folder. " + e.getMessage());
+			}
 		}
-		return false;
+		return result;
 	}
 
 	/*
-	 * strCurrentDay holds the current Day in yyyyMMdd format, because SimpleDateFormat uses a lot cpu-time.
-	 * currentDayFirstTS and ... currentDayLastTS mark the first and last timestamp of this day. If a TS exceeds this
-	 * range, strCurrentDay, currentDayFirstTS, currentDayLastTS will be updated.
+	 * Requires the read lock of folderLock and the lock of the label.
+	 */
+	private void readFiles(String label, long start, long end, FileObject.ValueVisitor visitor) throws IOException {
+		List<File> toRead = getFiles(label, start, end);
+		logger.trace("Found " + toRead.size() + " " + SlotsDb.FILE_EXTENSION + " files to read from.");
+
+		for (File file : toRead) {
+			FileObject fo = FileObject.getFileObject(file);
+			try {
+				fo.read(start, end, visitor);
+			} finally {
+				fo.close();
+			}
+		}
+	}
+
+	/*
+	 * Looks up the files of the label which may contain data between start and end in the index, sorted by their start
+	 * timestamp. A file of a day contains the data until the start of the next file of the day, so only the files
+	 * starting before end, and not followed by a file starting before start, are selected. Requires the read lock of
+	 * folderLock and the lock of the label.
+	 */
+	private List<File> getFiles(String label, long start, long end) throws IOException {
+		List<File> files = new ArrayList<>();
+		for (Map.Entry<String, DayIndex.Entry[]> day : index.getDays(label, getStrDate(start), getStrDate(end))
+				.entrySet()) {
+			File folder = new File(new File(rootNode, day.getKey()), label);
+			DayIndex.Entry[] entries = day.getValue();
+			for (int i = 0; i < entries.length && entries[i].start <= end; i++) {
+				if (i + 1 < entries.length && entries[i + 1].start <= start) {
+					continue;
+				}
+				File file = new File(folder, entries[i].name);
+				if (!file.exists()) {
+					logger.debug("Indexed file {} does not exist, reloading {}", file, folder);
+					index.refresh(label, day.getKey());
+					return getFiles(label, start, end);
+				}
+				files.add(file);
+			}
+		}
+		return files;
+	}
+
+	/*
+	 * currentDay holds the current Day in yyyyMMdd format, because SimpleDateFormat uses a lot cpu-time, and the first
+	 * and last timestamp of this day. If a TS exceeds this range, currentDay will be updated.
 	 */
 	private String getStrDate(long timestamp) throws IOException {
-		if (strCurrentDay != null) {
-			if (timestamp >= currentDayFirstTS && timestamp <= currentDayLastTS) {
-				return strCurrentDay;
+		Day day = currentDay;
+		if (day != null) {
+			if (timestamp >= day.firstTS && timestamp <= day.lastTS) {
+				return day.strDay;
 			}
 		}
 		/*
 		 * timestamp for other day or not initialized yet.
 		 */
-		date.setTime(timestamp);
-		strCurrentDay = sdf.format(date);
-		try {
-			currentDayFirstTS = sdf.parse(strCurrentDay).getTime();
-		} catch (ParseException e) {
-			logger.error("Unable to parse Timestamp from: " + currentDayFirstTS + " String.");
+		String strDay;
+		long firstTS = 0;
+		synchronized (sdf) {
+			date.setTime(timestamp);
+			strDay = sdf.format(date);
+			try {
+				firstTS = sdf.parse(strDay).getTime();
+			} catch (ParseException e) {
+				logger.error("Unable to parse Timestamp from: " + strDay + " String.");
+			}
 		}
-		currentDayLastTS = currentDayFirstTS + 86399999;
-		return strCurrentDay;
+		currentDay = new Day(strDay, firstTS);
+		return strDay;
 	}
 
+	/*
+	 * Requires the write lock of folderLock.
+	 */
 	private void deleteEntryFromLastDay(long timestamp, String label) throws IOException {
 		String strDate = getStrDate(timestamp - 86400000);
-		if (openFilesHM.containsKey(label + strDate)) {
+		if (openFilesHM.containsKey(getKey(label, strDate))) {
 			/*
 			 * Value for new day has been registered! Close and flush all connections! Empty Hashtable!
 			 */
@@ -720,17 +1028,24 @@ public final class FileObjectProxy {
 					+ "> Folder has been closed and flushed completely.");
 			/* reload days */
 			loadDays();
+			index.write();
 		}
 	}
 
+	/*
+	 * Requires the write lock of folderLock.
+	 */
 	private void clearOpenFilesHashMap() throws IOException {
 		Iterator<FileObjectList> itr = openFilesHM.values().iterator();
 		while (itr.hasNext()) { // kick out everything
 			itr.next().closeAllFiles();
 		}
-		openFilesHM = new HashMap<String, FileObjectList>();
+		openFilesHM.clear();
 	}
 
+	/*
+	 * Requires the write lock of folderLock.
+	 */
 	private void controlHashtableSize() throws IOException {
 		/*
 		 * hm.size() doesn't really represent the number of open files, because it contains FileObjectLists, which may
@@ -762,11 +1077,25 @@ public final class FileObjectProxy {
 	 * 
 	 * @throws IOException
 	 */
-	public synchronized void flush() throws IOException {
+	public void flush() throws IOException {
 
-		Iterator<FileObjectList> itr = openFilesHM.values().iterator();
-		while (itr.hasNext()) {
-			itr.next().flush();
+		folderLock.readLock().lock();
+		try {
+			for (Map.Entry<String, FileObjectList> entry : openFilesHM.entrySet()) {
+				synchronized (getLabelLock(getLabel(entry.getKey()))) {
+					entry.getValue().flush();
+				}
+			}
+			index.write();
+			if (rollups != null) {
+				for (String label : rollups.getLabels()) {
+					synchronized (getLabelLock(label)) {
+						rollups.flush(label);
+					}
+				}
+			}
+		} finally {
+			folderLock.readLock().unlock();
 		}
 
 		logger.debug("Data from " + openFilesHM.size() + " Folders flushed to disk.");
@@ -16,9 +16,13 @@
 package org.ogema.recordeddata.slotsdb;
 
 import java.io.DataInputStream;
+import java.io.EOFException;
 import java.io.File;
 import java.io.IOException;
+import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
 import java.util.List;
 import java.util.Vector;
 
@@ -26,18 +30,57 @@ import org.ogema.core.channelmanager.measurements.DoubleValue;
 import org.ogema.core.channelmanager.measurements.Quality;
 import org.ogema.core.channelmanager.measurements.SampledValue;
 
+/**
+ * File object for values with flexible timestamps. Data sets are stored as fixed size records (timestamp, value,
+ * quality) in ascending timestamp order, so lookups are done by a binary search on the records. If memory mapped
+ * reads are enabled (see {@link SlotsDb#MEMORY_MAPPED_READS}), the data section of a file which is not written to is
+ * memory mapped once and the mapping is reused. Files which are appended to through this object are copied into the
+ * heap on each read instead, since a mapping cannot be extended and is only released on garbage collection, so
+ * remapping the growing file after every append would pile up mappings.
+ */
 public class FlexibleIntervalFileObject extends FileObject {
 
-	private long lastTimestamp = startTimeStamp;
 	private static final long headerend = 16;
+	private static final int DATASET_SIZE = (Long.SIZE + Double.SIZE + Byte.SIZE) / Byte.SIZE;
 
-	public FlexibleIntervalFileObject(File file) throws IOException {
-		super(file);
+	private final boolean memoryMappedReads;
+	private long lastTimestamp = startTimeStamp;
 
+	/*
+	 * mapped data section of the file (without header) and the file length it was mapped for.
+	 */
+	private ByteBuffer mappedData;
+	private long mappedFileLength = -1;
+
+	public FlexibleIntervalFileObject(File file) throws IOException {
+		this(file, SlotsDb.MEMORY_MAPPED_READS);
 	}
 
 	public FlexibleIntervalFileObject(String fileName) throws IOException {
+		this(fileName, SlotsDb.MEMORY_MAPPED_READS);
+	}
+
+	FlexibleIntervalFileObject(File file, boolean memoryMappedReads) throws IOException {
+		super(file);
+		this.memoryMappedReads = memoryMappedReads;
+		initLastTimestamp();
+	}
+
+	FlexibleIntervalFileObject(String fileName, boolean memoryMappedReads) throws IOException {
 		super(fileName);
+		this.memoryMappedReads = memoryMappedReads;
+		initLastTimestamp();
+	}
+
+	/*
+	 * append() only accepts increasing timestamps; for an existing file this has to start from the latest stored
+	 * value, otherwise the records would no longer be sorted.
+	 */
+	private void initLastTimestamp() throws IOException {
+		int count = getDataSetCount();
+		if (count > 0) {
+			lastTimestamp = readTimestamp(count - 1);
+		}
 	}
 
 	@Override
@@ -50,9 +93,7 @@ public class FlexibleIntervalFileObject extends FileObject {
 	}
 
 	@Override
-	public void append(double value, long timestamp, byte flag) throws IOException {
-		// long writePosition = dataFile.length();
-
+	public boolean append(double value, long timestamp, byte flag) throws IOException {
 		if (!canWrite) {
 			enableOutput();
 		}
@@ -63,128 +104,75 @@ public class FlexibleIntervalFileObject extends FileObject {
 			dos.writeDouble(value);
 			dos.writeByte(flag);
 			lastTimestamp = timestamp;
+			return true;
 		}
-
+		return false;
 	}
 
 	@Override
 	public long getTimestampForLatestValue() {
-		// FIXME: this won't work ... if read(String, long, long) is invoked a new
-		// FileObject is created and lastTimestamp is set to startTimeStamp ...
-		// return lastTimestamp;
-
-		// this is only a quickfix so that it works... @author of this class: if there
-		// is a better solution pls fix this... otherwise delete all comments in here
-		// and lets stick to this solution for now:
-		int dataSetCount = getDataSetCount();
-		if (dataSetCount > 1) {
-			try {
-				if (!canRead) {
-					enableInput();
+		try {
+			if (useMapping()) {
+				ByteBuffer bb = getDataBuffer();
+				int count = getDataSetCount(bb);
+				if (count > 0) {
+					return getTimestamp(bb, count - 1);
 				}
-				fis.getChannel().position(headerend);
-				byte[] b = new byte[(int) (dataFile.length() - headerend)];
-				dis.read(b, 0, b.length);
-				ByteBuffer bb = ByteBuffer.wrap(b);
-				// set position to last entries timestamp (Long, Double and Byte size in bits
-				// so divide through Byte.SIZE to get size in bytes)
-				bb.position((dataSetCount - 1) * getDataSetSize());
-				long l = bb.getLong();
-				return l;
-			} catch (IOException e) {
-				logger.error(e.getMessage(), e);
-				// FIXME return negative value to signalize error? for now simply
-				// return startTimeStamp ...
 			}
+			else {
+				flushOutput();
+				int count = getDataSetCount();
+				if (count > 0) {
+					return readTimestamp(count - 1);
+				}
+			}
+		} catch (IOException e) {
+			logger.error(e.getMessage(), e);
+			// FIXME return negative value to signalize error? for now simply
+			// return startTimeStamp ...
 		}
 		return startTimeStamp;
 	}
 
 	@Override
-	public List<SampledValue> read(long start, long end) throws IOException {
-
-		List<SampledValue> toReturn = new Vector<SampledValue>();
-		if (!canRead) {
-			enableInput();
-		}
-
-		long startpos = headerend;
-
-		fis.getChannel().position(startpos);
-		byte[] b = new byte[(int) (dataFile.length() - headerend)];
-		dis.read(b, 0, b.length);
-		ByteBuffer bb = ByteBuffer.wrap(b);
-		bb.rewind();
-
-		for (int i = 0; i < getDataSetCount(); i++) {
-			long timestamp = bb.getLong();
-			double d = bb.getDouble();
-			Quality s = Quality.getQuality(bb.get());
+	public void read(long start, long end, ValueVisitor visitor) throws IOException {
+		ByteBuffer bb = getDataBuffer();
+		int count = getDataSetCount(bb);
+		for (int i = indexOf(bb, count, start); i < count; i++) {
+			long timestamp = getTimestamp(bb, i);
+			if (timestamp > end) {
+				break;
+			}
+			double d = getValue(bb, i);
 			if (!Double.isNaN(d)) {
-				if (timestamp >= start && timestamp <= end) {
-					toReturn.add(new SampledValue(new DoubleValue(d), timestamp, s));
-				}
-
+				visitor.visit(timestamp, d, getQuality(bb, i));
 			}
 		}
-
-		// TODO iterate through file and extract the required values.
-		return toReturn;
 	}
 
 	@Override
 	public List<SampledValue> readFully() throws IOException {
 		List<SampledValue> toReturn = new Vector<SampledValue>();
-
-		if (!canRead) {
-			enableInput();
-		}
-
-		long startpos = headerend;
-
-		fis.getChannel().position(startpos);
-		byte[] b = new byte[(int) (dataFile.length() - headerend)];
-		dis.read(b, 0, b.length);
-		ByteBuffer bb = ByteBuffer.wrap(b);
-		bb.rewind();
-		int countOfDataSets = (int) ((dataFile.length() - headerend) / getDataSetSize());
-		for (int i = 0; i < countOfDataSets; i++) {
-			long timestamp = bb.getLong();
-			double d = bb.getDouble();
-			Quality s = Quality.getQuality(bb.get());
-
+		ByteBuffer bb = getDataBuffer();
+		int count = getDataSetCount(bb);
+		for (int i = 0; i < count; i++) {
+			double d = getValue(bb, i);
 			if (!Double.isNaN(d)) {
-				toReturn.add(new SampledValue(new DoubleValue(d), timestamp, s));
+				toReturn.add(new SampledValue(new DoubleValue(d), getTimestamp(bb, i), getQuality(bb, i)));
 			}
 		}
-
 		return toReturn;
 	}
 
 	@Override
 	public SampledValue read(long timestamp) throws IOException {
-		// TODO Search the special value
-		if (!canRead) {
-			enableInput();
-		}
-
-		long startpos = headerend;
-
-		fis.getChannel().position(startpos);
-		byte[] b = new byte[(int) (dataFile.length() - headerend)];
-		dis.read(b, 0, b.length);
-		ByteBuffer bb = ByteBuffer.wrap(b);
-		bb.rewind();
-		int countOfDataSets = (int) ((dataFile.length() - headerend) / 17);
-		for (int i = 0; i < countOfDataSets; i++) {
-			long timestamp2 = bb.getLong();
-			double d = bb.getDouble();
-			Quality s = Quality.getQuality(bb.get());
-			if (timestamp < timestamp2) {
-				return null;
-			}
-			if (!Double.isNaN(d) && timestamp == timestamp2) {
-				return new SampledValue(new DoubleValue(d), timestamp2, s);
+		ByteBuffer bb = getDataBuffer();
+		int count = getDataSetCount(bb);
+		int i = indexOf(bb, count, timestamp);
+		if (i < count && getTimestamp(bb, i) == timestamp) {
+			double d = getValue(bb, i);
+			if (!Double.isNaN(d)) {
+				return new SampledValue(new DoubleValue(d), timestamp, getQuality(bb, i));
 			}
 		}
 		return null;
@@ -197,36 +185,147 @@ public class FlexibleIntervalFileObject extends FileObject {
 
 	@Override
 	public SampledValue readNextValue(long timestamp) throws IOException {
-		// TODO Auto-generated method stub
-		if (!canRead) {
-			enableInput();
+		ByteBuffer bb = getDataBuffer();
+		int count = getDataSetCount(bb);
+		for (int i = indexOf(bb, count, timestamp); i < count; i++) {
+			double d = getValue(bb, i);
+			if (!Double.isNaN(d)) {
+				return new SampledValue(new DoubleValue(d), getTimestamp(bb, i), getQuality(bb, i));
+			}
 		}
+		return null;
+	}
+
+	@Override
+	public void close() throws IOException {
+		mappedData = null;
+		mappedFileLength = -1;
+		super.close();
+	}
 
-		long startpos = headerend;
-
-		fis.getChannel().position(startpos);
-		byte[] b = new byte[(int) (dataFile.length() - headerend)];
-		dis.read(b, 0, b.length);
-		ByteBuffer bb = ByteBuffer.wrap(b);
-		bb.rewind();
-		int countOfDataSets = (int) ((dataFile.length() - headerend) / getDataSetSize());
-		for (int i = 0; i < countOfDataSets; i++) {
-			long timestamp2 = bb.getLong();
-			double d = bb.getDouble();
-			Quality s = Quality.getQuality(bb.get());
-			if (!Double.isNaN(d) && timestamp <= timestamp2) {
-				return new SampledValue(new DoubleValue(d), timestamp2, s);
+	/**
+	 * Memory mapping is only used for files which are not appended to through this object, i.e. usually files of past
+	 * days.
+	 */
+	private boolean useMapping() {
+		return memoryMappedReads && !canWrite;
+	}
+
+	/**
+	 * @return true if the last read used a memory mapping of the file.
+	 */
+	boolean isMapped() {
+		return mappedData != null;
+	}
+
+	/**
+	 * Returns the data section of the file, containing only complete data sets. Values appended through this object
+	 * are flushed first, so they are visible to the read.
+	 */
+	private ByteBuffer getDataBuffer() throws IOException {
+		flushOutput();
+		long fileLength = dataFile.length();
+		if (!useMapping()) {
+			mappedData = null;
+			mappedFileLength = -1;
+			return readDataSection(0, getDataSectionSize(fileLength));
+		}
+		if (mappedData == null || mappedFileLength != fileLength) {
+			int size = getDataSectionSize(fileLength);
+			if (size == 0) {
+				mappedData = ByteBuffer.allocate(0);
 			}
+			else {
+				RandomAccessFile raf = new RandomAccessFile(dataFile, "r");
+				try {
+					mappedData = raf.getChannel().map(MapMode.READ_ONLY, headerend, size);
+				} finally {
+					raf.close();
+				}
+			}
+			mappedFileLength = fileLength;
 		}
-		return null;
+		return mappedData;
 	}
 
-	private int getDataSetCount() {
-		return (int) ((dataFile.length() - headerend) / getDataSetSize());
+	/**
+	 * Copies size bytes of the data section, starting at offset (relative to the end of the header).
+	 */
+	private ByteBuffer readDataSection(long offset, int size) throws IOException {
+		ByteBuffer bb = ByteBuffer.allocate(size);
+		if (size == 0) {
+			return bb;
+		}
+		RandomAccessFile raf = new RandomAccessFile(dataFile, "r");
+		try {
+			FileChannel channel = raf.getChannel();
+			while (bb.hasRemaining()) {
+				if (channel.read(bb, headerend + offset + bb.position()) < 0) {
+					throw new EOFException("Unexpected end of file " + dataFile);
+				}
+			}
+		} finally {
+			raf.close();
+		}
+		bb.flip();
+		return bb;
+	}
+
+	private long readTimestamp(int index) throws IOException {
+		return readDataSection((long) index * DATASET_SIZE, Long.SIZE / Byte.SIZE).getLong(0);
 	}
 
-	private int getDataSetSize() {
-		return (Long.SIZE + Double.SIZE + Byte.SIZE) / Byte.SIZE;
+	private void flushOutput() throws IOException {
+		if (canWrite && dos != null) {
+			dos.flush();
+		}
+	}
+
+	/**
+	 * Binary search for the first data set with a timestamp not smaller than the given timestamp.
+	 * 
+	 * @return index of the data set, or count if all data sets are older than timestamp.
+	 */
+	private static int indexOf(ByteBuffer bb, int count, long timestamp) {
+		int low = 0;
+		int high = count;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (getTimestamp(bb, mid) < timestamp) {
+				low = mid + 1;
+			}
+			else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	private static long getTimestamp(ByteBuffer bb, int index) {
+		return bb.getLong(index * DATASET_SIZE);
+	}
+
+	private static double getValue(ByteBuffer bb, int index) {
+		return bb.getDouble(index * DATASET_SIZE + Long.SIZE / Byte.SIZE);
+	}
+
+	private static Quality getQuality(ByteBuffer bb, int index) {
+		return Quality.getQuality(bb.get(index * DATASET_SIZE + (Long.SIZE + Double.SIZE) / Byte.SIZE));
+	}
+
+	private static int getDataSetCount(ByteBuffer bb) {
+		return bb.limit() / DATASET_SIZE;
+	}
+
+	private static int getDataSectionSize(long fileLength) {
+		if (fileLength <= headerend) {
+			return 0;
+		}
+		return (int) ((fileLength - headerend) / DATASET_SIZE) * DATASET_SIZE;
+	}
+
+	private int getDataSetCount() {
+		return getDataSectionSize(dataFile.length()) / DATASET_SIZE;
 	}
 
 }
@@ -0,0 +1,431 @@
+/**
+ * This file is part of OGEMA.
+ *
+ * OGEMA is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3
+ * as published by the Free Software Foundation.
+ *
+ * OGEMA is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with OGEMA. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.ogema.recordeddata.slotsdb;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Pre-aggregated rollup series of the data stored in SlotsDB. For every enabled tier the number, sum, minimum and
+ * maximum of the values of good quality are stored per label and tier bucket, so that reductions whose intervals are
+ * multiples of a tier can be calculated without reading the raw data. Rollups are stored in the folder
+ * {@value #FOLDER} of the database root. They are not affected by the deletion of expired day folders.
+ * <p>
+ * The current bucket of every tier is kept in memory. It is written when a bucket of the finest tier is completed,
+ * on {@link #flush(String)}, and before the rollups of the label are read. Buckets are aligned to multiples of the
+ * tier size since the epoch (UTC).
+ * <p>
+ * Methods that access the data of a label require the lock of the label, see FileObjectProxy.
+ */
+final class RollupStore {
+
+	private final static Logger logger = LoggerFactory.getLogger(RollupStore.class);
+
+	static final String FOLDER = "rollups";
+
+	enum Tier {
+		MINUTE(60000L), HOUR(3600000L), DAY(86400000L);
+
+		final long size;
+
+		Tier(long size) {
+			this.size = size;
+		}
+
+		long getBucket(long timestamp) {
+			return floor(timestamp, size);
+		}
+	}
+
+	/*
+	 * number of buckets per file, limits the amount of data that is scanned for short requests.
+	 */
+	private static final int PARTITION_SIZE = 4096;
+	/*
+	 * bucket start (8), count (4), sum, min, max (3*8)
+	 */
+	private static final int RECORD_SIZE = 36;
+	private static final String FILE_EXTENSION = ".rollup";
+	private static final String START_FILE = "start";
+
+	private final File folder;
+	/*
+	 * enabled tiers, finest first
+	 */
+	private final Tier[] tiers;
+	private final Map<String, Bucket[]> buckets = new ConcurrentHashMap<>();
+	private final Map<String, Long> startTimes = new ConcurrentHashMap<>();
+
+	/*
+	 * The values of the current bucket of a tier.
+	 */
+	private static final class Bucket {
+
+		final Tier tier;
+		final File folder;
+		/* time from which on values are added to the rollups of the tier */
+		final long startTime;
+		long start;
+		int count;
+		double sum;
+		double min;
+		double max;
+		/* position of the record of this bucket in its file, -1 if it has not been written yet */
+		long filePosition = -1;
+		boolean dirty;
+
+		Bucket(Tier tier, File folder, long startTime) {
+			this.tier = tier;
+			this.folder = folder;
+			this.startTime = startTime;
+		}
+
+		void reset(long start) {
+			this.start = start;
+			count = 0;
+			sum = 0;
+			min = Double.MAX_VALUE;
+			max = Double.NEGATIVE_INFINITY;
+			filePosition = -1;
+			dirty = false;
+		}
+
+		void add(double value) {
+			count++;
+			sum += value;
+			if (value < min) {
+				min = value;
+			}
+			if (value > max) {
+				max = value;
+			}
+			dirty = true;
+		}
+	}
+
+	/**
+	 * Rollup records of a label, in order of their bucket start.
+	 */
+	static final class Records {
+
+		int size;
+		long[] starts = new long[16];
+		int[] counts = new int[16];
+		double[] sums = new double[16];
+		double[] mins = new double[16];
+		double[] maxs = new double[16];
+		private boolean sorted = true;
+
+		/*
+		 * Adds a single value to the record of the bucket, if it is the last one, or to a new record.
+		 */
+		void addValue(long start, double value) {
+			if (size == 0 || starts[size - 1] != start) {
+				add(start, 0, 0, Double.MAX_VALUE, Double.NEGATIVE_INFINITY);
+			}
+			int i = size - 1;
+			counts[i]++;
+			sums[i] += value;
+			if (value < mins[i]) {
+				mins[i] = value;
+			}
+			if (value > maxs[i]) {
+				maxs[i] = value;
+			}
+		}
+
+		void add(long start, int count, double sum, double min, double max) {
+			if (size == starts.length) {
+				int capacity = 2 * size;
+				starts = Arrays.copyOf(starts, capacity);
+				counts = Arrays.copyOf(counts, capacity);
+				sums = Arrays.copyOf(sums, capacity);
+				mins = Arrays.copyOf(mins, capacity);
+				maxs = Arrays.copyOf(maxs, capacity);
+			}
+			if (size > 0 && start < starts[size - 1]) {
+				sorted = false;
+			}
+			starts[size] = start;
+			counts[size] = count;
+			sums[size] = sum;
+			mins[size] = min;
+			maxs[size] = max;
+			size++;
+		}
+
+		/*
+		 * Records are only out of order if older values have been added after a later bucket was started.
+		 */
+		void sort() {
+			if (sorted) {
+				return;
+			}
+			Integer[] idx = new Integer[size];
+			for (int i = 0; i < size; i++) {
+				idx[i] = i;
+			}
+			final long[] s = starts;
+			Arrays.sort(idx, new Comparator<Integer>() {
+
+				@Override
+				public int compare(Integer o1, Integer o2) {
+					return Long.compare(s[o1], s[o2]);
+				}
+			});
+			Records sortedRecords = new Records();
+			for (int i : idx) {
+				sortedRecords.add(starts[i], counts[i], sums[i], mins[i], maxs[i]);
+			}
+			starts = sortedRecords.starts;
+			counts = sortedRecords.counts;
+			sums = sortedRecords.sums;
+			mins = sortedRecords.mins;
+			maxs = sortedRecords.maxs;
+			sorted = true;
+		}
+	}
+
+	private RollupStore(File folder, Tier[] tiers) {
+		this.folder = folder;
+		this.tiers = tiers;
+	}
+
+	/**
+	 * @param config
+	 *            comma separated list of the tiers (minute, hour, day), or "true" for all tiers.
+	 * @return the rollup store, or null if no tiers are configured.
+	 */
+	static RollupStore create(File rootNode, String config) {
+		if (config == null || config.trim().isEmpty() || "false".equalsIgnoreCase(config.trim())) {
+			return null;
+		}
+		Set<Tier> tiers = EnumSet.noneOf(Tier.class);
+		if ("true".equalsIgnoreCase(config.trim())) {
+			tiers.addAll(Arrays.asList(Tier.values()));
+		}
+		else {
+			for (String s : config.split(",")) {
+				try {
+					tiers.add(Tier.valueOf(s.trim().toUpperCase()));
+				} catch (IllegalArgumentException e) {
+					logger.warn("Unknown rollup tier: " + s);
+				}
+			}
+		}
+		if (tiers.isEmpty()) {
+			return null;
+		}
+		logger.info("Maintaining rollups: " + tiers);
+		return new RollupStore(new File(rootNode, FOLDER), tiers.toArray(new Tier[tiers.size()]));
+	}
+
+	static long floor(long timestamp, long size) {
+		long r = timestamp % size;
+		return r < 0 ? timestamp - r - size : timestamp - r;
+	}
+
+	Set<String> getLabels() {
+		return buckets.keySet();
+	}
+
+	/**
+	 * Discards the cached buckets and start times of the label, before its files are deleted.
+	 */
+	void remove(String label) {
+		buckets.remove(label);
+		for (Tier tier : Tier.values()) {
+			startTimes.remove(label + "/" + tier);
+		}
+	}
+
+	private File getTierFolder(String label, Tier tier) {
+		return new File(new File(folder, label), tier.name().toLowerCase());
+	}
+
+	private Bucket[] getBuckets(String label, long timestamp) throws IOException {
+		Bucket[] result = buckets.get(label);
+		if (result == null) {
+			result = new Bucket[tiers.length];
+			for (int i = 0; i < tiers.length; i++) {
+				File tierFolder = getTierFolder(label, tiers[i]);
+				Long startTime = getStartTime(label, tiers[i]);
+				if (startTime == null) {
+					if (!tierFolder.isDirectory() && !tierFolder.mkdirs()) {
+						throw new IOException("Could not create rollup folder " + tierFolder);
+					}
+					writeStartTime(tierFolder, timestamp);
+					startTime = timestamp;
+				}
+				result[i] = new Bucket(tiers[i], tierFolder, startTime);
+				result[i].reset(tiers[i].getBucket(timestamp));
+			}
+			buckets.put(label, result);
+		}
+		return result;
+	}
+
+	/**
+	 * Adds a value of good quality that has been stored for the label.
+	 */
+	void append(String label, long timestamp, double value) throws IOException {
+		boolean completed = false;
+		for (Bucket b : getBuckets(label, timestamp)) {
+			if (timestamp < b.startTime) {
+				// older values are only contained in the raw data
+				continue;
+			}
+			long start = b.tier.getBucket(timestamp);
+			if (start > b.start) {
+				if (b.dirty) {
+					write(b);
+				}
+				b.reset(start);
+				completed |= (b.tier == tiers[0]);
+			}
+			else if (start < b.start) {
+				// value for an older bucket, which may have been written already
+				Bucket old = new Bucket(b.tier, b.folder, b.startTime);
+				old.reset(start);
+				old.add(value);
+				write(old);
+				continue;
+			}
+			b.add(value);
+		}
+		if (completed) {
+			flush(label);
+		}
+	}
+
+	/**
+	 * Writes the current buckets of the label.
+	 */
+	void flush(String label) throws IOException {
+		Bucket[] bs = buckets.get(label);
+		if (bs == null) {
+			return;
+		}
+		for (Bucket b : bs) {
+			if (b.dirty) {
+				write(b);
+			}
+		}
+	}
+
+	/*
+	 * Writes the record of the bucket, or overwrites it if it has been written before.
+	 */
+	private static void write(Bucket b) throws IOException {
+		File file = new File(b.folder, floor(b.start, b.tier.size * PARTITION_SIZE) + FILE_EXTENSION);
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+			long position = b.filePosition >= 0 ? b.filePosition : raf.length();
+			raf.seek(position);
+			raf.writeLong(b.start);
+			raf.writeInt(b.count);
+			raf.writeDouble(b.sum);
+			raf.writeDouble(b.min);
+			raf.writeDouble(b.max);
+			b.filePosition = position;
+		}
+		b.dirty = false;
+	}
+
+	private static void writeStartTime(File tierFolder, long timestamp) throws IOException {
+		try (RandomAccessFile raf = new RandomAccessFile(new File(tierFolder, START_FILE), "rw")) {
+			raf.writeLong(timestamp);
+		}
+	}
+
+	/**
+	 * @return the time from which on all values of the label are contained in the rollups of the tier, or null if
+	 *         there are no rollups for the label.
+	 */
+	Long getStartTime(String label, Tier tier) throws IOException {
+		String key = label + "/" + tier;
+		Long result = startTimes.get(key);
+		if (result == null) {
+			File file = new File(getTierFolder(label, tier), START_FILE);
+			if (!file.isFile()) {
+				return null;
+			}
+			try (DataInputStream dis = new DataInputStream(new FileInputStream(file))) {
+				result = dis.readLong();
+			}
+			startTimes.put(key, result);
+		}
+		return result;
+	}
+
+	/**
+	 * @return the coarsest tier that can be used for a reduction of the interval [start; end) in intervals of the
+	 *         given size, or null. The end of the interval need not be aligned to the tier.
+	 */
+	Tier getTier(long start, long end, long interval) {
+		for (int i = tiers.length - 1; i >= 0; i--) {
+			Tier tier = tiers[i];
+			if (interval > 0 && interval % tier.size == 0 && floor(start, tier.size) == start
+					&& tier.getBucket(end) > start) {
+				return tier;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Adds the rollup records of the label whose bucket starts in [start; end) to the records.
+	 */
+	void read(String label, Tier tier, long start, long end, Records records) throws IOException {
+		flush(label);
+		File tierFolder = getTierFolder(label, tier);
+		long partitionSize = tier.size * PARTITION_SIZE;
+		for (long p = floor(start, partitionSize); p < end; p += partitionSize) {
+			File file = new File(tierFolder, p + FILE_EXTENSION);
+			if (file.isFile()) {
+				long n = file.length() / RECORD_SIZE;
+				try (DataInputStream dis = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+					for (long i = 0; i < n; i++) {
+						long bucket = dis.readLong();
+						int count = dis.readInt();
+						double sum = dis.readDouble();
+						double min = dis.readDouble();
+						double max = dis.readDouble();
+						if (bucket >= start && bucket < end) {
+							records.add(bucket, count, sum, min, max);
+						}
+					}
+				}
+			}
+			if (p > Long.MAX_VALUE - partitionSize) {
+				break;
+			}
+		}
+	}
+
+}
@@ -21,6 +21,9 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.security.AccessController;
+import java.security.PrivilegedActionException;
+import java.security.PrivilegedExceptionAction;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -30,6 +33,7 @@ import java.util.Map;
 import org.apache.felix.scr.annotations.Component;
 import org.apache.felix.scr.annotations.Service;
 import org.ogema.core.channelmanager.driverspi.ChannelDriver;
+import org.ogema.core.channelmanager.measurements.SampledValue;
 import org.ogema.core.recordeddata.RecordedDataConfiguration;
 import org.ogema.recordeddata.DataRecorder;
 import org.ogema.recordeddata.DataRecorderException;
@@ -86,12 +90,33 @@ public class SlotsDb implements DataRecorder {
 	public static String FLUSH_PERIOD = System.getProperty(SlotsDb.class.getPackage().getName().toLowerCase()
 			+ ".flushperiod");
 
+	/*
+	 * configures whether flexible interval files are read through a memory mapping
+	 * (default) or copied into the heap on every read. Set this System Property to
+	 * false to disable memory mapped reads, e.g. on platforms which do not allow
+	 * deleting files that are still mapped. Only files which are no longer
+	 * appended to are mapped.
+	 */
+	public static final boolean MEMORY_MAPPED_READS = !"false".equalsIgnoreCase(System.getProperty(SlotsDb.class
+			.getPackage().getName().toLowerCase()
+			+ ".mmap_reads"));
+
 	/*
 	 * configures how long data will at least be stored in the SLOTSDB.
 	 */
 	public static String DATA_LIFETIME_IN_DAYS = System.getProperty(SlotsDb.class.getPackage().getName().toLowerCase()
 			+ ".limit_days");
 
+	/*
+	 * configures the rollup tiers which are maintained for all recorded data,
+	 * as a comma separated list of minute, hour and day (or true for all
+	 * tiers). Reductions whose intervals are multiples of a tier are read from
+	 * the rollups. Rollups are not deleted with expired data, only together with
+	 * their storage. Unset by default.
+	 */
+	public static String ROLLUPS = System.getProperty(SlotsDb.class.getPackage().getName().toLowerCase()
+			+ ".rollups");
+
 	/*
 	 * configures the maximum Database Size (in MB).
 	 */
@@ -115,15 +140,27 @@ public class SlotsDb implements DataRecorder {
 	public static int DATA_EXPIRATION_CHECK_INTERVAL = 5000;
 
 	final FileObjectProxy proxy;
+	private final String storageIdPath;
 	private Map<String, SlotsDbStorage> slotsDbStorages = new HashMap<String, SlotsDbStorage>();
 
 	public SlotsDb() {
-		if (DB_ROOT_FOLDER == null) {
-			proxy = new FileObjectProxy(DEFAULT_DB_ROOT_FOLDER);
-		}
-		else {
-			proxy = new FileObjectProxy(DB_ROOT_FOLDER);
-		}
+		this(DB_ROOT_FOLDER == null ? DEFAULT_DB_ROOT_FOLDER : DB_ROOT_FOLDER, SLOTS_DB_STORAGE_ID_PATH);
+	}
+
+	/**
+	 * Creates a SlotsDB in the given folder, independent of the global
+	 * configuration. The storage IDs are kept in the same folder.
+	 * 
+	 * @param rootFolder
+	 *            root folder of the database, with trailing separator
+	 */
+	public SlotsDb(String rootFolder) {
+		this(rootFolder, rootFolder + "slotsDbStorageIDs.ser");
+	}
+
+	private SlotsDb(String rootFolder, String storageIdPath) {
+		this.proxy = new FileObjectProxy(rootFolder);
+		this.storageIdPath = storageIdPath;
 
 		readPersistedSlotsDbStorages();
 	}
@@ -143,7 +180,7 @@ public class SlotsDb implements DataRecorder {
 		ObjectOutputStream oos = null;
 
 		try {
-			oos = new ObjectOutputStream(new FileOutputStream(SLOTS_DB_STORAGE_ID_PATH));
+			oos = new ObjectOutputStream(new FileOutputStream(storageIdPath));
 			oos.writeObject(configurations);
 		} catch (IOException e) {
 			e.printStackTrace();
@@ -164,13 +201,13 @@ public class SlotsDb implements DataRecorder {
 	private void readPersistedSlotsDbStorages() {
 
 		ObjectInputStream ois = null;
-		File file = new File(SLOTS_DB_STORAGE_ID_PATH);
+		File file = new File(storageIdPath);
 
 		Map<String, RecordedDataConfiguration> configurations = new HashMap<String, RecordedDataConfiguration>();
 
 		if (file.exists()) {
 			try {
-				ois = new ObjectInputStream(new FileInputStream(SLOTS_DB_STORAGE_ID_PATH));
+				ois = new ObjectInputStream(new FileInputStream(storageIdPath));
 
 				configurations = (Map<String, RecordedDataConfiguration>) ois.readObject();
 				for (Iterator<String> iterator = configurations.keySet().iterator(); iterator.hasNext();) {
@@ -219,6 +256,11 @@ public class SlotsDb implements DataRecorder {
 		}
 		else {
 			persistSlotsDbStorages();
+			try {
+				proxy.deleteRollups(id);
+			} catch (IOException e) {
+				logger.warn("Could not delete the rollups of " + id, e);
+			}
 			return true;
 		}
 	}
@@ -232,4 +274,37 @@ public class SlotsDb implements DataRecorder {
 		return ids;
 	}
 
+	@Override
+	public void insertValues(final Map<String, SampledValue> values) throws DataRecorderException {
+
+		final Map<String, RecordedDataConfiguration> configurations = new HashMap<String, RecordedDataConfiguration>();
+		for (String id : values.keySet()) {
+			SlotsDbStorage storage = slotsDbStorages.get(id);
+			if (storage != null && storage.getConfiguration() != null) {
+				configurations.put(id, storage.getConfiguration());
+			}
+		}
+		if (configurations.isEmpty()) {
+			return;
+		}
+
+		try {
+			AccessController.doPrivileged(new PrivilegedExceptionAction<Void>() {
+
+				@Override
+				public Void run() throws Exception {
+					try {
+						proxy.appendValues(values, configurations);
+					} catch (IOException e) {
+						logger.error("", e);
+					}
+					return null;
+				}
+
+			});
+		} catch (PrivilegedActionException e) {
+			logger.error("", e);
+		}
+	}
+
 }
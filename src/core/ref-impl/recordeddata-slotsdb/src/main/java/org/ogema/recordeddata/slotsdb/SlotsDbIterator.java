@@ -0,0 +1,140 @@
+/**
+ * This file is part of OGEMA.
+ *
+ * OGEMA is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3
+ * as published by the Free Software Foundation.
+ *
+ * OGEMA is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with OGEMA. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.ogema.recordeddata.slotsdb;
+
+import java.io.IOException;
+import java.security.AccessController;
+import java.security.PrivilegedActionException;
+import java.security.PrivilegedExceptionAction;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.ogema.core.channelmanager.measurements.SampledValue;
+import org.ogema.core.recordeddata.RecordedDataConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Iterator over the values of a SlotsDB label in the interval [startTime; endTime). The data is read one day folder at
+ * a time, so only the values of a single day are held in memory.
+ */
+class SlotsDbIterator implements Iterator<SampledValue> {
+
+	private final static Logger logger = LoggerFactory.getLogger(SlotsDbIterator.class);
+
+	private final FileObjectProxy proxy;
+	private final String id;
+	private final RecordedDataConfiguration configuration;
+	private final long endTime;
+	private final List<Long> days;
+	private int dayIdx = 0;
+	private long chunkStart;
+	private long lastTimestamp = Long.MIN_VALUE;
+	private Iterator<SampledValue> chunk = Collections.emptyIterator();
+	private SampledValue next;
+
+	SlotsDbIterator(final FileObjectProxy proxy, final String id, RecordedDataConfiguration configuration,
+			final long startTime, final long endTime) {
+		this.proxy = proxy;
+		this.id = id;
+		this.configuration = configuration;
+		this.endTime = endTime;
+		this.chunkStart = startTime;
+		this.days = endTime > startTime ? readPrivileged(new PrivilegedExceptionAction<List<Long>>() {
+
+			@Override
+			public List<Long> run() throws IOException {
+				return proxy.getDays(id, startTime, endTime - 1);
+			}
+		}) : null;
+	}
+
+	private static <T> T readPrivileged(PrivilegedExceptionAction<T> action) {
+		try {
+			return AccessController.doPrivileged(action);
+		} catch (PrivilegedActionException e) {
+			logger.error("", e.getException());
+			return null;
+		}
+	}
+
+	/*
+	 * Reads the values of the next day folder, returns false if there are none left.
+	 */
+	private boolean nextChunk() {
+		if (days == null || dayIdx >= days.size()) {
+			return false;
+		}
+		dayIdx++;
+		final long start = Math.max(chunkStart, days.get(dayIdx - 1));
+		final long end = dayIdx < days.size() ? Math.min(endTime, days.get(dayIdx)) : endTime;
+		chunkStart = end;
+		if (end <= start) {
+			chunk = Collections.emptyIterator();
+			return true;
+		}
+		final List<SampledValue> values = readPrivileged(new PrivilegedExceptionAction<List<SampledValue>>() {
+
+			@Override
+			public List<SampledValue> run() throws IOException {
+				return proxy.read(id, start, end - 1, configuration);
+			}
+		});
+		if (values == null) {
+			// read error, already logged
+			dayIdx = days.size();
+			chunk = Collections.emptyIterator();
+			return false;
+		}
+		chunk = values.iterator();
+		return true;
+	}
+
+	@Override
+	public boolean hasNext() {
+		while (next == null) {
+			if (chunk.hasNext()) {
+				final SampledValue v = chunk.next();
+				// timestamps are rounded by the proxy, skip values that were already returned
+				if (v.getTimestamp() > lastTimestamp && v.getTimestamp() < endTime) {
+					next = v;
+					lastTimestamp = v.getTimestamp();
+				}
+			}
+			else if (!nextChunk()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public SampledValue next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		final SampledValue result = next;
+		next = null;
+		return result;
+	}
+
+	@Override
+	public void remove() {
+		throw new UnsupportedOperationException("Time series iterators are read-only.");
+	}
+}
@@ -176,6 +176,11 @@ class SlotsDbStorage implements RecordedDataStorage {
 
 	}
 
+	@Override
+	public Iterator<SampledValue> iterator(long startTime, long endTime) {
+		return new SlotsDbIterator(recorder.proxy, id, configuration, startTime, endTime);
+	}
+
 	@Override
 	public SampledValue getValue(final long timestamp) {
 
@@ -227,30 +232,18 @@ class SlotsDbStorage implements RecordedDataStorage {
 
 							if (validateArguments(startTime, endTimeMinusOne, intervalSize)) {
 
-								// Issues to consider:
-								// a) calling the for each subinterval will slow down the reduction (many file accesses)
-								// b) calling the read for the whole requested time period might be problematic -
-								// especially when requested
-								// time
-								// period is large and the log interval was very small (large number of values)
-								// Compromise: When the requested time period covers multiple days and therefore
-								// multiple log files, then a
-								// separate read data processing is performed for each file.
-								List<SampledValue> loggedValuesRaw = getLoggedValues(startTime, endTimeMinusOne);
-								List<SampledValue> loggedValues = removeQualityBad(loggedValuesRaw);
-
-								if (loggedValues.isEmpty()) {
-									// return an empty list since there are no logged values, so it doesn't make sense
-									// to aggregate anything
-									return returnValues;
-								}
-
 								if (mode.equals(ReductionMode.NONE)) {
-									return loggedValues;
+									return removeQualityBad(getLoggedValues(startTime, endTimeMinusOne));
 								}
 
-								List<Interval> intervals = generateIntervals(startTime, endTimeMinusOne, intervalSize);
-								returnValues = generateReducedData(intervals, loggedValues, mode);
+								returnValues = getRolledUpData(startTime, endTimeMinusOne, intervalSize, mode);
+								if (returnValues == null) {
+									// The logged values are folded into the reduction while they are read, one day
+									// folder at a time, so neither the raw values nor the values of an interval
+									// are collected in a list.
+									returnValues = generateReducedData(startTime, endTimeMinusOne, intervalSize,
+											mode);
+								}
 
 							}
 
@@ -268,88 +261,199 @@ class SlotsDbStorage implements RecordedDataStorage {
 	}
 
 	/**
-	 * Generates equidistant intervals starting from periodStart till periodEnd. The last interval might have a
-	 * different length than intervalSize.
+	 * Reduces the logged values in equidistant intervals starting from periodStart till periodEnd. The last interval
+	 * might have a different length than intervalSize.
 	 * 
 	 * ASSUMPTION: Arguments are valid (see validateArguments method)
 	 * 
-	 * @return List of intervals which cover the entire period
+	 * @return the reduced values of all intervals, or an empty list if there are no logged values of good quality.
 	 */
-	private List<Interval> generateIntervals(long periodStart, long periodEnd, long intervalSize) {
-
-		List<Interval> intervals = new ArrayList<Interval>();
-
-		long start = periodStart;
-		long end;
-		do {
-			end = start + intervalSize - 1;
-			if (end > periodEnd) {
-				end = periodEnd;
-			}
-			intervals.add(new Interval(start, end));
-			start = end + 1;
-		} while (end != periodEnd);
-
-		return intervals;
-	}
-
-	private List<SampledValue> generateReducedData(List<Interval> intervals, List<SampledValue> loggedValues,
+	private List<SampledValue> generateReducedData(long periodStart, long periodEnd, long intervalSize,
 			ReductionMode mode) {
 
 		List<SampledValue> returnValues = new ArrayList<SampledValue>();
-		List<SampledValue> reducedValues;
-
-		ReductionFactory reductionFactory = new ReductionFactory();
-		Reduction reduction = reductionFactory.getReduction(mode);
+		if (intervalSize <= 0) {
+			return returnValues;
+		}
+		IntervalReducer reducer = new IntervalReducer(new ReductionFactory().getReduction(mode), returnValues,
+				periodStart, periodEnd, intervalSize);
+		readValues(periodStart, periodEnd + 1, reducer);
 
-		int index = 0; // used to move forwards in the loggedValues list
-		int maxIndex = loggedValues.size() - 1;
-		SampledValue loggedValue = loggedValues.get(index);
-		long timestamp = loggedValue.getTimestamp();
+		if (!reducer.hasValues) {
+			// return an empty list since there are no logged values, so it doesn't make sense to aggregate anything
+			return returnValues;
+		}
+		reducer.finish();
+		return returnValues;
+	}
 
-		Iterator<Interval> it = intervals.iterator();
-		Interval interval;
+	/*
+	 * Folds the logged values of good quality into the reduction of the interval they belong to. Values have to be
+	 * passed in the order of their timestamps.
+	 */
+	private static final class IntervalReducer implements FileObject.ValueVisitor {
+
+		private final Reduction reduction;
+		private final List<SampledValue> result;
+		private final long periodStart;
+		private final long periodEnd;
+		private final long intervalSize;
+		private long start;
+		private long end;
+		boolean hasValues = false;
+
+		IntervalReducer(Reduction reduction, List<SampledValue> result, long periodStart, long periodEnd,
+				long intervalSize) {
+			this.reduction = reduction;
+			this.result = result;
+			this.periodStart = periodStart;
+			this.periodEnd = periodEnd;
+			this.intervalSize = intervalSize;
+			this.start = periodStart;
+			this.end = getIntervalEnd(start, periodEnd, intervalSize);
+		}
 
-		while (it.hasNext()) {
+		@Override
+		public void visit(long timestamp, double value, Quality quality) {
+			if (quality == Quality.BAD || timestamp < periodStart) {
+				return;
+			}
+			while (timestamp > end) {
+				reduction.addReducedValues(result, start);
+				start = end + 1;
+				end = getIntervalEnd(start, periodEnd, intervalSize);
+			}
+			reduction.addValue(value);
+			hasValues = true;
+		}
 
-			interval = it.next();
+		/*
+		 * adds the reduced values of the current and all remaining intervals
+		 */
+		void finish() {
+			while (true) {
+				reduction.addReducedValues(result, start);
+				if (end == periodEnd) {
+					break;
+				}
+				start = end + 1;
+				end = getIntervalEnd(start, periodEnd, intervalSize);
+			}
+		}
+	}
 
-			while (timestamp >= interval.getStart() && timestamp <= interval.getEnd()) {
+	/*
+	 * Passes the logged values in [start; end) to the visitor, reading one day folder at a time like the
+	 * SlotsDbIterator. Timestamps are rounded by the proxy, values with a timestamp that was passed already are
+	 * skipped.
+	 */
+	private void readValues(long start, final long end, final FileObject.ValueVisitor visitor) {
+		if (end <= start) {
+			return;
+		}
+		final FileObjectProxy proxy = recorder.proxy;
+		final FileObject.ValueVisitor filter = new FileObject.ValueVisitor() {
 
-				interval.add(loggedValue);
+			private long lastTimestamp = Long.MIN_VALUE;
 
-				if (index < maxIndex) {
-					index++;
-					loggedValue = loggedValues.get(index);
-					timestamp = loggedValue.getTimestamp();
+			@Override
+			public void visit(long timestamp, double value, Quality quality) {
+				if (timestamp > lastTimestamp && timestamp < end) {
+					lastTimestamp = timestamp;
+					visitor.visit(timestamp, value, quality);
 				}
-				else {
-					// complete loggedValues list is processed
-					break;
+			}
+		};
+		try {
+			List<Long> days = proxy.getDays(id, start, end - 1);
+			for (int i = 0; i < days.size(); i++) {
+				long dayStart = Math.max(start, days.get(i));
+				long dayEnd = i + 1 < days.size() ? Math.min(end, days.get(i + 1)) : end;
+				if (dayEnd > dayStart) {
+					proxy.read(id, dayStart, dayEnd - 1, configuration, filter);
 				}
+				start = dayEnd;
 			}
-
-			reducedValues = reduction.performReduction(interval.getValues(), interval.getStart());
-			returnValues.addAll(reducedValues);
-
+		} catch (IOException e) {
+			logger.error("", e);
 		}
+	}
 
-		// debug_printIntervals(intervals);
+	/**
+	 * Reduces the values from the coarsest rollup tier that matches the interval size. Values after the last complete
+	 * bucket of the tier, and values older than the rollups, are read from the raw data.
+	 * 
+	 * @return the reduced values, or null if there is no matching rollup tier.
+	 */
+	private List<SampledValue> getRolledUpData(long periodStart, long periodEnd, long intervalSize, ReductionMode mode) {
+		final FileObjectProxy proxy = recorder.proxy;
+		final long end = periodEnd + 1;
+		final RollupStore.Tier tier = proxy.getRollupTier(periodStart, end, intervalSize);
+		if (tier == null) {
+			return null;
+		}
+		final RollupStore.Records records = new RollupStore.Records();
+		try {
+			final Long rollupStart = proxy.getRollupStartTime(id, tier);
+			if (rollupStart == null) {
+				return null;
+			}
+			final long rollupEnd = tier.getBucket(end);
+			if (periodStart < rollupStart) {
+				addRawValues(records, tier, periodStart, Math.min(rollupStart, rollupEnd));
+			}
+			proxy.readRollups(id, tier, periodStart, rollupEnd, records);
+			addRawValues(records, tier, rollupEnd, end);
+		} catch (IOException e) {
+			logger.error("Reading rollups failed, using raw data", e);
+			return null;
+		}
+		records.sort();
 
+		List<SampledValue> returnValues = new ArrayList<SampledValue>();
+		if (records.size == 0) {
+			return returnValues;
+		}
+		Reduction reduction = new ReductionFactory().getReduction(mode);
+		long start = periodStart;
+		long intervalEnd = getIntervalEnd(start, periodEnd, intervalSize);
+		for (int i = 0; i < records.size; i++) {
+			while (records.starts[i] > intervalEnd) {
+				reduction.addReducedValues(returnValues, start);
+				start = intervalEnd + 1;
+				intervalEnd = getIntervalEnd(start, periodEnd, intervalSize);
+			}
+			reduction.addAggregate(records.counts[i], records.sums[i], records.mins[i], records.maxs[i]);
+		}
+		while (true) {
+			reduction.addReducedValues(returnValues, start);
+			if (intervalEnd == periodEnd) {
+				break;
+			}
+			start = intervalEnd + 1;
+			intervalEnd = getIntervalEnd(start, periodEnd, intervalSize);
+		}
 		return returnValues;
 	}
 
-	private void debug_printIntervals(List<Interval> intervals) {
-
-		Iterator<Interval> it2 = intervals.iterator();
-		Interval interval2;
+	/*
+	 * Adds the raw values of good quality in [start; end) to the records of their tier buckets.
+	 */
+	private void addRawValues(final RollupStore.Records records, final RollupStore.Tier tier, final long start,
+			long end) {
+		readValues(start, end, new FileObject.ValueVisitor() {
+
+			@Override
+			public void visit(long timestamp, double value, Quality quality) {
+				if (quality != Quality.BAD && timestamp >= start) {
+					records.addValue(tier.getBucket(timestamp), value);
+				}
+			}
+		});
+	}
 
-		int i = 1;
-		while (it2.hasNext()) {
-			interval2 = it2.next();
-			System.out.println(i + ": " + interval2.getValues().toString());
-			i++;
-		}
+	private static long getIntervalEnd(long start, long periodEnd, long intervalSize) {
+		return (periodEnd - start < intervalSize) ? periodEnd : start + intervalSize - 1;
 	}
 
 	private boolean validateArguments(long startTime, long endTime, long interval) {
@@ -476,32 +580,3 @@ class SlotsDbStorage implements RecordedDataStorage {
 	}
 
 }
-
-class Interval {
-
-	List<SampledValue> values = new ArrayList<SampledValue>();
-
-	private long start;
-	private long end;
-
-	public Interval(long start, long end) {
-		this.start = start;
-		this.end = end;
-	}
-
-	public long getEnd() {
-		return end;
-	}
-
-	public long getStart() {
-		return start;
-	}
-
-	public void add(SampledValue value) {
-		values.add(value);
-	}
-
-	public List<SampledValue> getValues() {
-		return values;
-	}
-}
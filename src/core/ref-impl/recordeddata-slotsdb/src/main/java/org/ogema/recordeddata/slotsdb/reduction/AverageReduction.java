@@ -21,31 +21,45 @@ import java.util.List;
 import org.ogema.core.channelmanager.measurements.DoubleValue;
 import org.ogema.core.channelmanager.measurements.Quality;
 import org.ogema.core.channelmanager.measurements.SampledValue;
-import org.ogema.recordeddata.slotsdb.SlotsDb;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 public class AverageReduction implements Reduction {
 
+	private int count = 0;
+	private double sum = 0;
+
 	@Override
 	public List<SampledValue> performReduction(List<SampledValue> subIntervalValues, long timestamp) {
 
 		List<SampledValue> toReturn = new ArrayList<SampledValue>();
+		for (SampledValue value : subIntervalValues) {
+			addValue(value.getValue().getDoubleValue());
+		}
+		addReducedValues(toReturn, timestamp);
+		return toReturn;
+	}
+
+	@Override
+	public void addValue(double value) {
+		sum += value;
+		count++;
+	}
 
-		if (subIntervalValues.isEmpty()) {
-			toReturn.add(new SampledValue(new DoubleValue(0.f), timestamp, Quality.BAD));
+	@Override
+	public void addAggregate(int count, double sum, double min, double max) {
+		this.sum += sum;
+		this.count += count;
+	}
+
+	@Override
+	public void addReducedValues(List<SampledValue> result, long timestamp) {
+		if (count == 0) {
+			result.add(new SampledValue(new DoubleValue(0.f), timestamp, Quality.BAD));
 		}
 		else {
-			double sum = 0;
-			for (SampledValue value : subIntervalValues) {
-				sum += value.getValue().getDoubleValue();
-			}
-
-			double average = sum / subIntervalValues.size();
-			toReturn.add(new SampledValue(new SampledValue(new DoubleValue(average), timestamp, Quality.GOOD)));
+			result.add(new SampledValue(new DoubleValue(sum / count), timestamp, Quality.GOOD));
+			sum = 0;
 		}
-
-		return toReturn;
+		count = 0;
 	}
 
 }
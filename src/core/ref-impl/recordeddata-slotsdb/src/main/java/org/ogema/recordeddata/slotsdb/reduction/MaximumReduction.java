@@ -24,25 +24,46 @@ import org.ogema.core.channelmanager.measurements.SampledValue;
 
 public class MaximumReduction implements Reduction {
 
+	private int count = 0;
+	private double maxValue = Double.NEGATIVE_INFINITY;
+
 	@Override
 	public List<SampledValue> performReduction(List<SampledValue> subIntervalValues, long timestamp) {
 
 		List<SampledValue> toReturn = new ArrayList<SampledValue>();
+		for (SampledValue value : subIntervalValues) {
+			addValue(value.getValue().getDoubleValue());
+		}
+		addReducedValues(toReturn, timestamp);
+		return toReturn;
+	}
 
-		if (subIntervalValues.isEmpty()) {
-			toReturn.add(new SampledValue(new DoubleValue(0.f), timestamp, Quality.BAD));
+	@Override
+	public void addValue(double value) {
+		if (value > maxValue) {
+			maxValue = value;
 		}
-		else {
-			double maxValue = Double.NEGATIVE_INFINITY;
-			for (SampledValue value : subIntervalValues) {
-				if (value.getValue().getDoubleValue() > maxValue) {
-					maxValue = value.getValue().getDoubleValue();
-				}
-			}
-			toReturn.add(new SampledValue(new SampledValue(new DoubleValue(maxValue), timestamp, Quality.GOOD)));
+		count++;
+	}
+
+	@Override
+	public void addAggregate(int count, double sum, double min, double max) {
+		if (max > maxValue) {
+			maxValue = max;
 		}
+		this.count += count;
+	}
 
-		return toReturn;
+	@Override
+	public void addReducedValues(List<SampledValue> result, long timestamp) {
+		if (count == 0) {
+			result.add(new SampledValue(new DoubleValue(0.f), timestamp, Quality.BAD));
+		}
+		else {
+			result.add(new SampledValue(new DoubleValue(maxValue), timestamp, Quality.GOOD));
+			maxValue = Double.NEGATIVE_INFINITY;
+		}
+		count = 0;
 	}
 
 }
@@ -24,33 +24,56 @@ import org.ogema.core.channelmanager.measurements.SampledValue;
 
 public class MinMaxReduction implements Reduction {
 
+	private int count = 0;
+	private double minValue = Double.MAX_VALUE;
+	private double maxValue = Double.NEGATIVE_INFINITY;
+
 	@Override
 	public List<SampledValue> performReduction(List<SampledValue> subIntervalValues, long timestamp) {
 
 		List<SampledValue> toReturn = new ArrayList<SampledValue>();
+		for (SampledValue value : subIntervalValues) {
+			addValue(value.getValue().getDoubleValue());
+		}
+		addReducedValues(toReturn, timestamp);
+		return toReturn;
+	}
 
-		if (subIntervalValues.isEmpty()) {
-			toReturn.add(new SampledValue(new DoubleValue(0.f), timestamp, Quality.BAD)); // for minimum
-			toReturn.add(new SampledValue(new DoubleValue(0.f), timestamp, Quality.BAD)); // for maximum
+	@Override
+	public void addValue(double value) {
+		if (value < minValue) {
+			minValue = value;
 		}
-		else {
-			double minValue = Double.MAX_VALUE;
-			double maxValue = Double.NEGATIVE_INFINITY;
-
-			for (SampledValue value : subIntervalValues) {
-				if (value.getValue().getDoubleValue() < minValue) {
-					minValue = value.getValue().getDoubleValue();
-				}
-				if (value.getValue().getDoubleValue() > maxValue) {
-					maxValue = value.getValue().getDoubleValue();
-				}
-			}
-
-			toReturn.add(new SampledValue(new SampledValue(new DoubleValue(minValue), timestamp, Quality.GOOD)));
-			toReturn.add(new SampledValue(new SampledValue(new DoubleValue(maxValue), timestamp, Quality.GOOD)));
+		if (value > maxValue) {
+			maxValue = value;
 		}
+		count++;
+	}
 
-		return toReturn;
+	@Override
+	public void addAggregate(int count, double sum, double min, double max) {
+		if (min < minValue) {
+			minValue = min;
+		}
+		if (max > maxValue) {
+			maxValue = max;
+		}
+		this.count += count;
+	}
+
+	@Override
+	public void addReducedValues(List<SampledValue> result, long timestamp) {
+		if (count == 0) {
+			result.add(new SampledValue(new DoubleValue(0.f), timestamp, Quality.BAD)); // for minimum
+			result.add(new SampledValue(new DoubleValue(0.f), timestamp, Quality.BAD)); // for maximum
+		}
+		else {
+			result.add(new SampledValue(new DoubleValue(minValue), timestamp, Quality.GOOD));
+			result.add(new SampledValue(new DoubleValue(maxValue), timestamp, Quality.GOOD));
+			minValue = Double.MAX_VALUE;
+			maxValue = Double.NEGATIVE_INFINITY;
+		}
+		count = 0;
 	}
 
 }
@@ -24,25 +24,46 @@ import org.ogema.core.channelmanager.measurements.SampledValue;
 
 public class MinimumReduction implements Reduction {
 
+	private int count = 0;
+	private double minValue = Double.MAX_VALUE;
+
 	@Override
 	public List<SampledValue> performReduction(List<SampledValue> subIntervalValues, long timestamp) {
 
 		List<SampledValue> toReturn = new ArrayList<SampledValue>();
+		for (SampledValue value : subIntervalValues) {
+			addValue(value.getValue().getDoubleValue());
+		}
+		addReducedValues(toReturn, timestamp);
+		return toReturn;
+	}
 
-		if (subIntervalValues.isEmpty()) {
-			toReturn.add(new SampledValue(new DoubleValue(0.f), timestamp, Quality.BAD));
+	@Override
+	public void addValue(double value) {
+		if (value < minValue) {
+			minValue = value;
 		}
-		else {
-			double minValue = Double.MAX_VALUE;
-			for (SampledValue value : subIntervalValues) {
-				if (value.getValue().getDoubleValue() < minValue) {
-					minValue = value.getValue().getDoubleValue();
-				}
-			}
-			toReturn.add(new SampledValue(new SampledValue(new DoubleValue(minValue), timestamp, Quality.GOOD)));
+		count++;
+	}
+
+	@Override
+	public void addAggregate(int count, double sum, double min, double max) {
+		if (min < minValue) {
+			minValue = min;
 		}
+		this.count += count;
+	}
 
-		return toReturn;
+	@Override
+	public void addReducedValues(List<SampledValue> result, long timestamp) {
+		if (count == 0) {
+			result.add(new SampledValue(new DoubleValue(0.f), timestamp, Quality.BAD));
+		}
+		else {
+			result.add(new SampledValue(new DoubleValue(minValue), timestamp, Quality.GOOD));
+			minValue = Double.MAX_VALUE;
+		}
+		count = 0;
 	}
 
 }
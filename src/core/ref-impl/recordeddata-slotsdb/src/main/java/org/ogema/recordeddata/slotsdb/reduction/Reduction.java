@@ -34,4 +34,35 @@ public interface Reduction {
 	 */
 	List<SampledValue> performReduction(List<SampledValue> intervalValues, long timestamp);
 
+	/**
+	 * Adds a value of the current interval. Used for streaming reduction, where the values of an interval are not
+	 * collected in a list.
+	 */
+	void addValue(double value);
+
+	/**
+	 * Adds values of the current interval that have already been aggregated.
+	 * 
+	 * @param count
+	 *            number of values, greater than 0
+	 * @param sum
+	 *            sum of the values
+	 * @param min
+	 *            minimum of the values
+	 * @param max
+	 *            maximum of the values
+	 */
+	void addAggregate(int count, double sum, double min, double max);
+
+	/**
+	 * Appends the aggregated values of the current interval to the result, like
+	 * {@link #performReduction(List, long)}, and resets the reduction for the next interval.
+	 * 
+	 * @param result
+	 *            list the aggregated values are added to
+	 * @param timestamp
+	 *            of the resulting value
+	 */
+	void addReducedValues(List<SampledValue> result, long timestamp);
+
 }
@@ -15,6 +15,13 @@
  */
 package org.ogema.recordeddata.slotsdb;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 import org.junit.AfterClass;
 import org.junit.Assert;
 import org.junit.BeforeClass;
@@ -59,4 +66,67 @@ public class ApendValueTest extends SlotsDbTest {
 
 	}
 
+	@Test
+	public void batchInsertWritesToAllStorages() throws DataRecorderException {
+
+		SlotsDb sdb = new SlotsDb();
+		RecordedDataConfiguration conf = new RecordedDataConfiguration();
+		conf.setFixedInterval(1000);
+		conf.setStorageType(StorageType.FIXED_INTERVAL);
+		final int storages = 3;
+		for (int i = 0; i < storages; i++) {
+			sdb.createRecordedDataStorage("batch" + i, conf);
+		}
+
+		final long start = 1446140400000L; // 2015-10-29 17:40 UTC
+		final long[] times = { start, start + 1000, start + 2000, start + 86400000 };
+		for (long t : times) {
+			Map<String, SampledValue> values = new HashMap<>();
+			for (int i = 0; i < storages; i++) {
+				values.put("batch" + i, new SampledValue(new DoubleValue(i), t, Quality.GOOD));
+			}
+			values.put("noSuchStorage", new SampledValue(new DoubleValue(-1), t, Quality.GOOD));
+			sdb.insertValues(values);
+		}
+
+		Assert.assertNull(sdb.getRecordedDataStorage("noSuchStorage"));
+		for (int i = 0; i < storages; i++) {
+			List<SampledValue> stored = sdb.getRecordedDataStorage("batch" + i).getValues(start, start + 86400001);
+			Assert.assertEquals(times.length, stored.size());
+			for (int j = 0; j < times.length; j++) {
+				Assert.assertEquals(times[j], stored.get(j).getTimestamp());
+				Assert.assertEquals(i, stored.get(j).getValue().getDoubleValue(), 0);
+			}
+		}
+	}
+
+	@Test
+	public void batchInsertContinuesAfterFailingStorage() throws DataRecorderException, IOException {
+
+		SlotsDb.ROLLUPS = "minute";
+		try {
+			SlotsDb sdb = new SlotsDb();
+			RecordedDataConfiguration conf = new RecordedDataConfiguration();
+			conf.setStorageType(StorageType.ON_VALUE_UPDATE);
+			sdb.createRecordedDataStorage("failing", conf);
+			sdb.createRecordedDataStorage("working", conf);
+			// a file in place of the rollup folder makes appending to the rollups of the first storage fail
+			File rollups = new File(SlotsDb.DEFAULT_DB_ROOT_FOLDER, RollupStore.FOLDER);
+			rollups.mkdirs();
+			Assert.assertTrue(new File(rollups, "failing").createNewFile());
+
+			final long t = 1446140400000L;
+			Map<String, SampledValue> values = new LinkedHashMap<>();
+			values.put("failing", new SampledValue(new DoubleValue(1), t, Quality.GOOD));
+			values.put("working", new SampledValue(new DoubleValue(2), t, Quality.GOOD));
+			sdb.insertValues(values);
+
+			List<SampledValue> stored = sdb.getRecordedDataStorage("working").getValues(t, t + 1);
+			Assert.assertEquals(1, stored.size());
+			Assert.assertEquals(2, stored.get(0).getValue().getDoubleValue(), 0);
+		} finally {
+			SlotsDb.ROLLUPS = null;
+		}
+	}
+
 }
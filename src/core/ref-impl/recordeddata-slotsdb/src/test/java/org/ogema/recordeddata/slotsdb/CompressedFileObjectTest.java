@@ -0,0 +1,144 @@
+/**
+ * This file is part of OGEMA.
+ *
+ * OGEMA is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3
+ * as published by the Free Software Foundation.
+ *
+ * OGEMA is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with OGEMA. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.ogema.recordeddata.slotsdb;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.ogema.core.channelmanager.measurements.DoubleValue;
+import org.ogema.core.channelmanager.measurements.Quality;
+import org.ogema.core.channelmanager.measurements.SampledValue;
+import org.ogema.core.recordeddata.RecordedDataConfiguration;
+import org.ogema.core.recordeddata.RecordedDataConfiguration.StorageType;
+
+public class CompressedFileObjectTest extends SlotsDbTest {
+
+	private static final long START = 1446140400000L; // 2015-10-29 17:40 UTC
+
+	@BeforeClass
+	public static void setUp() {
+		deleteTestFiles();
+	}
+
+	@AfterClass
+	public static void tearDown() {
+		deleteTestFiles();
+	}
+
+	private static List<SampledValue> subList(List<SampledValue> values, long start, long end) {
+		List<SampledValue> result = new ArrayList<>();
+		for (SampledValue sv : values) {
+			if (sv.getTimestamp() >= start && sv.getTimestamp() <= end) {
+				result.add(sv);
+			}
+		}
+		return result;
+	}
+
+	@Test
+	public void valuesAreReadBackAcrossBlocksAndReopening() throws IOException {
+		File file = new File("data/compressedFileTest/b" + START + SlotsDb.FILE_EXTENSION);
+		CompressedFileObject fo = new CompressedFileObject(file);
+		fo.createFileAndHeader(START, -1);
+
+		Random rand = new Random(4711);
+		List<SampledValue> expected = new ArrayList<>();
+		long t = START;
+		double value = 20;
+		final int count = 5 * CompressedFileObject.MAX_BLOCK_SIZE + 17;
+		for (int i = 0; i < count; i++) {
+			t += i % 100 == 99 ? 100000 : 1000 + rand.nextInt(20) - 10;
+			// float resolution sensor values, constant for some time
+			value = i % 50 < 25 ? value : (float) (value + rand.nextGaussian());
+			Quality q = i % 70 == 0 ? Quality.BAD : Quality.GOOD;
+			if (i == 400) {
+				// NaN values are stored, but not returned
+				Assert.assertTrue(fo.append(Double.NaN, t, (byte) q.getQuality()));
+			}
+			else {
+				Assert.assertTrue(fo.append(value, t, (byte) q.getQuality()));
+				expected.add(new SampledValue(new DoubleValue(value), t, q));
+			}
+			Assert.assertFalse("older timestamp must be rejected", fo.append(value, t - 1, (byte) 1));
+			if (i == 300) {
+				fo.close();
+				fo = new CompressedFileObject(file);
+			}
+			else if (i % 40 == 0) {
+				fo.flush();
+			}
+		}
+		assertSameValues(expected, fo.readFully());
+		fo.close();
+
+		fo = new CompressedFileObject(file);
+		Assert.assertEquals(START, fo.getStartTimeStamp());
+		Assert.assertEquals(-1, fo.getStoringPeriod());
+		Assert.assertEquals(t, fo.getTimestampForLatestValue());
+		assertSameValues(expected, fo.readFully());
+		long from = expected.get(200).getTimestamp();
+		long to = expected.get(900).getTimestamp();
+		assertSameValues(subList(expected, from, to), fo.read(from, to));
+		assertSameValues(subList(expected, from + 1, to - 1), fo.read(from + 1, to - 1));
+		Assert.assertEquals(expected.get(555).getTimestamp(), fo.read(expected.get(555).getTimestamp())
+				.getTimestamp());
+		Assert.assertNull(fo.read(expected.get(555).getTimestamp() + 1));
+		Assert.assertEquals(expected.get(556).getTimestamp(), fo.readNextValue(expected.get(555).getTimestamp() + 1)
+				.getTimestamp());
+		Assert.assertNull(fo.readNextValue(t + 1));
+		fo.close();
+
+		Assert.assertTrue("compressed file too large: " + file.length(), file.length() * 5 < count * 17);
+	}
+
+	@Test
+	public void compressedAndUncompressedFilesAreReadSideBySide() throws IOException {
+		final String label = "mixedFormats";
+		RecordedDataConfiguration conf = new RecordedDataConfiguration();
+		conf.setStorageType(StorageType.FIXED_INTERVAL);
+		conf.setFixedInterval(1000);
+		FileObjectProxy proxy = new FileObjectProxy(SlotsDb.DEFAULT_DB_ROOT_FOLDER);
+		for (int i = 0; i < 100; i++) {
+			proxy.appendValue(label, i, START + i * 1000, (byte) Quality.GOOD.getQuality(), conf);
+		}
+		conf.setCompressed(true);
+		for (int i = 100; i < 200; i++) {
+			proxy.appendValue(label, i, START + i * 1000, (byte) Quality.GOOD.getQuality(), conf);
+		}
+		List<SampledValue> values = proxy.read(label, START, START + 200 * 1000, conf);
+		Assert.assertEquals(200, values.size());
+		for (int i = 0; i < 200; i++) {
+			Assert.assertEquals(START + i * 1000, values.get(i).getTimestamp());
+			Assert.assertEquals(i, values.get(i).getValue().getDoubleValue(), 0);
+		}
+		proxy.flush();
+
+		// convert the remaining uncompressed file
+		File root = new File(SlotsDb.DEFAULT_DB_ROOT_FOLDER);
+		Assert.assertEquals(1, FileFormatConverter.compress(root));
+		Assert.assertEquals(0, FileFormatConverter.compress(root));
+		assertSameValues(values, new FileObjectProxy(SlotsDb.DEFAULT_DB_ROOT_FOLDER).read(label, START,
+				START + 200 * 1000, conf));
+	}
+
+}
@@ -0,0 +1,97 @@
+/**
+ * This file is part of OGEMA.
+ *
+ * OGEMA is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3
+ * as published by the Free Software Foundation.
+ *
+ * OGEMA is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with OGEMA. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.ogema.recordeddata.slotsdb;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.ogema.core.recordeddata.RecordedDataConfiguration;
+import org.ogema.core.recordeddata.RecordedDataConfiguration.StorageType;
+
+/**
+ * Writes and reads the data of several labels of one FileObjectProxy in parallel.
+ */
+public class ConcurrentAccessTest extends SlotsDbTest {
+
+	private static final int LABELS = 8;
+	private static final int VALUES = 300;
+	private static final long START = 1446140400000L; // 2015-10-29 17:40 UTC
+	private static final long STEP = 1000;
+
+	@BeforeClass
+	public static void setUp() {
+		deleteTestFiles();
+	}
+
+	@AfterClass
+	public static void tearDown() {
+		deleteTestFiles();
+	}
+
+	@Test
+	public void concurrentWritersAndReadersDontInterfere() throws Exception {
+		final FileObjectProxy proxy = new FileObjectProxy(SlotsDb.DEFAULT_DB_ROOT_FOLDER);
+		final RecordedDataConfiguration conf = new RecordedDataConfiguration();
+		conf.setStorageType(StorageType.ON_VALUE_UPDATE);
+
+		ExecutorService exec = Executors.newFixedThreadPool(2 * LABELS);
+		List<Future<?>> results = new ArrayList<>();
+		try {
+			for (int i = 0; i < LABELS; i++) {
+				final String label = "concurrentLabel" + i;
+				results.add(exec.submit(new Callable<Void>() {
+
+					@Override
+					public Void call() throws Exception {
+						for (int j = 0; j < VALUES; j++) {
+							proxy.appendValue(label, j, START + j * STEP, (byte) 1, conf);
+						}
+						return null;
+					}
+				}));
+				results.add(exec.submit(new Callable<Void>() {
+
+					@Override
+					public Void call() throws Exception {
+						for (int j = 0; j < VALUES / 10; j++) {
+							proxy.read(label, START, START + VALUES * STEP, conf);
+							proxy.flush();
+						}
+						return null;
+					}
+				}));
+			}
+			for (Future<?> f : results) {
+				f.get();
+			}
+		} finally {
+			exec.shutdown();
+		}
+		proxy.flush();
+		for (int i = 0; i < LABELS; i++) {
+			Assert.assertEquals(VALUES, proxy.read("concurrentLabel" + i, START, START + VALUES * STEP, conf).size());
+		}
+	}
+
+}
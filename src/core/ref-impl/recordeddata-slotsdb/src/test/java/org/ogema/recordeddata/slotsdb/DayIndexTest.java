@@ -0,0 +1,102 @@
+/**
+ * This file is part of OGEMA.
+ *
+ * OGEMA is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3
+ * as published by the Free Software Foundation.
+ *
+ * OGEMA is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with OGEMA. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.ogema.recordeddata.slotsdb;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.ogema.core.channelmanager.measurements.Quality;
+import org.ogema.core.channelmanager.measurements.SampledValue;
+import org.ogema.core.recordeddata.RecordedDataConfiguration;
+import org.ogema.core.recordeddata.RecordedDataConfiguration.StorageType;
+
+public class DayIndexTest extends SlotsDbTest {
+
+	private static final long START = 1446138000000L; // 2015-10-29 17:00 UTC
+	private static final long HOUR = 3600000L;
+	private static final int COUNT = 24 * 4;
+
+	private final RecordedDataConfiguration conf = new RecordedDataConfiguration();
+
+	@Before
+	public void setUp() throws IOException {
+		deleteTestFiles();
+		conf.setStorageType(StorageType.FIXED_INTERVAL);
+		conf.setFixedInterval(HOUR);
+		FileObjectProxy proxy = new FileObjectProxy(SlotsDb.DEFAULT_DB_ROOT_FOLDER);
+		for (int i = 0; i < COUNT; i++) {
+			proxy.appendValue("a", i, START + i * HOUR, (byte) Quality.GOOD.getQuality(), conf);
+			if (i % 2 == 0) {
+				proxy.appendValue("b", -i, START + i * HOUR, (byte) Quality.GOOD.getQuality(), conf);
+			}
+		}
+		// new file in the middle of a day
+		conf.setFixedInterval(HOUR / 2);
+		proxy.appendValue("a", COUNT, START + COUNT * HOUR, (byte) Quality.GOOD.getQuality(), conf);
+		proxy.flush();
+	}
+
+	@After
+	public void tearDown() {
+		deleteTestFiles();
+	}
+
+	private void assertValues(FileObjectProxy proxy) throws IOException {
+		List<SampledValue> values = proxy.read("a", START, START + COUNT * HOUR, conf);
+		Assert.assertEquals(COUNT + 1, values.size());
+		for (int i = 0; i <= COUNT; i++) {
+			Assert.assertEquals(START + i * HOUR, values.get(i).getTimestamp());
+		}
+		values = proxy.read("a", START + 30 * HOUR, START + 60 * HOUR, conf);
+		Assert.assertEquals(31, values.size());
+		Assert.assertEquals(30, values.get(0).getValue().getDoubleValue(), 0);
+		Assert.assertEquals(COUNT / 2, proxy.read("b", START, START + COUNT * HOUR, conf).size());
+		Assert.assertTrue(proxy.read("c", START, START + COUNT * HOUR, conf).isEmpty());
+		List<Long> days = proxy.getDays("a", START, START + COUNT * HOUR);
+		Assert.assertTrue(days.size() >= 4);
+		Assert.assertEquals(days, proxy.getDays("b", START, START + COUNT * HOUR));
+	}
+
+	@Test
+	public void indexIsPersistedAndUsedAfterRestart() throws IOException {
+		File indexFile = new File(SlotsDb.DEFAULT_DB_ROOT_FOLDER, DayIndex.FILE_NAME);
+		Assert.assertTrue(indexFile.isFile());
+		long lastModified = indexFile.lastModified();
+		FileObjectProxy proxy = new FileObjectProxy(SlotsDb.DEFAULT_DB_ROOT_FOLDER);
+		assertValues(proxy);
+		Assert.assertEquals("index must not be rewritten when loaded", lastModified, indexFile.lastModified());
+	}
+
+	@Test
+	public void indexIsRebuiltIfMissingOrOutdated() throws IOException {
+		File indexFile = new File(SlotsDb.DEFAULT_DB_ROOT_FOLDER, DayIndex.FILE_NAME);
+		Assert.assertTrue(indexFile.delete());
+		FileObjectProxy proxy = new FileObjectProxy(SlotsDb.DEFAULT_DB_ROOT_FOLDER);
+		Assert.assertTrue(indexFile.isFile());
+		assertValues(proxy);
+
+		// files converted by another tool are found again
+		Assert.assertTrue(FileFormatConverter.compress(new File(SlotsDb.DEFAULT_DB_ROOT_FOLDER)) > 0);
+		assertValues(proxy);
+		assertValues(new FileObjectProxy(SlotsDb.DEFAULT_DB_ROOT_FOLDER));
+	}
+
+}
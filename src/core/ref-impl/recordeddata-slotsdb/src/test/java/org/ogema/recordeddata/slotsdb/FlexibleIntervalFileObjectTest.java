@@ -0,0 +1,131 @@
+/**
+ * This file is part of OGEMA.
+ *
+ * OGEMA is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3
+ * as published by the Free Software Foundation.
+ *
+ * OGEMA is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with OGEMA. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.ogema.recordeddata.slotsdb;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.ogema.core.channelmanager.measurements.Quality;
+import org.ogema.core.channelmanager.measurements.SampledValue;
+
+public class FlexibleIntervalFileObjectTest extends SlotsDbTest {
+
+	private static final String FILE = SlotsDb.DEFAULT_DB_ROOT_FOLDER + "20150101/flexibleTest/f1000"
+			+ SlotsDb.FILE_EXTENSION;
+
+	@BeforeClass
+	public static void setUp() {
+		deleteTestFiles();
+	}
+
+	@AfterClass
+	public static void tearDown() {
+		deleteTestFiles();
+	}
+
+	@After
+	public void cleanUp() {
+		deleteTestFiles();
+	}
+
+	/*
+	 * writes values 1000, 2000, ..., 100000 with value = timestamp / 1000, except for 50000 which is NaN
+	 */
+	private static FlexibleIntervalFileObject createFile(boolean memoryMappedReads) throws IOException {
+		FlexibleIntervalFileObject fo = new FlexibleIntervalFileObject(FILE, memoryMappedReads);
+		fo.createFileAndHeader(1000, -1);
+		for (long t = 1000; t <= 100000; t += 1000) {
+			fo.append(t == 50000 ? Double.NaN : t / 1000, t, (byte) Quality.GOOD.getQuality());
+		}
+		return fo;
+	}
+
+	private void checkReads(FileObject fo) throws IOException {
+		assertEquals(100000, fo.getTimestampForLatestValue());
+
+		assertEquals(7.0, fo.read(7000).getValue().getDoubleValue(), 0);
+		assertNull(fo.read(7500));
+		assertNull(fo.read(50000));
+		assertNull(fo.read(200000));
+
+		assertEquals(8000, fo.readNextValue(7001).getTimestamp());
+		assertEquals(51000, fo.readNextValue(49500).getTimestamp());
+		assertNull(fo.readNextValue(100001));
+
+		List<SampledValue> values = fo.read(45500, 55000);
+		assertEquals(9, values.size());
+		assertEquals(46000, values.get(0).getTimestamp());
+		assertEquals(55000, values.get(values.size() - 1).getTimestamp());
+
+		assertEquals(99, fo.readFully().size());
+	}
+
+	@Test
+	public void readWhileWritingWorks() throws IOException {
+		FlexibleIntervalFileObject fo = createFile(true);
+		try {
+			checkReads(fo);
+			// the file is still appended to, so it must not be mapped
+			assertFalse(fo.isMapped());
+			fo.append(101, 101000, (byte) Quality.GOOD.getQuality());
+			assertEquals(101.0, fo.read(101000).getValue().getDoubleValue(), 0);
+			assertEquals(101000, fo.getTimestampForLatestValue());
+		} finally {
+			fo.close();
+		}
+	}
+
+	@Test
+	public void readsFromReopenedFileWork() throws IOException {
+		createFile(true).close();
+		FlexibleIntervalFileObject fo = new FlexibleIntervalFileObject(new File(FILE), true);
+		try {
+			checkReads(fo);
+			assertTrue(fo.isMapped());
+			// values older than the latest stored value must not be appended to a reopened file
+			fo.append(3, 3500, (byte) Quality.GOOD.getQuality());
+			assertNull(fo.read(3500));
+			fo.append(101, 101000, (byte) Quality.GOOD.getQuality());
+			assertEquals(101.0, fo.read(101000).getValue().getDoubleValue(), 0);
+			assertFalse(fo.isMapped());
+		} finally {
+			fo.close();
+		}
+	}
+
+	@Test
+	public void heapReadsWork() throws IOException {
+		createFile(false).close();
+		FlexibleIntervalFileObject fo = new FlexibleIntervalFileObject(new File(FILE), false);
+		try {
+			checkReads(fo);
+			assertFalse(fo.isMapped());
+		} finally {
+			fo.close();
+		}
+	}
+
+}
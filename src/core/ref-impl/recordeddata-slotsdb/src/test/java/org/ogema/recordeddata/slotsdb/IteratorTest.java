@@ -0,0 +1,101 @@
+/**
+ * This file is part of OGEMA.
+ *
+ * OGEMA is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3
+ * as published by the Free Software Foundation.
+ *
+ * OGEMA is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with OGEMA. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.ogema.recordeddata.slotsdb;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.ogema.core.channelmanager.measurements.DoubleValue;
+import org.ogema.core.channelmanager.measurements.Quality;
+import org.ogema.core.channelmanager.measurements.SampledValue;
+import org.ogema.core.recordeddata.RecordedDataConfiguration;
+import org.ogema.core.recordeddata.RecordedDataConfiguration.StorageType;
+import org.ogema.recordeddata.RecordedDataStorage;
+
+/**
+ * Tests that the iterator of a SlotsDbStorage returns the same values as getValues, also for intervals spanning
+ * several day folders.
+ */
+public class IteratorTest extends SlotsDbTest {
+
+	private static final long START = 1446140400000L; // 2015-10-29 17:40 UTC
+	private static final long STEP = 3600000;
+	private static final int VALUES = 100;
+
+	private static RecordedDataStorage rds;
+
+	@BeforeClass
+	public static void setUp() throws Exception {
+		deleteTestFiles();
+		SlotsDb sdb = new SlotsDb();
+		RecordedDataConfiguration conf = new RecordedDataConfiguration();
+		conf.setStorageType(StorageType.ON_VALUE_UPDATE);
+		rds = sdb.createRecordedDataStorage("testIterator", conf);
+		for (int i = 0; i < VALUES; i++) {
+			rds.insertValue(new SampledValue(new DoubleValue(i), START + i * STEP, Quality.GOOD));
+		}
+	}
+
+	@AfterClass
+	public static void tearDown() {
+		deleteTestFiles();
+	}
+
+	private static void assertIteratorMatchesGetValues(long start, long end) {
+		List<SampledValue> expected = rds.getValues(start, end);
+		List<SampledValue> actual = new ArrayList<>();
+		Iterator<SampledValue> it = rds.iterator(start, end);
+		while (it.hasNext()) {
+			actual.add(it.next());
+		}
+		Assert.assertEquals(expected.size(), actual.size());
+		for (int i = 0; i < expected.size(); i++) {
+			Assert.assertEquals(expected.get(i).getTimestamp(), actual.get(i).getTimestamp());
+			Assert.assertEquals(expected.get(i).getValue().getDoubleValue(), actual.get(i).getValue()
+					.getDoubleValue(), 0.);
+		}
+	}
+
+	@Test
+	public void iteratorMatchesGetValues() {
+		assertIteratorMatchesGetValues(START, START + VALUES * STEP);
+		assertIteratorMatchesGetValues(START - 10 * STEP, START + 5 * STEP);
+		assertIteratorMatchesGetValues(START + 3 * STEP, START + 50 * STEP);
+		assertIteratorMatchesGetValues(START + 3 * STEP + 1, START + 3 * STEP + 2);
+		assertIteratorMatchesGetValues(START + 90 * STEP, START + 200 * STEP);
+	}
+
+	@Test
+	public void iteratorReturnsAllValues() {
+		Iterator<SampledValue> it = rds.iterator(0, Long.MAX_VALUE);
+		int count = 0;
+		long last = Long.MIN_VALUE;
+		while (it.hasNext()) {
+			SampledValue v = it.next();
+			Assert.assertTrue(v.getTimestamp() > last);
+			last = v.getTimestamp();
+			count++;
+		}
+		Assert.assertEquals(VALUES, count);
+		Assert.assertFalse(rds.iterator(START + STEP, START).hasNext());
+	}
+
+}
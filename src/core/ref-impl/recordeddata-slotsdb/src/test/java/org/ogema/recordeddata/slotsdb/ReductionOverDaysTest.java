@@ -0,0 +1,89 @@
+/**
+ * This file is part of OGEMA.
+ *
+ * OGEMA is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3
+ * as published by the Free Software Foundation.
+ *
+ * OGEMA is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with OGEMA. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.ogema.recordeddata.slotsdb;
+
+import java.util.List;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.ogema.core.channelmanager.measurements.DoubleValue;
+import org.ogema.core.channelmanager.measurements.Quality;
+import org.ogema.core.channelmanager.measurements.SampledValue;
+import org.ogema.core.recordeddata.RecordedDataConfiguration;
+import org.ogema.core.recordeddata.RecordedDataConfiguration.StorageType;
+import org.ogema.core.recordeddata.ReductionMode;
+import org.ogema.recordeddata.RecordedDataStorage;
+
+/**
+ * Reduces data that is stored in several day folders and contains values of bad quality, and compares the result with
+ * a reduction of the raw values.
+ */
+public class ReductionOverDaysTest extends SlotsDbTest {
+
+	private static final long START = 1446140400000L; // 2015-10-29 17:40 UTC
+	private static final long STEP = 3600000;
+	private static final int VALUES = 100;
+
+	private static RecordedDataStorage rds;
+
+	@BeforeClass
+	public static void setUp() throws Exception {
+		deleteTestFiles();
+		SlotsDb sdb = new SlotsDb();
+		RecordedDataConfiguration conf = new RecordedDataConfiguration();
+		conf.setStorageType(StorageType.ON_VALUE_UPDATE);
+		rds = sdb.createRecordedDataStorage("testReductionOverDays", conf);
+		for (int i = 0; i < VALUES; i++) {
+			// every 7th value is bad and must be ignored, values 40-59 are missing
+			if (i < 40 || i >= 60) {
+				rds.insertValue(new SampledValue(new DoubleValue(i % 13), START + i * STEP, i % 7 == 0 ? Quality.BAD
+						: Quality.GOOD));
+			}
+		}
+	}
+
+	@AfterClass
+	public static void tearDown() {
+		deleteTestFiles();
+	}
+
+	private static void assertReduction(long start, long end, long interval) {
+		for (ReductionMode mode : new ReductionMode[] { ReductionMode.AVERAGE, ReductionMode.MINIMUM_VALUE,
+				ReductionMode.MAXIMUM_VALUE, ReductionMode.MIN_MAX_VALUE }) {
+			List<SampledValue> expected = reduce(rds.getValues(start, end), start, end, interval, mode);
+			List<SampledValue> actual = rds.getValues(start, end, interval, mode);
+			Assert.assertEquals(mode.toString(), expected.size(), actual.size());
+			assertSameValues(expected, actual);
+		}
+	}
+
+	@Test
+	public void reductionSpanningSeveralDays() {
+		assertReduction(START, START + VALUES * STEP, 5 * STEP);
+		assertReduction(START - 3 * STEP, START + VALUES * STEP + 7, 24 * STEP);
+		assertReduction(START + STEP / 2, START + 70 * STEP, 1000 * STEP);
+		assertReduction(START + 10 * STEP, START + 12 * STEP, STEP / 4);
+	}
+
+	@Test
+	public void noGoodValuesGiveEmptyResult() {
+		Assert.assertTrue(rds.getValues(START + 45 * STEP, START + 55 * STEP, STEP, ReductionMode.AVERAGE).isEmpty());
+		Assert.assertTrue(rds.getValues(START, START + 1, STEP, ReductionMode.MIN_MAX_VALUE).isEmpty());
+	}
+
+}
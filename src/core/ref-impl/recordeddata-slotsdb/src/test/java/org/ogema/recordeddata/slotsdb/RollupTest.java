@@ -0,0 +1,166 @@
+/**
+ * This file is part of OGEMA.
+ *
+ * OGEMA is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3
+ * as published by the Free Software Foundation.
+ *
+ * OGEMA is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with OGEMA. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.ogema.recordeddata.slotsdb;
+
+import java.io.File;
+import java.util.List;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+import org.ogema.core.channelmanager.measurements.DoubleValue;
+import org.ogema.core.channelmanager.measurements.Quality;
+import org.ogema.core.channelmanager.measurements.SampledValue;
+import org.ogema.core.recordeddata.RecordedDataConfiguration;
+import org.ogema.core.recordeddata.RecordedDataConfiguration.StorageType;
+import org.ogema.core.recordeddata.ReductionMode;
+import org.ogema.recordeddata.RecordedDataStorage;
+
+/**
+ * Tests reductions that are read from the rollup tiers. The first values are stored before rollups are enabled, so
+ * they are only contained in the raw data. The last tests delete the raw data and the storage.
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class RollupTest extends SlotsDbTest {
+
+	private static final long START = 1446140400000L; // 2015-10-29 17:40 UTC
+	private static final long STEP = 600000;
+	private static final int VALUES = 600;
+	private static final int VALUES_WITHOUT_ROLLUPS = 100;
+	private static final long HOUR = 3600000;
+	private static final long DAY = 24 * HOUR;
+	private static final long FIRST_HOUR = START - START % HOUR;
+	private static final long FIRST_DAY = START - START % DAY;
+
+	private static final ReductionMode[] MODES = { ReductionMode.AVERAGE, ReductionMode.MINIMUM_VALUE,
+			ReductionMode.MAXIMUM_VALUE, ReductionMode.MIN_MAX_VALUE };
+
+	private static RecordedDataStorage rds;
+
+	private static void insertValues(RecordedDataStorage storage, int from, int to) throws Exception {
+		for (int i = from; i < to; i++) {
+			// every 7th value is bad and must be ignored, values 300-349 are missing
+			if (i < 300 || i >= 350) {
+				storage.insertValue(new SampledValue(new DoubleValue(i % 13), START + i * STEP,
+						i % 7 == 0 ? Quality.BAD : Quality.GOOD));
+			}
+		}
+	}
+
+	@BeforeClass
+	public static void setUp() throws Exception {
+		deleteTestFiles();
+		SlotsDb.ROLLUPS = null;
+		RecordedDataConfiguration conf = new RecordedDataConfiguration();
+		conf.setStorageType(StorageType.ON_VALUE_UPDATE);
+		insertValues(new SlotsDb().createRecordedDataStorage("testRollups", conf), 0, VALUES_WITHOUT_ROLLUPS);
+
+		SlotsDb.ROLLUPS = "minute,hour,day";
+		rds = new SlotsDb().getRecordedDataStorage("testRollups");
+		insertValues(rds, VALUES_WITHOUT_ROLLUPS, VALUES);
+	}
+
+	@AfterClass
+	public static void tearDown() {
+		SlotsDb.ROLLUPS = null;
+		deleteTestFiles();
+	}
+
+	private static void assertReduction(long start, long end, long interval) {
+		List<SampledValue> raw = rds.getValues(start, end);
+		for (ReductionMode mode : MODES) {
+			assertSameValues(reduce(raw, start, end, interval, mode), rds.getValues(start, end, interval, mode));
+		}
+	}
+
+	@Test
+	public void reductionsMatchRawData() throws Exception {
+		// aligned to the tiers
+		assertReduction(FIRST_HOUR, FIRST_HOUR + 100 * HOUR, HOUR);
+		assertReduction(FIRST_HOUR + 3 * HOUR, FIRST_HOUR + 90 * HOUR, 3 * HOUR);
+		assertReduction(FIRST_DAY, FIRST_DAY + 5 * DAY, DAY);
+		assertReduction(FIRST_HOUR + 20 * HOUR, FIRST_HOUR + 21 * HOUR, 60000);
+		// end not aligned, the last values are read from the raw data
+		assertReduction(FIRST_HOUR, START + VALUES * STEP - 1, 2 * HOUR);
+		assertReduction(FIRST_DAY, FIRST_DAY + 3 * DAY + 5 * HOUR + 17, DAY);
+		// no rollup tier matches
+		assertReduction(START, START + 80 * HOUR, HOUR);
+		assertReduction(FIRST_HOUR, FIRST_HOUR + 80 * HOUR, 90 * 60000 + 1);
+
+		// no good values
+		Assert.assertTrue(rds.getValues(START + 310 * STEP, START + 340 * STEP, HOUR, ReductionMode.AVERAGE)
+				.isEmpty());
+	}
+
+	@Test
+	public void rollupsSurviveDeletionOfRawData() throws Exception {
+		final long start = FIRST_DAY + 2 * DAY;
+		final long end = FIRST_DAY + 4 * DAY;
+		Assert.assertTrue("test data must be covered by rollups", START + VALUES_WITHOUT_ROLLUPS * STEP < start);
+		List<SampledValue> raw = rds.getValues(start, end);
+		Assert.assertFalse(raw.isEmpty());
+
+		SlotsDb.ROLLUPS = "minute,hour,day";
+		SlotsDb sdb = new SlotsDb();
+		RecordedDataStorage storage = sdb.getRecordedDataStorage("testRollups");
+		for (File folder : new File(SlotsDb.DEFAULT_DB_ROOT_FOLDER).listFiles()) {
+			if (folder.isDirectory() && !folder.getName().equals(RollupStore.FOLDER)) {
+				deleteRawData(folder);
+			}
+		}
+		Assert.assertTrue(storage.getValues(start, end).isEmpty());
+		for (ReductionMode mode : MODES) {
+			assertSameValues(reduce(raw, start, end, HOUR, mode), storage.getValues(start, end, HOUR, mode));
+			assertSameValues(reduce(raw, start, end, DAY, mode), storage.getValues(start, end, DAY, mode));
+		}
+	}
+
+	@Test
+	public void storageDeletionRemovesRollups() throws Exception {
+		final long start = FIRST_DAY + 2 * DAY;
+		final long end = FIRST_DAY + 4 * DAY;
+		SlotsDb.ROLLUPS = "minute,hour,day";
+		SlotsDb sdb = new SlotsDb();
+		Assert.assertFalse(sdb.getRecordedDataStorage("testRollups").getValues(start, end, DAY, ReductionMode.AVERAGE)
+				.isEmpty());
+
+		Assert.assertTrue(sdb.deleteRecordedDataStorage("testRollups"));
+		Assert.assertFalse(new File(new File(SlotsDb.DEFAULT_DB_ROOT_FOLDER, RollupStore.FOLDER), "testRollups")
+				.exists());
+
+		// a new storage with the same id must not serve the aggregates of the deleted one
+		RecordedDataConfiguration conf = new RecordedDataConfiguration();
+		conf.setStorageType(StorageType.ON_VALUE_UPDATE);
+		RecordedDataStorage storage = sdb.createRecordedDataStorage("testRollups", conf);
+		Assert.assertTrue(storage.getValues(start, end, DAY, ReductionMode.AVERAGE).isEmpty());
+	}
+
+	private static void deleteRawData(File folder) {
+		for (File f : folder.listFiles()) {
+			if (f.isDirectory()) {
+				deleteRawData(f);
+			}
+			else {
+				Assert.assertTrue(f.delete());
+			}
+		}
+		Assert.assertTrue(folder.delete());
+	}
+
+}
@@ -16,10 +16,17 @@
 package org.ogema.recordeddata.slotsdb;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
 
+import org.junit.Assert;
 import org.junit.Rule;
 import org.junit.rules.TestWatcher;
 import org.junit.runner.Description;
+import org.ogema.core.channelmanager.measurements.DoubleValue;
+import org.ogema.core.channelmanager.measurements.Quality;
+import org.ogema.core.channelmanager.measurements.SampledValue;
+import org.ogema.core.recordeddata.ReductionMode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -67,4 +74,59 @@ public class SlotsDbTest {
 		}
 	}
 
+	/**
+	 * Reduces the raw values in intervals of the given size, like RecordedData.getValues(start, end, interval, mode)
+	 * for a time series containing the raw values, except that empty intervals are reduced also if there are no values
+	 * at all.
+	 */
+	public static List<SampledValue> reduce(List<SampledValue> raw, long start, long end, long interval,
+			ReductionMode mode) {
+		List<SampledValue> result = new ArrayList<>();
+		for (long t = start; t < end; t += interval) {
+			long intervalEnd = Math.min(end, t + interval);
+			double sum = 0;
+			double min = Double.MAX_VALUE;
+			double max = Double.NEGATIVE_INFINITY;
+			int count = 0;
+			for (SampledValue v : raw) {
+				if (v.getTimestamp() >= t && v.getTimestamp() < intervalEnd && v.getQuality() == Quality.GOOD) {
+					double d = v.getValue().getDoubleValue();
+					sum += d;
+					min = Math.min(min, d);
+					max = Math.max(max, d);
+					count++;
+				}
+			}
+			Quality q = count > 0 ? Quality.GOOD : Quality.BAD;
+			switch (mode) {
+			case AVERAGE:
+				result.add(new SampledValue(new DoubleValue(count > 0 ? sum / count : 0), t, q));
+				break;
+			case MINIMUM_VALUE:
+				result.add(new SampledValue(new DoubleValue(count > 0 ? min : 0), t, q));
+				break;
+			case MAXIMUM_VALUE:
+				result.add(new SampledValue(new DoubleValue(count > 0 ? max : 0), t, q));
+				break;
+			case MIN_MAX_VALUE:
+				result.add(new SampledValue(new DoubleValue(count > 0 ? min : 0), t, q));
+				result.add(new SampledValue(new DoubleValue(count > 0 ? max : 0), t, q));
+				break;
+			default:
+				throw new IllegalArgumentException();
+			}
+		}
+		return result;
+	}
+
+	public static void assertSameValues(List<SampledValue> expected, List<SampledValue> actual) {
+		Assert.assertEquals(expected.size(), actual.size());
+		for (int i = 0; i < expected.size(); i++) {
+			Assert.assertEquals(expected.get(i).getTimestamp(), actual.get(i).getTimestamp());
+			Assert.assertEquals(expected.get(i).getQuality(), actual.get(i).getQuality());
+			Assert.assertEquals(expected.get(i).getValue().getDoubleValue(), actual.get(i).getValue()
+					.getDoubleValue(), 1e-9);
+		}
+	}
+
 }
@@ -16,7 +16,9 @@
 package org.ogema.persistence.impl.faketree;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -51,6 +53,7 @@ import org.ogema.resourcemanager.virtual.VirtualTreeElement;
 import org.ogema.resourcetree.SimpleResourceData;
 import org.ogema.resourcetree.TreeElement;
 import org.ogema.tools.timeseries.api.MemoryTimeSeries;
+import org.ogema.tools.timeseries.implementations.NextValueIterator;
 import org.ogema.tools.timeseries.implementations.TreeTimeSeries;
 
 /**
@@ -58,7 +61,14 @@ import org.ogema.tools.timeseries.implementations.TreeTimeSeries;
  * attached tree elements (primitive types and arrays) that are assigned names
  * not legal for resources (making them invisible to OGEMA applications). This
  * also performs the synchronization between threads using a
- * ReentrantReadWriteLock over the otherwise non-synchronized schedules.
+ * ReentrantReadWriteLock over the otherwise non-synchronized schedules.<br>
+ * Changes are written incrementally: only the entries starting at the
+ * earliest modified timestamp are rewritten, in place if the number of entries
+ * does not change. The data arrays always have the size of the schedule, so no
+ * unused capacity is persisted; a change of the size copies the arrays, and
+ * the persistence stores the complete arrays of a changed schedule once per
+ * store period. The number of valid entries is stored separately, since data
+ * written by earlier versions may contain unused entries.
  *
  * @author Timo Fischer, Fraunhofer IWES
  */
@@ -66,7 +76,7 @@ public class ScheduleTreeElement implements TreeElement, TimeSeries {
 
 	// names of the sub-tree-elements containing the data. May not be legal resource names.
 	public static final String OWN_NAME = "+schedule", TIME_NAME = "+t", QUALITY_NAME = "+q", UPDATE_TIME_NAME = "+u",
-			CALCULATION_TIME_NAME = "+c", INTERPOLATION_NAME = "+i", VALUE_NAME = "+v";
+			CALCULATION_TIME_NAME = "+c", INTERPOLATION_NAME = "+i", VALUE_NAME = "+v", SIZE_NAME = "+n";
 
 	// actual tree element and element attached to realElement that contains actual schedule data.
 	private final TreeElement realElement, pseudoElement;
@@ -78,6 +88,8 @@ public class ScheduleTreeElement implements TreeElement, TimeSeries {
 	// Sub-elements to pseudo-element: Hold the actual data.
 	private final TreeElement m_times, m_qualities, m_values;
 	private final TreeElement m_updateTime, m_calculationTime, m_interpolationMode;
+	// number of valid entries in the data arrays.
+	private final TreeElement m_size;
 
 	// Synchronization
 	private final ReadWriteLock m_lock = new ReentrantReadWriteLock();
@@ -140,6 +152,16 @@ public class ScheduleTreeElement implements TreeElement, TimeSeries {
 			m_interpolationMode = existingInterpolationMode;
 		}
 
+		final TreeElement existingSize = getChild(SIZE_NAME);
+		if (existingSize == null) {
+			m_size = addChild(SIZE_NAME, IntegerResource.class, true);
+			// data stored without explicit size: all array entries are valid.
+			m_size.getData().setInt(m_times.getData().getArrayLength());
+		}
+		else {
+			m_size = existingSize;
+		}
+
 		// load existing data into memory schedule, if applicable.
 		load();
 	}
@@ -151,6 +173,14 @@ public class ScheduleTreeElement implements TreeElement, TimeSeries {
 		((VirtualTreeElement) m_times).create();
 		((VirtualTreeElement) m_updateTime).create();
 		((VirtualTreeElement) m_values).create();
+		((VirtualTreeElement) m_size).create();
+		// newly created elements do not contain the data yet.
+		m_lock.writeLock().lock();
+		try {
+			write(Long.MIN_VALUE);
+		} finally {
+			m_lock.writeLock().unlock();
+		}
 	}
 
 	public Class<? extends Value> getValueType() {
@@ -232,30 +262,42 @@ public class ScheduleTreeElement implements TreeElement, TimeSeries {
 	}
 
 	/**
-	 * Writes the content of the memory schedule to persistence.
+	 * Writes the content of the memory schedule to persistence. Persistent
+	 * entries before the timestamp from are considered unchanged, all
+	 * persistent entries at or after from are replaced by the current content
+	 * of the memory schedule.
+	 *
+	 * @param from earliest timestamp affected by the change. Long.MIN_VALUE
+	 * rewrites the complete schedule.
 	 */
-	private void write() {
-		final List<SampledValue> entries = m_schedule.getValues(0);
-
+	private void write(long from) {
+		final int size = getPersistentSize();
+		final long[] times = m_times.getData().getLongArr();
+		final int index = (from == Long.MIN_VALUE) ? 0 : getIndex(times, size, from);
+		final List<SampledValue> entries = m_schedule.getValues(from);
+		final int newSize = index + entries.size();
+
+		writeTimesAndQualities(entries, index, newSize);
 		if (m_valueType == FloatValue.class) {
-			writeFloatValues(entries);
+			writeFloatValues(entries, index, newSize);
 		}
 		else if (m_valueType == BooleanValue.class) {
-			writeBooleanValues(entries);
+			writeBooleanValues(entries, index, newSize);
 		}
 		else if (m_valueType == IntegerValue.class) {
-			writeIntegerValues(entries);
+			writeIntegerValues(entries, index, newSize);
 		}
 		else if (m_valueType == LongValue.class) {
-			writeLongValues(entries);
+			writeLongValues(entries, index, newSize);
 		}
 		else if (m_valueType == StringValue.class) {
-			writeStringValues(entries);
+			writeStringValues(entries, index, newSize);
 		}
 		else {
 			throw new IllegalArgumentException("Cannot create SampledValues for Value type"
 					+ m_valueType.getCanonicalName());
 		}
+		m_size.getData().setInt(newSize);
 
 		// note: update time is not stored in the memory schedules, only calculation time.
 		if (m_schedule.getLastCalculationTime() != null) {
@@ -266,6 +308,48 @@ public class ScheduleTreeElement implements TreeElement, TimeSeries {
 		m_interpolationMode.getData().setInt(mode);
 	}
 
+	/**
+	 * Returns the smallest timestamp of the values, or bound if that is smaller.
+	 */
+	private static long getEarliestTimestamp(Collection<SampledValue> values, long bound) {
+		long result = bound;
+		if (values == null) {
+			return result;
+		}
+		for (SampledValue value : values) {
+			result = Math.min(result, value.getTimestamp());
+		}
+		return result;
+	}
+
+	/**
+	 * Number of valid entries in the persistent arrays.
+	 */
+	private int getPersistentSize() {
+		final int size = m_size.getData().getInt();
+		final int length = Math.min(m_times.getData().getArrayLength(), m_qualities.getData().getArrayLength());
+		return Math.min(Math.min(size, length), m_values.getData().getArrayLength());
+	}
+
+	/**
+	 * Binary search for the index of the first of the size entries in times
+	 * that is not smaller than t.
+	 */
+	private static int getIndex(long[] times, int size, long t) {
+		int low = 0;
+		int high = size;
+		while (low < high) {
+			final int mid = (low + high) >>> 1;
+			if (times[mid] < t) {
+				low = mid + 1;
+			}
+			else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
 	/*---------------------------------------------------------------------
 	 * Lost of copy&paste load/save routines for the different data types.
 	 ---------------------------------------------------------------------*/
@@ -278,8 +362,9 @@ public class ScheduleTreeElement implements TreeElement, TimeSeries {
         final long[] times = m_times.getData().getLongArr();
         final float[] values = m_values.getData().getFloatArr();
         final int[] qualities = m_qualities.getData().getIntArr();
-        List<SampledValue> result = new ArrayList<>(values.length);
-        for (int i = 0; i < values.length; ++i) {
+        final int size = getPersistentSize();
+        List<SampledValue> result = new ArrayList<>(size);
+        for (int i = 0; i < size; ++i) {
             final float v = values[i];
             final long t = times[i];
             final Quality q = Quality.getQuality(qualities[i]);
@@ -292,8 +377,9 @@ public class ScheduleTreeElement implements TreeElement, TimeSeries {
         final long[] times = m_times.getData().getLongArr();
         final boolean[] values = m_values.getData().getBooleanArr();
         final int[] qualities = m_qualities.getData().getIntArr();
-        List<SampledValue> result = new ArrayList<>(values.length);
-        for (int i = 0; i < values.length; ++i) {
+        final int size = getPersistentSize();
+        List<SampledValue> result = new ArrayList<>(size);
+        for (int i = 0; i < size; ++i) {
             final boolean v = values[i];
             final long t = times[i];
             final Quality q = Quality.getQuality(qualities[i]);
@@ -306,8 +392,9 @@ public class ScheduleTreeElement implements TreeElement, TimeSeries {
         final long[] times = m_times.getData().getLongArr();
         final int[] values = m_values.getData().getIntArr();
         final int[] qualities = m_qualities.getData().getIntArr();
-        List<SampledValue> result = new ArrayList<>(values.length);
-        for (int i = 0; i < values.length; ++i) {
+        final int size = getPersistentSize();
+        List<SampledValue> result = new ArrayList<>(size);
+        for (int i = 0; i < size; ++i) {
             final int v = values[i];
             final long t = times[i];
             final Quality q = Quality.getQuality(qualities[i]);
@@ -320,8 +407,9 @@ public class ScheduleTreeElement implements TreeElement, TimeSeries {
         final long[] times = m_times.getData().getLongArr();
         final long[] values = m_values.getData().getLongArr();
         final int[] qualities = m_qualities.getData().getIntArr();
-        List<SampledValue> result = new ArrayList<>(values.length);
-        for (int i = 0; i < values.length; ++i) {
+        final int size = getPersistentSize();
+        List<SampledValue> result = new ArrayList<>(size);
+        for (int i = 0; i < size; ++i) {
             final long v = values[i];
             final long t = times[i];
             final Quality q = Quality.getQuality(qualities[i]);
@@ -334,8 +422,9 @@ public class ScheduleTreeElement implements TreeElement, TimeSeries {
         final long[] times = m_times.getData().getLongArr();
         final String[] values = m_values.getData().getStringArr();
         final int[] qualities = m_qualities.getData().getIntArr();
-        List<SampledValue> result = new ArrayList<>(values.length);
-        for (int i = 0; i < values.length; ++i) {
+        final int size = getPersistentSize();
+        List<SampledValue> result = new ArrayList<>(size);
+        for (int i = 0; i < size; ++i) {
             final String v = values[i];
             final long t = times[i];
             final Quality q = Quality.getQuality(qualities[i]);
@@ -344,86 +433,89 @@ public class ScheduleTreeElement implements TreeElement, TimeSeries {
         return result;
     }
 
-	private void writeFloatValues(List<SampledValue> entries) {
+	private void writeTimesAndQualities(List<SampledValue> entries, int index, int newSize) {
+		final long[] times = resize(m_times.getData().getLongArr(), newSize);
+		final int[] qualities = resize(m_qualities.getData().getIntArr(), newSize);
 		final int size = entries.size();
-		final long[] times = new long[size];
-		final int[] qualities = new int[size];
-		final float[] values = new float[size];
 		for (int i = 0; i < size; ++i) {
 			final SampledValue entry = entries.get(i);
-			times[i] = entry.getTimestamp();
-			qualities[i] = entry.getQuality().getQuality();
-			values[i] = entry.getValue().getFloatValue();
+			times[index + i] = entry.getTimestamp();
+			qualities[index + i] = entry.getQuality().getQuality();
 		}
 		m_times.getData().setLongArr(times);
 		m_qualities.getData().setIntArr(qualities);
+	}
+
+	private void writeFloatValues(List<SampledValue> entries, int index, int newSize) {
+		final float[] values = resize(m_values.getData().getFloatArr(), newSize);
+		final int size = entries.size();
+		for (int i = 0; i < size; ++i) {
+			values[index + i] = entries.get(i).getValue().getFloatValue();
+		}
 		m_values.getData().setFloatArr(values);
 	}
 
-	private void writeBooleanValues(List<SampledValue> entries) {
+	private void writeBooleanValues(List<SampledValue> entries, int index, int newSize) {
+		final boolean[] values = resize(m_values.getData().getBooleanArr(), newSize);
 		final int size = entries.size();
-		final long[] times = new long[size];
-		final int[] qualities = new int[size];
-		final boolean[] values = new boolean[size];
 		for (int i = 0; i < size; ++i) {
-			final SampledValue entry = entries.get(i);
-			times[i] = entry.getTimestamp();
-			qualities[i] = entry.getQuality().getQuality();
-			values[i] = entry.getValue().getBooleanValue();
+			values[index + i] = entries.get(i).getValue().getBooleanValue();
 		}
-		m_times.getData().setLongArr(times);
-		m_qualities.getData().setIntArr(qualities);
 		m_values.getData().setBooleanArr(values);
 	}
 
-	private void writeIntegerValues(List<SampledValue> entries) {
+	private void writeIntegerValues(List<SampledValue> entries, int index, int newSize) {
+		final int[] values = resize(m_values.getData().getIntArr(), newSize);
 		final int size = entries.size();
-		final long[] times = new long[size];
-		final int[] qualities = new int[size];
-		final int[] values = new int[size];
 		for (int i = 0; i < size; ++i) {
-			final SampledValue entry = entries.get(i);
-			times[i] = entry.getTimestamp();
-			qualities[i] = entry.getQuality().getQuality();
-			values[i] = entry.getValue().getIntegerValue();
+			values[index + i] = entries.get(i).getValue().getIntegerValue();
 		}
-		m_times.getData().setLongArr(times);
-		m_qualities.getData().setIntArr(qualities);
 		m_values.getData().setIntArr(values);
 	}
 
-	private void writeLongValues(List<SampledValue> entries) {
+	private void writeLongValues(List<SampledValue> entries, int index, int newSize) {
+		final long[] values = resize(m_values.getData().getLongArr(), newSize);
 		final int size = entries.size();
-		final long[] times = new long[size];
-		final int[] qualities = new int[size];
-		final long[] values = new long[size];
 		for (int i = 0; i < size; ++i) {
-			final SampledValue entry = entries.get(i);
-			times[i] = entry.getTimestamp();
-			qualities[i] = entry.getQuality().getQuality();
-			values[i] = entry.getValue().getLongValue();
+			values[index + i] = entries.get(i).getValue().getLongValue();
 		}
-		m_times.getData().setLongArr(times);
-		m_qualities.getData().setIntArr(qualities);
 		m_values.getData().setLongArr(values);
 	}
 
-	private void writeStringValues(List<SampledValue> entries) {
+	private void writeStringValues(List<SampledValue> entries, int index, int newSize) {
+		final String[] values = resize(m_values.getData().getStringArr(), newSize);
 		final int size = entries.size();
-		final long[] times = new long[size];
-		final int[] qualities = new int[size];
-		final String[] values = new String[size];
 		for (int i = 0; i < size; ++i) {
-			final SampledValue entry = entries.get(i);
-			times[i] = entry.getTimestamp();
-			qualities[i] = entry.getQuality().getQuality();
-			values[i] = entry.getValue().getStringValue();
+			values[index + i] = entries.get(i).getValue().getStringValue();
 		}
-		m_times.getData().setLongArr(times);
-		m_qualities.getData().setIntArr(qualities);
 		m_values.getData().setStringArr(values);
 	}
 
+	private static long[] resize(long[] array, int size) {
+		return (array != null && array.length == size) ? array : Arrays.copyOf(array != null ? array
+				: new long[0], size);
+	}
+
+	private static int[] resize(int[] array, int size) {
+		return (array != null && array.length == size) ? array : Arrays.copyOf(array != null ? array
+				: new int[0], size);
+	}
+
+	private static float[] resize(float[] array, int size) {
+		return (array != null && array.length == size) ? array : Arrays.copyOf(array != null ? array
+				: new float[0], size);
+	}
+
+	private static boolean[] resize(boolean[] array, int size) {
+		return (array != null && array.length == size) ? array : Arrays.copyOf(array != null ? array
+				: new boolean[0], size);
+	}
+
+	private static String[] resize(String[] array, int size) {
+		return (array != null && array.length == size) ? array : Arrays.copyOf(array != null ? array
+				: new String[0], size);
+	}
+
 	/*-----------------------------------------------------------
 	 * Schedule functionality not covered by memory-schedules.
 	 ----------------------------------------------------------*/
@@ -572,6 +664,11 @@ public class ScheduleTreeElement implements TreeElement, TimeSeries {
 		return pseudoElement.getLastModified();
 	}
 
+	@Override
+	public long getModificationCount() {
+		return pseudoElement.getModificationCount();
+	}
+
 	/**
 	 *
 	 * Methods from being a MemoryTimeSeries. Some are not supported here.
@@ -605,7 +702,7 @@ public class ScheduleTreeElement implements TreeElement, TimeSeries {
 		m_lock.writeLock().lock();
 		try {
 			m_schedule.addValue(timestamp, value);
-			write();
+			write(timestamp);
 		} finally {
 			m_lock.writeLock().unlock();
 		}
@@ -617,7 +714,7 @@ public class ScheduleTreeElement implements TreeElement, TimeSeries {
 		m_lock.writeLock().lock();
 		try {
 			m_schedule.addValues(values);
-			write();
+			write(getEarliestTimestamp(values, Long.MAX_VALUE));
 		} finally {
 			m_lock.writeLock().unlock();
 		}
@@ -635,7 +732,7 @@ public class ScheduleTreeElement implements TreeElement, TimeSeries {
 		m_lock.writeLock().lock();
 		try {
 			m_schedule.replaceValuesFixedStep(startTime, values, stepSize);
-			write();
+			write(startTime);
 		} finally {
 			m_lock.writeLock().unlock();
 		}
@@ -647,7 +744,7 @@ public class ScheduleTreeElement implements TreeElement, TimeSeries {
 		m_lock.writeLock().lock();
 		try {
 			m_schedule.addValue(timestamp, value, timeOfCalculation);
-			write();
+			write(timestamp);
 		} finally {
 			m_lock.writeLock().unlock();
 		}
@@ -659,7 +756,7 @@ public class ScheduleTreeElement implements TreeElement, TimeSeries {
 		m_lock.writeLock().lock();
 		try {
 			m_schedule.addValues(values, timeOfCalculation);
-			write();
+			write(getEarliestTimestamp(values, Long.MAX_VALUE));
 		} finally {
 			m_lock.writeLock().unlock();
 		}
@@ -677,7 +774,7 @@ public class ScheduleTreeElement implements TreeElement, TimeSeries {
 		m_lock.writeLock().lock();
 		try {
 			m_schedule.replaceValuesFixedStep(startTime, values, stepSize, timeOfCalculation);
-			write();
+			write(startTime);
 		} finally {
 			m_lock.writeLock().unlock();
 		}
@@ -689,7 +786,7 @@ public class ScheduleTreeElement implements TreeElement, TimeSeries {
 		m_lock.writeLock().lock();
 		try {
 			m_schedule.deleteValues();
-			write();
+			write(Long.MIN_VALUE);
 		} finally {
 			m_lock.writeLock().unlock();
 		}
@@ -701,7 +798,7 @@ public class ScheduleTreeElement implements TreeElement, TimeSeries {
 		m_lock.writeLock().lock();
 		try {
 			m_schedule.deleteValues(endTime);
-			write();
+			write(Long.MIN_VALUE);
 		} finally {
 			m_lock.writeLock().unlock();
 		}
@@ -713,7 +810,7 @@ public class ScheduleTreeElement implements TreeElement, TimeSeries {
 		m_lock.writeLock().lock();
 		try {
 			m_schedule.deleteValues(startTime, endTime);
-			write();
+			write(startTime);
 		} finally {
 			m_lock.writeLock().unlock();
 		}
@@ -725,7 +822,7 @@ public class ScheduleTreeElement implements TreeElement, TimeSeries {
 		m_lock.writeLock().lock();
 		try {
 			m_schedule.replaceValues(startTime, endTime, values);
-			write();
+			write(getEarliestTimestamp(values, startTime));
 		} finally {
 			m_lock.writeLock().unlock();
 		}
@@ -772,6 +869,23 @@ public class ScheduleTreeElement implements TreeElement, TimeSeries {
 		}
 	}
 
+	@Override
+	public Iterator<SampledValue> iterator(long startTime, long endTime) {
+		return new NextValueIterator(startTime, endTime) {
+
+			@Override
+			protected SampledValue findNextValue(long time, long endTime) {
+				m_lock.readLock().lock();
+				try {
+					final Iterator<SampledValue> it = m_schedule.iterator(time, endTime);
+					return it.hasNext() ? it.next() : null;
+				} finally {
+					m_lock.readLock().unlock();
+				}
+			}
+		};
+	}
+
 	@Override
 	public Long getLastCalculationTime() {
 		m_lock.readLock().lock();
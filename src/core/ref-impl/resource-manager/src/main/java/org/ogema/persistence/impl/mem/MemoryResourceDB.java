@@ -140,6 +140,30 @@ public class MemoryResourceDB implements ResourceDB {
 		}
 	}
 
+	/**
+	 * Traverses all resource trees, this implementation does not maintain a type index.
+	 */
+	@Override
+	public Collection<TreeElement> getElementsByType(Class<? extends Resource> type) {
+		List<TreeElement> rval = new ArrayList<>();
+		for (TreeElement top : getAllToplevelResources()) {
+			addElementsByType(top, type, rval);
+		}
+		return rval;
+	}
+
+	private static void addElementsByType(TreeElement el, Class<? extends Resource> type, List<TreeElement> rval) {
+		if (el.isReference()) {
+			return;
+		}
+		if (type == null || (el.getType() != null && type.isAssignableFrom(el.getType()))) {
+			rval.add(el);
+		}
+		for (TreeElement child : el.getChildren()) {
+			addElementsByType(child, type, rval);
+		}
+	}
+
 	@Override
 	public void finishTransaction() {
 		throw new UnsupportedOperationException("Not supported yet."); // To change body of generated methods, choose
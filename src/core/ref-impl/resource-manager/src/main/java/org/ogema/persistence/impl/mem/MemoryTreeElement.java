@@ -24,6 +24,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.ogema.core.model.Resource;
 import org.ogema.core.model.ResourceList;
@@ -50,6 +51,7 @@ public class MemoryTreeElement implements TreeElement {
     private final int resId;
     private SimpleResourceData data;
     private final Map<String, MemoryTreeElement> children = new HashMap<>();
+    private final AtomicLong modificationCount = new AtomicLong();
 
     public MemoryTreeElement(String name, Class<? extends Resource> type, TreeElement parent) {
         this(name, type, parent, false);
@@ -277,6 +279,7 @@ public class MemoryTreeElement implements TreeElement {
 
 	@Override
 	public void setLastModified(long time) {
+		modificationCount.incrementAndGet();
 	}
 
 	@Override
@@ -284,6 +287,11 @@ public class MemoryTreeElement implements TreeElement {
 		return -1;
 	}
 
+	@Override
+	public long getModificationCount() {
+		return modificationCount.get();
+	}
+
 	@Override
 	public String getLocation() {
 		// TODO Auto-generated method stub
@@ -75,6 +75,8 @@ public class ApplicationResourceManager implements ResourceManagement, ResourceA
 	// resource demands registered by this app
 	private final Collection<ResourceDemandListenerRegistration> resourceDemands;
 	private final Map<TreeElement, ResourceAccessRights> accessRights;
+	// coalescing delivery of value listener callbacks, see ValueEventQueue
+	private final ValueEventQueue valueEvents;
 
 	public ApplicationResourceManager(ApplicationManager appMan, Application app, ResourceDBManager dbMan,
 			PermissionManager pManager) {
@@ -92,6 +94,7 @@ public class ApplicationResourceManager implements ResourceManagement, ResourceA
 		this.structureListeners = new HashSet<>();
 		this.resourceDemands = new HashSet<>();
         this.accessRights = new ConcurrentHashMap<>();
+		this.valueEvents = new ValueEventQueue(appMan);
 		logger = org.slf4j.LoggerFactory.getLogger("org.ogema.core.resourcemanager-" + app.getClass().getName());
 	}
 
@@ -115,13 +118,20 @@ public class ApplicationResourceManager implements ResourceManagement, ResourceA
 		return appMan.getAppID().getIDString();
 	}
 
-	@SuppressWarnings("unchecked")
 	protected <T extends Resource> T findResource(String path) {
-		ResourceBase result;
 		VirtualTreeElement el = findTreeElement(path);
 		if (el == null) {
 			return null;
 		}
+		return findResource(el, path);
+	}
+
+	/*
+	 * create the resource object for an element that has already been resolved from the path.
+	 */
+	@SuppressWarnings("unchecked")
+	protected <T extends Resource> T findResource(VirtualTreeElement el, String path) {
+		ResourceBase result;
 		/*
 		 * @Security: Create ResourceAccessRights instance which is injected into the proxy object.
 		 */
@@ -166,7 +176,7 @@ public class ApplicationResourceManager implements ResourceManagement, ResourceA
 
 	protected ResourceAccessRights getAccessRights(TreeElement el) {
 		TreeElement location = getLocationElement(el);
-		ResourceAccessRights r = accessRights.get(el);
+		ResourceAccessRights r = accessRights.get(location);
 		if (r == null) {
 			r = permissionManager.getAccessRights(app, location);
 			accessRights.put(location, r);
@@ -328,31 +338,60 @@ public class ApplicationResourceManager implements ResourceManagement, ResourceA
 	}
 
 	/*
-	 * @Security: This method is based on the sub call to getToplevelResources that ensures that only resources are
-	 * returned, their proxy objects already equipped with the resource access rights. getDirectSubResources performs
-	 * its the same way like getToplevelResources, so that the list returned contains only proxy references that already
-	 * registered for this particular app via getResource or ResourceDemandListener.
+	 * @Security: The candidates are taken from the type index of the resource database. Only resources inside the
+	 * readable top level resources are returned, each proxy object is created via findResource and therefore already
+	 * equipped with the resource access rights. Like getDirectSubResources, references are not included so that each
+	 * resource is contained once.
 	 */
 	@Override
-	@SuppressWarnings("unchecked")
 	public <T extends Resource> List<T> getResources(Class<T> resourceType) {
-		// Check all top-level resources and all their direct resources if they match the required type.
-		final List<T> result = new ArrayList<>();
-		for (Resource topRes : getToplevelResources(null)) {
-			if (resourceType == null || resourceType.isAssignableFrom(topRes.getResourceType())) {
-				result.add((T) topRes);
-			}
-			for (Resource subRes : topRes.getDirectSubResources(true)) {
-				// resourceType == null is a special case for ResourceList resources.
-				if (resourceType == null
-						|| (subRes.getResourceType() != null && resourceType.isAssignableFrom(subRes.getResourceType()))) {
-					result.add((T) subRes);
-				}
+		// resourceType == null is a special case for ResourceList resources.
+		final Collection<TreeElement> elements = dbMan.getElementsByType(resourceType);
+		final List<T> result = new ArrayList<>(elements.size());
+		final Map<String, Boolean> readableToplevels = new HashMap<>();
+		for (TreeElement el : elements) {
+			final T resource = getIndexedResource(el, readableToplevels);
+			if (resource != null) {
+				result.add(resource);
 			}
 		}
 		return result;
 	}
 
+	/*
+	 * Returns the resource for a tree element from the type index or null if the element is not visible to
+	 * applications (e.g. schedule data) or not readable for this app.
+	 */
+	private <T extends Resource> T getIndexedResource(TreeElement el, Map<String, Boolean> readableToplevels) {
+		Deque<String> nameStack = new ArrayDeque<>();
+		TreeElement top = el;
+		for (TreeElement p = el; p != null; p = p.getParent()) {
+			if (!ResourceBase.validResourceName(p.getName())) {
+				return null;
+			}
+			nameStack.push(p.getName());
+			top = p;
+		}
+		Boolean readable = readableToplevels.get(top.getName());
+		if (readable == null) {
+			readable = permissionManager.getAccessRights(app, top).isReadPermitted();
+			readableToplevels.put(top.getName(), readable);
+		}
+		if (!readable) {
+			return null;
+		}
+		StringBuilder sb = new StringBuilder();
+		while (!nameStack.isEmpty()) {
+			sb.append("/").append(nameStack.pop());
+		}
+		try {
+			return findResource(sb.toString());
+		} catch (SecurityException se) {
+			logger.trace("missing permission for resource", se);
+			return null;
+		}
+	}
+
 	/*
 	 * @Security: This method ensures that only resources are returned, their proxy objects already equipped with the
 	 * resource access rights.
@@ -360,7 +399,12 @@ public class ApplicationResourceManager implements ResourceManagement, ResourceA
 	@Override
 	public <T extends Resource> List<T> getToplevelResources(Class<T> resourceType) {
 		final List<T> result = new ArrayList<>();
-		for (TreeElement top : dbMan.getAllToplevelResources()) {
+		final Collection<TreeElement> candidates = (resourceType == null) ? dbMan.getAllToplevelResources() : dbMan
+				.getElementsByType(resourceType);
+		for (TreeElement top : candidates) {
+			if (!top.isToplevel()) {
+				continue;
+			}
 			final Class<? extends Resource> type = top.getType();
 			if (!ResourceBase.validResourceName(top.getName())) {
 				continue;
@@ -393,6 +437,10 @@ public class ApplicationResourceManager implements ResourceManagement, ResourceA
 		return appMan;
 	}
 
+	ValueEventQueue getValueEventQueue() {
+		return valueEvents;
+	}
+
 	protected <T extends Throwable> T raiseException(T ex) {
 		getApplicationManager().reportException(ex);
 		return ex;
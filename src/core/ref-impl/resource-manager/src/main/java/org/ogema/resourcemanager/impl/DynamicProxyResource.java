@@ -21,6 +21,7 @@ import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 
 import org.ogema.core.model.Resource;
+import org.ogema.resourcetree.ModificationCountProvider;
 import org.ogema.resourcemanager.virtual.VirtualTreeElement;
 
 /**
@@ -50,7 +51,7 @@ public class DynamicProxyResource extends ResourceBase implements InvocationHand
 				return method.invoke(this, args);
 			}
 
-			if (declaringType.equals(ConnectedResource.class)) {
+			if (declaringType.equals(ConnectedResource.class) || declaringType.equals(ModificationCountProvider.class)) {
 				return method.invoke(this, args);
 			}
 
@@ -58,11 +58,40 @@ public class ElementInfo {
 	// TreeElements which have a reference to this element.
 	private Collection<TreeElement> references;
 
-	private Collection<Object> listeners;
+	private static final ResourceListenerRegistration[] NO_RESOURCE_LISTENERS = {};
+	private static final StructureListenerRegistration[] NO_STRUCTURE_LISTENERS = {};
+	private static final AccessModeListenerRegistration[] NO_ACCESSMODE_LISTENERS = {};
+
+	/*
+	 * Listener registrations, one copy-on-write array per listener type: the
+	 * arrays are replaced on every change (synchronized on this) and never
+	 * modified after they have been published, so event dispatching can
+	 * iterate over the current array without locking or copying.
+	 */
+	private volatile ResourceListenerRegistration[] resourceListeners = NO_RESOURCE_LISTENERS;
+	private volatile StructureListenerRegistration[] structureListeners = NO_STRUCTURE_LISTENERS;
+	private volatile AccessModeListenerRegistration[] accessModeListeners = NO_ACCESSMODE_LISTENERS;
 
 	static final int INITIAL_ACCESSREQUESTS_QUEUE_SIZE = 5;
 	PriorityQueue<AccessModeRequest> accessRequests;
 
+	/*
+	 * Result of the last RecordedData lookup for this element, valid as long as
+	 * no new RecordedData has been created.
+	 */
+	private static final class RecordedDataLookup {
+
+		final DefaultRecordedData data;
+		final int generation;
+
+		RecordedDataLookup(DefaultRecordedData data, int generation) {
+			this.data = data;
+			this.generation = generation;
+		}
+	}
+
+	private volatile RecordedDataLookup recordedData;
+
 	/**
 	 * Schedule tree element wrapping the tree element, in case the element
 	 * represents a schedule.
@@ -75,58 +104,40 @@ public class ElementInfo {
 		this.man = man;
 	}
 
-	@SuppressWarnings("unchecked")
-	public synchronized Collection<StructureListenerRegistration> getStructureListeners() {
-		if (listeners == null) {
-			return Collections.EMPTY_LIST;
-		}
-		return getListeners(StructureListenerRegistration.class);
+	public Collection<StructureListenerRegistration> getStructureListeners() {
+		return Collections.unmodifiableList(Arrays.asList(structureListeners));
 	}
 
-	private synchronized <T> Collection<T> getListeners(Class<T> type) {
-        if (listeners == null) {
-            return Collections.emptyList();
-        }
-        Collection<T> listenersOfRequestedType = new ArrayList<>();
-        for (Object listener : listeners) {
-            if (type.isAssignableFrom(listener.getClass())) {
-                listenersOfRequestedType.add(type.cast(listener));
-            }
-        }
-        return listenersOfRequestedType;
-    }
-
-	private synchronized void addListener(Object listener) {
-        if (listeners == null) {
-            listeners = new ArrayList<>();
-        }
-        for (Object l : listeners) {
-            if (listener.equals(l)) {
-                return;
-            }
-        }
-        listeners.add(listener);
-    }
-
-	@SuppressWarnings("unchecked")
-	private synchronized <T> T removeListener(T listener) {
-		if (listeners == null) {
-			return null;
-		}
-		Iterator<Object> it = listeners.iterator();
-		while (it.hasNext()) {
-			Object l = it.next();
-			if (listener.equals(l)) {
-				it.remove();
-				return (T) l;
+	private static int indexOf(Object[] listeners, Object listener) {
+		for (int i = 0; i < listeners.length; i++) {
+			if (listener.equals(listeners[i])) {
+				return i;
 			}
 		}
-		return null;
+		return -1;
+	}
+
+	/*
+	 * Returns a copy of the array with the listener appended, or the array
+	 * itself if it already contains the listener.
+	 */
+	private static <T> T[] added(T[] listeners, T listener) {
+		if (indexOf(listeners, listener) >= 0) {
+			return listeners;
+		}
+		T[] copy = Arrays.copyOf(listeners, listeners.length + 1);
+		copy[listeners.length] = listener;
+		return copy;
+	}
+
+	private static <T> T[] removed(T[] listeners, int index) {
+		T[] copy = Arrays.copyOf(listeners, listeners.length - 1);
+		System.arraycopy(listeners, index + 1, copy, index, listeners.length - index - 1);
+		return copy;
 	}
 
-	public synchronized Collection<ResourceListenerRegistration> getResourceListeners() {
-		return listeners == null ? Collections.<ResourceListenerRegistration> emptyList()
-				: getListeners(ResourceListenerRegistration.class);
+	public Collection<ResourceListenerRegistration> getResourceListeners() {
+		return Collections.unmodifiableList(Arrays.asList(resourceListeners));
 	}
 
 	public void updateStructureListenerRegistrations() {
@@ -136,25 +147,46 @@ public class ElementInfo {
 	public synchronized StructureListenerRegistration addStructureListener(Resource resource,
 			ResourceStructureListener listener, ApplicationManager appman) {
 		StructureListenerRegistration slr = new StructureListenerRegistration(resource, listener, appman);
-		addListener(slr);
+		structureListeners = added(structureListeners, slr);
 		return slr;
 	}
 
 	public synchronized void addResourceListener(ResourceListenerRegistration l) {
-		addListener(l);
+		removeAbandonedResourceListeners();
+		resourceListeners = added(resourceListeners, l);
 	}
 
-	public StructureListenerRegistration removeStructureListener(Resource resource, ResourceStructureListener listener,
-			ApplicationManager appman) {
+	public synchronized StructureListenerRegistration removeStructureListener(Resource resource,
+			ResourceStructureListener listener, ApplicationManager appman) {
 		StructureListenerRegistration search = new StructureListenerRegistration(resource, listener, appman);
-		return removeListener(search);
+		StructureListenerRegistration[] current = structureListeners;
+		int index = indexOf(current, search);
+		if (index < 0) {
+			return null;
+		}
+		structureListeners = removed(current, index);
+		return current[index];
+	}
+
+	/*
+	 * Abandoned registrations are skipped when events are dispatched and
+	 * removed here, whenever the resource listeners are changed.
+	 */
+	private synchronized void removeAbandonedResourceListeners() {
+		ResourceListenerRegistration[] current = resourceListeners;
+		for (int i = current.length - 1; i >= 0; i--) {
+			if (current[i].isAbandoned()) {
+				current = removed(current, i);
+			}
+		}
+		resourceListeners = current;
 	}
 
 	public void fireResourceActiveStateChanged(TreeElement el, boolean state) {
 		while (el.isReference()) {
 			el = el.getReference();
 		}
-		for (StructureListenerRegistration reg : getListeners(StructureListenerRegistration.class)) {
+		for (StructureListenerRegistration reg : structureListeners) {
 			if (!el.getPath().equals(reg.resource.getLocation()) && !el.getPath().equals(reg.resource.getPath())) {
 				removeStructureListener(reg.resource, reg.listener, reg.appman);
 			}
@@ -165,19 +197,19 @@ public class ElementInfo {
 	}
 
 	public void fireSubResourceAdded(TreeElement subresource) {
-		for (StructureListenerRegistration reg : getListeners(StructureListenerRegistration.class)) {
+		for (StructureListenerRegistration reg : structureListeners) {
 			reg.queueSubResourceAddedEvent(subresource);
 		}
 	}
 
 	public void fireSubResourceRemoved(TreeElement subresource) {
-		for (StructureListenerRegistration reg : getListeners(StructureListenerRegistration.class)) {
+		for (StructureListenerRegistration reg : structureListeners) {
 			reg.queueSubResourceRemovedEvent(subresource);
 		}
 	}
 
 	public void fireResourceDeleted(Resource r) {
-		for (StructureListenerRegistration reg : getListeners(StructureListenerRegistration.class)) {
+		for (StructureListenerRegistration reg : structureListeners) {
 			if (!r.equalsPath(reg.getResource()) && r.isReference(false)) {
 				reg.queueReferenceChangedEvent(((ConnectedResource) r.getParent()).getTreeElement(), false);
 			}
@@ -188,13 +220,13 @@ public class ElementInfo {
 	}
 
 	public void fireResourceCreated(String path) {
-		for (StructureListenerRegistration reg : getListeners(StructureListenerRegistration.class)) {
+		for (StructureListenerRegistration reg : structureListeners) {
 			reg.queueResourceCreatedEvent(path);
 		}
 	}
 
 	public void fireReferenceRemoved(Resource referer, Resource target) {
-		for (StructureListenerRegistration reg : getListeners(StructureListenerRegistration.class)) {
+		for (StructureListenerRegistration reg : structureListeners) {
 			if (reg.getResource().equals(referer)) {
 				reg.queueEvent(new DefaultResourceStructureEvent(ResourceStructureEvent.EventType.REFERENCE_REMOVED,
 						target, referer));
@@ -207,39 +239,49 @@ public class ElementInfo {
 	 * originally registered object, or null if no such registration is found.
 	 */
 	public synchronized ResourceListenerRegistration removeResourceListener(ResourceListenerRegistration reg) {
-		return removeListener(reg);
+		removeAbandonedResourceListeners();
+		ResourceListenerRegistration[] current = resourceListeners;
+		int index = indexOf(current, reg);
+		if (index < 0) {
+			return null;
+		}
+		resourceListeners = removed(current, index);
+		return current[index];
 	}
 
 	public void fireResourceChanged(final ConnectedResource r, long time, boolean valueChanged) {
 		if (!r.isActive()) {
 			return;
 		}
-		DefaultRecordedData d = man.getExistingRecordedData(r.getTreeElement());
+		DefaultRecordedData d = getExistingRecordedData(r.getTreeElement());
 		if (d != null) {
 			d.update(time);
 		}
-		for (ResourceListenerRegistration reg : getListeners(ResourceListenerRegistration.class)) {
-			if (reg.isAbandoned()) {
-				removeListener(reg);
-			}
-			else {
+		for (ResourceListenerRegistration reg : resourceListeners) {
+			if (!reg.isAbandoned()) {
 				reg.queueResourceChangedEvent(r, valueChanged);
 			}
 		}
 	}
 
+	private DefaultRecordedData getExistingRecordedData(TreeElement el) {
+		RecordedDataLookup lookup = recordedData;
+		int generation = man.getRecordedDataGeneration();
+		if (lookup == null || lookup.generation != generation) {
+			lookup = new RecordedDataLookup(man.getExistingRecordedData(el), generation);
+			recordedData = lookup;
+		}
+		return lookup.data;
+	}
+
 	/**
 	 * call this after adding sub resources or references to register existing
 	 * listeners on all newly reachable elements
 	 */
 	public void updateListenerRegistrations() {
-		for (ResourceListenerRegistration reg : getListeners(ResourceListenerRegistration.class)) {
-			if (reg.isAbandoned()) {
-				removeListener(reg);
-			}
-			else {
-				reg.performRegistration();
-			}
+		removeAbandonedResourceListeners();
+		for (ResourceListenerRegistration reg : resourceListeners) {
+			reg.performRegistration();
 		}
 	}
 
@@ -252,22 +294,25 @@ public class ElementInfo {
 	 * @return list of removed listener registrations.
 	 */
 	public synchronized List<ResourceListenerRegistration> invalidateListenerRegistrations(String oldPath) {
-        List<ResourceListenerRegistration> invalidRegs = new ArrayList<>();
-        for (ResourceListenerRegistration reg : getListeners(ResourceListenerRegistration.class)) {
-            if (reg.isAbandoned()) {
-                removeListener(reg);
-                continue;
-            }
-            if (oldPath.startsWith("/")){
-                oldPath = oldPath.substring(1);
-            }
-            if (oldPath.startsWith(reg.getResource().getPath())) {
-                removeListener(reg);
-                invalidRegs.add(reg);
-            }
-        }
-        return invalidRegs;
-    }
+		removeAbandonedResourceListeners();
+		if (oldPath.startsWith("/")) {
+			oldPath = oldPath.substring(1);
+		}
+		List<ResourceListenerRegistration> invalidRegs = new ArrayList<>();
+		List<ResourceListenerRegistration> validRegs = new ArrayList<>();
+		for (ResourceListenerRegistration reg : resourceListeners) {
+			if (oldPath.startsWith(reg.getResource().getPath())) {
+				invalidRegs.add(reg);
+			}
+			else {
+				validRegs.add(reg);
+			}
+		}
+		if (!invalidRegs.isEmpty()) {
+			resourceListeners = validRegs.toArray(new ResourceListenerRegistration[validRegs.size()]);
+		}
+		return invalidRegs;
+	}
 
 	public ScheduleTreeElement getSchedule() {
 		return scheduleTreeElement;
@@ -388,19 +433,29 @@ public class ElementInfo {
 	}
 
 	public synchronized void addAccessModeListener(AccessModeListener l, Resource res, ApplicationManager app) {
-		addListener(new AccessModeListenerRegistration(app, res, l));
+		accessModeListeners = added(accessModeListeners, new AccessModeListenerRegistration(app, res, l));
 	}
 
 	public boolean removeAccessModeListener(AccessModeListener l, Resource res, ApplicationManager app) {
-		return removeListener(new AccessModeListenerRegistration(app, res, l)) != null;
+		return removeAccessModeListener(new AccessModeListenerRegistration(app, res, l));
 	}
 
-	public synchronized void fireAccessModeChanged(ApplicationManager app, final Resource r,
+	private synchronized boolean removeAccessModeListener(AccessModeListenerRegistration reg) {
+		AccessModeListenerRegistration[] current = accessModeListeners;
+		int index = indexOf(current, reg);
+		if (index < 0) {
+			return false;
+		}
+		accessModeListeners = removed(current, index);
+		return true;
+	}
+
+	public void fireAccessModeChanged(ApplicationManager app, final Resource r,
 			final boolean requestedModeAvailable) {
-		for (AccessModeListenerRegistration reg : getListeners(AccessModeListenerRegistration.class)) {
+		for (AccessModeListenerRegistration reg : accessModeListeners) {
 			final AccessModeListener l = reg.listener.get();
 			if (l == null) {
-				removeListener(reg);
+				removeAccessModeListener(reg);
 			}
 			else {
 				if (reg.app == app && reg.res.equals(r)) {
@@ -423,26 +478,20 @@ public class ElementInfo {
 
 	public void transferListeners(TreeElement target) {
 		ElementInfo targetElementInfo = (ElementInfo) target.getResRef();
-		for (ResourceListenerRegistration reg : getResourceListeners()) {
+		for (ResourceListenerRegistration reg : resourceListeners) {
 			if (!reg.isRecursive()) {
-				targetElementInfo.addListener(reg);
+				targetElementInfo.addResourceListener(reg);
 			}
 		}
-		for (StructureListenerRegistration slr : getListeners(StructureListenerRegistration.class)) {
+		for (StructureListenerRegistration slr : structureListeners) {
 			targetElementInfo.addStructureListener(slr.getResource(), slr.getListener(), slr.appman);
 		}
 		targetElementInfo.addAccessModeListeners(this);
 	}
 
 	private synchronized void addAccessModeListeners(ElementInfo other) {
-        if (listeners == null){
-            listeners = new ArrayList<>();
-        }
-        Collection<AccessModeListenerRegistration> otherListeners = other.getListeners(AccessModeListenerRegistration.class);
-        for (AccessModeListenerRegistration amlr: otherListeners){
-            if (!listeners.contains(amlr)){
-                listeners.add(amlr);
-            }
-        }
-    }
+		for (AccessModeListenerRegistration amlr : other.accessModeListeners) {
+			accessModeListeners = added(accessModeListeners, amlr);
+		}
+	}
 }
@@ -0,0 +1,57 @@
+/**
+ * This file is part of OGEMA.
+ *
+ * OGEMA is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3
+ * as published by the Free Software Foundation.
+ *
+ * OGEMA is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with OGEMA. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.ogema.resourcemanager.impl;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Revisions of the toplevel resources a resource path has been resolved
+ * through, i.e. the toplevel resource of the path itself and the toplevel
+ * resources containing the targets of all references on the path, including
+ * the intermediate targets of reference chains. The
+ * resolution of the path can only have changed if one of these toplevel
+ * resources has been changed structurally, see
+ * {@link ResourceDBManager#getPathRevision(String)}.
+ */
+final class PathRevision {
+
+	/**
+	 * Value of the counter of a deleted toplevel resource, never current.
+	 */
+	static final int RETIRED = -1;
+
+	private final AtomicInteger[] counters;
+	private final int[] revisions;
+
+	PathRevision(AtomicInteger[] counters, int[] revisions) {
+		this.counters = counters;
+		this.revisions = revisions;
+	}
+
+	/**
+	 * @return true iff none of the toplevel resources of the path has been
+	 * changed since this revision was created.
+	 */
+	boolean isCurrent() {
+		for (int i = 0; i < counters.length; i++) {
+			if (counters[i].get() != revisions[i] || revisions[i] == RETIRED) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+}
@@ -23,6 +23,8 @@ import java.util.concurrent.ThreadFactory;
 
 import org.ogema.recordeddata.DataRecorder;
 import org.ogema.resourcemanager.impl.timeseries.DefaultRecordedData;
+import org.ogema.resourcemanager.impl.timeseries.FixedIntervalLogScheduler;
+import org.ogema.resourcemanager.impl.timeseries.RecordedDataWriteQueue;
 import org.ogema.resourcetree.TreeElement;
 import org.ogema.timer.TimerScheduler;
 
@@ -36,8 +38,14 @@ public class RecordedDataManager {
 	protected final ResourceDBManager dbman;
 	protected final DataRecorder rda;
 	protected final TimerScheduler scheduler;
+	protected final FixedIntervalLogScheduler logScheduler;
+	protected final RecordedDataWriteQueue writeQueue;
 
 	private final Map<String, DefaultRecordedData> recordedData = new HashMap<>();
+	/*
+	 * incremented whenever a RecordedData object is created, see getGeneration()
+	 */
+	private volatile int generation;
 
 	public RecordedDataManager(ResourceDBManager dbman, DataRecorder rda, TimerScheduler scheduler) {
 		ThreadFactory tfac = new ThreadFactory() {
@@ -53,25 +61,46 @@ public class RecordedDataManager {
 		this.dbman = dbman;
 		this.rda = rda;
 		this.scheduler = scheduler;
+		this.logScheduler = new FixedIntervalLogScheduler(rda, scheduler, executor);
+		this.writeQueue = new RecordedDataWriteQueue();
 	}
 
 	public DefaultRecordedData getRecordedData(TreeElement el, boolean create) {
 		synchronized (recordedData) {
 			DefaultRecordedData d = recordedData.get(el.getLocation());
 			if (d == null && create) {
-				d = new DefaultRecordedData(rda, scheduler, executor, el);
+				d = new DefaultRecordedData(rda, scheduler, executor, logScheduler, writeQueue, el);
 				recordedData.put(el.getLocation(), d);
+				generation++;
 			}
 			return d;
 		}
 	}
 
+	/**
+	 * @return a counter which changes whenever a new RecordedData object has been
+	 * created, so that the result of {@link #getRecordedData(TreeElement, boolean)}
+	 * for an existing element can be cached as long as the counter is unchanged.
+	 */
+	public int getGeneration() {
+		return generation;
+	}
+
+	/**
+	 * @return the queue through which ON_VALUE_CHANGED and ON_VALUE_UPDATE values are written.
+	 */
+	public RecordedDataWriteQueue getWriteQueue() {
+		return writeQueue;
+	}
+
 	public void close() {
 		synchronized (recordedData) {
 			for (Map.Entry<String, DefaultRecordedData> e : recordedData.entrySet()) {
 				e.getValue().close();
 			}
 		}
+		logScheduler.close();
+		writeQueue.close();
 		executor.shutdown();
 	}
 
@@ -56,6 +56,7 @@ import org.ogema.core.resourcemanager.ResourceValueListener;
 import org.ogema.core.resourcemanager.VirtualResourceException;
 import org.ogema.resourcemanager.impl.model.DefaultResourceList;
 import org.ogema.resourcemanager.virtual.DefaultVirtualTreeElement;
+import org.ogema.resourcetree.ModificationCountProvider;
 import org.ogema.resourcetree.TreeElement;
 import org.ogema.resourcemanager.virtual.VirtualTreeElement;
 
@@ -68,10 +69,16 @@ import org.ogema.resourcemanager.virtual.VirtualTreeElement;
  *
  * @author jlapp
  */
-public abstract class ResourceBase implements ConnectedResource {
+public abstract class ResourceBase implements ConnectedResource, ModificationCountProvider {
 
 	private VirtualTreeElement el;
-	private int revision;
+	/* revisions of the toplevel resources path has been resolved through */
+	private PathRevision pathRevision;
+	/*
+	 * ElementInfo of el, valid as long as it is the ResRef of el (not used
+	 * for references, whose target may change)
+	 */
+	private ElementInfo elementInfo;
 	protected final ApplicationResourceManager resMan;
 	protected final String path;
 	protected ResourceAccessRights accessRights;
@@ -82,19 +89,49 @@ public abstract class ResourceBase implements ConnectedResource {
 		this.el = el;
 		this.resMan = resMan;
 		this.path = path;
-		revision = resMan.getDatabaseManager().getRevision();
+		pathRevision = resMan.getDatabaseManager().getPathRevision(path, el);
 
 		assert el.getType() != null;
 	}
 
 	// called when resource has been updated
 	protected void handleResourceUpdate(boolean valueChanged) {
-		setLastUpdateTime();
-		if (!el.isActive()) {
+		final VirtualTreeElement element = getEl();
+		final long time = resMan.getApplicationManager().getFrameworkTime();
+		element.setLastModified(time);
+		if (!element.isActive()) {
 			return;
 		}
-		resMan.getDatabaseManager().getElementInfo(getEl()).fireResourceChanged(this,
-				resMan.getApplicationManager().getFrameworkTime(), valueChanged);
+		getElementInfo().fireResourceChanged(this, time, valueChanged);
+	}
+
+	/**
+	 * Performs the checks preceding a value write: returns the tree element
+	 * holding the value, or null if the resource does not exist or the
+	 * application does not currently have write access. Throws a
+	 * SecurityException if the application does not have write permission.
+	 */
+	protected VirtualTreeElement getElForWrite() {
+		final VirtualTreeElement element = getEl();
+		if (element.isVirtual() || !hasWriteAccess()) {
+			return null;
+		}
+		checkWritePermission();
+		return element;
+	}
+
+	/**
+	 * @return the ElementInfo of this resource's tree element.
+	 */
+	protected ElementInfo getElementInfo() {
+		final VirtualTreeElement element = getEl();
+		ElementInfo info = elementInfo;
+		if (info != null && element.getResRef() == info) {
+			return info;
+		}
+		info = resMan.getDatabaseManager().getElementInfo(element);
+		elementInfo = element.isReference() ? null : info;
+		return info;
 	}
 
 	@Override
@@ -301,12 +338,12 @@ public abstract class ResourceBase implements ConnectedResource {
 
 	@Override
 	public AccessMode getAccessMode() {
-		return resMan.getDatabaseManager().getElementInfo(getEl()).getAccessMode(resMan.getApplicationManager());
+		return getElementInfo().getAccessMode(resMan.getApplicationManager());
 	}
 
 	@Override
 	public AccessPriority getAccessPriority() {
-		return resMan.getDatabaseManager().getElementInfo(getEl()).getAccessPriority(resMan.getApplicationManager());
+		return getElementInfo().getAccessPriority(resMan.getApplicationManager());
 	}
 
 	@Override
@@ -431,6 +468,13 @@ public abstract class ResourceBase implements ConnectedResource {
 		return resMan.getResource(path + "/" + name);
 	}
 
+	/*
+	 * return the resource object for a child element of this resource, without resolving its path again.
+	 */
+	protected final <T extends Resource> T getSubResource(VirtualTreeElement child) {
+		return resMan.findResource(child, path + "/" + child.getName());
+	}
+
 	@Override
     public <T extends Resource> List<T> getSubResources(Class<T> resourceType, boolean recursive) {
         try {
@@ -701,7 +745,8 @@ public abstract class ResourceBase implements ConnectedResource {
 
 		resMan.getDatabaseManager().getElementInfo(ref).fireResourceCreated(ref.getPath());
 		parentInfo.fireSubResourceAdded(ref);
-		revision = resMan.getDatabaseManager().incrementRevision();
+		resMan.getDatabaseManager().incrementRevision(ResourceDBManager.getToplevelName(ref));
+		pathRevision = resMan.getDatabaseManager().getPathRevision(path);
 	}
 
 	/* return the type of the optional element of that name, or null if no such
@@ -891,7 +936,15 @@ public abstract class ResourceBase implements ConnectedResource {
 
 	@Override
 	public String getLocation(String delimiter) {
-		TreeElement currentElement = this.getEl();
+		return getLocation(getEl(), delimiter);
+	}
+
+	/**
+	 * @return the location of the resource represented by the given tree element, i.e. its path with all references
+	 *         resolved.
+	 */
+	protected static String getLocation(TreeElement el, String delimiter) {
+		TreeElement currentElement = el;
 		StringBuilder location = new StringBuilder();
 		while (true) {
 			while (currentElement.isReference()) {
@@ -1104,8 +1157,9 @@ public abstract class ResourceBase implements ConnectedResource {
 		resMan.getDatabaseManager().getElementInfo(getEl()).fireResourceDeleted(this);
 		resMan.getDatabaseManager().resourceDeleted(getEl());
 
+		String toplevel = ResourceDBManager.getToplevelName(r.getTreeElement());
 		((VirtualTreeElement) r.getTreeElement()).delete();
-		resMan.getDatabaseManager().incrementRevision();
+		resMan.getDatabaseManager().incrementRevision(toplevel);
 	}
 
 	@Override
@@ -1189,8 +1243,9 @@ public abstract class ResourceBase implements ConnectedResource {
 			resMan.getDatabaseManager().getElementInfo(getEl()).fireResourceDeleted(this);
 			resMan.getDatabaseManager().resourceDeleted(getEl());
 
+			String toplevel = ResourceDBManager.getToplevelName(getEl());
 			getEl().delete();
-			resMan.getDatabaseManager().incrementRevision();
+			resMan.getDatabaseManager().incrementRevision(toplevel);
 		} finally {
 			resMan.getDatabaseManager().unlockStructureWrite();
 		}
@@ -1214,18 +1269,18 @@ public abstract class ResourceBase implements ConnectedResource {
 	}
 
 	protected VirtualTreeElement getEl() {
-		if (revision != resMan.getDatabaseManager().getRevision()) {
+		if (!pathRevision.isCurrent()) {
 			synchronized (this) {
-				if (revision == resMan.getDatabaseManager().getRevision()) {
+				if (pathRevision.isCurrent()) {
 					return this.el;
 				}
-				int newRevision = resMan.getDatabaseManager().getRevision();
+				PathRevision newRevision = resMan.getDatabaseManager().getPathRevision(path);
 				VirtualTreeElement newEl = resMan.findTreeElement(path);
 				if (newEl != null && newEl != el) {
 					accessRights = resMan.getAccessRights(newEl);
 					this.el = newEl;
 				}
-				revision = newRevision;
+				pathRevision = newRevision;
 				reload();
 			}
 		}
@@ -1252,4 +1307,9 @@ public abstract class ResourceBase implements ConnectedResource {
 		return getTreeElement().getLastModified();
 	}
 
+	@Override
+	public long getModificationCount() {
+		return getTreeElement().getModificationCount();
+	}
+
 }
@@ -18,6 +18,7 @@ package org.ogema.resourcemanager.impl;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -26,7 +27,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -66,9 +69,26 @@ public class ResourceDBManager {
 	private final Logger logger = org.slf4j.LoggerFactory.getLogger(getClass());
 	private final AccessManager access;
 	private final DataRecorder recordedDataAccess;
-    private final AtomicInteger revisionCounter = new AtomicInteger(0);
+	/*
+	 * Revision counters of the toplevel resources, incremented on every
+	 * structural change within the toplevel resource, see getPathRevision.
+	 * The counter of a deleted toplevel resource is removed and retired, so
+	 * resource objects still holding it resolve their paths again.
+	 */
+	private final ConcurrentMap<String, AtomicInteger> revisionCounters = new ConcurrentHashMap<>();
+	/*
+	 * Shared counter of all paths through deleted toplevel resources,
+	 * incremented whenever a toplevel resource is created.
+	 */
+	private final AtomicInteger deletedToplevelsRevision = new AtomicInteger();
     
 	final private Map<Class<? extends Resource>, List<ResourceDemandListenerRegistration>> resourceTypeListeners = new HashMap<>();
+	/**
+	 * Dispatch cache: demand listener registrations matching a concrete resource type, i.e. all registrations for the
+	 * type itself or one of its super types. Built lazily per type, guarded by resourceTypeListeners and cleared
+	 * whenever the registrations change or a new resource type is installed.
+	 */
+	final private Map<Class<?>, List<ResourceDemandListenerRegistration>> demandListenersByType = new HashMap<>();
 	/**
 	 * Global lock for read- and write-operations.
 	 */
@@ -193,6 +213,13 @@ public class ResourceDBManager {
         return recordedDataManager.getRecordedData(e, false);
     }
 
+    /*
+     * see RecordedDataManager#getGeneration
+     */
+    public int getRecordedDataGeneration(){
+        return recordedDataManager.getGeneration();
+    }
+
     /*
      * return a RecordedData object for the TreeElement
      */
@@ -372,6 +399,7 @@ public class ResourceDBManager {
 				resourceTypeListeners.put(type, l);
 			}
 			l.add(reg);
+			demandListenersByType.clear();
 		}
 	}
 
@@ -388,15 +416,46 @@ public class ResourceDBManager {
 					it.remove();
 				}
 			}
+			if (l.isEmpty()) {
+				resourceTypeListeners.remove(type);
+			}
+			demandListenersByType.clear();
 		}
 	}
 
 	// Map<Integer, TreeElementInfo> elements = new HashMap<>();
 	public Class<? extends Resource> addOrUpdateResourceType(Class<? extends Resource> type)
 			throws ResourceAlreadyExistsException, InvalidResourceTypeException {
+		if (!resdb.hasResourceType(type.getName())) {
+			synchronized (resourceTypeListeners) {
+				demandListenersByType.clear();
+			}
+		}
 		return resdb.addOrUpdateResourceType(type);
 	}
 
+	/*
+	 * Returns the demand listener registrations for the given resource type and all its super types. Must be called
+	 * while holding the resourceTypeListeners lock, the returned list must not be modified.
+	 */
+	private List<ResourceDemandListenerRegistration> getDemandListeners(Class<? extends Resource> elType) {
+		if (elType == null) {
+			return Collections.emptyList();
+		}
+		List<ResourceDemandListenerRegistration> result = demandListenersByType.get(elType);
+		if (result == null) {
+			result = new ArrayList<>();
+			for (Map.Entry<Class<? extends Resource>, List<ResourceDemandListenerRegistration>> e : resourceTypeListeners
+					.entrySet()) {
+				if (e.getKey().isAssignableFrom(elType)) {
+					result.addAll(e.getValue());
+				}
+			}
+			demandListenersByType.put(elType, result);
+		}
+		return result;
+	}
+
 	public Collection<Class<?>> getTypeChildren(String name) throws InvalidResourceTypeException {
 		return resdb.getTypeChildren(name);
 	}
@@ -425,14 +484,16 @@ public class ResourceDBManager {
 		TreeElement el = resdb.addResource(name, type, appId);
 		ElementInfo info = new ElementInfo(this, el);
 		el.setResRef(info);
+		deletedToplevelsRevision.incrementAndGet();
 		return el;
 	}
 
 	public void deleteResource(TreeElement elem) {
+		String toplevel = getToplevelName(elem);
 		resdb.deleteResource(elem);
-        revisionCounter.incrementAndGet();
-        resourceDeleted(elem);
-    }
+		incrementRevision(toplevel);
+		resourceDeleted(elem);
+	}
 
 	public boolean hasResource(String name) {
 		return resdb.hasResource(name);
@@ -446,6 +507,10 @@ public class ResourceDBManager {
 		return resdb.getAllToplevelResources();
 	}
 
+	public Collection<TreeElement> getElementsByType(Class<? extends Resource> type) {
+		return resdb.getElementsByType(type);
+	}
+
 	public void finishTransaction() {
 		resdb.finishTransaction();
 	}
@@ -464,13 +529,8 @@ public class ResourceDBManager {
 	public void resourceActivated(TreeElement el) {
 		Class<? extends Resource> elType = el.getType();
 		synchronized (resourceTypeListeners) {
-			for (Map.Entry<Class<? extends Resource>, List<ResourceDemandListenerRegistration>> e : resourceTypeListeners
-					.entrySet()) {
-				if (e.getKey().isAssignableFrom(elType)) {
-					for (ResourceDemandListenerRegistration reg : e.getValue()) {
-						reg.resourceAvailable(el);
-					}
-				}
+			for (ResourceDemandListenerRegistration reg : getDemandListeners(elType)) {
+				reg.resourceAvailable(el);
 			}
 		}
 
@@ -499,19 +559,14 @@ public class ResourceDBManager {
 	private void resourceUnavailable(TreeElement el, ResourceDemandListener.AccessLossReason reason) {
 		Class<? extends Resource> elType = el.getType();
 		synchronized (resourceTypeListeners) {
-			for (Map.Entry<Class<? extends Resource>, List<ResourceDemandListenerRegistration>> e : resourceTypeListeners
-					.entrySet()) {
-				if (e.getKey().isAssignableFrom(elType)) {
-					for (ResourceDemandListenerRegistration reg : e.getValue()) {
-						switch (reason) {
-						case RESOURCE_DELETED:
-							reg.resourceDeleted(el);
-							break;
-						case RESOURCE_INACTIVE:
-							reg.resourceDeactivated(el);
-							break;
-						}
-					}
+			for (ResourceDemandListenerRegistration reg : getDemandListeners(elType)) {
+				switch (reason) {
+				case RESOURCE_DELETED:
+					reg.resourceDeleted(el);
+					break;
+				case RESOURCE_INACTIVE:
+					reg.resourceDeactivated(el);
+					break;
 				}
 			}
 		}
@@ -565,12 +620,128 @@ public class ResourceDBManager {
 		commitLock.writeLock().unlock();
 	}
     
-    public int getRevision(){
-        return revisionCounter.get();
-    }
-    
-    public int incrementRevision(){
-        return revisionCounter.incrementAndGet();
-    }
+	private AtomicInteger getRevisionCounter(String toplevelName) {
+		AtomicInteger counter = revisionCounters.get(toplevelName);
+		if (counter == null) {
+			if (!resdb.hasResource(toplevelName)) {
+				return deletedToplevelsRevision;
+			}
+			AtomicInteger newCounter = new AtomicInteger();
+			counter = revisionCounters.putIfAbsent(toplevelName, newCounter);
+			if (counter == null) {
+				counter = newCounter;
+			}
+		}
+		return counter;
+	}
+
+	/**
+	 * @return name of the toplevel resource containing the element (not the
+	 * reference target, if the element is a reference).
+	 */
+	public static String getToplevelName(TreeElement el) {
+		for (TreeElement parent = el.getParent(); parent != null; parent = parent.getParent()) {
+			el = parent;
+		}
+		return el.getName();
+	}
+
+	/**
+	 * Marks a structural change (deletion, reference change) of an element
+	 * within the toplevel resource, which invalidates the path resolution of
+	 * all resource objects whose path runs through that toplevel resource.
+	 * If the toplevel resource itself has been deleted, its counter is
+	 * removed.
+	 *
+	 * @param toplevelName name of the toplevel resource containing the changed
+	 * element, see {@link #getToplevelName(TreeElement)}.
+	 */
+	public void incrementRevision(String toplevelName) {
+		if (resdb.hasResource(toplevelName)) {
+			getRevisionCounter(toplevelName).incrementAndGet();
+			return;
+		}
+		AtomicInteger counter = revisionCounters.remove(toplevelName);
+		if (counter != null) {
+			counter.set(PathRevision.RETIRED);
+		}
+	}
+
+	/**
+	 * Returns the current revisions of the toplevel resources through which
+	 * the path has been resolved to the element. If the path does not run
+	 * through any references, i.e. it is the location of the element, only
+	 * the element's own toplevel resource is relevant and the path does not
+	 * have to be resolved again.
+	 *
+	 * @param path resource path, starting with "/".
+	 * @param el element the path has been resolved to.
+	 */
+	PathRevision getPathRevision(String path, VirtualTreeElement el) {
+		String location = el.getPath();
+		if (el.isVirtual() || el.isReference() || location.length() != path.length() - 1
+				|| !path.endsWith(location)) {
+			return getPathRevision(path);
+		}
+		int end = location.indexOf('/');
+		AtomicInteger counter = getRevisionCounter(end < 0 ? location : location.substring(0, end));
+		return new PathRevision(new AtomicInteger[] { counter }, new int[] { counter.get() });
+	}
+
+	/**
+	 * Returns the current revisions of all toplevel resources through which
+	 * the path is resolved, including those of the intermediate elements of
+	 * reference chains. The revisions are read before the elements of
+	 * the path are, so the path must be resolved after calling this method.
+	 *
+	 * @param path resource path, starting with "/".
+	 */
+	PathRevision getPathRevision(String path) {
+		int start = 1;
+		int end = path.indexOf('/', start);
+		String toplevel = end < 0 ? path.substring(start) : path.substring(start, end);
+		AtomicInteger counter = getRevisionCounter(toplevel);
+		int revision = counter.get();
+		VirtualTreeElement el = resdb.getToplevelResource(toplevel);
+		if (el != null && counter == deletedToplevelsRevision) {
+			// toplevel resource created concurrently
+			return getPathRevision(path);
+		}
+		List<AtomicInteger> counters = null;
+		List<Integer> revisions = null;
+		while (el != null && end >= 0) {
+			start = end + 1;
+			end = path.indexOf('/', start);
+			el = el.getChild(end < 0 ? path.substring(start) : path.substring(start, end));
+			if (el != null && el.isReference()) {
+				// references to references are not flattened, every element of the chain may be changed
+				TreeElement target = el;
+				while (target.isReference()) {
+					target = target.getReference();
+					AtomicInteger targetCounter = getRevisionCounter(getToplevelName(target));
+					if (targetCounter != counter && (counters == null || !counters.contains(targetCounter))) {
+						if (counters == null) {
+							counters = new ArrayList<>(4);
+							revisions = new ArrayList<>(4);
+						}
+						counters.add(targetCounter);
+						revisions.add(targetCounter.get());
+					}
+				}
+			}
+		}
+		if (counters == null) {
+			return new PathRevision(new AtomicInteger[] { counter }, new int[] { revision });
+		}
+		AtomicInteger[] allCounters = new AtomicInteger[counters.size() + 1];
+		int[] allRevisions = new int[allCounters.length];
+		allCounters[0] = counter;
+		allRevisions[0] = revision;
+		for (int i = 0; i < counters.size(); i++) {
+			allCounters[i + 1] = counters.get(i);
+			allRevisions[i + 1] = revisions.get(i);
+		}
+		return new PathRevision(allCounters, allRevisions);
+	}
 
 }
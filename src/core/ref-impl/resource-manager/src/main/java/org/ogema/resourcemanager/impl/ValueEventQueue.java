@@ -0,0 +1,140 @@
+/**
+ * This file is part of OGEMA.
+ *
+ * OGEMA is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3
+ * as published by the Free Software Foundation.
+ *
+ * OGEMA is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with OGEMA. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.ogema.resourcemanager.impl;
+
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.ogema.core.application.ApplicationManager;
+import org.ogema.core.model.Resource;
+
+/**
+ * Per application queue for value listener callbacks, used when {@link #COALESCE_VALUE_EVENTS} is set. A change that
+ * is reported to a {@link ValueListenerRegistration} while an earlier callback for the same registration is still
+ * pending is merged into the pending callback, so the listener is called once with the current state of the resource.
+ * Pending callbacks are delivered in batches by a single application event instead of one event per callback.
+ */
+class ValueEventQueue {
+
+	/**
+	 * Boolean system property ({@value} ) used to enable coalescing delivery of value listener callbacks. Default is to
+	 * submit a separate application event for every callback.
+	 */
+	public static final String COALESCE_VALUE_EVENTS = "ogema.resources.coalesceValueEvents";
+	final static boolean COALESCE = Boolean.getBoolean(COALESCE_VALUE_EVENTS);
+
+	private final ApplicationManager appMan;
+	private final Queue<ValueListenerRegistration> queue = new ConcurrentLinkedQueue<>();
+	private final AtomicBoolean drainScheduled = new AtomicBoolean(false);
+	private final AtomicLong queued = new AtomicLong();
+	private final AtomicLong merged = new AtomicLong();
+	private final AtomicLong dropped = new AtomicLong();
+
+	private final Callable<Void> drainTask = new Callable<Void>() {
+
+		@Override
+		public Void call() throws Exception {
+			drain();
+			return null;
+		}
+	};
+
+	ValueEventQueue(ApplicationManager appMan) {
+		this.appMan = appMan;
+	}
+
+	/*
+	 * Queue a callback for the registration or merge it into an already pending one.
+	 */
+	void add(ValueListenerRegistration reg, Resource r) {
+		// write the resource before setting the pending flag, see drain()
+		reg.pendingResource = r;
+		if (reg.pending.compareAndSet(false, true)) {
+			queue.add(reg);
+			queued.incrementAndGet();
+			scheduleDrain();
+		}
+		else {
+			merged.incrementAndGet();
+		}
+	}
+
+	private void scheduleDrain() {
+		if (!drainScheduled.compareAndSet(false, true)) {
+			return;
+		}
+		if (appMan.submitEvent(drainTask) == null) {
+			// application is shutting down, its callbacks will never be executed.
+			ValueListenerRegistration reg;
+			while ((reg = queue.poll()) != null) {
+				reg.pending.set(false);
+				dropped.incrementAndGet();
+			}
+			drainScheduled.set(false);
+		}
+	}
+
+	/*
+	 * Delivers the callbacks pending at the start of the batch. Callbacks queued during the batch are delivered by the
+	 * next application event so that other events of the application are not delayed indefinitely.
+	 */
+	void drain() {
+		int count = queue.size();
+		for (int i = 0; i < count; i++) {
+			ValueListenerRegistration reg = queue.poll();
+			if (reg == null) {
+				break;
+			}
+			// reset the flag before reading the resource: changes reported after this point cause a new callback.
+			reg.pending.set(false);
+			Resource r = reg.pendingResource;
+			try {
+				reg.deliverResourceChangedEvent(r);
+			} catch (Throwable t) {
+				appMan.reportException(t);
+			}
+		}
+		drainScheduled.set(false);
+		if (!queue.isEmpty()) {
+			scheduleDrain();
+		}
+	}
+
+	/**
+	 * @return number of callbacks queued for delivery.
+	 */
+	long getQueuedEventCount() {
+		return queued.get();
+	}
+
+	/**
+	 * @return number of changes that were merged into an already pending callback.
+	 */
+	long getMergedEventCount() {
+		return merged.get();
+	}
+
+	/**
+	 * @return number of callbacks dropped because the application did not accept further events.
+	 */
+	long getDroppedEventCount() {
+		return dropped.get();
+	}
+
+}
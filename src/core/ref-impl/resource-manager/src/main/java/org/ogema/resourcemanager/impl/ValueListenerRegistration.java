@@ -16,6 +16,8 @@
 package org.ogema.resourcemanager.impl;
 
 import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicBoolean;
+
 import org.ogema.core.administration.AdminApplication;
 import org.ogema.core.administration.RegisteredValueListener;
 import org.ogema.core.application.ApplicationManager;
@@ -35,6 +37,9 @@ public class ValueListenerRegistration implements ResourceListenerRegistration,
 	@SuppressWarnings("rawtypes")
 	protected final ResourceValueListener listener;
 	protected final boolean callOnEveryUpdate;
+	// state of a callback pending in the ValueEventQueue, only used with coalescing delivery
+	final AtomicBoolean pending = new AtomicBoolean(false);
+	volatile Resource pendingResource;
 
 	public ValueListenerRegistration(ResourceBase origin, ResourceValueListener<?> listener, boolean callOnEveryUpdate) {
 		this.origin = origin;
@@ -61,6 +66,10 @@ public class ValueListenerRegistration implements ResourceListenerRegistration,
 		if (!callOnEveryUpdate && !valueChanged) {
 			return;
 		}
+		if (ValueEventQueue.COALESCE) {
+			origin.resMan.getValueEventQueue().add(this, r);
+			return;
+		}
 		Callable<Void> listenerCall = new Callable<Void>() {
 
 			@Override
@@ -73,6 +82,11 @@ public class ValueListenerRegistration implements ResourceListenerRegistration,
 		origin.resMan.getApplicationManager().submitEvent(listenerCall);
 	}
 
+	@SuppressWarnings("unchecked")
+	void deliverResourceChangedEvent(Resource r) {
+		listener.resourceChanged(r);
+	}
+
 	@Override
 	public void performRegistration() {
 		final ResourceDBManager manager = origin.resMan.getDatabaseManager();
@@ -20,9 +20,14 @@ import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Iterator;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.WeakHashMap;
 
 import org.ogema.core.model.Resource;
 import org.ogema.core.model.ResourceList;
@@ -47,6 +52,49 @@ public class DefaultResourceList<T extends Resource> extends ResourceBase implem
 	 */
 	static final String ELEMENTS = "@elements";
 
+	private static final String[] NO_ELEMENTS = {};
+
+	/*
+	 * Element names and their hash index, per names array stored in an
+	 * elements node. The array keeps spare capacity at its end, filled with
+	 * empty strings (never a valid resource name), so that new names are
+	 * written in place and the array is only copied when it is full. A holder
+	 * is valid as long as its array is stored; arrays that have been set
+	 * otherwise (as StringArrayResource, by deserialization) are scanned on
+	 * first use. Only modified while holding the structure write lock, lookups
+	 * require the structure read lock.
+	 */
+	private static final Map<String[], ElementNames> ELEMENT_NAMES = Collections
+			.synchronizedMap(new WeakHashMap<String[], ElementNames>());
+
+	private static final class ElementNames {
+
+		final String[] names;
+		final Set<String> index;
+		int size;
+
+		ElementNames(String[] names) {
+			int n = names.length;
+			while (n > 0 && (names[n - 1] == null || names[n - 1].isEmpty())) {
+				n--;
+			}
+			this.names = names;
+			this.size = n;
+			this.index = new HashSet<>(Arrays.asList(names).subList(0, n));
+		}
+
+		ElementNames(String[] names, int size, Set<String> index) {
+			this.names = names;
+			this.size = size;
+			this.index = index;
+		}
+
+		List<String> asList() {
+			return Arrays.asList(names).subList(0, size);
+		}
+
+	}
+
 	@SuppressWarnings("unchecked")
 	protected Class<T> elementType;
 
@@ -127,52 +175,137 @@ public class DefaultResourceList<T extends Resource> extends ResourceBase implem
 	}
 
 	protected List<String> getElementNames() {
-        TreeElement el = getElementsNode(false);
-        if (el == null) {
-            return new ArrayList<>();
-        } else {
-            return new ArrayList<>(Arrays.asList(el.getData().getStringArr()));
-        }
-    }
+		return new ArrayList<>(getStoredElementNames().asList());
+	}
+
+	/*
+	 * the names stored in the elements node, must not be modified.
+	 */
+	private ElementNames getStoredElementNames() {
+		TreeElement el = getElementsNode(false);
+		String[] names = el != null ? el.getData().getStringArr() : null;
+		if (names == null || names.length == 0) {
+			return new ElementNames(NO_ELEMENTS);
+		}
+		ElementNames elementNames = ELEMENT_NAMES.get(names);
+		if (elementNames == null) {
+			elementNames = new ElementNames(names);
+			ELEMENT_NAMES.put(names, elementNames);
+		}
+		return elementNames;
+	}
+
+	/*
+	 * append the names which are not yet contained in the list. The names are
+	 * written into the spare capacity of the stored array, which grows by half
+	 * its length when it is full, so that appending is amortized O(1).
+	 * Requires the structure write lock.
+	 */
+	protected void addElementNames(Collection<String> names) {
+		ElementNames elementNames = getStoredElementNames();
+		String[] stored = elementNames.names;
+		int required = elementNames.size + names.size();
+		if (required > stored.length) {
+			stored = Arrays.copyOf(stored, Math.max(required, stored.length + (stored.length >> 1)));
+			Arrays.fill(stored, elementNames.size, stored.length, "");
+		}
+		int size = elementNames.size;
+		for (String name : names) {
+			if (elementNames.index.add(name)) {
+				stored[size++] = name;
+			}
+		}
+		if (size == elementNames.size) {
+			return;
+		}
+		if (stored != elementNames.names) {
+			ELEMENT_NAMES.remove(elementNames.names);
+			ELEMENT_NAMES.put(stored, new ElementNames(stored, size, elementNames.index));
+		}
+		else {
+			elementNames.size = size;
+		}
+		// same array if it had room: only marks the node as changed
+		getElementsNode(true).getData().setStringArr(stored);
+	}
+
+	/*
+	 * remove names from the list, storing a new array without spare capacity.
+	 */
+	protected void removeElementNames(Collection<String> names) {
+		List<String> elementNames = getElementNames();
+		if (elementNames.removeAll(new HashSet<>(names))) {
+			updateElementsNode(elementNames);
+		}
+	}
 
 	protected String findNewName() {
-		int number = getElementNames().size();
+		int number = getStoredElementNames().size;
 		String name = getName() + "_" + number;
-		while (getSubResource(name) != null) {
+		while (getEl().getChild(name) != null) {
 			name = getName() + "_" + ++number;
 		}
 		return name;
 	}
 
+	/*
+	 * the nodes of the existing list elements in list order, names of deleted
+	 * elements are dropped from the list.
+	 */
+	private List<VirtualTreeElement> getElementEls() {
+		getResourceDB().lockRead();
+		try {
+			List<String> elementNames = getStoredElementNames().asList();
+			List<VirtualTreeElement> rval = new ArrayList<>(elementNames.size());
+			List<String> removed = null;
+			VirtualTreeElement el = getEl();
+			for (String name : elementNames) {
+				VirtualTreeElement child = el.getChild(name);
+				if (child != null && !child.isVirtual()) {
+					rval.add(child);
+				}
+				else {
+					if (removed == null) {
+						removed = new ArrayList<>();
+					}
+					removed.add(name);
+				}
+			}
+			if (removed != null) {
+				removeElementNames(removed);
+			}
+			return rval;
+		} finally {
+			getResourceDB().unlockRead();
+		}
+	}
+
+	/*
+	 * compares the location of an element node without creating a resource
+	 * object for it, resolving the full location only if the names match.
+	 */
+	private static boolean hasLocation(TreeElement el, String location) {
+		TreeElement target = el;
+		while (target.isReference()) {
+			target = target.getReference();
+		}
+		return location.endsWith(target.getName()) && location.equals(getLocation(target, "/"));
+	}
+
 	@Override
-    public List<T> getAllElements() {
-        getResourceDB().lockRead();
-        try {
-            List<String> elementNames = getElementNames();
-            List<T> rval = new ArrayList<>(elementNames.size());
-            boolean update = false;
-            for (Iterator<String> it = elementNames.iterator(); it.hasNext();) {
-                T sub = getSubResource(it.next());
-                if (sub != null && sub.exists()) {
-                    rval.add(sub);
-                } else {
-                    it.remove();
-                    update = true;
-                }
-            }
-            if (update) {
-                updateElementsNode(elementNames);
-            }
-            return rval;
-        } finally {
-            getResourceDB().unlockRead();
-        }
-    }
+	public List<T> getAllElements() {
+		List<VirtualTreeElement> elements = getElementEls();
+		List<T> rval = new ArrayList<>(elements.size());
+		for (VirtualTreeElement child : elements) {
+			rval.add(this.<T> getSubResource(child));
+		}
+		return rval;
+	}
 
 	@Override
 	public int size() {
 		getEl();
-		return getElementNames().size();
+		return getStoredElementNames().size;
 	}
 
 	@Override
@@ -182,11 +315,7 @@ public class DefaultResourceList<T extends Resource> extends ResourceBase implem
 			getResourceDB().lockStructureWrite();
 			try {
 				T dec = super.addDecorator(name, resourceType);
-				List<String> elementNames = getElementNames();
-				if (!elementNames.contains(name)) {
-					elementNames.add(name);
-					updateElementsNode(elementNames);
-				}
+				addElementNames(Collections.singletonList(name));
 				return dec;
 			} finally {
 				getResourceDB().unlockStructureWrite();
@@ -204,11 +333,7 @@ public class DefaultResourceList<T extends Resource> extends ResourceBase implem
 			getResourceDB().lockStructureWrite();
 			try {
 				T dec = super.addDecorator(name, decorator);
-				List<String> elementNames = getElementNames();
-				if (!elementNames.contains(name)) {
-					elementNames.add(name);
-					updateElementsNode(elementNames);
-				}
+				addElementNames(Collections.singletonList(name));
 				return dec;
 			} finally {
 				getResourceDB().unlockStructureWrite();
@@ -230,6 +355,34 @@ public class DefaultResourceList<T extends Resource> extends ResourceBase implem
 		}
 	}
 
+	@Override
+	public void addAll(Collection<? extends T> references) {
+		Objects.requireNonNull(references, "references must not be null");
+		for (T reference : references) {
+			Objects.requireNonNull(reference, "reference must not be null");
+			checkType(reference);
+		}
+		getResourceDB().lockStructureWrite();
+		List<String> names = new ArrayList<>(references.size());
+		try {
+			int number = getStoredElementNames().size;
+			for (T reference : references) {
+				String name = getName() + "_" + number++;
+				while (getEl().getChild(name) != null) {
+					name = getName() + "_" + number++;
+				}
+				super.addDecorator(name, reference);
+				names.add(name);
+			}
+		} finally {
+			try {
+				addElementNames(names);
+			} finally {
+				getResourceDB().unlockStructureWrite();
+			}
+		}
+	}
+
 	@Override
 	@SuppressWarnings("unchecked")
 	public T add() {
@@ -262,16 +415,20 @@ public class DefaultResourceList<T extends Resource> extends ResourceBase implem
 
 	@Override
 	public void remove(T element) {
+		// all references to the element are removed, so every element has to be checked
+		String location = element.getLocation();
 		getResourceDB().lockStructureWrite();
 		try {
-			List<String> elementNames = getElementNames();
-			for (T e : getAllElements()) {
-				if (e.equalsLocation(element)) {
-					elementNames.remove(e.getName());
-					e.delete();
+			List<String> removed = new ArrayList<>();
+			for (VirtualTreeElement child : getElementEls()) {
+				if (hasLocation(child, location)) {
+					removed.add(child.getName());
 				}
 			}
-			updateElementsNode(elementNames);
+			for (String name : removed) {
+				super.deleteElement(name);
+			}
+			removeElementNames(removed);
 		} finally {
 			getResourceDB().unlockStructureWrite();
 		}
@@ -298,23 +455,38 @@ public class DefaultResourceList<T extends Resource> extends ResourceBase implem
 	@Override
 	public boolean contains(Resource resource) {
 		Objects.requireNonNull(resource, "resource must not be null");
-		for (Resource element : getAllElements()) {
-			if (element.equalsLocation(resource)) {
-				return true;
+		String location = resource.getLocation();
+		getResourceDB().lockStructureRead();
+		try {
+			// resource accessed through this list: look up its name in the index
+			String path = resource.getPath();
+			String listPath = getPath();
+			if (path.length() > listPath.length() + 1 && path.startsWith(listPath)
+					&& path.charAt(listPath.length()) == '/' && path.indexOf('/', listPath.length() + 1) < 0) {
+				String name = path.substring(listPath.length() + 1);
+				VirtualTreeElement child = getEl().getChild(name);
+				if (child != null && !child.isVirtual() && getStoredElementNames().index.contains(name)
+						&& hasLocation(child, location)) {
+					return true;
+				}
 			}
+			for (VirtualTreeElement child : getElementEls()) {
+				if (hasLocation(child, location)) {
+					return true;
+				}
+			}
+			return false;
+		} finally {
+			getResourceDB().unlockStructureRead();
 		}
-		return false;
 	}
 
 	@Override
 	public void deleteElement(String name) {
 		getResourceDB().lockStructureWrite();
 		try {
-			List<String> elementNames = getElementNames();
 			super.deleteElement(name);
-			if (elementNames.remove(name)) {
-				updateElementsNode(elementNames);
-			}
+			removeElementNames(Collections.singletonList(name));
 		} finally {
 			getResourceDB().unlockStructureWrite();
 		}
@@ -322,7 +494,8 @@ public class DefaultResourceList<T extends Resource> extends ResourceBase implem
 
 	@Override
 	protected void reload() {
-		getAllElements();
+		// drop the names of deleted elements
+		getElementEls();
 	}
 
 }
@@ -95,6 +95,7 @@ import org.ogema.resourcemanager.impl.model.units.DefaultVelocityResource;
 import org.ogema.resourcemanager.impl.model.units.DefaultVoltageResource;
 import org.ogema.resourcemanager.impl.model.units.DefaultVolumeResource;
 import org.ogema.resourcemanager.virtual.VirtualTreeElement;
+import org.ogema.resourcetree.ModificationCountProvider;
 import org.ogema.resourcetree.TreeElement;
 import org.osgi.framework.Bundle;
 import org.osgi.framework.FrameworkUtil;
@@ -314,7 +315,8 @@ public class ResourceFactory {
 		}
 		else {
 			InvocationHandler handler = new DynamicProxyResource(el, path, m_resMan);
-			Class<?>[] interfaces = new Class<?>[] { el.getType(), ConnectedResource.class };
+			Class<?>[] interfaces = new Class<?>[] { el.getType(), ConnectedResource.class,
+					ModificationCountProvider.class };
 			return (T) Proxy.newProxyInstance(getClass().getClassLoader(), interfaces, handler);
 		}
 	}
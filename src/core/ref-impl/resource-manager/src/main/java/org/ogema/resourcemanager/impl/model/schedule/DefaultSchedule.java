@@ -16,6 +16,7 @@
 package org.ogema.resourcemanager.impl.model.schedule;
 
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
 
 import org.ogema.core.application.ApplicationManager;
@@ -235,6 +236,11 @@ public class DefaultSchedule extends ResourceBase implements org.ogema.core.mode
 		return getSchedule().getValues(startTime, endTime);
 	}
 
+	@Override
+	public Iterator<SampledValue> iterator(long startTime, long endTime) {
+		return getSchedule().iterator(startTime, endTime);
+	}
+
 	@Override
 	public InterpolationMode getInterpolationMode() {
 		return getSchedule().getInterpolationMode();
@@ -22,6 +22,7 @@ import org.ogema.resourcemanager.impl.ApplicationResourceManager;
 import org.ogema.resourcemanager.impl.ResourceBase;
 import org.ogema.resourcemanager.impl.model.schedule.HistoricalSchedule;
 import org.ogema.resourcemanager.virtual.VirtualTreeElement;
+import org.ogema.resourcetree.SimpleResourceData;
 
 /**
  * 
@@ -41,12 +42,13 @@ public class DefaultBooleanResource extends ResourceBase implements BooleanResou
 
 	@Override
 	public boolean setValue(boolean value) {
-		if (!exists() || !hasWriteAccess()) {
+		final VirtualTreeElement el = getElForWrite();
+		if (el == null) {
 			return false;
 		}
-		checkWritePermission();
-		boolean changed = value != getTreeElement().getData().getBoolean();
-		getTreeElement().getData().setBoolean(value);
+		final SimpleResourceData data = el.getData();
+		boolean changed = value != data.getBoolean();
+		data.setBoolean(value);
 		handleResourceUpdate(changed);
 		return true;
 	}
@@ -22,6 +22,7 @@ import org.ogema.resourcemanager.impl.ApplicationResourceManager;
 import org.ogema.resourcemanager.impl.ResourceBase;
 import org.ogema.resourcemanager.impl.model.schedule.HistoricalSchedule;
 import org.ogema.resourcemanager.virtual.VirtualTreeElement;
+import org.ogema.resourcetree.SimpleResourceData;
 
 /**
  * 
@@ -41,13 +42,14 @@ public class DefaultFloatResource extends ResourceBase implements FloatResource
 
 	@Override
 	public boolean setValue(float value) {
-		if (!exists() || !hasWriteAccess()) {
+		final VirtualTreeElement el = getElForWrite();
+		if (el == null) {
 			return false;
 		}
-		checkWritePermission();
-		float oldValue = getValue();
-		getTreeElement().getData().setFloat(value);
-		getTreeElement().fireChangeEvent();
+		final SimpleResourceData data = el.getData();
+		float oldValue = data.getFloat();
+		data.setFloat(value);
+		el.fireChangeEvent();
 		handleResourceUpdate(oldValue != value);
 		return true;
 	}
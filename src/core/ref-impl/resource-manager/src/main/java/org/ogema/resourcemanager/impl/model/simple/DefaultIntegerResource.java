@@ -22,6 +22,7 @@ import org.ogema.resourcemanager.impl.ApplicationResourceManager;
 import org.ogema.resourcemanager.impl.ResourceBase;
 import org.ogema.resourcemanager.impl.model.schedule.HistoricalSchedule;
 import org.ogema.resourcemanager.virtual.VirtualTreeElement;
+import org.ogema.resourcetree.SimpleResourceData;
 
 /**
  * 
@@ -41,12 +42,13 @@ public class DefaultIntegerResource extends ResourceBase implements IntegerResou
 
 	@Override
 	public boolean setValue(int value) {
-		if (!exists() || !hasWriteAccess()) {
+		final VirtualTreeElement el = getElForWrite();
+		if (el == null) {
 			return false;
 		}
-		checkWritePermission();
-		boolean changed = value != getTreeElement().getData().getInt();
-		getTreeElement().getData().setInt(value);
+		final SimpleResourceData data = el.getData();
+		boolean changed = value != data.getInt();
+		data.setInt(value);
 		handleResourceUpdate(changed);
 		return true;
 	}
@@ -41,11 +41,11 @@ public class DefaultOpaqueResource extends ResourceBase implements org.ogema.cor
 
 	@Override
 	public boolean setValue(byte[] value) {
-		if (!exists() || !hasWriteAccess()) {
+		final VirtualTreeElement el = getElForWrite();
+		if (el == null) {
 			return false;
 		}
-		checkWritePermission();
-		getTreeElement().getData().setByteArr(value);
+		el.getData().setByteArr(value);
 		//FIXME no change check
 		handleResourceUpdate(true);
 		return true;
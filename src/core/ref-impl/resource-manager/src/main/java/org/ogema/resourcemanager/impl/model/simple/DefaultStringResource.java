@@ -20,6 +20,7 @@ import org.ogema.core.model.simple.StringResource;
 import org.ogema.resourcemanager.impl.ApplicationResourceManager;
 import org.ogema.resourcemanager.impl.ResourceBase;
 import org.ogema.resourcemanager.virtual.VirtualTreeElement;
+import org.ogema.resourcetree.SimpleResourceData;
 
 /**
  * 
@@ -41,13 +42,14 @@ public class DefaultStringResource extends ResourceBase implements StringResourc
 
 	@Override
 	public boolean setValue(String value) {
-		if (!exists() || !hasWriteAccess()) {
+		final VirtualTreeElement el = getElForWrite();
+		if (el == null) {
 			return false;
 		}
-		checkWritePermission();
+		final SimpleResourceData data = el.getData();
 		//FIXME null values?
-		boolean changed = !value.equals(getTreeElement().getData().getString());
-		getTreeElement().getData().setString(value);
+		boolean changed = !value.equals(data.getString());
+		data.setString(value);
 		handleResourceUpdate(changed);
 		return true;
 	}
@@ -22,6 +22,7 @@ import org.ogema.resourcemanager.impl.ApplicationResourceManager;
 import org.ogema.resourcemanager.impl.ResourceBase;
 import org.ogema.resourcemanager.impl.model.schedule.HistoricalSchedule;
 import org.ogema.resourcemanager.virtual.VirtualTreeElement;
+import org.ogema.resourcetree.SimpleResourceData;
 
 /**
  * 
@@ -41,12 +42,13 @@ public class DefaultTimeResource extends ResourceBase implements TimeResource {
 
 	@Override
 	public boolean setValue(long value) {
-		if (!exists() || !hasWriteAccess()) {
+		final VirtualTreeElement el = getElForWrite();
+		if (el == null) {
 			return false;
 		}
-		checkWritePermission();
-		boolean changed = value != getTreeElement().getData().getLong();
-		getTreeElement().getData().setLong(value);
+		final SimpleResourceData data = el.getData();
+		boolean changed = value != data.getLong();
+		data.setLong(value);
 		handleResourceUpdate(changed);
 		return true;
 	}
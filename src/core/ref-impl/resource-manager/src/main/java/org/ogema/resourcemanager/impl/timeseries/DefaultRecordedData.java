@@ -18,12 +18,14 @@ package org.ogema.resourcemanager.impl.timeseries;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.ogema.core.application.Timer;
-import org.ogema.core.application.TimerListener;
 import org.ogema.core.channelmanager.measurements.BooleanValue;
 import org.ogema.core.channelmanager.measurements.FloatValue;
 import org.ogema.core.channelmanager.measurements.IntegerValue;
@@ -60,23 +62,34 @@ public class DefaultRecordedData implements RecordedData {
 	protected final DataRecorder dataAccess;
 	protected final TimerScheduler scheduler;
 	protected final Executor exec;
+	protected final FixedIntervalLogScheduler logScheduler;
+	protected final RecordedDataWriteQueue writeQueue;
 	protected final TreeElement el;
 	protected final Logger logger = LoggerFactory.getLogger(getClass());
 
 	protected RecordedDataStorage data = new EmptyRecordedData();
 	protected RecordedDataConfiguration config = null;
 	protected transient Updater<?> updater;
-	private Timer timer;
 
-	public DefaultRecordedData(DataRecorder dataAccess, TimerScheduler scheduler, Executor exec, TreeElement el) {
+	/* number of values queued in writeQueue, see RecordedDataWriteQueue */
+	final AtomicInteger pendingWrites = new AtomicInteger();
+	/* queued entry that takes newer values if the write queue coalesces values */
+	final AtomicReference<RecordedDataWriteQueue.Entry> coalescing = new AtomicReference<>();
+
+	public DefaultRecordedData(DataRecorder dataAccess, TimerScheduler scheduler, Executor exec,
+			FixedIntervalLogScheduler logScheduler, RecordedDataWriteQueue writeQueue, TreeElement el) {
 		Objects.requireNonNull(dataAccess);
 		Objects.requireNonNull(el);
 		Objects.requireNonNull(scheduler);
 		Objects.requireNonNull(exec);
+		Objects.requireNonNull(logScheduler);
+		Objects.requireNonNull(writeQueue);
 
 		this.dataAccess = dataAccess;
 		this.scheduler = scheduler;
 		this.exec = exec;
+		this.logScheduler = logScheduler;
+		this.writeQueue = writeQueue;
 		this.el = el;
 
 		this.id = createId(el);
@@ -137,18 +150,32 @@ public class DefaultRecordedData implements RecordedData {
 		});
 	}
 
-	public void logIntervalElapsed(long time) {
-		if (updater != null && el.isActive()) {
-			updater.writeFixedIntervalData(time);
+	/**
+	 * Returns the current value of the element for fixed interval logging, or null if nothing is to be logged.
+	 */
+	SampledValue sampleFixedInterval(long time) {
+		Updater<?> u = updater;
+		if (u == null || !el.isActive()) {
+			return null;
 		}
+		return u.createValue(time);
 	}
 
-	public void close() {
-		if (timer != null) {
-			timer.destroy();
+	/**
+	 * Writes values to the storage, called by the {@link RecordedDataWriteQueue}.
+	 */
+	void write(List<SampledValue> values) {
+		try {
+			data.insertValues(values);
+		} catch (DataRecorderException rdae) {
+			logger.error("failed to write recorded data", rdae);
 		}
 	}
 
+	public void close() {
+		logScheduler.unschedule(this);
+	}
+
 	final void createUpdater() {
 		if (config == null) {
 			return;
@@ -222,32 +249,16 @@ public class DefaultRecordedData implements RecordedData {
 		}
 		updater = null;
 		config = null;
-		if (timer != null) {
-			timer.destroy();
-			timer = null;
-		}
+		logScheduler.unschedule(this);
 	}
 
 	private synchronized void setupTimer() {
 		if (config.getStorageType() == StorageType.FIXED_INTERVAL) {
-			if (timer == null) {
-				timer = scheduler.createTimer(exec, logger);
-				timer.addListener(new TimerListener() {
-
-					@Override
-					public void timerElapsed(Timer timer) {
-						logIntervalElapsed(timer.getExecutionTime());
-					}
-				});
-			}
-			timer.setTimingInterval(config.getFixedInterval());
+			logScheduler.schedule(this, config.getFixedInterval());
 			logger.debug("RecordedData {} configured for update rate of {}ms", id, config.getFixedInterval());
 		}
 		else {
-			if (timer != null) {
-				timer.destroy();
-				timer = null;
-			}
+			logScheduler.unschedule(this);
 		}
 	}
 
@@ -258,12 +269,14 @@ public class DefaultRecordedData implements RecordedData {
 
 	@Override
 	public List<SampledValue> getValues(long startTime) {
+		writeQueue.awaitWritten(this);
 		return SECURITY_ENABLED ? getValuesPrivileged(startTime, Long.MAX_VALUE) : data.getValues(startTime,
 				Long.MAX_VALUE);
 	}
 
 	@Override
 	public List<SampledValue> getValues(long startTime, long endTime) {
+		writeQueue.awaitWritten(this);
 		return SECURITY_ENABLED ? getValuesPrivileged(startTime, endTime) : data.getValues(startTime, endTime);
 	}
 
@@ -277,18 +290,36 @@ public class DefaultRecordedData implements RecordedData {
 		});
 	}
 
+	@Override
+	public Iterator<SampledValue> iterator(final long startTime, final long endTime) {
+		writeQueue.awaitWritten(this);
+		if (!SECURITY_ENABLED) {
+			return data.iterator(startTime, endTime);
+		}
+		return AccessController.doPrivileged(new PrivilegedAction<Iterator<SampledValue>>() {
+
+			@Override
+			public Iterator<SampledValue> run() {
+				return data.iterator(startTime, endTime);
+			}
+		});
+	}
+
 	@Override
 	public SampledValue getValue(long timestamp) {
+		writeQueue.awaitWritten(this);
 		return data.getValue(timestamp);
 	}
 
 	@Override
 	public List<SampledValue> getValues(long startTime, long endTime, long interval, ReductionMode mode) {
+		writeQueue.awaitWritten(this);
 		return data.getValues(startTime, endTime, interval, mode);
 	}
 
 	@Override
 	public SampledValue getNextValue(long time) {
+		writeQueue.awaitWritten(this);
 		return data.getNextValue(time);
 	}
 
@@ -300,6 +331,7 @@ public class DefaultRecordedData implements RecordedData {
 	@Override
 	@Deprecated
 	public Long getTimeOfLatestEntry() {
+		writeQueue.awaitWritten(this);
 		return data.getTimeOfLatestEntry();
 	}
 
@@ -313,31 +345,19 @@ public class DefaultRecordedData implements RecordedData {
 		}
 
 		void elementUpdated(long time) {
-			try {
-				switch (mode) {
-				case FIXED_INTERVAL:
-					break;
-				case ON_VALUE_CHANGED:
-					if (valueChanged()) {
-						data.insertValue(createValue(time));
-					}
-					break;
-				case ON_VALUE_UPDATE:
-					data.insertValue(createValue(time));
-					break;
-				default:
-					throw new UnsupportedOperationException();
+			switch (mode) {
+			case FIXED_INTERVAL:
+				break;
+			case ON_VALUE_CHANGED:
+				if (valueChanged()) {
+					writeQueue.add(DefaultRecordedData.this, createValue(time));
 				}
-			} catch (DataRecorderException rdae) {
-				logger.error("failed to write recorded data", rdae);
-			}
-		}
-
-		void writeFixedIntervalData(long time) {
-			try {
-				data.insertValue(createValue(time));
-			} catch (DataRecorderException rdae) {
-				logger.error("failed to write recorded data", rdae);
+				break;
+			case ON_VALUE_UPDATE:
+				writeQueue.add(DefaultRecordedData.this, createValue(time));
+				break;
+			default:
+				throw new UnsupportedOperationException();
 			}
 		}
 
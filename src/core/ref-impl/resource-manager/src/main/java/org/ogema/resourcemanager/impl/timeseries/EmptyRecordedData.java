@@ -16,6 +16,7 @@
 package org.ogema.resourcemanager.impl.timeseries;
 
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
@@ -57,6 +58,11 @@ public class EmptyRecordedData implements RecordedDataStorage {
 		return Collections.emptyList();
 	}
 
+	@Override
+	public Iterator<SampledValue> iterator(long startTime, long endTime) {
+		return Collections.emptyIterator();
+	}
+
 	@Override
 	public SampledValue getValue(long timestamp) {
 		return null;
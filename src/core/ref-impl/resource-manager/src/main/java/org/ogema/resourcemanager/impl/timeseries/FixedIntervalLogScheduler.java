@@ -0,0 +1,141 @@
+/**
+ * This file is part of OGEMA.
+ *
+ * OGEMA is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3
+ * as published by the Free Software Foundation.
+ *
+ * OGEMA is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with OGEMA. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.ogema.resourcemanager.impl.timeseries;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executor;
+
+import org.ogema.core.application.Timer;
+import org.ogema.core.application.TimerListener;
+import org.ogema.core.channelmanager.measurements.SampledValue;
+import org.ogema.recordeddata.DataRecorder;
+import org.ogema.recordeddata.DataRecorderException;
+import org.ogema.timer.TimerScheduler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Drives the logging of all {@link DefaultRecordedData} with storage type FIXED_INTERVAL. Recorded data with the same
+ * logging interval share a single timer; on each tick the values of all of them are sampled and handed to the
+ * {@link DataRecorder} as one batch.
+ */
+public class FixedIntervalLogScheduler {
+
+	private final static Logger logger = LoggerFactory.getLogger(FixedIntervalLogScheduler.class);
+
+	private final DataRecorder dataAccess;
+	private final TimerScheduler scheduler;
+	private final Executor exec;
+
+	/* guarded by this */
+	private final Map<Long, Group> groups = new HashMap<>();
+	/* guarded by this */
+	private final Map<DefaultRecordedData, Group> members = new HashMap<>();
+
+	public FixedIntervalLogScheduler(DataRecorder dataAccess, TimerScheduler scheduler, Executor exec) {
+		this.dataAccess = dataAccess;
+		this.scheduler = scheduler;
+		this.exec = exec;
+	}
+
+	/**
+	 * Logs the given recorded data with the given interval, replacing a previously registered interval.
+	 */
+	public synchronized void schedule(DefaultRecordedData data, long interval) {
+		Group current = members.get(data);
+		if (current != null) {
+			if (current.interval == interval) {
+				return;
+			}
+			remove(data, current);
+		}
+		Group group = groups.get(interval);
+		if (group == null) {
+			group = new Group(interval);
+			groups.put(interval, group);
+		}
+		group.members.add(data);
+		members.put(data, group);
+	}
+
+	/**
+	 * Stops the fixed interval logging of the given recorded data, does nothing if it is not scheduled.
+	 */
+	public synchronized void unschedule(DefaultRecordedData data) {
+		Group current = members.get(data);
+		if (current != null) {
+			remove(data, current);
+		}
+	}
+
+	public synchronized void close() {
+		for (Group g : groups.values()) {
+			g.timer.destroy();
+		}
+		groups.clear();
+		members.clear();
+	}
+
+	/* requires lock on this */
+	private void remove(DefaultRecordedData data, Group group) {
+		members.remove(data);
+		group.members.remove(data);
+		if (group.members.isEmpty()) {
+			group.timer.destroy();
+			groups.remove(group.interval);
+		}
+	}
+
+	private class Group implements TimerListener {
+
+		final long interval;
+		final Timer timer;
+		final Set<DefaultRecordedData> members = new CopyOnWriteArraySet<>();
+
+		Group(long interval) {
+			this.interval = interval;
+			this.timer = scheduler.createTimer(exec, logger);
+			timer.addListener(this);
+			timer.setTimingInterval(interval);
+			logger.debug("created fixed interval logging timer for {}ms", interval);
+		}
+
+		@Override
+		public void timerElapsed(Timer timer) {
+			long time = timer.getExecutionTime();
+			Map<String, SampledValue> values = new LinkedHashMap<>(members.size() * 2);
+			for (DefaultRecordedData d : members) {
+				SampledValue value = d.sampleFixedInterval(time);
+				if (value != null) {
+					values.put(d.id, value);
+				}
+			}
+			if (values.isEmpty()) {
+				return;
+			}
+			try {
+				dataAccess.insertValues(values);
+			} catch (DataRecorderException rdae) {
+				logger.error("failed to write recorded data", rdae);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,393 @@
+/**
+ * This file is part of OGEMA.
+ *
+ * OGEMA is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3
+ * as published by the Free Software Foundation.
+ *
+ * OGEMA is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with OGEMA. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.ogema.resourcemanager.impl.timeseries;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+
+import org.ogema.core.channelmanager.measurements.SampledValue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bounded write-behind queue for ON_VALUE_CHANGED and ON_VALUE_UPDATE recorded data. Values are sampled on the thread
+ * that changed the resource and written to the storages by a dedicated writer thread, which passes all values queued
+ * for one storage to a single {@link org.ogema.recordeddata.RecordedDataStorage#insertValues(List) insertValues} call.
+ * Reading a {@link DefaultRecordedData} waits until the values queued for it have been written. Threads adding values
+ * do not wait for the writer, unless {@link OverflowPolicy#BLOCK} is selected explicitly.
+ */
+public class RecordedDataWriteQueue {
+
+	/**
+	 * Integer system property ({@value} ) setting the maximum number of values waiting to be written, default is
+	 * {@link #DEFAULT_CAPACITY}.
+	 */
+	public static final String WRITE_QUEUE_CAPACITY = "ogema.recordeddata.writeQueueCapacity";
+	public static final int DEFAULT_CAPACITY = 10000;
+	/**
+	 * System property ({@value} ) selecting the {@link OverflowPolicy} applied when the queue is full, default is
+	 * {@link OverflowPolicy#COALESCE}.
+	 */
+	public static final String WRITE_QUEUE_OVERFLOW = "ogema.recordeddata.writeQueueOverflow";
+
+	public enum OverflowPolicy {
+		/**
+		 * Wait until the writer has made room in the queue. No values are lost, but the thread that changed the resource
+		 * waits for the disk.
+		 */
+		BLOCK,
+		/** Discard the oldest queued value. */
+		DROP_OLDEST,
+		/**
+		 * Keep only the latest value for each storage until the writer has caught up. The values queued before are
+		 * still written, and in order.
+		 */
+		COALESCE
+	}
+
+	private final static Logger logger = LoggerFactory.getLogger(RecordedDataWriteQueue.class);
+
+	private static final int MAX_BATCH_SIZE = 1000;
+	private static final long BLOCK_WAIT_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+	private static final long IDLE_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+	private static final long READ_WAIT_MILLIS = 100;
+
+	private final int capacity;
+	private final OverflowPolicy policy;
+	private final Queue<Entry> queue = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger size = new AtomicInteger();
+	private final AtomicLong written = new AtomicLong();
+	private final AtomicLong dropped = new AtomicLong();
+	private final AtomicLong merged = new AtomicLong();
+	private volatile long lastWriteLag;
+	private volatile long maxWriteLag;
+
+	private final Thread writer;
+	private volatile boolean running = true;
+	private volatile boolean idle;
+	private final Object writtenLock = new Object();
+	private final AtomicInteger waitingReaders = new AtomicInteger();
+
+	public RecordedDataWriteQueue() {
+		this(Integer.getInteger(WRITE_QUEUE_CAPACITY, DEFAULT_CAPACITY), getOverflowPolicy());
+	}
+
+	public RecordedDataWriteQueue(int capacity, OverflowPolicy policy) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("capacity must be positive: " + capacity);
+		}
+		this.capacity = capacity;
+		this.policy = policy;
+		this.writer = new Thread(new Runnable() {
+
+			@Override
+			public void run() {
+				runWriter();
+			}
+		}, "RecordedData writer (" + this + ")");
+		writer.setDaemon(true);
+		writer.start();
+	}
+
+	private static OverflowPolicy getOverflowPolicy() {
+		String p = System.getProperty(WRITE_QUEUE_OVERFLOW);
+		if (p == null) {
+			return OverflowPolicy.COALESCE;
+		}
+		try {
+			return OverflowPolicy.valueOf(p.trim().toUpperCase());
+		} catch (IllegalArgumentException e) {
+			logger.warn("unknown value for {}: {}, using {}", WRITE_QUEUE_OVERFLOW, p, OverflowPolicy.COALESCE);
+			return OverflowPolicy.COALESCE;
+		}
+	}
+
+	/**
+	 * Queue a value for writing to the storage of the given recorded data. Once the queue has been closed, the value is
+	 * written directly.
+	 */
+	public void add(DefaultRecordedData target, SampledValue value) {
+		while (!reserve()) {
+			if (!running) {
+				target.write(Collections.singletonList(value));
+				return;
+			}
+			switch (policy) {
+			case DROP_OLDEST:
+				Entry oldest = queue.poll();
+				if (oldest != null) {
+					size.decrementAndGet();
+					oldest.target.pendingWrites.decrementAndGet();
+					dropped.incrementAndGet();
+				}
+				break;
+			case COALESCE:
+				coalesce(target, value);
+				return;
+			default:
+				wakeWriter();
+				LockSupport.parkNanos(BLOCK_WAIT_NANOS);
+			}
+		}
+		if (!running) {
+			// the writer may already have finished
+			size.decrementAndGet();
+			target.write(Collections.singletonList(value));
+			return;
+		}
+		target.pendingWrites.incrementAndGet();
+		queue.add(new Entry(target, value, System.nanoTime()));
+		if (policy == OverflowPolicy.COALESCE && target.coalescing.get() != null) {
+			// values coalesced later must not be written before this one
+			target.coalescing.set(null);
+		}
+		if (idle) {
+			wakeWriter();
+		}
+	}
+
+	private boolean reserve() {
+		for (;;) {
+			int s = size.get();
+			if (s >= capacity) {
+				return false;
+			}
+			if (size.compareAndSet(s, s + 1)) {
+				return true;
+			}
+		}
+	}
+
+	/*
+	 * Replaces the value of the target's last queued entry if that entry takes coalesced values and has not been taken
+	 * by the writer yet. Otherwise a new entry of this kind is queued beyond the capacity of the queue, at most one per
+	 * storage and queued value. Coalesced values thus stay behind the older values of the same storage in the queue.
+	 */
+	private void coalesce(DefaultRecordedData target, SampledValue value) {
+		for (;;) {
+			Entry e = target.coalescing.get();
+			if (e != null && e.replace(value)) {
+				merged.incrementAndGet();
+				return;
+			}
+			Entry n = new Entry(target, value, System.nanoTime());
+			if (target.coalescing.compareAndSet(e, n)) {
+				size.incrementAndGet();
+				target.pendingWrites.incrementAndGet();
+				queue.add(n);
+				wakeWriter();
+				return;
+			}
+		}
+	}
+
+	private void wakeWriter() {
+		LockSupport.unpark(writer);
+	}
+
+	/**
+	 * Waits until all values queued for the given recorded data have been written.
+	 */
+	void awaitWritten(DefaultRecordedData target) {
+		if (target.pendingWrites.get() == 0 || Thread.currentThread() == writer) {
+			return;
+		}
+		waitingReaders.incrementAndGet();
+		try {
+			wakeWriter();
+			synchronized (writtenLock) {
+				while (target.pendingWrites.get() > 0 && writer.isAlive()) {
+					writtenLock.wait(READ_WAIT_MILLIS);
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			waitingReaders.decrementAndGet();
+		}
+	}
+
+	private void runWriter() {
+		while (running || size.get() > 0) {
+			try {
+				if (!writeBatch()) {
+					idle = true;
+					if (queue.isEmpty() && running) {
+						LockSupport.parkNanos(IDLE_WAIT_NANOS);
+					}
+					idle = false;
+				}
+			} catch (RuntimeException e) {
+				logger.error("writing recorded data failed", e);
+			}
+		}
+	}
+
+	/*
+	 * Writes the values queued at the start of the batch, grouped by storage. Returns false if there was nothing to
+	 * write.
+	 */
+	private boolean writeBatch() {
+		Map<DefaultRecordedData, List<SampledValue>> batch = new LinkedHashMap<>();
+		long oldest = 0;
+		int count = 0;
+		Entry e;
+		while (count < MAX_BATCH_SIZE && (e = queue.poll()) != null) {
+			size.decrementAndGet();
+			if (count++ == 0) {
+				oldest = e.enqueued;
+			}
+			List<SampledValue> values = batch.get(e.target);
+			if (values == null) {
+				values = new ArrayList<>();
+				batch.put(e.target, values);
+			}
+			values.add(e.take());
+		}
+		if (batch.isEmpty()) {
+			return false;
+		}
+		for (Map.Entry<DefaultRecordedData, List<SampledValue>> b : batch.entrySet()) {
+			List<SampledValue> values = b.getValue();
+			if (values.size() > 1) {
+				Collections.sort(values);
+			}
+			try {
+				b.getKey().write(values);
+			} finally {
+				b.getKey().pendingWrites.addAndGet(-values.size());
+				written.addAndGet(values.size());
+			}
+		}
+		if (count > 0) {
+			long lag = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - oldest);
+			lastWriteLag = lag;
+			if (lag > maxWriteLag) {
+				maxWriteLag = lag;
+			}
+		}
+		if (waitingReaders.get() > 0) {
+			synchronized (writtenLock) {
+				writtenLock.notifyAll();
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Writes all queued values and stops the writer thread. Values added afterwards are written directly.
+	 */
+	public void close() {
+		running = false;
+		wakeWriter();
+		try {
+			writer.join(TimeUnit.SECONDS.toMillis(10));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		if (writer.isAlive()) {
+			logger.warn("recorded data writer did not finish, {} values not written", size.get());
+		}
+	}
+
+	/**
+	 * @return number of values currently waiting to be written.
+	 */
+	public int getQueueSize() {
+		return size.get();
+	}
+
+	/**
+	 * @return number of values written by the writer thread.
+	 */
+	public long getWrittenValueCount() {
+		return written.get();
+	}
+
+	/**
+	 * @return number of values discarded by {@link OverflowPolicy#DROP_OLDEST}.
+	 */
+	public long getDroppedValueCount() {
+		return dropped.get();
+	}
+
+	/**
+	 * @return number of values replaced by a newer value by {@link OverflowPolicy#COALESCE}.
+	 */
+	public long getCoalescedValueCount() {
+		return merged.get();
+	}
+
+	/**
+	 * @return time in ms the oldest value of the last batch waited in the queue.
+	 */
+	public long getLastWriteLag() {
+		return lastWriteLag;
+	}
+
+	/**
+	 * @return maximum time in ms a value waited in the queue.
+	 */
+	public long getMaxWriteLag() {
+		return maxWriteLag;
+	}
+
+	static final class Entry {
+
+		private static final AtomicReferenceFieldUpdater<Entry, SampledValue> VALUE = AtomicReferenceFieldUpdater
+				.newUpdater(Entry.class, SampledValue.class, "value");
+
+		final DefaultRecordedData target;
+		final long enqueued;
+		private volatile SampledValue value;
+
+		Entry(DefaultRecordedData target, SampledValue value, long enqueued) {
+			this.target = target;
+			this.value = value;
+			this.enqueued = enqueued;
+		}
+
+		/*
+		 * fails once the writer has taken the value
+		 */
+		boolean replace(SampledValue newValue) {
+			for (;;) {
+				SampledValue v = value;
+				if (v == null) {
+					return false;
+				}
+				if (VALUE.compareAndSet(this, v, newValue)) {
+					return true;
+				}
+			}
+		}
+
+		SampledValue take() {
+			return VALUE.getAndSet(this, null);
+		}
+	}
+
+}
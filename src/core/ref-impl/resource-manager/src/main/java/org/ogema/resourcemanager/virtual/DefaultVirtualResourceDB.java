@@ -150,6 +150,16 @@ public class DefaultVirtualResourceDB implements VirtualResourceDB {
         return rval;
     }
 
+    @Override
+    public Collection<TreeElement> getElementsByType(Class<? extends Resource> type) {
+        Collection<TreeElement> real = realResources.getElementsByType(type);
+        Collection<TreeElement> rval = new ArrayList<>(real.size());
+        for (TreeElement e : real) {
+            rval.add(getElement(e));
+        }
+        return rval;
+    }
+
     @Override
     public void startTransaction() {
         realResources.startTransaction();
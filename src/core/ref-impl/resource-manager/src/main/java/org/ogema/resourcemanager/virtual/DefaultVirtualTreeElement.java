@@ -483,6 +483,11 @@ public class DefaultVirtualTreeElement implements VirtualTreeElement {
 		return el.getLastModified();
 	}
 
+	@Override
+	public long getModificationCount() {
+		return el.getModificationCount();
+	}
+
 	@Override
 	public String getLocation() {
 		// TODO Auto-generated method stub
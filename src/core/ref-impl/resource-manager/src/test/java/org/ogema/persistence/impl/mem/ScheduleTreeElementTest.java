@@ -0,0 +1,143 @@
+/**
+ * This file is part of OGEMA.
+ *
+ * OGEMA is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3
+ * as published by the Free Software Foundation.
+ *
+ * OGEMA is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with OGEMA. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.ogema.persistence.impl.mem;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.Test;
+import org.ogema.core.channelmanager.measurements.FloatValue;
+import org.ogema.core.channelmanager.measurements.Quality;
+import org.ogema.core.channelmanager.measurements.SampledValue;
+import org.ogema.core.channelmanager.measurements.StringValue;
+import org.ogema.core.channelmanager.measurements.Value;
+import org.ogema.core.model.Resource;
+import org.ogema.core.model.schedule.AbsoluteSchedule;
+import org.ogema.core.model.simple.FloatResource;
+import org.ogema.core.model.simple.StringResource;
+import org.ogema.persistence.impl.faketree.ScheduleTreeElement;
+import org.ogema.resourcetree.TreeElement;
+
+/**
+ * Tests that the data written by a ScheduleTreeElement is read back correctly
+ * by a new ScheduleTreeElement on the same tree element.
+ */
+public class ScheduleTreeElementTest extends TestBase {
+
+	private TreeElement createScheduleElement(Class<? extends Resource> parentType) throws Exception {
+		db.addOrUpdateResourceType(parentType);
+		final TreeElement parent = db.addResource(resname(), parentType, getAppId());
+		return parent.addChild("testSchedule", AbsoluteSchedule.class, true);
+	}
+
+	private static void assertSameValues(List<SampledValue> expected, List<SampledValue> actual) {
+		assertEquals(expected.size(), actual.size());
+		for (int i = 0; i < expected.size(); ++i) {
+			assertEquals(expected.get(i).getTimestamp(), actual.get(i).getTimestamp());
+			assertEquals(expected.get(i).getQuality(), actual.get(i).getQuality());
+			assertEquals(expected.get(i).getValue().getStringValue(), actual.get(i).getValue().getStringValue());
+		}
+	}
+
+	@Test
+	public void appendedValuesAreReloaded() throws Exception {
+		final TreeElement element = createScheduleElement(FloatResource.class);
+		final ScheduleTreeElement schedule = new ScheduleTreeElement(element);
+		for (int i = 0; i < 100; ++i) {
+			schedule.addValue(i * 10, new FloatValue(i));
+		}
+		schedule.addValues(Arrays.asList(new SampledValue(new FloatValue(-1.f), -5, Quality.BAD), new SampledValue(
+				new FloatValue(2000.f), 2000, Quality.GOOD)));
+		assertEquals(102, schedule.getValues(Long.MIN_VALUE).size());
+		assertSameValues(schedule.getValues(Long.MIN_VALUE), new ScheduleTreeElement(element)
+				.getValues(Long.MIN_VALUE));
+	}
+
+	@Test
+	public void persistedArraysHaveTheSizeOfTheSchedule() throws Exception {
+		final TreeElement element = createScheduleElement(FloatResource.class);
+		final ScheduleTreeElement schedule = new ScheduleTreeElement(element);
+		final TreeElement data = element.getChild(ScheduleTreeElement.OWN_NAME);
+		for (int i = 0; i < 100; ++i) {
+			schedule.addValue(i * 10, new FloatValue(i));
+			assertEquals(i + 1, data.getChild(ScheduleTreeElement.TIME_NAME).getData().getArrayLength());
+			assertEquals(i + 1, data.getChild(ScheduleTreeElement.QUALITY_NAME).getData().getArrayLength());
+			assertEquals(i + 1, data.getChild(ScheduleTreeElement.VALUE_NAME).getData().getArrayLength());
+		}
+		schedule.deleteValues(500);
+		assertEquals(50, data.getChild(ScheduleTreeElement.TIME_NAME).getData().getArrayLength());
+		assertEquals(50, data.getChild(ScheduleTreeElement.VALUE_NAME).getData().getArrayLength());
+	}
+
+	@Test
+	public void replacedAndDeletedValuesAreReloaded() throws Exception {
+		final TreeElement element = createScheduleElement(FloatResource.class);
+		final ScheduleTreeElement schedule = new ScheduleTreeElement(element);
+		final List<Value> values = new ArrayList<>();
+		for (int i = 0; i < 100; ++i) {
+			values.add(new FloatValue(i));
+		}
+		schedule.replaceValuesFixedStep(0, values, 10);
+		schedule.replaceValuesFixedStep(500, values.subList(0, 5), 1);
+		schedule.deleteValues(200, 300);
+		schedule.replaceValues(800, 900, Arrays.asList(new SampledValue(new FloatValue(42.f), 850, Quality.GOOD)));
+		assertSameValues(schedule.getValues(Long.MIN_VALUE), new ScheduleTreeElement(element)
+				.getValues(Long.MIN_VALUE));
+
+		// shrinking the schedule must not leave stale entries behind
+		schedule.deleteValues(950);
+		assertEquals(5, schedule.getValues(Long.MIN_VALUE).size());
+		assertSameValues(schedule.getValues(Long.MIN_VALUE), new ScheduleTreeElement(element)
+				.getValues(Long.MIN_VALUE));
+		schedule.deleteValues();
+		assertTrue(new ScheduleTreeElement(element).getValues(Long.MIN_VALUE).isEmpty());
+	}
+
+	@Test
+	public void stringValuesAreReloaded() throws Exception {
+		final TreeElement element = createScheduleElement(StringResource.class);
+		final ScheduleTreeElement schedule = new ScheduleTreeElement(element);
+		for (int i = 0; i < 20; ++i) {
+			schedule.addValue(i, new StringValue("value" + i));
+		}
+		schedule.deleteValues(5, 20);
+		assertSameValues(schedule.getValues(Long.MIN_VALUE), new ScheduleTreeElement(element)
+				.getValues(Long.MIN_VALUE));
+	}
+
+	@Test
+	public void iteratorReturnsValuesOfInterval() throws Exception {
+		final TreeElement element = createScheduleElement(FloatResource.class);
+		final ScheduleTreeElement schedule = new ScheduleTreeElement(element);
+		for (int i = 0; i < 100; ++i) {
+			schedule.addValue(i * 10, new FloatValue(i));
+		}
+		final List<SampledValue> values = new ArrayList<>();
+		final Iterator<SampledValue> it = schedule.iterator(95, 200);
+		while (it.hasNext()) {
+			final SampledValue value = it.next();
+			values.add(value);
+			// concurrent modifications do not affect the iteration
+			schedule.deleteValues(value.getTimestamp() + 1, value.getTimestamp() + 2);
+		}
+		assertSameValues(schedule.getValues(95, 200), values);
+		assertFalse(schedule.iterator(200, 200).hasNext());
+	}
+}
@@ -0,0 +1,118 @@
+/**
+ * This file is part of OGEMA.
+ *
+ * OGEMA is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3
+ * as published by the Free Software Foundation.
+ *
+ * OGEMA is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with OGEMA. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.ogema.resourcemanager.impl;
+
+import static org.junit.Assert.*;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.FutureTask;
+
+import org.junit.Test;
+import org.ogema.core.application.ApplicationManager;
+import org.ogema.core.model.Resource;
+import org.ogema.core.resourcemanager.ResourceValueListener;
+
+public class ValueEventQueueTest {
+
+	final List<Callable<?>> submittedEvents = new ArrayList<>();
+	boolean rejectEvents = false;
+
+	final ApplicationManager appMan = (ApplicationManager) Proxy.newProxyInstance(getClass().getClassLoader(),
+			new Class<?>[] { ApplicationManager.class }, new InvocationHandler() {
+
+				@Override
+				@SuppressWarnings({ "unchecked", "rawtypes" })
+				public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+					if (method.getName().equals("submitEvent")) {
+						if (rejectEvents) {
+							return null;
+						}
+						submittedEvents.add((Callable<?>) args[0]);
+						return new FutureTask((Callable) args[0]);
+					}
+					if (method.getName().equals("reportException")) {
+						fail("unexpected exception: " + args[0]);
+					}
+					return null;
+				}
+			});
+
+	static class CountingListener implements ResourceValueListener<Resource> {
+
+		int calls = 0;
+
+		@Override
+		public void resourceChanged(Resource resource) {
+			calls++;
+		}
+	}
+
+	private void runSubmittedEvents() throws Exception {
+		List<Callable<?>> events = new ArrayList<>(submittedEvents);
+		submittedEvents.clear();
+		for (Callable<?> c : events) {
+			c.call();
+		}
+	}
+
+	@Test
+	public void pendingEventsAreMergedAndDeliveredInOneBatch() throws Exception {
+		ValueEventQueue queue = new ValueEventQueue(appMan);
+		CountingListener l1 = new CountingListener();
+		CountingListener l2 = new CountingListener();
+		ValueListenerRegistration reg1 = new ValueListenerRegistration(null, l1, true);
+		ValueListenerRegistration reg2 = new ValueListenerRegistration(null, l2, true);
+
+		queue.add(reg1, null);
+		queue.add(reg1, null);
+		queue.add(reg2, null);
+		queue.add(reg1, null);
+		assertEquals("one application event per batch", 1, submittedEvents.size());
+		assertEquals(2, queue.getQueuedEventCount());
+		assertEquals(2, queue.getMergedEventCount());
+
+		runSubmittedEvents();
+		assertEquals(1, l1.calls);
+		assertEquals(1, l2.calls);
+
+		// after delivery, new changes cause new callbacks
+		queue.add(reg1, null);
+		assertEquals(1, submittedEvents.size());
+		runSubmittedEvents();
+		assertEquals(2, l1.calls);
+		assertEquals(3, queue.getQueuedEventCount());
+	}
+
+	@Test
+	public void eventsRejectedByTheApplicationAreDropped() throws Exception {
+		ValueEventQueue queue = new ValueEventQueue(appMan);
+		CountingListener l = new CountingListener();
+		ValueListenerRegistration reg = new ValueListenerRegistration(null, l, true);
+		rejectEvents = true;
+		queue.add(reg, null);
+		assertEquals(1, queue.getDroppedEventCount());
+		rejectEvents = false;
+		queue.add(reg, null);
+		runSubmittedEvents();
+		assertEquals(1, l.calls);
+	}
+
+}
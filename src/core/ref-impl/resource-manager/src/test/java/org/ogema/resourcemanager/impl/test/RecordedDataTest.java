@@ -267,6 +267,43 @@ public class RecordedDataTest extends OsgiAppTestBase {
 
 	}
 
+	@Test
+	public void fixedIntervalUpdatesWorkForResourcesSharingAnInterval() throws Exception {
+		ResourceManagement resman = getApplicationManager().getResourceManagement();
+		RecordedDataConfiguration conf = new RecordedDataConfiguration();
+		conf.setFixedInterval(20);
+		conf.setStorageType(RecordedDataConfiguration.StorageType.FIXED_INTERVAL);
+
+		List<RecordedData> rds = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			SolarIrradiationSensor sens = resman.createResource(newResourceName(), SolarIrradiationSensor.class);
+			sens.reading().create();
+			sens.reading().setValue(i);
+			sens.activate(true);
+			RecordedData rd = sens.reading().getHistoricalData();
+			rd.setConfiguration(conf);
+			rds.add(rd);
+		}
+		// changing the interval of one moves it to a timer of its own
+		RecordedDataConfiguration slowConf = new RecordedDataConfiguration();
+		slowConf.setFixedInterval(200);
+		slowConf.setStorageType(RecordedDataConfiguration.StorageType.FIXED_INTERVAL);
+		rds.get(2).setConfiguration(slowConf);
+
+		Thread.sleep(1500);
+
+		for (int i = 0; i < rds.size(); i++) {
+			List<SampledValue> values = rds.get(i).getValues(0);
+			assertFalse("recorded data is empty", values.isEmpty());
+			for (SampledValue sv : values) {
+				Assert.assertEquals(i, sv.getValue().getFloatValue(), 0.1f);
+			}
+		}
+		assertTrue(rds.get(0).getValues(0).size() > 50);
+		assertTrue(rds.get(1).getValues(0).size() > 50);
+		assertTrue(rds.get(2).getValues(0).size() < 50);
+	}
+
 	@Test
 	public void testRecordedDataAccess() throws Exception {
 		RecordedDataStorage rds = createRecordedDataStorage();
@@ -15,7 +15,11 @@
  */
 package org.ogema.resourcemanager.impl.test;
 
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.Assert.*;
 
@@ -33,6 +37,7 @@ import org.ogema.model.actors.OnOffSwitch;
 import org.ogema.model.devices.generators.ElectricHeater;
 import org.ogema.model.locations.PhysicalDimensions;
 import org.ogema.model.time.CalendarEntry;
+import org.ogema.resourcemanager.impl.ResourceBase;
 import org.ops4j.pax.exam.spi.reactors.ExamReactorStrategy;
 import org.ops4j.pax.exam.spi.reactors.PerClass;
 
@@ -428,4 +433,146 @@ public class ReferenceTest extends OsgiTestBase {
 		ResourceAssertions.assertDeleted(room.getSubResource("x2", StringResource.class));
 
 	}
+
+	/*
+	 * the revisions of the toplevel resources a resource object has resolved its path through, replaced
+	 * whenever the path is resolved again.
+	 */
+	private static Object getPathRevision(Resource resource) throws Exception {
+		Object impl = Proxy.isProxyClass(resource.getClass()) ? Proxy.getInvocationHandler(resource) : resource;
+		Field f = ResourceBase.class.getDeclaredField("pathRevision");
+		f.setAccessible(true);
+		return f.get(impl);
+	}
+
+	@Test
+	public void existingResourceObjectFollowsRetargetedReference() {
+		OnOffSwitch sw1 = resMan.createResource(newResourceName(), OnOffSwitch.class);
+		OnOffSwitch sw2 = resMan.createResource(newResourceName(), OnOffSwitch.class);
+		OnOffSwitch sw3 = resMan.createResource(newResourceName(), OnOffSwitch.class);
+		sw2.settings().setpoint().create();
+		sw3.settings().setpoint().create();
+		sw1.settings().setAsReference(sw2.settings());
+		Resource setpoint = sw1.settings().setpoint();
+		assertTrue(setpoint.equalsLocation(sw2.settings().setpoint()));
+
+		sw1.settings().setAsReference(sw3.settings());
+		assertTrue(setpoint.equalsLocation(sw3.settings().setpoint()));
+		sw1.delete();
+		sw2.delete();
+		sw3.delete();
+	}
+
+	/*
+	 * decorators added as references to references are not flattened, so a path may run through a chain
+	 * sw1/x -> sw2/settings -> sw3/settings; changing the reference in the middle must be noticed.
+	 */
+	@Test
+	public void existingResourceObjectFollowsRetargetedReferenceInChain() {
+		OnOffSwitch sw1 = resMan.createResource(newResourceName(), OnOffSwitch.class);
+		OnOffSwitch sw2 = resMan.createResource(newResourceName(), OnOffSwitch.class);
+		OnOffSwitch sw3 = resMan.createResource(newResourceName(), OnOffSwitch.class);
+		OnOffSwitch sw4 = resMan.createResource(newResourceName(), OnOffSwitch.class);
+		sw3.settings().setpoint().create();
+		sw4.settings().setpoint().create();
+		sw2.settings().setAsReference(sw3.settings());
+		Resource setpoint = sw1.addDecorator("x", sw2.settings()).getSubResource("setpoint");
+		assertTrue(setpoint.equalsLocation(sw3.settings().setpoint()));
+
+		sw2.settings().setAsReference(sw4.settings());
+		assertTrue(setpoint.equalsLocation(sw4.settings().setpoint()));
+		sw1.delete();
+		sw2.delete();
+		sw3.delete();
+		sw4.delete();
+	}
+
+	@Test
+	public void existingResourceObjectNoticesDeletionOfReferencedToplevel() {
+		Room room = resMan.createResource(newResourceName(), Room.class);
+		StringResource name = resMan.createResource(newResourceName(), StringResource.class);
+		room.name().setAsReference(name);
+		StringResource roomName = room.name();
+		assertTrue(roomName.exists());
+		assertTrue(roomName.isReference(false));
+
+		name.delete();
+		assertFalse(roomName.exists());
+		assertFalse(roomName.isReference(false));
+		room.delete();
+	}
+
+	@Test
+	public void changesOfUnrelatedToplevelsDoNotResolvePathAgain() throws Exception {
+		OnOffSwitch sw1 = resMan.createResource(newResourceName(), OnOffSwitch.class);
+		OnOffSwitch sw2 = resMan.createResource(newResourceName(), OnOffSwitch.class);
+		sw2.heatCapacity().create();
+		sw1.heatCapacity().setAsReference(sw2.heatCapacity());
+		FloatResource heatCapacity = sw1.heatCapacity();
+		assertTrue(heatCapacity.exists());
+		Object revision = getPathRevision(heatCapacity);
+
+		OnOffSwitch unrelated = resMan.createResource(newResourceName(), OnOffSwitch.class);
+		OnOffSwitch unrelated2 = resMan.createResource(newResourceName(), OnOffSwitch.class);
+		unrelated2.heatCapacity().create();
+		unrelated.heatCapacity().setAsReference(unrelated2.heatCapacity());
+		unrelated.heatCapacity().delete();
+		unrelated.delete();
+		unrelated2.delete();
+
+		assertTrue(heatCapacity.equalsLocation(sw2.heatCapacity()));
+		assertSame(revision, getPathRevision(heatCapacity));
+
+		sw2.heatCapacity().delete();
+		assertFalse(heatCapacity.exists());
+		assertNotSame(revision, getPathRevision(heatCapacity));
+		sw1.delete();
+		sw2.delete();
+	}
+
+	/*
+	 * the revision counters of the toplevel resources, kept by the database manager.
+	 */
+	private static Map<?, ?> getRevisionCounters(Resource resource) throws Exception {
+		Object impl = Proxy.isProxyClass(resource.getClass()) ? Proxy.getInvocationHandler(resource) : resource;
+		Field f = ResourceBase.class.getDeclaredField("resMan");
+		f.setAccessible(true);
+		Object appResMan = f.get(impl);
+		Method m = appResMan.getClass().getDeclaredMethod("getDatabaseManager");
+		m.setAccessible(true);
+		Object dbMan = m.invoke(appResMan);
+		f = dbMan.getClass().getDeclaredField("revisionCounters");
+		f.setAccessible(true);
+		return (Map<?, ?>) f.get(dbMan);
+	}
+
+	@Test
+	public void deletingAToplevelRemovesItsRevisionCounter() throws Exception {
+		Room room = resMan.createResource(newResourceName(), Room.class);
+		StringResource name = resMan.createResource(newResourceName(), StringResource.class);
+		String roomToplevel = room.getName();
+		String nameToplevel = name.getName();
+		room.name().setAsReference(name);
+		StringResource roomName = room.name();
+		assertTrue(roomName.exists());
+		Map<?, ?> counters = getRevisionCounters(room);
+		assertTrue(counters.containsKey(nameToplevel));
+
+		name.delete();
+		assertFalse(counters.containsKey(nameToplevel));
+		assertFalse(roomName.exists());
+		assertFalse(name.exists());
+		assertFalse(counters.containsKey(nameToplevel));
+
+		StringResource recreated = resMan.createResource(nameToplevel, StringResource.class);
+		assertTrue(name.exists());
+		room.name().setAsReference(recreated);
+		assertTrue(roomName.exists());
+		assertTrue(roomName.equalsLocation(recreated));
+
+		room.delete();
+		assertFalse(counters.containsKey(roomToplevel));
+		recreated.delete();
+		assertFalse(counters.containsKey(nameToplevel));
+	}
 }
@@ -195,6 +195,36 @@ public class ResourceDemandTest extends OsgiTestBase {
 		assertTrue("unavailable not called", l.awaitUnavailable());
 	}
 
+	@Test
+	public void listenersForSuperTypesAddedLaterReceiveCallbacks() throws InterruptedException {
+		DemandTestListener<TemperatureSensor> l1 = new DemandTestListener<>();
+		resAcc.addResourceDemand(TemperatureSensor.class, l1);
+		TemperatureSensor res1 = resMan.createResource(newResourceName(), TemperatureSensor.class);
+		l1.setExpectedResource(res1);
+		res1.activate(false);
+		assertTrue("available not called", l1.awaitAvailable());
+
+		// listeners for the same concrete type have been dispatched before, new registrations must be seen anyway
+		DemandTestListener<Sensor> l2 = new DemandTestListener<Sensor>(res1);
+		resAcc.addResourceDemand(Sensor.class, l2);
+		assertTrue("available not called for existing resource", l2.awaitAvailable());
+		TemperatureSensor res2 = resMan.createResource(newResourceName(), TemperatureSensor.class);
+		l1.reset();
+		l2.reset();
+		l1.setExpectedResource(res2);
+		l2.setExpectedResource(res2);
+		res2.activate(false);
+		assertTrue("available not called", l1.awaitAvailable());
+		assertTrue("available not called", l2.awaitAvailable());
+
+		resAcc.removeResourceDemand(Sensor.class, l2);
+		l2.reset();
+		res2.deactivate(false);
+		assertTrue("unavailable not called", l1.awaitUnavailable());
+		assertFalse("unregistered listener called", l2.awaitUnavailable(1, TimeUnit.SECONDS));
+		resAcc.removeResourceDemand(TemperatureSensor.class, l1);
+	}
+
 	@Test
 	public void deletingAReportedResourceCausesResourceUnavailabeCallback() throws InterruptedException {
 		DemandTestListener<OnOffSwitch> l = new DemandTestListener<>();
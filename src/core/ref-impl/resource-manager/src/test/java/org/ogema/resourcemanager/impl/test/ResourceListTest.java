@@ -22,6 +22,7 @@ import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 import static org.junit.Assert.*;
@@ -281,6 +282,24 @@ public class ResourceListTest extends OsgiTestBase {
 		assertFalse(wps.getAllElements().contains(el));
 	}
 
+	@Test
+	public void removeDeletesAllReferences() {
+		ResourceList<WorkPlace> wps = createTestResource();
+		WorkPlace direct = wps.add();
+		WorkPlace target = resMan.createResource(newResourceName(), WorkPlace.class);
+		wps.add(target);
+		wps.add(target);
+		assertEquals(3, wps.size());
+		assertTrue(wps.contains(target));
+		assertTrue(wps.contains(wps.getAllElements().get(1)));
+
+		wps.remove(target);
+		assertEquals(1, wps.size());
+		assertFalse(wps.contains(target));
+		assertTrue(wps.contains(direct));
+		assertTrue(target.exists());
+	}
+
 	@Test
 	public void deleteOnElementWorks() {
 		room = resMan.createResource(newResourceName(), Room.class);
@@ -358,6 +377,80 @@ public class ResourceListTest extends OsgiTestBase {
         }
     }
 
+	@Test
+	public void addAllAddsReferencesInOrder() {
+		@SuppressWarnings("unchecked")
+		ResourceList<StringResource> strings = resMan.createResource(newResourceName(), ResourceList.class);
+		strings.setElementType(StringResource.class);
+		strings.add().setValue("0");
+
+		List<StringResource> references = new ArrayList<>();
+		for (int i = 1; i <= 3; i++) {
+			StringResource sv = resMan.createResource(newResourceName(), StringResource.class);
+			sv.setValue(Integer.toString(i));
+			references.add(sv);
+		}
+		strings.addAll(references);
+
+		assertEquals(4, strings.size());
+		List<StringResource> elements = strings.getAllElements();
+		for (int i = 0; i < elements.size(); i++) {
+			assertEquals(Integer.toString(i), elements.get(i).getValue());
+		}
+		assertTrue(strings.contains(references.get(1)));
+
+		strings.remove(elements.get(2));
+		assertEquals(3, strings.size());
+		assertFalse(strings.contains(references.get(1)));
+		strings.add().setValue("4");
+		assertEquals("4", strings.getAllElements().get(3).getValue());
+	}
+
+	@Test
+	public void sizeAndOrderAreKeptWhileTheListGrows() {
+		@SuppressWarnings("unchecked")
+		ResourceList<StringResource> strings = resMan.createResource(newResourceName(), ResourceList.class);
+		strings.setElementType(StringResource.class);
+		List<String> values = new ArrayList<>();
+		for (int i = 0; i < 50; i++) {
+			values.add(Integer.toString(i));
+			strings.add().setValue(Integer.toString(i));
+			assertEquals(i + 1, strings.size());
+		}
+		strings.getAllElements().get(10).delete();
+		values.remove(10);
+		List<StringResource> elements = strings.getAllElements();
+		assertEquals(values.size(), strings.size());
+		for (int i = 0; i < elements.size(); i++) {
+			assertEquals(values.get(i), elements.get(i).getValue());
+		}
+		StringResource sv = resMan.createResource(newResourceName(), StringResource.class);
+		sv.setValue("50");
+		strings.addAll(Collections.singletonList(sv));
+		strings.add().setValue("51");
+		values.add("50");
+		values.add("51");
+		elements = strings.getAllElements();
+		assertEquals(values.size(), elements.size());
+		for (int i = 0; i < elements.size(); i++) {
+			assertEquals(values.get(i), elements.get(i).getValue());
+		}
+		assertTrue(strings.contains(sv));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void addAllChecksElementTypes() {
+		ResourceList<WorkPlace> wps = createTestResource();
+		@SuppressWarnings({ "unchecked", "rawtypes" })
+		List<WorkPlace> references = (List) Arrays.asList(resMan.createResource(newResourceName(), WorkPlace.class),
+				resMan.createResource(newResourceName(), Room.class));
+		try {
+			wps.addAll(references);
+		} finally {
+			assertEquals(0, wps.size());
+		}
+	}
+
 	@Test
 	public void addingReferencesWithSameNameWorks() {
 		OnOffSwitch sw1 = resMan.createResource(newResourceName(), OnOffSwitch.class);
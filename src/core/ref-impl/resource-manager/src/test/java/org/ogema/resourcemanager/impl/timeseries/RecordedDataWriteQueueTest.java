@@ -0,0 +1,255 @@
+/**
+ * This file is part of OGEMA.
+ *
+ * OGEMA is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3
+ * as published by the Free Software Foundation.
+ *
+ * OGEMA is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with OGEMA. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.ogema.resourcemanager.impl.timeseries;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.ogema.core.channelmanager.measurements.FloatValue;
+import org.ogema.core.channelmanager.measurements.Quality;
+import org.ogema.core.channelmanager.measurements.SampledValue;
+import org.ogema.recordeddata.DataRecorder;
+import org.ogema.resourcemanager.impl.timeseries.RecordedDataWriteQueue.OverflowPolicy;
+import org.ogema.resourcetree.TreeElement;
+import org.ogema.timer.TimerScheduler;
+
+/**
+ * Tests ordering and overflow handling of the {@link RecordedDataWriteQueue}, using recorded data which write into a
+ * list instead of a storage.
+ */
+public class RecordedDataWriteQueueTest {
+
+	@SuppressWarnings("unchecked")
+	private static <T> T stub(Class<T> type, final String name) {
+		return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, new InvocationHandler() {
+
+			@Override
+			public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+				switch (method.getName()) {
+				case "getName":
+				case "toString":
+					return name;
+				case "hashCode":
+					return System.identityHashCode(proxy);
+				case "equals":
+					return proxy == args[0];
+				default:
+					return null;
+				}
+			}
+		});
+	}
+
+	/*
+	 * Recorded data whose first write blocks until released, so that the queue fills up.
+	 */
+	private static class ListRecordedData extends DefaultRecordedData {
+
+		final List<SampledValue> written = Collections.synchronizedList(new ArrayList<SampledValue>());
+		final CountDownLatch writing = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+
+		ListRecordedData(String name, RecordedDataWriteQueue queue) {
+			super(stub(DataRecorder.class, "recorder"), stub(TimerScheduler.class, "scheduler"), new Executor() {
+
+				@Override
+				public void execute(Runnable command) {
+					command.run();
+				}
+			}, new FixedIntervalLogScheduler(null, null, null), queue, stub(TreeElement.class, name));
+		}
+
+		@Override
+		void write(List<SampledValue> values) {
+			writing.countDown();
+			try {
+				release.await(5, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				throw new RuntimeException(e);
+			}
+			written.addAll(values);
+		}
+	}
+
+	private static SampledValue value(long t) {
+		return new SampledValue(new FloatValue(t), t, Quality.GOOD);
+	}
+
+	private static void assertTimestamps(List<SampledValue> values, long... expected) {
+		assertEquals(expected.length, values.size());
+		for (int i = 0; i < expected.length; i++) {
+			assertEquals(expected[i], values.get(i).getTimestamp());
+		}
+	}
+
+	@Test
+	public void readersSeeAllQueuedValues() throws Exception {
+		RecordedDataWriteQueue queue = new RecordedDataWriteQueue(100, OverflowPolicy.BLOCK);
+		try {
+			ListRecordedData a = new ListRecordedData("a", queue);
+			ListRecordedData b = new ListRecordedData("b", queue);
+			a.release.countDown();
+			b.release.countDown();
+			for (int i = 0; i < 1000; i++) {
+				queue.add(i % 2 == 0 ? a : b, value(i));
+			}
+			queue.awaitWritten(a);
+			queue.awaitWritten(b);
+			assertEquals(500, a.written.size());
+			assertEquals(500, b.written.size());
+			for (int i = 0; i < 500; i++) {
+				assertEquals(2 * i, a.written.get(i).getTimestamp());
+				assertEquals(2 * i + 1, b.written.get(i).getTimestamp());
+			}
+			assertEquals(1000, queue.getWrittenValueCount());
+			assertEquals(0, queue.getQueueSize());
+		} finally {
+			queue.close();
+		}
+	}
+
+	@Test
+	public void dropOldestDiscardsOldestQueuedValue() throws Exception {
+		RecordedDataWriteQueue queue = new RecordedDataWriteQueue(2, OverflowPolicy.DROP_OLDEST);
+		try {
+			ListRecordedData a = new ListRecordedData("a", queue);
+			queue.add(a, value(1));
+			assertTrue(a.writing.await(5, TimeUnit.SECONDS));
+			queue.add(a, value(2));
+			queue.add(a, value(3));
+			queue.add(a, value(4));
+			assertEquals(2, queue.getQueueSize());
+			a.release.countDown();
+			queue.awaitWritten(a);
+			assertTimestamps(a.written, 1, 3, 4);
+			assertEquals(1, queue.getDroppedValueCount());
+		} finally {
+			queue.close();
+		}
+	}
+
+	@Test
+	public void coalesceKeepsLatestValue() throws Exception {
+		RecordedDataWriteQueue queue = new RecordedDataWriteQueue(1, OverflowPolicy.COALESCE);
+		try {
+			ListRecordedData a = new ListRecordedData("a", queue);
+			queue.add(a, value(1));
+			assertTrue(a.writing.await(5, TimeUnit.SECONDS));
+			queue.add(a, value(2));
+			queue.add(a, value(3));
+			queue.add(a, value(4));
+			queue.add(a, value(5));
+			a.release.countDown();
+			queue.awaitWritten(a);
+			assertTimestamps(a.written, 1, 2, 5);
+			assertEquals(2, queue.getCoalescedValueCount());
+		} finally {
+			queue.close();
+		}
+	}
+
+	/*
+	 * the backlog of a single storage takes several batches, the coalesced value must be written after all of them
+	 */
+	@Test
+	public void coalescedValueIsWrittenAfterLongBacklog() throws Exception {
+		int capacity = 2500;
+		RecordedDataWriteQueue queue = new RecordedDataWriteQueue(capacity, OverflowPolicy.COALESCE);
+		try {
+			ListRecordedData a = new ListRecordedData("a", queue);
+			queue.add(a, value(0));
+			assertTrue(a.writing.await(5, TimeUnit.SECONDS));
+			for (int i = 1; i <= capacity + 10; i++) {
+				queue.add(a, value(i));
+			}
+			assertEquals(9, queue.getCoalescedValueCount());
+			a.release.countDown();
+			queue.awaitWritten(a);
+			assertEquals(capacity + 2, a.written.size());
+			for (int i = 0; i <= capacity; i++) {
+				assertEquals(i, a.written.get(i).getTimestamp());
+			}
+			assertEquals(capacity + 10, a.written.get(capacity + 1).getTimestamp());
+		} finally {
+			queue.close();
+		}
+	}
+
+	@Test
+	public void coalescedValueIsWrittenAfterValuesQueuedLater() throws Exception {
+		RecordedDataWriteQueue queue = new RecordedDataWriteQueue(1, OverflowPolicy.COALESCE);
+		try {
+			ListRecordedData a = new ListRecordedData("a", queue);
+			ListRecordedData b = new ListRecordedData("b", queue);
+			b.release.countDown();
+			queue.add(a, value(1));
+			assertTrue(a.writing.await(5, TimeUnit.SECONDS));
+			queue.add(b, value(2));
+			queue.add(a, value(3));
+			queue.add(b, value(4));
+			a.release.countDown();
+			queue.awaitWritten(a);
+			queue.awaitWritten(b);
+			assertTimestamps(a.written, 1, 3);
+			assertTimestamps(b.written, 2, 4);
+		} finally {
+			queue.close();
+		}
+	}
+
+	@Test
+	public void defaultPolicyDoesNotBlock() throws Exception {
+		RecordedDataWriteQueue queue = new RecordedDataWriteQueue();
+		try {
+			ListRecordedData a = new ListRecordedData("a", queue);
+			queue.add(a, value(0));
+			assertTrue(a.writing.await(5, TimeUnit.SECONDS));
+			// returns although the writer is stuck
+			for (int i = 1; i <= RecordedDataWriteQueue.DEFAULT_CAPACITY + 10; i++) {
+				queue.add(a, value(i));
+			}
+			a.release.countDown();
+			queue.awaitWritten(a);
+			assertEquals(RecordedDataWriteQueue.DEFAULT_CAPACITY + 10, a.written.get(a.written.size() - 1)
+					.getTimestamp());
+		} finally {
+			queue.close();
+		}
+	}
+
+	@Test
+	public void valuesAddedAfterCloseAreWrittenDirectly() throws Exception {
+		RecordedDataWriteQueue queue = new RecordedDataWriteQueue(10, OverflowPolicy.BLOCK);
+		ListRecordedData a = new ListRecordedData("a", queue);
+		a.release.countDown();
+		queue.add(a, value(1));
+		queue.close();
+		queue.add(a, value(2));
+		assertTimestamps(a.written, 1, 2);
+	}
+
+}
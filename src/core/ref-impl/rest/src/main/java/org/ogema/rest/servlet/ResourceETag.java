@@ -0,0 +1,120 @@
+/**
+ * This file is part of OGEMA.
+ *
+ * OGEMA is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3
+ * as published by the Free Software Foundation.
+ *
+ * OGEMA is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with OGEMA. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.ogema.rest.servlet;
+
+import java.security.SecureRandom;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.ogema.core.model.Resource;
+import org.ogema.core.model.ValueResource;
+import org.ogema.resourcetree.ModificationCountProvider;
+
+/**
+ * Computes entity tags for resource responses before the response is serialized. The tag is a hash over the
+ * structure of the resource subtree down to the requested depth (paths, locations, types, active states) and the
+ * modification counts of all resources in it. The counts change with every update of a resource, independent of the
+ * framework clock. They start at zero on every framework start, so the hash also includes a random number chosen at
+ * startup. Subresources of resources at the requested depth are included, but not descended into, since they appear
+ * in the response as links. Computing the tag thus walks the same part of the resource tree as the serialization,
+ * but reads no values.
+ */
+final class ResourceETag {
+
+	private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+	private static final long FNV_PRIME = 0x100000001b3L;
+	private static final long EPOCH = new SecureRandom().nextLong();
+
+	private long hash = FNV_OFFSET;
+	private final Set<String> visited = new HashSet<>();
+
+	private ResourceETag() {
+	}
+
+	/**
+	 * @param resource
+	 *            requested resource
+	 * @param depth
+	 *            requested depth of the resource tree in the response
+	 * @param variant
+	 *            all other request properties which affect the response body, e.g. content type and parameters
+	 * @return quoted entity tag for use in the ETag header.
+	 */
+	static String compute(Resource resource, int depth, String variant) {
+		ResourceETag tag = new ResourceETag();
+		tag.update(EPOCH);
+		tag.update(variant);
+		tag.visit(resource, depth);
+		return '"' + Long.toHexString(tag.hash) + '"';
+	}
+
+	/**
+	 * @param ifNoneMatch
+	 *            value of the If-None-Match request header, may be null
+	 * @return true if the header matches the entity tag.
+	 */
+	static boolean matches(String ifNoneMatch, String etag) {
+		if (ifNoneMatch == null) {
+			return false;
+		}
+		for (String tag : ifNoneMatch.split(",")) {
+			tag = tag.trim();
+			if (tag.startsWith("W/")) {
+				tag = tag.substring(2);
+			}
+			if (tag.equals("*") || tag.equals(etag)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void visit(Resource resource, int depth) {
+		update(resource.getPath());
+		update(resource.getLocation());
+		update(resource.getResourceType().getName());
+		update(resource.isActive() ? 1 : 0);
+		if (resource instanceof ModificationCountProvider) {
+			update(((ModificationCountProvider) resource).getModificationCount());
+		}
+		else if (resource instanceof ValueResource) {
+			update(((ValueResource) resource).getLastUpdateTime());
+		}
+		// subresources of resources that have already been visited are serialized as links
+		if (depth < 0 || !visited.add(resource.getLocation())) {
+			return;
+		}
+		for (Resource sub : resource.getSubResources(false)) {
+			visit(sub, depth - 1);
+		}
+	}
+
+	private void update(long value) {
+		for (int i = 0; i < 8; i++) {
+			hash = (hash ^ (value & 0xff)) * FNV_PRIME;
+			value >>>= 8;
+		}
+	}
+
+	private void update(String value) {
+		for (int i = 0; i < value.length(); i++) {
+			hash = (hash ^ value.charAt(i)) * FNV_PRIME;
+		}
+		// separator, so that consecutive strings cannot be shifted against each other
+		hash = (hash ^ 0xffff) * FNV_PRIME;
+	}
+
+}
@@ -16,12 +16,16 @@
 package org.ogema.rest.servlet;
 
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import org.ogema.core.model.Resource;
 import org.ogema.core.model.schedule.Schedule;
 import org.ogema.core.tools.SerializationManager;
+import org.ogema.tools.impl.SerializationManagerImpl;
 
 /**
  *
@@ -32,6 +36,11 @@ public final class ResourceWriters {
 	public interface ResourceWriter {
 		void write(Resource r, Writer w) throws IOException;
 
+		/**
+		 * Writes the resource to the stream using UTF-8 encoding.
+		 */
+		void write(Resource r, OutputStream out) throws IOException;
+
 		void writeSchedule(Schedule sched, long start, long end, Writer w) throws IOException;
 
 		String contentType();
@@ -86,6 +95,18 @@ public final class ResourceWriters {
 				sman.writeJson(w, r);
 			}
 
+			@Override
+			public void write(Resource r, OutputStream out) throws IOException {
+				if (sman instanceof SerializationManagerImpl) {
+					((SerializationManagerImpl) sman).writeJson(out, r);
+				}
+				else {
+					Writer w = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+					sman.writeJson(w, r);
+					w.flush();
+				}
+			}
+
 			@Override
 			public void writeSchedule(Schedule sched, long start, long end, Writer w) throws IOException {
 				sman.writeJson(w, sched, start, end);
@@ -106,6 +127,13 @@ public final class ResourceWriters {
 				sman.writeXml(w, r);
 			}
 
+			@Override
+			public void write(Resource r, OutputStream out) throws IOException {
+				Writer w = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+				sman.writeXml(w, r);
+				w.flush();
+			}
+
 			@Override
 			public void writeSchedule(Schedule sched, long start, long end, Writer w) throws IOException {
 				sman.writeXml(w, sched, start, end);
@@ -36,6 +36,7 @@ import org.ogema.core.tools.SerializationManager;
 import org.ogema.rest.RootResource;
 import org.ogema.rest.servlet.ResourceReaders.ResourceReader;
 import org.ogema.rest.servlet.ResourceWriters.ResourceWriter;
+import org.ogema.tools.impl.SerializationManagerImpl;
 import org.osgi.service.http.HttpService;
 import org.osgi.service.http.NamespaceException;
 
@@ -71,6 +72,13 @@ public class RestServlet extends HttpServlet implements Application {
 	 */
 	public static final String PARAM_REFERENCES = "references";
 	static final boolean DEFAULT_REFERENCES = false;
+	/**
+	 * URL parameter defining whether JSON responses are written without indentation and line breaks, default is
+	 * false. Compact output can also be requested with the media type parameter {@code compact=true} in the Accept
+	 * header, e.g. {@code Accept: application/json; compact=true}.
+	 */
+	public static final String PARAM_COMPACT = "compact";
+	static final boolean DEFAULT_COMPACT = false;
 
 	@Reference
 	HttpService http;
@@ -144,11 +152,18 @@ public class RestServlet extends HttpServlet implements Application {
 				resp.sendError(HttpServletResponse.SC_NOT_FOUND);
 			}
 			else {
+				String etag = ResourceETag.compute(r.getResource(), sman.getMaxDepth(), w.contentType() + " "
+						+ isCompact(req) + " " + path + "?" + req.getQueryString());
+				resp.setHeader("ETag", etag);
+				if (ResourceETag.matches(req.getHeader("If-None-Match"), etag)) {
+					resp.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+					return;
+				}
 				if (r.isSchedule()) {
 					w.writeSchedule((Schedule) r.getResource(), r.getStart(), r.getEnd(), resp.getWriter());
 				}
 				else {
-					w.write(r.getResource(), resp.getWriter());
+					w.write(r.getResource(), resp.getOutputStream());
 				}
 			}
 			resp.flushBuffer();
@@ -338,9 +353,31 @@ public class RestServlet extends HttpServlet implements Application {
 		else {
 			sman.setFollowReferences(DEFAULT_REFERENCES);
 		}
+		if (sman instanceof SerializationManagerImpl) {
+			((SerializationManagerImpl) sman).setPrettyPrint(!isCompact(req));
+		}
 		return sman;
 	}
 
+	/*
+	 * true if compact output has been requested, either by URL parameter or by Accept header
+	 */
+	static boolean isCompact(HttpServletRequest req) {
+		String compact = req.getParameter(PARAM_COMPACT);
+		if (compact != null) {
+			return Boolean.parseBoolean(compact);
+		}
+		String accept = req.getHeader("Accept");
+		if (accept != null) {
+			for (String parameter : accept.split(";")) {
+				if (parameter.trim().equalsIgnoreCase(PARAM_COMPACT + "=true")) {
+					return true;
+				}
+			}
+		}
+		return DEFAULT_COMPACT;
+	}
+
 	protected boolean setAccessContext(HttpServletRequest req, HttpServletResponse resp) throws ServletException,
 			IOException {
 		if (!SECURITY_ENABLED) {
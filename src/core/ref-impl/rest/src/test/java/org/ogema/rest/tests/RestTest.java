@@ -593,4 +593,57 @@ public class RestTest extends OsgiAppTestBase {
 		assertTrue(response.contains(testString));
 	}
 
+	@Test
+	public void restWritesCompactJson() throws Exception {
+		waitForServer();
+		final String url = baseUrl + "/" + sw.getPath() + "?depth=100";
+		String pretty = Request.Get(url).addHeader("Accept", "application/json").execute().returnContent().asString();
+		String compact = Request.Get(url + "&compact=true").addHeader("Accept", "application/json").execute()
+				.returnContent().asString();
+		assertTrue(pretty.trim().contains("\n"));
+		assertFalse(compact.trim().contains("\n"));
+		assertTrue(compact.contains("47.11"));
+		assertTrue(compact.length() < pretty.length());
+		String compactByHeader = Request.Get(url).addHeader("Accept", "application/json; compact=true").execute()
+				.returnContent().asString();
+		assertEquals(compact, compactByHeader);
+	}
+
+	@Test
+	public void restSupportsConditionalGet() throws Exception {
+		waitForServer();
+		final String url = baseUrl + "/" + sw.getPath() + "?depth=100";
+		HttpResponse resp = Request.Get(url).addHeader("Accept", "application/json").execute().returnResponse();
+		assertEquals(200, resp.getStatusLine().getStatusCode());
+		String etag = resp.getFirstHeader("ETag").getValue();
+		assertNotNull(etag);
+
+		resp = Request.Get(url).addHeader("Accept", "application/json").addHeader("If-None-Match", etag).execute()
+				.returnResponse();
+		assertEquals(304, resp.getStatusLine().getStatusCode());
+		assertEquals(etag, resp.getFirstHeader("ETag").getValue());
+
+		// other variants of the same resource have other tags
+		resp = Request.Get(url + "&compact=true").addHeader("Accept", "application/json").addHeader(
+				"If-None-Match", etag).execute().returnResponse();
+		assertEquals(200, resp.getStatusLine().getStatusCode());
+
+		// value changes in the subtree change the tag
+		sw.heatCapacity().setValue(sw.heatCapacity().getValue() + 1);
+		resp = Request.Get(url).addHeader("Accept", "application/json").addHeader("If-None-Match", etag).execute()
+				.returnResponse();
+		assertEquals(200, resp.getStatusLine().getStatusCode());
+		assertNotEquals(etag, resp.getFirstHeader("ETag").getValue());
+
+		// updates within the same millisecond change the tag as well
+		for (int i = 0; i < 10; i++) {
+			etag = resp.getFirstHeader("ETag").getValue();
+			sw.heatCapacity().setValue(sw.heatCapacity().getValue() + 1);
+			resp = Request.Get(url).addHeader("Accept", "application/json").addHeader("If-None-Match", etag)
+					.execute().returnResponse();
+			assertEquals(200, resp.getStatusLine().getStatusCode());
+			assertNotEquals(etag, resp.getFirstHeader("ETag").getValue());
+		}
+	}
+
 }
@@ -30,9 +30,12 @@ import org.junit.Before;
 import org.junit.Ignore;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.ogema.accesscontrol.PermissionManager;
+import org.ogema.accesscontrol.ResourcePermission;
 import org.ogema.core.application.Application;
 import org.ogema.core.application.ApplicationManager;
 import org.ogema.core.model.simple.FloatResource;
+import org.ogema.core.security.AppPermission;
 import org.ogema.core.model.simple.StringResource;
 import org.ogema.exam.OsgiAppTestBase;
 import static org.ogema.exam.ResourceAssertions.assertExists;
@@ -70,6 +73,9 @@ public class SecurityTest extends OsgiAppTestBase implements Application {
 	@Inject
 	ConditionalPermissionAdmin cpa;
 
+	@Inject
+	PermissionManager permMan;
+
 	@Before
 	public void registerApp() throws InterruptedException {
 		probeContext.registerService(Application.class, this, null);
@@ -167,6 +173,28 @@ public class SecurityTest extends OsgiAppTestBase implements Application {
 		co2concentration.getValue();
 	}
 
+	/*
+	 * decisions of resource permission checks are cached by the permission manager, permissions granted through the
+	 * permission manager must still be effective immediately.
+	 */
+	@Test
+	public void grantedPermissionsAreEffective() {
+		String name = newResourceName();
+		unrestrictedApp.getResourceManagement().createResource(name, StringResource.class);
+		// both lookups check the permission, the second one is answered by the cache
+		assertTrue(securityTestApp.getResourceAccess().getToplevelResources(StringResource.class).isEmpty());
+		assertTrue(securityTestApp.getResourceAccess().getToplevelResources(StringResource.class).isEmpty());
+
+		AppPermission ap = permMan.createAppPermission("local");
+		ap.addPermission(ResourcePermission.class.getName(), new String[] {
+				"path=" + name + ",type=" + StringResource.class.getName(), "read" }, null);
+		assertTrue(installPermissions(permMan, ap));
+
+		List<StringResource> readable = securityTestApp.getResourceAccess().getToplevelResources(StringResource.class);
+		assertEquals(1, readable.size());
+		assertEquals(name, readable.get(0).getName());
+	}
+
 	@Override
 	public void start(ApplicationManager appManager) {
 		securityTestApp = appManager;
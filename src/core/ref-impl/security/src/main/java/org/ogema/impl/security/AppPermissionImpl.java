@@ -71,9 +71,12 @@ public class AppPermissionImpl implements AppPermission {
 
 	private Logger log;
 
-	AppPermissionImpl(ConditionalPermissionAdmin cpa, AppID man) {
+	private final PermissionDecisionCache decisionCache;
+
+	AppPermissionImpl(ConditionalPermissionAdmin cpa, PermissionDecisionCache decisionCache, AppID man) {
 		this.appID = man;
 		this.cpa = cpa;
+		this.decisionCache = decisionCache;
 		this.pTypes = new ArrayList<>();
 		this.nTypes = new ArrayList<>();
 		this.allTypes = new HashMap<>();
@@ -94,8 +97,9 @@ public class AppPermissionImpl implements AppPermission {
 
 	}
 
-	public AppPermissionImpl(ConditionalPermissionAdmin cpa, String uri) {
+	public AppPermissionImpl(ConditionalPermissionAdmin cpa, PermissionDecisionCache decisionCache, String uri) {
 		this.cpa = cpa;
+		this.decisionCache = decisionCache;
 		this.pTypes = new ArrayList<>();
 		this.nTypes = new ArrayList<>();
 		this.allTypes = new HashMap<>();
@@ -107,8 +111,9 @@ public class AppPermissionImpl implements AppPermission {
 		initLogger();
 	}
 
-	public AppPermissionImpl(ConditionalPermissionAdmin cpa) {
+	public AppPermissionImpl(ConditionalPermissionAdmin cpa, PermissionDecisionCache decisionCache) {
 		this.cpa = cpa;
+		this.decisionCache = decisionCache;
 		this.pTypes = new ArrayList<>();
 		this.nTypes = new ArrayList<>();
 		this.allTypes = new HashMap<>();
@@ -354,11 +359,21 @@ public class AppPermissionImpl implements AppPermission {
 			else
 				exists = false;
 		}
-		boolean result = cpu.commit();
+		boolean result = commit(cpu);
 		refresh();
 		return result;
 	}
 
+	/*
+	 * commits a change of the permission table, cached decisions of permission checks are outdated afterwards
+	 */
+	private boolean commit(ConditionalPermissionUpdate cpu) {
+		boolean result = cpu.commit();
+		if (result)
+			decisionCache.invalidate();
+		return result;
+	}
+
 	void refresh() {
 		/*
 		 * To avoid ConcurrentModificationException, You can't remove from list if you're browsing it with "for each"
@@ -423,7 +438,7 @@ public class AppPermissionImpl implements AppPermission {
 					}
 				}
 		}
-		cpu.commit();
+		commit(cpu);
 		// remove the policies not yet applied
 		nTypes.clear();
 		pTypes.clear();
@@ -450,7 +465,7 @@ public class AppPermissionImpl implements AppPermission {
 				break;
 			}
 		}
-		cpu.commit();
+		commit(cpu);
 	}
 
 	@Override
@@ -519,7 +534,7 @@ public class AppPermissionImpl implements AppPermission {
 					}
 				}
 		}
-		cpu.commit();
+		commit(cpu);
 	}
 
 }
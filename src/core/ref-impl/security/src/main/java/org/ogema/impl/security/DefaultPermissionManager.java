@@ -22,6 +22,7 @@ import java.security.Permission;
 import java.security.PrivilegedAction;
 import java.security.ProtectionDomain;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Dictionary;
 import java.util.HashSet;
 import java.util.Hashtable;
@@ -30,6 +31,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.WeakHashMap;
 import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.felix.scr.annotations.Activate;
@@ -106,6 +108,15 @@ public class DefaultPermissionManager implements PermissionManager {
 
 	private AppDomainCombiner domainCombiner;
 
+	private final PermissionDecisionCache decisionCache = new PermissionDecisionCache();
+
+	/*
+	 * The access control context of an app doesn't change, it's created once and cached here so that decisions of
+	 * permission checks can be cached per context.
+	 */
+	private final Map<Application, AccessControlContext> appContexts = Collections
+			.synchronizedMap(new WeakHashMap<Application, AccessControlContext>());
+
 	AppPermissionImpl defaultPolicies;
 
 	@Override
@@ -190,7 +201,7 @@ public class DefaultPermissionManager implements PermissionManager {
 		 */
 		AppPermission ap = AccessController.doPrivileged(new PrivilegedAction<AppPermission>() {
 			public AppPermission run() {
-				AppPermissionImpl result = new AppPermissionImpl(cpa, app);
+				AppPermissionImpl result = new AppPermissionImpl(cpa, decisionCache, app);
 				result.bundle = app.getBundle();
 				boolean match = false;
 				boolean blcIsSet = false;
@@ -261,6 +272,8 @@ public class DefaultPermissionManager implements PermissionManager {
 	@Override
 	public boolean handleSecurity(Permission perm, AccessControlContext acc) {
 		if (security != null) {
+			if (acc != null && perm instanceof ResourcePermission)
+				return handleResourceSecurity((ResourcePermission) perm, acc);
 			try {
 				if (acc == null)
 					security.checkPermission(perm);
@@ -273,6 +286,29 @@ public class DefaultPermissionManager implements PermissionManager {
 		return true;
 	}
 
+	/*
+	 * Checks a resource permission and caches the decision if the context belongs to an app.
+	 */
+	private boolean handleResourceSecurity(ResourcePermission perm, AccessControlContext acc) {
+		Object key = perm.getQueryKey();
+		if (key != null) {
+			Boolean cached = decisionCache.get(acc, key);
+			if (cached != null)
+				return cached;
+		}
+		int gen = decisionCache.getGeneration();
+		boolean result;
+		try {
+			security.checkPermission(perm, acc);
+			result = true;
+		} catch (SecurityException e) {
+			result = false;
+		}
+		if (key != null)
+			decisionCache.put(acc, key, result, gen);
+		return result;
+	}
+
 	@Override
 	public boolean checkCreateResource(final Application app, Class<? extends Resource> type, String name, int count) {
 		// Get the AccessControlContex of the involved app
@@ -282,18 +318,25 @@ public class DefaultPermissionManager implements PermissionManager {
 	}
 
 	private AccessControlContext getACC(final Application app) {
-		AccessControlContext acc = AccessController.doPrivileged(new PrivilegedAction<AccessControlContext>() {
+		if (app == null)
+			return null;
+		AccessControlContext acc = appContexts.get(app);
+		if (acc != null)
+			return acc;
+		acc = AccessController.doPrivileged(new PrivilegedAction<AccessControlContext>() {
 			public AccessControlContext run() {
-				if (app != null) {
-					ProtectionDomain[] pda = new ProtectionDomain[1];
-					pda[0] = app.getClass().getProtectionDomain();
-					return new AccessControlContext(new AccessControlContext(pda), domainCombiner);
-				}
-				else {
-					return null;
-				}
+				ProtectionDomain[] pda = new ProtectionDomain[1];
+				pda[0] = app.getClass().getProtectionDomain();
+				return new AccessControlContext(new AccessControlContext(pda), domainCombiner);
 			}
 		});
+		synchronized (appContexts) {
+			AccessControlContext existing = appContexts.get(app);
+			if (existing != null)
+				return existing;
+			appContexts.put(app, acc);
+			decisionCache.register(acc);
+		}
 		return acc;
 	}
 
@@ -325,7 +368,7 @@ public class DefaultPermissionManager implements PermissionManager {
 	@Override
 	public AppPermissionImpl setDefaultPolicies() {
 
-		defaultPolicies = new AppPermissionImpl(cpa);
+		defaultPolicies = new AppPermissionImpl(cpa, decisionCache);
 		/*
 		 * Scan permission table
 		 */
@@ -368,7 +411,7 @@ public class DefaultPermissionManager implements PermissionManager {
 			api = getDefaultPolicies();
 		}
 		else {
-			api = new AppPermissionImpl(cpa, uri);
+			api = new AppPermissionImpl(cpa, decisionCache, uri);
 			api.granted = (ConcurrentHashMap<String, ConditionalPermissionInfo>) getGrantedPerms(uri);
 		}
 		return api;
@@ -624,7 +667,8 @@ public class DefaultPermissionManager implements PermissionManager {
 				if (changedPInfos != null && !changedPInfos.isEmpty()) {
 					piList.addAll(changedPInfos);
 				}
-				cpu.commit();
+				if (cpu.commit())
+					decisionCache.invalidate();
 				return result;
 			}
 
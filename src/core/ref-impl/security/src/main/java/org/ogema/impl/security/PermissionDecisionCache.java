@@ -0,0 +1,124 @@
+/**
+ * This file is part of OGEMA.
+ *
+ * OGEMA is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3
+ * as published by the Free Software Foundation.
+ *
+ * OGEMA is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with OGEMA. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.ogema.impl.security;
+
+import java.security.AccessControlContext;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Cache of the outcomes of resource permission checks. Decisions are held per application access control context and
+ * keyed by {@link org.ogema.accesscontrol.ResourcePermission#getQueryKey()}, so the AccessController doesn't evaluate
+ * the granted permissions again for each new ResourceAccessRights instance of the same resource. Each context keeps
+ * at most {@link #MAX_DECISIONS} decisions, the least recently used ones are dropped first.
+ * <p>
+ * Every commit of the permission manager calls {@link #invalidate()}, which only advances the generation of the cache.
+ * The decisions of a context are dropped with the next lookup that sees a newer generation. Commits that bypass the
+ * permission manager, i.e. those made on the framework's ConditionalPermissionAdmin directly, are not noticed.
+ */
+class PermissionDecisionCache {
+
+	static final int MAX_DECISIONS = 1024;
+
+	private final Map<AccessControlContext, Decisions> decisions = Collections
+			.synchronizedMap(new WeakHashMap<AccessControlContext, Decisions>());
+	private final AtomicInteger generation = new AtomicInteger();
+
+	/*
+	 * LRU map of the decisions of one context, guarded by itself.
+	 */
+	@SuppressWarnings("serial")
+	private static class Decisions extends LinkedHashMap<Object, Boolean> {
+
+		/*
+		 * generation of the cache the decisions were made in
+		 */
+		int generation;
+
+		Decisions(int generation) {
+			super(16, 0.75f, true);
+			this.generation = generation;
+		}
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Object, Boolean> eldest) {
+			return size() > MAX_DECISIONS;
+		}
+
+		/*
+		 * drops the decisions of older generations, returns false if gen is outdated itself
+		 */
+		boolean update(int gen) {
+			if (gen - generation < 0)
+				return false;
+			if (gen != generation) {
+				clear();
+				generation = gen;
+			}
+			return true;
+		}
+	}
+
+	/*
+	 * Decisions are cached only for registered contexts. Contexts that are created per check would never hit the
+	 * cache.
+	 */
+	void register(AccessControlContext acc) {
+		decisions.put(acc, new Decisions(generation.get()));
+	}
+
+	/**
+	 * @return the cached decision or null if there is none.
+	 */
+	Boolean get(AccessControlContext acc, Object key) {
+		Decisions m = decisions.get(acc);
+		if (m == null)
+			return null;
+		int gen = generation.get();
+		synchronized (m) {
+			return m.update(gen) ? m.get(key) : null;
+		}
+	}
+
+	/**
+	 * @return the current generation of the cache, which is to be passed to {@link #put} with a decision made after
+	 *         this call.
+	 */
+	int getGeneration() {
+		return generation.get();
+	}
+
+	void put(AccessControlContext acc, Object key, boolean permitted, int gen) {
+		Decisions m = decisions.get(acc);
+		if (m == null)
+			return;
+		synchronized (m) {
+			// the decision may have been made with permissions that were changed in the meantime
+			if (gen == generation.get() && m.update(gen))
+				m.put(key, permitted);
+		}
+	}
+
+	/**
+	 * Drops all cached decisions, to be called after each change of the permission table.
+	 */
+	void invalidate() {
+		generation.incrementAndGet();
+	}
+}
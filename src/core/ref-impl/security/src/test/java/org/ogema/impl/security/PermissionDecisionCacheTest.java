@@ -0,0 +1,142 @@
+/**
+ * This file is part of OGEMA.
+ *
+ * OGEMA is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3
+ * as published by the Free Software Foundation.
+ *
+ * OGEMA is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with OGEMA. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.ogema.impl.security;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.security.AccessControlContext;
+import java.security.ProtectionDomain;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.osgi.service.condpermadmin.ConditionalPermissionAdmin;
+import org.osgi.service.condpermadmin.ConditionalPermissionInfo;
+import org.osgi.service.condpermadmin.ConditionalPermissionUpdate;
+
+/**
+ * Tests the {@link PermissionDecisionCache} and its invalidation by commits of the permission manager.
+ */
+public class PermissionDecisionCacheTest {
+
+	private PermissionDecisionCache cache;
+	private AccessControlContext acc;
+
+	@Before
+	public void setup() {
+		cache = new PermissionDecisionCache();
+		acc = newContext();
+		cache.register(acc);
+	}
+
+	/*
+	 * contexts are equal if they consist of the same protection domains
+	 */
+	private static AccessControlContext newContext() {
+		return new AccessControlContext(new ProtectionDomain[] { new ProtectionDomain(null, null) });
+	}
+
+	/*
+	 * permission admin with an empty permission table, whose updates can always be committed
+	 */
+	private static ConditionalPermissionAdmin newPermissionAdmin() {
+		return (ConditionalPermissionAdmin) Proxy.newProxyInstance(ConditionalPermissionAdmin.class.getClassLoader(),
+				new Class<?>[] { ConditionalPermissionAdmin.class }, new InvocationHandler() {
+
+					@Override
+					public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+						if (!method.getName().equals("newConditionalPermissionUpdate"))
+							throw new UnsupportedOperationException(method.getName());
+						final List<ConditionalPermissionInfo> rows = new ArrayList<>();
+						return new ConditionalPermissionUpdate() {
+
+							@Override
+							public List<ConditionalPermissionInfo> getConditionalPermissionInfos() {
+								return rows;
+							}
+
+							@Override
+							public boolean commit() {
+								return true;
+							}
+						};
+					}
+				});
+	}
+
+	@Test
+	public void decisionsAreCached() {
+		assertNull(cache.get(acc, "key"));
+		cache.put(acc, "key", false, cache.getGeneration());
+		cache.put(acc, "key2", true, cache.getGeneration());
+		assertEquals(Boolean.FALSE, cache.get(acc, "key"));
+		assertEquals(Boolean.TRUE, cache.get(acc, "key2"));
+	}
+
+	@Test
+	public void decisionsOfUnregisteredContextsAreNotCached() {
+		AccessControlContext other = newContext();
+		cache.put(other, "key", true, cache.getGeneration());
+		assertNull(cache.get(other, "key"));
+	}
+
+	@Test
+	public void invalidateDropsDecisions() {
+		cache.put(acc, "key", true, cache.getGeneration());
+		cache.invalidate();
+		assertNull(cache.get(acc, "key"));
+		// decisions made after the change are cached again
+		cache.put(acc, "key", false, cache.getGeneration());
+		assertEquals(Boolean.FALSE, cache.get(acc, "key"));
+	}
+
+	@Test
+	public void decisionMadeDuringChangeIsNotCached() {
+		// the permissions change while the decision is made, after the generation was read
+		int gen = cache.getGeneration();
+		cache.invalidate();
+		cache.put(acc, "key", true, gen);
+		assertNull(cache.get(acc, "key"));
+	}
+
+	@Test
+	public void leastRecentlyUsedDecisionsAreDropped() {
+		int gen = cache.getGeneration();
+		for (int i = 0; i < PermissionDecisionCache.MAX_DECISIONS; i++) {
+			cache.put(acc, i, true, gen);
+		}
+		assertEquals(Boolean.TRUE, cache.get(acc, 0));
+		cache.put(acc, "new", false, gen);
+		assertEquals(Boolean.FALSE, cache.get(acc, "new"));
+		assertEquals(Boolean.TRUE, cache.get(acc, 0));
+		assertNull(cache.get(acc, 1));
+	}
+
+	@Test
+	public void commitOfAppPermissionInvalidatesDecisions() {
+		cache.put(acc, "key", true, cache.getGeneration());
+		AppPermissionImpl perms = new AppPermissionImpl(newPermissionAdmin(), cache, "test");
+		assertTrue(perms.apply());
+		assertNull(cache.get(acc, "key"));
+	}
+
+}
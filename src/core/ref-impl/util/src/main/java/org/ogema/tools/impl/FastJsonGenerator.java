@@ -16,10 +16,12 @@
 package org.ogema.tools.impl;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.StringWriter;
 import java.io.Writer;
-import java.util.List;
+import java.util.Iterator;
 
+import org.codehaus.jackson.JsonEncoding;
 import org.codehaus.jackson.JsonFactory;
 import org.codehaus.jackson.JsonGenerator;
 import org.codehaus.jackson.map.ObjectMapper;
@@ -77,7 +79,34 @@ public class FastJsonGenerator {
 	 */
 	public void serialize(Writer writer, Resource resource, SerializationManager serializationManager)
 			throws IOException {
-		jGen = jsonFactory.createJsonGenerator(writer).useDefaultPrettyPrinter();
+		serialize(jsonFactory.createJsonGenerator(writer), resource, serializationManager);
+	}
+
+	/**
+	 * Writes the serialized resource directly to an output stream, using UTF-8 encoding.
+	 *
+	 * @param out
+	 * @param resource
+	 * @param serializationManager
+	 * @throws IOException
+	 */
+	public void serialize(OutputStream out, Resource resource, SerializationManager serializationManager)
+			throws IOException {
+		serialize(jsonFactory.createJsonGenerator(out, JsonEncoding.UTF8), resource, serializationManager);
+	}
+
+	/**
+	 * @return false if the serialization manager is configured for compact output, see
+	 *         {@link SerializationManagerImpl#setPrettyPrint(boolean)}.
+	 */
+	static boolean isPrettyPrint(SerializationManager serializationManager) {
+		return !(serializationManager instanceof SerializationManagerImpl)
+				|| ((SerializationManagerImpl) serializationManager).getPrettyPrint();
+	}
+
+	private void serialize(JsonGenerator generator, Resource resource, SerializationManager serializationManager)
+			throws IOException {
+		jGen = isPrettyPrint(serializationManager) ? generator.useDefaultPrettyPrinter() : generator;
 		this.stateControl = new StateController(serializationManager, resource);
 		try {
 			this.serializeResource(resource);
@@ -96,8 +125,12 @@ public class FastJsonGenerator {
 	 */
 	/* FIXME?: this will always serialize embedded schedules (timeseries) as link */
 	public void serialize(Writer writer, Object obj, SerializationManager serializationManager) throws IOException {
-		ObjectMapper mapper = SerializationCore.createJacksonMapper(true);
-		jGen = jsonFactory.createJsonGenerator(writer).useDefaultPrettyPrinter().setCodec(mapper);
+		final boolean prettyPrint = isPrettyPrint(serializationManager);
+		ObjectMapper mapper = SerializationCore.createJacksonMapper(prettyPrint);
+		jGen = jsonFactory.createJsonGenerator(writer).setCodec(mapper);
+		if (prettyPrint) {
+			jGen.useDefaultPrettyPrinter();
+		}
 		jGen.writeObject(obj);
 		jGen.flush();
 	}
@@ -254,15 +287,17 @@ public class FastJsonGenerator {
 		if (definitionSchedule.getLastCalculationTime() != null) {
 			jGen.writeNumberField("lastCalculationTime", definitionSchedule.getLastCalculationTime());
 		}
-		List<SampledValue> entries = definitionSchedule.getValues(start, end);
 		jGen.writeNumberField("start", start);
 		jGen.writeNumberField("end", end);
 		jGen.writeArrayFieldStart("entry");
 		// write sampled values
-		if (!entries.isEmpty()) {
-			SampledValuesWriter w = SampledValuesWriter.forValue(entries.get(0));
-			for (SampledValue sampledValue : entries) {
-				w.write(sampledValue, jGen);
+		Iterator<SampledValue> entries = definitionSchedule.iterator(start, end);
+		if (entries.hasNext()) {
+			SampledValue sampledValue = entries.next();
+			SampledValuesWriter w = SampledValuesWriter.forValue(sampledValue);
+			w.write(sampledValue, jGen);
+			while (entries.hasNext()) {
+				w.write(entries.next(), jGen);
 			}
 		}
 		jGen.writeEndArray();
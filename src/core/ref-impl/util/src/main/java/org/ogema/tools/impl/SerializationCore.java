@@ -16,6 +16,7 @@
 package org.ogema.tools.impl;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.Reader;
 import java.io.StringReader;
 import java.io.StringWriter;
@@ -93,6 +94,7 @@ final class SerializationCore {
 
 	private final FastJsonGenerator fastJsonGenerator; //experimental json serializer
 	private final boolean useFastJsonGenerator = true;
+	private ObjectMapper compactMapper;
 
 	final Unmarshaller unmarshaller;
 	final Marshaller marshaller;
@@ -170,7 +172,7 @@ final class SerializationCore {
 			}
 			else {
 				final JaxbResource jres = JaxbFactory.createJaxbResource(resource, manager);
-				return mapper.writeValueAsString(jres);
+				return jsonMapper(manager).writeValueAsString(jres);
 			}
 
 		} catch (IOException ioex) {
@@ -219,10 +221,33 @@ final class SerializationCore {
 			fastJsonGenerator.serialize(output, resource, manager);
 		}
 		else {
-			mapper.writeValue(output, JaxbFactory.createJaxbResource(resource, manager));
+			jsonMapper(manager).writeValue(output, JaxbFactory.createJaxbResource(resource, manager));
 		}
 	}
 
+	void writeJson(OutputStream output, Resource resource, SerializationManager manager) throws IOException {
+		if (useFastJsonGenerator) {
+			fastJsonGenerator.serialize(output, resource, manager);
+		}
+		else {
+			jsonMapper(manager).writeValue(output, JaxbFactory.createJaxbResource(resource, manager));
+		}
+	}
+
+	/*
+	 * returns the mapper for the output format configured on the manager, the
+	 * mapper for compact output is only created when needed.
+	 */
+	private ObjectMapper jsonMapper(SerializationManager manager) {
+		if (FastJsonGenerator.isPrettyPrint(manager)) {
+			return mapper;
+		}
+		if (compactMapper == null) {
+			compactMapper = createJacksonMapper(false);
+		}
+		return compactMapper;
+	}
+
 	//	void writeJson(Writer output, String name, JSWidget widget) {
 	//		throw new UnsupportedOperationException("Not supported yet.");
 	//	}
@@ -235,12 +260,12 @@ final class SerializationCore {
 			fastJsonGenerator.serialize(output, object, manager);
 		}
 		else {
-			mapper.writeValue(output, object);
+			jsonMapper(manager).writeValue(output, object);
 		}
 	}
 
 	void writeJson(Writer output, Schedule sched, long start, long end, SerializationManager sman) throws IOException {
-		mapper.writeValue(output, JaxbFactory.createJaxbSchedule(sched, sman, start, end));
+		jsonMapper(sman).writeValue(output, JaxbFactory.createJaxbSchedule(sched, sman, start, end));
 	}
 
 	void writeXml(Writer output, Schedule sched, long start, long end, SerializationManager sman) throws IOException {
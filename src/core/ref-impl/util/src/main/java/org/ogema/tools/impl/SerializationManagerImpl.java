@@ -16,14 +16,18 @@
 package org.ogema.tools.impl;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.Reader;
 import java.io.StringReader;
 import java.io.Writer;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
 import javax.xml.stream.XMLOutputFactory;
 import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamWriter;
 import org.codehaus.jackson.JsonFactory;
 import org.codehaus.jackson.JsonGenerator;
+import org.ogema.core.channelmanager.measurements.Quality;
 import org.ogema.core.channelmanager.measurements.SampledValue;
 
 import org.ogema.core.model.Resource;
@@ -45,6 +49,7 @@ public class SerializationManagerImpl implements SerializationManager {
 
 	private int maxDepth;
 	private boolean followReferences, parseSubschedules;
+	private boolean prettyPrint = true;
 	private final SerializationCore core;
 
 	public SerializationManagerImpl(ResourceAccess resacc, ResourceManagement resman) {
@@ -85,6 +90,21 @@ public class SerializationManagerImpl implements SerializationManager {
 		return parseSubschedules;
 	}
 
+	/**
+	 * Configures whether JSON output is indented for readability (default) or
+	 * written without any whitespace.
+	 *
+	 * @param prettyPrint
+	 *            false for compact JSON output
+	 */
+	public void setPrettyPrint(boolean prettyPrint) {
+		this.prettyPrint = prettyPrint;
+	}
+
+	public boolean getPrettyPrint() {
+		return prettyPrint;
+	}
+
 	@Override
 	public String toJson(Resource resource) {
 		return core.toJson(resource, this);
@@ -105,6 +125,14 @@ public class SerializationManagerImpl implements SerializationManager {
 		core.writeJson(output, resource, this);
 	}
 
+	/**
+	 * Writes the JSON serialization of the resource directly to the stream,
+	 * using UTF-8 encoding.
+	 */
+	public void writeJson(OutputStream output, Resource resource) throws IOException {
+		core.writeJson(output, resource, this);
+	}
+
 	@Override
 	public void writeJson(Writer output, Object object) throws IOException {
 		core.writeJson(output, object, this);
@@ -275,7 +303,9 @@ public class SerializationManagerImpl implements SerializationManager {
 				xw.writeCharacters(mode.toString());
 				xw.writeEndElement();
 
-				for (SampledValue sv : data.getValues(startTime, endTime, interval, mode)) {
+				Iterator<SampledValue> it = getEntries(data, startTime, endTime, interval, mode);
+				while (it.hasNext()) {
+					SampledValue sv = it.next();
 					xw.writeStartElement("entry");
 					xw.writeAttribute(XSI_NS, "type", "og:SampledFloat");
 					{
@@ -324,7 +354,9 @@ public class SerializationManagerImpl implements SerializationManager {
             
             jg.writeArrayFieldStart("entry");
 
-            for (SampledValue sv: data.getValues(startTime, endTime, interval, mode)){
+            Iterator<SampledValue> it = getEntries(data, startTime, endTime, interval, mode);
+            while (it.hasNext()) {
+                SampledValue sv = it.next();
                 jg.writeStartObject();
                 jg.writeNumberField("time", sv.getTimestamp());
                 jg.writeStringField("quality", sv.getQuality().toString());
@@ -337,4 +369,46 @@ public class SerializationManagerImpl implements SerializationManager {
             jg.flush();
         }
 	}
+
+	/*
+	 * Unreduced data is streamed from the RecordedData instead of being collected into a list first. Like
+	 * getValues(start, end, interval, ReductionMode.NONE), this skips entries of bad quality.
+	 */
+	private static Iterator<SampledValue> getEntries(RecordedData data, long startTime, long endTime, long interval,
+			ReductionMode mode) {
+		if (mode != ReductionMode.NONE || interval < 0) {
+			return data.getValues(startTime, endTime, interval, mode).iterator();
+		}
+		final Iterator<SampledValue> it = data.iterator(startTime, endTime);
+		return new Iterator<SampledValue>() {
+
+			SampledValue next;
+
+			@Override
+			public boolean hasNext() {
+				while (next == null && it.hasNext()) {
+					SampledValue sv = it.next();
+					if (sv.getQuality() != Quality.BAD) {
+						next = sv;
+					}
+				}
+				return next != null;
+			}
+
+			@Override
+			public SampledValue next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				SampledValue result = next;
+				next = null;
+				return result;
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
 }
@@ -189,6 +189,29 @@ public class Connection extends ModbusConnection {
 		return value;
 	}
 
+	/**
+	 * Reads all channels of the group with a single request
+	 * 
+	 * @param channelGroup
+	 * @return the values of the channels, in the order of {@link ModbusChannelGroup#getChannels()}
+	 * @throws ModbusException
+	 */
+	public Value[] readChannelGroup(ModbusChannelGroup channelGroup) throws ModbusException {
+
+		switch (channelGroup.getFunctionCode()) {
+		case FC_01_READ_COILS:
+			return channelGroup.getChannelValues(this.readCoils(channelGroup));
+		case FC_02_READ_DISCRETE_INPUTS:
+			return channelGroup.getChannelValues(this.readDiscreteInputs(channelGroup));
+		case FC_03_READ_HOLDING_REGISTERS:
+			return channelGroup.getChannelValues(this.readHoldingRegisters(channelGroup));
+		case FC_04_READ_INPUT_REGISTERS:
+			return channelGroup.getChannelValues(this.readInputRegisters(channelGroup));
+		default:
+			throw new RuntimeException("FunctionCode " + channelGroup.getFunctionCode() + " not supported yet");
+		}
+	}
+
 	public void writeChannel(ModbusChannel channel, Value value) throws ModbusException, RuntimeException {
 
 		switch (channel.getFunctionCode()) {
@@ -16,7 +16,11 @@
 package org.ogema.driver.modbustcp;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import net.wimpi.modbus.procimg.InputRegister;
 import net.wimpi.modbus.util.BitVector;
@@ -37,6 +41,20 @@ import org.ogema.driver.modbustcp.enums.EPrimaryTable;
 public class ModbusChannelGroup {
 	private static final int INVALID = -1;
 
+	/** Maximum number of registers of a single read request (function codes 3 and 4) */
+	public static final int MAX_REGISTER_COUNT = 125;
+
+	/** Maximum number of coils/discrete inputs of a single read request (function codes 1 and 2) */
+	public static final int MAX_BIT_COUNT = 2000;
+
+	private static final Comparator<ModbusChannel> START_ADDRESS_ORDER = new Comparator<ModbusChannel>() {
+
+		@Override
+		public int compare(ModbusChannel c1, ModbusChannel c2) {
+			return Integer.compare(c1.getStartAddress(), c2.getStartAddress());
+		}
+	};
+
 	private EPrimaryTable primaryTable;
 	private final ArrayList<ModbusChannel> channels;
 
@@ -60,6 +78,66 @@ public class ModbusChannelGroup {
 		setFunctionCode();
 	}
 
+	/**
+	 * Splits the channels into groups which can be read with a single request each. Channels with equal unit id and
+	 * function code are sorted by start address and merged into one group as long as the gap to the registers/coils
+	 * read so far does not exceed maxGap and the group does not exceed the maximum size of a read request. The
+	 * function codes of the channels have to be set for reading.
+	 * 
+	 * @param samplingGroup
+	 *            name of the groups
+	 * @param channels
+	 *            channels to read
+	 * @param maxGap
+	 *            maximum number of unused registers/coils read between two channels of a group
+	 * @return the channel groups
+	 */
+	public static List<ModbusChannelGroup> createGroups(String samplingGroup, List<ModbusChannel> channels, int maxGap) {
+		Map<String, List<ModbusChannel>> requests = new LinkedHashMap<String, List<ModbusChannel>>();
+		for (ModbusChannel channel : channels) {
+			String key = channel.getUnitId() + ":" + channel.getFunctionCode();
+			List<ModbusChannel> request = requests.get(key);
+			if (request == null) {
+				request = new ArrayList<ModbusChannel>();
+				requests.put(key, request);
+			}
+			request.add(channel);
+		}
+
+		List<ModbusChannelGroup> groups = new ArrayList<ModbusChannelGroup>();
+		for (List<ModbusChannel> request : requests.values()) {
+			Collections.sort(request, START_ADDRESS_ORDER);
+			int maxCount = isBitAccess(request.get(0).getFunctionCode()) ? MAX_BIT_COUNT : MAX_REGISTER_COUNT;
+			ArrayList<ModbusChannel> group = new ArrayList<ModbusChannel>();
+			int groupStart = 0;
+			int groupEnd = 0;
+			for (ModbusChannel channel : request) {
+				int channelEnd = channel.getStartAddress() + channel.getCount();
+				if (!group.isEmpty()
+						&& (channel.getStartAddress() - groupEnd > maxGap || Math.max(groupEnd, channelEnd)
+								- groupStart > maxCount)) {
+					groups.add(new ModbusChannelGroup(samplingGroup, group));
+					group = new ArrayList<ModbusChannel>();
+				}
+				if (group.isEmpty()) {
+					groupStart = channel.getStartAddress();
+					groupEnd = channelEnd;
+				}
+				else {
+					groupEnd = Math.max(groupEnd, channelEnd);
+				}
+				group.add(channel);
+			}
+			groups.add(new ModbusChannelGroup(samplingGroup, group));
+		}
+		return groups;
+	}
+
+	private static boolean isBitAccess(EFunctionCode functionCode) {
+		return functionCode == EFunctionCode.FC_01_READ_COILS
+				|| functionCode == EFunctionCode.FC_02_READ_DISCRETE_INPUTS;
+	}
+
 	public String getInfo() {
 		String info = "SamplingGroup: '" + samplingGroup + "' Channels: ";
 		for (ModbusChannel channel : channels) {
@@ -167,44 +245,61 @@ public class ModbusChannelGroup {
 		count = maximumAddress - startAddress;
 	}
 
-	public void setChannelValues(InputRegister[] inputRegisters, Device device, List<SampledValueContainer> containers) {
-
-		for (ModbusChannel channel : channels) {
+	/**
+	 * Converts the registers read for the group into the values of its channels
+	 * 
+	 * @param inputRegisters
+	 *            registers read from the start address of the group
+	 * @return the values of the channels, in the order of {@link #getChannels()}
+	 */
+	public Value[] getChannelValues(InputRegister[] inputRegisters) {
+		ModbusDriverUtil util = new ModbusDriverUtil();
+		Value[] values = new Value[channels.size()];
+		for (int c = 0; c < values.length; c++) {
+			ModbusChannel channel = channels.get(c);
 			// determine start index of the registers which contain the values of the channel
 			int registerIndex = channel.getStartAddress() - getStartAddress();
 			// create a temporary register array
 			InputRegister[] registers = new InputRegister[channel.getCount()];
 			// copy relevant registers for the channel
-			for (int i = 0; i < channel.getCount(); i++) {
-				registers[i] = inputRegisters[registerIndex + i];
-			}
-			// now we have a register array which contains the value of the channel
-			SampledValueContainer container = searchContainer(channel.getChannelAddress(), containers);
-			ModbusDriverUtil util = new ModbusDriverUtil();
-			long receiveTime = System.currentTimeMillis();
-
-			Value value = util.getRegistersValue(registers, channel);
-
-			// create SampledValue and add to container
-			SampledValue sample = new SampledValue(value, receiveTime, Quality.GOOD);
-			container.setSampledValue(sample);
+			System.arraycopy(inputRegisters, registerIndex, registers, 0, registers.length);
+			values[c] = util.getRegistersValue(registers, channel);
 		}
+		return values;
 	}
 
-	public void setChannelValues(BitVector bitVector, Device device, List<SampledValueContainer> containers) {
-
-		for (ModbusChannel channel : channels) {
+	/**
+	 * Converts the coils/discrete inputs read for the group into the values of its channels
+	 * 
+	 * @param bitVector
+	 *            bits read from the start address of the group
+	 * @return the values of the channels, in the order of {@link #getChannels()}
+	 */
+	public Value[] getChannelValues(BitVector bitVector) {
+		Value[] values = new Value[channels.size()];
+		for (int c = 0; c < values.length; c++) {
+			// determine start index of the registers which contain the values of the channel
+			int index = channels.get(c).getStartAddress() - getStartAddress();
+			values[c] = new BooleanValue(bitVector.getBit(index));
+		}
+		return values;
+	}
 
-			long receiveTime = System.currentTimeMillis();
+	public void setChannelValues(InputRegister[] inputRegisters, Device device, List<SampledValueContainer> containers) {
+		setChannelValues(getChannelValues(inputRegisters), containers);
+	}
 
-			// determine start index of the registers which contain the values of the channel
-			int index = channel.getStartAddress() - getStartAddress();
+	public void setChannelValues(BitVector bitVector, Device device, List<SampledValueContainer> containers) {
+		setChannelValues(getChannelValues(bitVector), containers);
+	}
 
-			BooleanValue value = new BooleanValue(bitVector.getBit(index));
-			SampledValueContainer container = searchContainer(channel.getChannelAddress(), containers);
+	private void setChannelValues(Value[] values, List<SampledValueContainer> containers) {
+		long receiveTime = System.currentTimeMillis();
+		for (int c = 0; c < values.length; c++) {
+			SampledValueContainer container = searchContainer(channels.get(c).getChannelAddress(), containers);
 
 			// create SampledValue and add to container
-			SampledValue sample = new SampledValue(value, receiveTime, Quality.GOOD);
+			SampledValue sample = new SampledValue(values[c], receiveTime, Quality.GOOD);
 			container.setSampledValue(sample);
 		}
 	}
@@ -17,7 +17,12 @@ package org.ogema.driver.modbustcp;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+
+import net.wimpi.modbus.ModbusException;
+import net.wimpi.modbus.ModbusSlaveException;
 
 import org.apache.felix.scr.annotations.Component;
 import org.apache.felix.scr.annotations.Service;
@@ -33,9 +38,13 @@ import org.ogema.core.channelmanager.driverspi.NoSuchDeviceException;
 import org.ogema.core.channelmanager.driverspi.NoSuchInterfaceException;
 import org.ogema.core.channelmanager.driverspi.SampledValueContainer;
 import org.ogema.core.channelmanager.driverspi.ValueContainer;
+import org.ogema.core.channelmanager.measurements.Quality;
+import org.ogema.core.channelmanager.measurements.SampledValue;
 import org.ogema.core.channelmanager.measurements.Value;
 import org.ogema.driver.modbustcp.ModbusChannel.EAccess;
 import org.ogema.driver.modbustcp.enums.EDatatype;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * This is a wrapper for the jamod api (http://jamod.sourceforge.net)
@@ -62,9 +71,17 @@ import org.ogema.driver.modbustcp.enums.EDatatype;
 @Service(ChannelDriver.class)
 public class ModbusDriver implements ChannelDriver {
 
+	private final static Logger logger = LoggerFactory.getLogger(ModbusDriver.class);
+
 	private static final String DRIVER_ID = "modbus-tcp";
 	private static final String DESCRIPTION = "MODBUS TCP via Ethernet";
 
+	/**
+	 * Maximum number of unused registers/coils between two channels which are read with a single request, may be set
+	 * with the system property org.ogema.driver.modbustcp.maxgap
+	 */
+	private static final int MAX_GAP = Integer.getInteger("org.ogema.driver.modbustcp.maxgap", 8);
+
 	private final List<Connection> connectionList;
 	private int splitNumber = 0;
 
@@ -95,28 +112,96 @@ public class ModbusDriver implements ChannelDriver {
 	 * parsed in order to get which registers have to be read. The addressing has to be parsed once for every new
 	 * ChannelLocator, if ChannelLocators are immutable. The serial port parameters are set according to the setting for
 	 * each device.
+	 * 
+	 * The channels of each connection are combined into as few requests as possible, see
+	 * {@link ModbusChannelGroup#createGroups(String, List, int)}.
 	 */
 	@Override
 	public void readChannels(List<SampledValueContainer> channels) throws UnsupportedOperationException, IOException {
 
+		// containers of the channels to read, per connection
+		Map<Connection, Map<ModbusChannel, List<SampledValueContainer>>> requests =
+				new LinkedHashMap<Connection, Map<ModbusChannel, List<SampledValueContainer>>>();
+
 		for (SampledValueContainer container : channels) {
 			ChannelLocator channelLocator = container.getChannelLocator();
 
 			try {
 				Connection con = findConnection(channelLocator.getDeviceLocator().getDeviceAddress());
 				Device dev = con.findDevice(channelLocator.getDeviceLocator());
-				Channel channel = dev.findChannel(channelLocator);
+				ModbusChannel channel = (ModbusChannel) dev.findChannel(channelLocator);
 
 				// set access flag
 				channel.update(EAccess.READ);
 
-				// read data
-				container.setSampledValue(channel.readValue(con));
+				Map<ModbusChannel, List<SampledValueContainer>> request = requests.get(con);
+				if (request == null) {
+					request = new LinkedHashMap<ModbusChannel, List<SampledValueContainer>>();
+					requests.put(con, request);
+				}
+				List<SampledValueContainer> containers = request.get(channel);
+				if (containers == null) {
+					containers = new ArrayList<SampledValueContainer>(1);
+					request.put(channel, containers);
+				}
+				containers.add(container);
 
 			} catch (NullPointerException e) {
 				throw new IOException("Unknown channel: " + channelLocator, e);
 			}
 		}
+
+		for (Map.Entry<Connection, Map<ModbusChannel, List<SampledValueContainer>>> request : requests.entrySet()) {
+			List<ModbusChannel> requestChannels = new ArrayList<ModbusChannel>(request.getValue().keySet());
+			for (ModbusChannelGroup group : ModbusChannelGroup.createGroups(DRIVER_ID, requestChannels, MAX_GAP)) {
+				readChannelGroup(request.getKey(), group, request.getValue());
+			}
+		}
+	}
+
+	/**
+	 * Reads the channels of the group with a single request and sets the values of their containers. If the device
+	 * rejects the request, e.g. because the group includes unused registers, the channels are read one by one.
+	 */
+	private void readChannelGroup(Connection con, ModbusChannelGroup group,
+			Map<ModbusChannel, List<SampledValueContainer>> containers) throws IOException {
+
+		List<ModbusChannel> groupChannels = group.getChannels();
+		try {
+			if (groupChannels.size() > 1) {
+				try {
+					Value[] values = con.readChannelGroup(group);
+					long receiveTime = System.currentTimeMillis();
+					for (int i = 0; i < values.length; i++) {
+						setSampledValue(containers.get(groupChannels.get(i)), new SampledValue(values[i], receiveTime,
+								Quality.GOOD));
+					}
+					return;
+				} catch (ModbusSlaveException e) {
+					// read the channels separately below
+				} catch (ModbusException e) {
+					logger.warn("Unable to read channel group {}", group.getInfo(), e);
+					SampledValue bad = new SampledValue(null, System.currentTimeMillis(), Quality.BAD);
+					for (ModbusChannel channel : groupChannels) {
+						setSampledValue(containers.get(channel), bad);
+					}
+					return;
+				}
+			}
+
+			for (ModbusChannel channel : groupChannels) {
+				setSampledValue(containers.get(channel), channel.readValue(con));
+			}
+
+		} catch (NullPointerException e) {
+			throw new IOException("Unable to read channels: " + group.getInfo(), e);
+		}
+	}
+
+	private static void setSampledValue(List<SampledValueContainer> containers, SampledValue value) {
+		for (SampledValueContainer container : containers) {
+			container.setSampledValue(value);
+		}
 	}
 
 	/**
@@ -0,0 +1,103 @@
+/**
+ * This file is part of OGEMA.
+ *
+ * OGEMA is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3
+ * as published by the Free Software Foundation.
+ *
+ * OGEMA is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with OGEMA. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.ogema.drivers.modbus.tests;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import net.wimpi.modbus.procimg.InputRegister;
+import net.wimpi.modbus.procimg.SimpleRegister;
+
+import org.junit.Test;
+import org.ogema.core.channelmanager.measurements.Value;
+import org.ogema.driver.modbustcp.ModbusChannel;
+import org.ogema.driver.modbustcp.ModbusChannel.EAccess;
+import org.ogema.driver.modbustcp.ModbusChannelGroup;
+
+/**
+ * Tests the combination of channels into read requests, no device required.
+ */
+public class ModbusChannelGroupTest {
+
+	private static List<ModbusChannel> channels(String... addresses) {
+		List<ModbusChannel> channels = new ArrayList<ModbusChannel>();
+		for (String address : addresses) {
+			ModbusChannel channel = new ModbusChannel(address);
+			channel.update(EAccess.READ);
+			channels.add(channel);
+		}
+		return channels;
+	}
+
+	@Test
+	public void adjacentRegistersAreReadWithMaximumRequestSize() {
+		String[] addresses = new String[400];
+		for (int i = 0; i < addresses.length; i++) {
+			addresses[i] = "HOLDING_REGISTERS:" + i + ":SHORT";
+		}
+		List<ModbusChannelGroup> groups = ModbusChannelGroup.createGroups("test", channels(addresses), 0);
+
+		assertEquals(4, groups.size());
+		assertEquals(0, groups.get(0).getStartAddress());
+		assertEquals(ModbusChannelGroup.MAX_REGISTER_COUNT, groups.get(0).getCount());
+		assertEquals(375, groups.get(3).getStartAddress());
+		assertEquals(25, groups.get(3).getCount());
+	}
+
+	@Test
+	public void channelsAreGroupedByUnitIdAndFunctionCode() {
+		List<ModbusChannelGroup> groups = ModbusChannelGroup.createGroups("test", channels(
+				"1:HOLDING_REGISTERS:12:INT", "2:HOLDING_REGISTERS:12:FLOAT", "1:INPUT_REGISTERS:12:FLOAT",
+				"1:HOLDING_REGISTERS:10:FLOAT"), 0);
+
+		assertEquals(3, groups.size());
+		assertEquals(1, groups.get(0).getUnitId());
+		assertEquals(10, groups.get(0).getStartAddress());
+		assertEquals(4, groups.get(0).getCount());
+		assertEquals(2, groups.get(1).getUnitId());
+		assertEquals(1, groups.get(2).getChannels().size());
+	}
+
+	@Test
+	public void gapsLargerThanMaxGapSplitGroups() {
+		List<ModbusChannelGroup> groups = ModbusChannelGroup.createGroups("test", channels("COILS:0:BOOLEAN",
+				"COILS:5:BOOLEAN", "COILS:20:BOOLEAN"), 8);
+
+		assertEquals(2, groups.size());
+		assertEquals(6, groups.get(0).getCount());
+		assertEquals(20, groups.get(1).getStartAddress());
+	}
+
+	@Test
+	public void registersAreAssignedToChannels() {
+		List<ModbusChannelGroup> groups = ModbusChannelGroup.createGroups("test", channels(
+				"HOLDING_REGISTERS:102:SHORT", "HOLDING_REGISTERS:100:SHORT"), 1);
+		assertEquals(1, groups.size());
+		ModbusChannelGroup group = groups.get(0);
+		assertEquals(3, group.getCount());
+
+		InputRegister[] registers = { new SimpleRegister(7), new SimpleRegister(0), new SimpleRegister(9) };
+		Value[] values = group.getChannelValues(registers);
+		assertEquals(Arrays.asList(100, 102), Arrays.asList(group.getChannels().get(0).getStartAddress(), group
+				.getChannels().get(1).getStartAddress()));
+		assertEquals(7, values[0].getIntegerValue());
+		assertEquals(9, values[1].getIntegerValue());
+	}
+
+}
@@ -18,6 +18,7 @@ package org.ogema.tools.memoryschedules.tools;
 import org.ogema.tools.memoryschedules.tools.IndexInterval;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 
 import org.ogema.core.channelmanager.measurements.SampledValue;
@@ -232,6 +233,7 @@ public class SampledValueSortedList {
         if (lower == size) return new ArrayList<>();
 
         int upper = getIndexBelow(t1);
+        if (upper == NO_SUCH_INDEX) upper = 0;
         while (upper < size && m_values.get(upper).getTimestamp() < t1)
             ++upper;
 
@@ -291,6 +293,15 @@ public class SampledValueSortedList {
         return result;
     }
 
+    /**
+     * Gets an iterator over the entries in the time interval [startTime;endTime).
+     * Note: The iterator returns the actual entries held by this class, not
+     * copies, and is invalidated by any modification of this list.
+     */
+    public Iterator<SampledValue> iterator(long startTime, long endTime) {
+        return getSublist(startTime, endTime).iterator();
+    }
+
     public List<SampledValue> getValues(long startTime, long endTime) {
         final List<SampledValue> sublist = getSublist(startTime, endTime);
         final List<SampledValue> result = new ArrayList<>(sublist.size());
@@ -17,6 +17,7 @@ package org.ogema.tools.timeseries.implementations;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
 import org.ogema.core.channelmanager.measurements.FloatValue;
 
@@ -255,6 +256,11 @@ public class ArrayTimeSeries implements MemoryTimeSeries {
 		return m_values.getValues(startTime, endTime);
 	}
 
+	@Override
+	public Iterator<SampledValue> iterator(long startTime, long endTime) {
+		return new CopyingIterator(m_values.iterator(startTime, endTime));
+	}
+
 	@Override
     public void shiftTimestamps(long dt) {
         final List<SampledValue> shiftedValues = new ArrayList<>(m_values.getValues().size());
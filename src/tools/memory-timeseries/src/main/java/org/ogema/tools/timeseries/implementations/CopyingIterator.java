@@ -0,0 +1,47 @@
+/**
+ * This file is part of OGEMA.
+ *
+ * OGEMA is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3
+ * as published by the Free Software Foundation.
+ *
+ * OGEMA is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with OGEMA. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.ogema.tools.timeseries.implementations;
+
+import java.util.Iterator;
+
+import org.ogema.core.channelmanager.measurements.SampledValue;
+
+/**
+ * Read-only iterator returning copies of the entries of an underlying iterator over the entries of a time series.
+ */
+class CopyingIterator implements Iterator<SampledValue> {
+
+	private final Iterator<SampledValue> m_values;
+
+	CopyingIterator(Iterator<SampledValue> values) {
+		m_values = values;
+	}
+
+	@Override
+	public boolean hasNext() {
+		return m_values.hasNext();
+	}
+
+	@Override
+	public SampledValue next() {
+		return new SampledValue(m_values.next());
+	}
+
+	@Override
+	public void remove() {
+		throw new UnsupportedOperationException("Time series iterators are read-only.");
+	}
+}
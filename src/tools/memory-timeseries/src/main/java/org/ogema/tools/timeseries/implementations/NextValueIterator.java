@@ -0,0 +1,79 @@
+/**
+ * This file is part of OGEMA.
+ *
+ * OGEMA is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3
+ * as published by the Free Software Foundation.
+ *
+ * OGEMA is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with OGEMA. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.ogema.tools.timeseries.implementations;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.ogema.core.channelmanager.measurements.SampledValue;
+
+/**
+ * Iterator over the entries of a time series in the interval [startTime; endTime) that looks up each entry only when
+ * it is requested. It keeps no reference to the entries of the time series, so it can be used for time series that
+ * are modified concurrently, as long as {@link #findNextValue(long, long)} is synchronized appropriately.
+ */
+public abstract class NextValueIterator implements Iterator<SampledValue> {
+
+	private final long m_endTime;
+	private long m_time;
+	private SampledValue m_next;
+	private boolean m_done;
+
+	public NextValueIterator(long startTime, long endTime) {
+		m_time = startTime;
+		m_endTime = endTime;
+		m_done = (endTime <= startTime);
+	}
+
+	/**
+	 * Gets the entry with the smallest timestamp t with {@code time <= t < endTime}.
+	 * 
+	 * @return a copy of the entry, or null if no such entry exists.
+	 */
+	protected abstract SampledValue findNextValue(long time, long endTime);
+
+	@Override
+	public boolean hasNext() {
+		if (m_next == null && !m_done) {
+			final SampledValue next = findNextValue(m_time, m_endTime);
+			if (next == null || next.getTimestamp() >= m_endTime) {
+				m_done = true;
+			}
+			else {
+				m_next = next;
+				if (next.getTimestamp() == Long.MAX_VALUE)
+					m_done = true;
+				else
+					m_time = next.getTimestamp() + 1;
+			}
+		}
+		return m_next != null;
+	}
+
+	@Override
+	public SampledValue next() {
+		if (!hasNext())
+			throw new NoSuchElementException();
+		final SampledValue result = m_next;
+		m_next = null;
+		return result;
+	}
+
+	@Override
+	public void remove() {
+		throw new UnsupportedOperationException("Time series iterators are read-only.");
+	}
+}
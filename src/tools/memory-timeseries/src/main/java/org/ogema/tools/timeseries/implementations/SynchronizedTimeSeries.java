@@ -16,6 +16,7 @@
 package org.ogema.tools.timeseries.implementations;
 
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
 
 import org.ogema.core.channelmanager.measurements.SampledValue;
@@ -161,6 +162,24 @@ public class SynchronizedTimeSeries implements MemoryTimeSeries {
 		return m_schedule.getValues(startTime, endTime);
 	}
 
+	/**
+	 * {@inheritDoc} The returned iterator looks up each entry separately while holding the lock of this, so the time
+	 * series may be modified during the iteration.
+	 */
+	@Override
+	public Iterator<SampledValue> iterator(long startTime, long endTime) {
+		return new NextValueIterator(startTime, endTime) {
+
+			@Override
+			protected SampledValue findNextValue(long time, long endTime) {
+				synchronized (SynchronizedTimeSeries.this) {
+					final Iterator<SampledValue> it = m_schedule.iterator(time, endTime);
+					return it.hasNext() ? it.next() : null;
+				}
+			}
+		};
+	}
+
 	@Override
 	public InterpolationMode getInterpolationMode() {
 		return m_schedule.getInterpolationMode();
@@ -18,6 +18,7 @@ package org.ogema.tools.timeseries.implementations;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.NavigableSet;
 import java.util.SortedSet;
@@ -273,6 +274,14 @@ public class TreeTimeSeries implements MemoryTimeSeries {
 		return result;
 	}
 
+	@Override
+	public Iterator<SampledValue> iterator(long startTime, long endTime) {
+		final SortedSet<SampledValue> elements = getSubset(startTime, endTime);
+		if (elements == null)
+			return Collections.<SampledValue> emptyIterator();
+		return new CopyingIterator(elements.iterator());
+	}
+
 	@Override
 	public Class<? extends Value> getValueType() {
 		return m_type;
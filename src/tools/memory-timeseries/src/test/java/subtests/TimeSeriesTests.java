@@ -40,6 +40,7 @@ package subtests;
  * All Rights reserved
  */
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 
 import junit.framework.Assert;
@@ -51,6 +52,7 @@ import org.ogema.core.channelmanager.measurements.Value;
 import org.ogema.core.timeseries.InterpolationMode;
 import org.ogema.core.timeseries.TimeSeries;
 import org.ogema.tools.timeseries.api.MemoryTimeSeries;
+import org.ogema.tools.timeseries.implementations.SynchronizedTimeSeries;
 
 /**
  * Tests for the functionalities defined in the TimeSeries interface. This is
@@ -130,6 +132,7 @@ public abstract class TimeSeriesTests {
 		testReplaceValueFixedStep();
 		testAddValuesWorks();
 		testReplaceValuesWorks();
+		testIteratorMatchesGetValues();
 	}
 
 	/**
@@ -261,6 +264,35 @@ public abstract class TimeSeriesTests {
         testEquality(values1, entries);
     }
 
+	/**
+	 * Tests that the iterators of the time series and of a synchronized wrapper
+	 * return the same entries as getValues.
+	 */
+	public void testIteratorMatchesGetValues() {
+		m_timeSeries.deleteValues();
+		for (int i = 0; i < 20; ++i) {
+			m_timeSeries.addValue(10 * i, getValue(i));
+		}
+		final long[][] intervals = { { Long.MIN_VALUE, Long.MAX_VALUE }, { -100, -50 }, { -100, 5 }, { 0, 10 },
+				{ 15, 105 }, { 50, 51 }, { 190, 1000 }, { 300, 400 } };
+		final SynchronizedTimeSeries synchronizedTimeSeries = new SynchronizedTimeSeries(m_timeSeries);
+		for (long[] interval : intervals) {
+			final List<SampledValue> expected = m_timeSeries.getValues(interval[0], interval[1]);
+			testEquality(expected, toList(m_timeSeries.iterator(interval[0], interval[1])));
+			testEquality(expected, toList(synchronizedTimeSeries.iterator(interval[0], interval[1])));
+		}
+		Assert.assertFalse(m_timeSeries.iterator(100, 100).hasNext());
+		Assert.assertFalse(synchronizedTimeSeries.iterator(100, 50).hasNext());
+	}
+
+	private static List<SampledValue> toList(Iterator<SampledValue> it) {
+		final List<SampledValue> result = new ArrayList<>();
+		while (it.hasNext()) {
+			result.add(it.next());
+		}
+		return result;
+	}
+
 	public void testReplaceValuesWorks() {
         m_timeSeries.deleteValues();
         List<SampledValue> values1 = new ArrayList<>();